@@ -1,12 +1,27 @@
 package com.turtletracker;
 
+import com.turtletracker.command.TurtleTrackerCommands;
+import com.turtletracker.config.TurtleTrackerConfig;
+import com.turtletracker.event.BlockUpdateCallback;
+import com.turtletracker.network.TurtleSyncPayload;
+import com.turtletracker.render.DensityHeatmapOverlay;
 import com.turtletracker.render.TurtleHighlightRenderer;
 import com.turtletracker.render.TurtleUIOverlay;
+import com.turtletracker.stats.TrackerStats;
 import com.turtletracker.tracker.TurtleTracker;
 import net.fabricmc.api.ClientModInitializer;
+import net.fabricmc.fabric.api.client.command.v2.ClientCommandRegistrationCallback;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientChunkEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientEntityEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientLifecycleEvents;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientWorldEvents;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
 import net.fabricmc.fabric.api.client.rendering.v1.HudRenderCallback;
 import net.fabricmc.fabric.api.client.rendering.v1.WorldRenderEvents;
+import net.minecraft.client.Minecraft;
+import net.minecraft.world.phys.Vec3;
 
 /**
  * Client-side initialization for the Turtle Tracker mod
@@ -25,6 +40,9 @@ public class TurtleTrackerClient implements ClientModInitializer {
     
     // Instance of our highlight renderer for drawing lines and highlights
     private static TurtleHighlightRenderer highlightRenderer;
+    
+    // Turtle density map in the HUD corner (null when the heatmap is off)
+    private static DensityHeatmapOverlay heatmapOverlay;
 
     /**
      * Client-side initialization method
@@ -34,10 +52,16 @@ public class TurtleTrackerClient implements ClientModInitializer {
     public void onInitializeClient() {
         TurtleTrackerMod.LOGGER.info("Initializing Turtle Tracker client-side features...");
         
+        // The config was loaded by the common initializer, which always runs first
+        TrackerStats.setEnabled(TurtleTrackerConfig.isInstrumentation());
+        
         // Initialize our main components
         turtleTracker = new TurtleTracker();
         uiOverlay = new TurtleUIOverlay();
         highlightRenderer = new TurtleHighlightRenderer();
+        if (turtleTracker.getDensityGrid() != null) {
+            heatmapOverlay = new DensityHeatmapOverlay();
+        }
         
         // Register event handlers
         registerEventHandlers();
@@ -51,13 +75,77 @@ public class TurtleTrackerClient implements ClientModInitializer {
      */
     @SuppressWarnings("deprecation")
     private void registerEventHandlers() {
+        // Keep the turtle and extra type indexes in sync with the entities the client is tracking
+        // so the tick update never has to sweep every entity around the player
+        ClientEntityEvents.ENTITY_LOAD.register((entity, world) ->
+            turtleTracker.getClassifier().onEntityLoad(entity, world));
+        ClientEntityEvents.ENTITY_UNLOAD.register((entity, world) ->
+            turtleTracker.getClassifier().onEntityUnload(entity, world));
+        
+        // Dimension changes and reconnects swap the client level - rebind the tracker to it
+        ClientWorldEvents.AFTER_CLIENT_WORLD_CHANGE.register((client, world) ->
+            turtleTracker.onLevelChanged(world));
+        ClientPlayConnectionEvents.DISCONNECT.register((handler, client) ->
+            turtleTracker.onLevelChanged(null));
+        
+        // Keep the voxel occlusion cache in step with loaded chunks and block changes
+        // Only the voxel backend and the async pipeline read it; vanilla clip users pay nothing
+        if (turtleTracker.usesSolidityCache()) {
+            ClientChunkEvents.CHUNK_LOAD.register((world, chunk) ->
+                turtleTracker.getSolidityCache().onChunkLoad(world, chunk));
+            ClientChunkEvents.CHUNK_UNLOAD.register((world, chunk) ->
+                turtleTracker.getSolidityCache().onChunkUnload(world, chunk));
+            BlockUpdateCallback.EVENT.register((level, pos, oldState, newState) ->
+                turtleTracker.getSolidityCache().onBlockChanged(level, pos, newState));
+        }
+        
+        // Block changes inside the search volumes wake the adaptive scan
+        BlockUpdateCallback.EVENT.register((level, pos, oldState, newState) ->
+            turtleTracker.onBlockChanged(level, pos));
+        
+        // Nests are indexed from chunk palettes on load and patched by block updates afterwards
+        if (TurtleTrackerConfig.isNestTracking()) {
+            ClientChunkEvents.CHUNK_LOAD.register((world, chunk) ->
+                turtleTracker.getNestTracker().onChunkLoad(world, chunk));
+            ClientChunkEvents.CHUNK_UNLOAD.register((world, chunk) ->
+                turtleTracker.getNestTracker().onChunkUnload(world, chunk));
+            BlockUpdateCallback.EVENT.register((level, pos, oldState, newState) ->
+                turtleTracker.getNestTracker().onBlockChanged(level, pos, oldState, newState));
+        }
+        
+        // Subscribe to the server companion when there is one and feed its frames to the tracker
+        if (turtleTracker.getServerFeed() != null) {
+            ClientPlayNetworking.registerGlobalReceiver(TurtleSyncPayload.TYPE, (payload, context) ->
+                turtleTracker.getServerFeed().onFrame(payload.data()));
+            ClientPlayConnectionEvents.JOIN.register((handler, sender, client) ->
+                turtleTracker.getServerFeed().onJoin());
+            ClientPlayConnectionEvents.DISCONNECT.register((handler, client) ->
+                turtleTracker.getServerFeed().onDisconnect());
+        }
+        
+        // Client-side diagnostics commands
+        ClientCommandRegistrationCallback.EVENT.register((dispatcher, registryAccess) ->
+            TurtleTrackerCommands.register(dispatcher, turtleTracker));
+        
+        // Stop the visibility worker threads and free render buffers when the game closes
+        ClientLifecycleEvents.CLIENT_STOPPING.register(client -> {
+            turtleTracker.shutdown();
+            highlightRenderer.close();
+            if (heatmapOverlay != null) {
+                heatmapOverlay.close();
+            }
+        });
+        
         // Register a client tick event to continuously update turtle tracking
         // This runs every game tick (20 times per second) on the client
+        // The tick's duration is measured for the quality governor
+        ClientTickEvents.START_CLIENT_TICK.register(client -> turtleTracker.onClientTickStart());
         ClientTickEvents.END_CLIENT_TICK.register(client -> {
             // Only update if we're in a world and the game isn't paused
             if (client.level != null && client.player != null && !client.isPaused()) {
                 turtleTracker.updateTurtleTracking(client);
             }
+            turtleTracker.onClientTickEnd();
         });
         
         // Register the HUD render callback to draw our UI overlay
@@ -65,14 +153,30 @@ public class TurtleTrackerClient implements ClientModInitializer {
         // Note: HudRenderCallback is deprecated in favor of HudLayerRegistrationCallback
         // but we'll use it for simplicity in this version
         HudRenderCallback.EVENT.register((guiGraphics, tickDelta) -> {
-            uiOverlay.render(guiGraphics, turtleTracker.getTurtleCount());
+            uiOverlay.render(guiGraphics, turtleTracker);
+            if (heatmapOverlay != null && !Minecraft.getInstance().getDebugOverlay().showDebugScreen()) {
+                heatmapOverlay.render(guiGraphics, turtleTracker.getDensityGrid());
+            }
+        });
+        
+        // Frame-to-frame time for the quality governor
+        WorldRenderEvents.START.register(context -> turtleTracker.onFrameRendered(Minecraft.getInstance()));
+        
+        // Copy the camera frustum each frame; the next tick culls off-screen turtles with it
+        // The renderer's visible sections are copied too, but only when the tracker asked for them
+        WorldRenderEvents.AFTER_SETUP.register(context -> {
+            Vec3 cameraPos = context.camera().getPosition();
+            turtleTracker.getFrustumCuller().capture(context.projectionMatrix(), context.positionMatrix(),
+                cameraPos.x, cameraPos.y, cameraPos.z);
+            turtleTracker.getSectionCuller().capture(context.worldRenderer());
         });
         
         // Register world render events for drawing highlights and lines to turtles
         // AFTER_ENTITIES ensures we render on top of entities but before UI elements
         WorldRenderEvents.AFTER_ENTITIES.register(context -> {
-            highlightRenderer.render(context, turtleTracker.getVisibleTurtles(), 
-                                   turtleTracker.getAllTurtles());
+            highlightRenderer.render(context, turtleTracker.getSnapshot(), turtleTracker.getLastKnownPositions(),
+                turtleTracker.getNestTracker().getIndex(), turtleTracker.getTypeTrackers(),
+                turtleTracker.getRemoteSnapshot(), turtleTracker.getGovernor(), turtleTracker.getFrustumCuller());
         });
     }
     
@@ -0,0 +1,358 @@
+package com.turtletracker.command;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.context.CommandContext;
+import com.turtletracker.config.TurtleTrackerConfig;
+import com.turtletracker.core.LastKnownPositions;
+import com.turtletracker.core.LatencyHistogram;
+import com.turtletracker.core.NestIndex;
+import com.turtletracker.core.QualityGovernor;
+import com.turtletracker.core.ScanScheduler;
+import com.turtletracker.core.SpatialGrid;
+import com.turtletracker.core.VisibilityScheduler;
+import com.turtletracker.core.history.SightingIndex;
+import com.turtletracker.core.history.SightingStore;
+import com.turtletracker.stats.TrackerStats;
+import com.turtletracker.tracker.FrustumCuller;
+import com.turtletracker.tracker.NestTracker;
+import com.turtletracker.tracker.OcclusionBenchmark;
+import com.turtletracker.tracker.SectionOcclusionCuller;
+import com.turtletracker.tracker.SectionSolidityCache;
+import com.turtletracker.tracker.ServerTurtleFeed;
+import com.turtletracker.tracker.TurtleTracker;
+import com.turtletracker.tracker.TypeTracker;
+import net.fabricmc.fabric.api.client.command.v2.FabricClientCommandSource;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.client.Minecraft;
+import net.minecraft.network.chat.Component;
+import net.minecraft.world.entity.animal.Turtle;
+import net.minecraft.world.phys.Vec3;
+import net.minecraft.world.phys.shapes.CollisionContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static net.fabricmc.fabric.api.client.command.v2.ClientCommandManager.argument;
+import static net.fabricmc.fabric.api.client.command.v2.ClientCommandManager.literal;
+
+/**
+ * Client-side {@code /turtletracker} command tree
+ * Diagnostics only - nothing here changes what the tracker shows
+ */
+public final class TurtleTrackerCommands {
+
+    // Random sight lines added to the occlusion benchmark corpus by default
+    private static final int DEFAULT_BENCHMARK_RAYS = 2000;
+
+    // Fixed seed so repeated runs at the same spot test the same rays
+    private static final long BENCHMARK_SEED = 0x7475727431L;
+
+    // Trace recordings go to <game dir>/turtle_tracker_traces/trace-<timestamp>.ttrace
+    private static final String TRACE_DIRECTORY = "turtle_tracker_traces";
+    private static final DateTimeFormatter TRACE_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    // Sighting history lookups: default search radius and how many turtles to list
+    private static final int DEFAULT_HISTORY_RADIUS = 1024;
+    private static final int HISTORY_RESULTS = 8;
+
+    // Nest lookups: default search radius and how many nests to list
+    private static final int DEFAULT_NEST_RADIUS = 128;
+    private static final int NEST_RESULTS = 8;
+
+    private TurtleTrackerCommands() {
+    }
+
+    /**
+     * Register the command tree
+     *
+     * @param dispatcher The client command dispatcher
+     * @param tracker The tracker the commands inspect
+     */
+    public static void register(CommandDispatcher<FabricClientCommandSource> dispatcher, TurtleTracker tracker) {
+        dispatcher.register(literal("turtletracker")
+            .then(literal("stats")
+                .executes(context -> showStats(context, tracker))
+                .then(literal("reset")
+                    .executes(TurtleTrackerCommands::resetStats))
+                .then(literal("on")
+                    .executes(context -> setInstrumentation(context, true)))
+                .then(literal("off")
+                    .executes(context -> setInstrumentation(context, false))))
+            .then(literal("benchmark")
+                .then(literal("occlusion")
+                    .executes(context -> runOcclusionBenchmark(context, tracker, DEFAULT_BENCHMARK_RAYS))
+                    .then(argument("rays", IntegerArgumentType.integer(0, 100_000))
+                        .executes(context -> runOcclusionBenchmark(context, tracker,
+                            IntegerArgumentType.getInteger(context, "rays"))))))
+            .then(literal("trace")
+                .then(literal("start")
+                    .executes(context -> startTrace(context, tracker)))
+                .then(literal("stop")
+                    .executes(context -> stopTrace(context, tracker))))
+            .then(literal("history")
+                .executes(context -> showHistory(context, tracker, DEFAULT_HISTORY_RADIUS))
+                .then(argument("radius", IntegerArgumentType.integer(1, 1_000_000))
+                    .executes(context -> showHistory(context, tracker,
+                        IntegerArgumentType.getInteger(context, "radius"))))
+                .then(literal("compact")
+                    .executes(context -> compactHistory(context, tracker))))
+            .then(literal("nests")
+                .executes(context -> showNests(context, tracker, DEFAULT_NEST_RADIUS))
+                .then(argument("radius", IntegerArgumentType.integer(1, 4096))
+                    .executes(context -> showNests(context, tracker,
+                        IntegerArgumentType.getInteger(context, "radius"))))));
+    }
+
+    /**
+     * Print the last tick's tracking and culling figures
+     */
+    private static int showStats(CommandContext<FabricClientCommandSource> context, TurtleTracker tracker) {
+        FabricClientCommandSource source = context.getSource();
+        FrustumCuller culler = tracker.getFrustumCuller();
+        VisibilityScheduler scheduler = tracker.getVisibilityScheduler();
+        ScanScheduler scanScheduler = tracker.getScanScheduler();
+        LastKnownPositions lastKnown = tracker.getLastKnownPositions();
+        NestTracker nests = tracker.getNestTracker();
+
+        source.sendFeedback(Component.literal(String.format(
+            "Turtles: %d known, %d in range, %d visible",
+            tracker.getTurtleIndex().size(), tracker.getTurtleCount(), tracker.getSnapshot().visibleCount())));
+        for (TypeTracker typeTracker : tracker.getTypeTrackers()) {
+            source.sendFeedback(Component.literal(String.format(
+                "%s: %d known, %d in range, %d visible", typeTracker.getSettings().entityType(),
+                typeTracker.getIndex().size(), typeTracker.getSnapshot().size(),
+                typeTracker.getSnapshot().visibleCount())));
+        }
+        ServerTurtleFeed feed = tracker.getServerFeed();
+        if (feed != null && feed.isSubscribed()) {
+            source.sendFeedback(Component.literal(String.format(
+                "Server sync: %d reported, %d in range beyond loaded entities; %d frames, %d rejected",
+                feed.getRemoteCount(), feed.getSnapshot().size(), feed.getFramesApplied(), feed.getMalformedFrames())));
+        }
+        source.sendFeedback(Component.literal(String.format(
+            "Last known positions: %d live, %d ghosts, %d of %d slots used",
+            lastKnown.liveCount(), lastKnown.ghostCount(), lastKnown.size(), lastKnown.capacity())));
+        source.sendFeedback(Component.literal(String.format(
+            "Nests: %d in %d chunks; %d of %d chunk loads scanned (%d sections), %d pending, %d egg updates",
+            nests.getIndex().size(), nests.getIndex().chunkCount(), nests.getChunksScanned(), nests.getChunksLoaded(),
+            nests.getSectionsScanned(), nests.getPendingScans(), nests.getBlockUpdates())));
+        QualityGovernor governor = tracker.getGovernor();
+        if (governor.isEnabled()) {
+            source.sendFeedback(Component.literal(String.format(
+                "Quality: level %d of %d (%s%s); frames %.1f ms avg of %.1f ms budget, ticks %.1f ms; %d down, %d up",
+                governor.getLevel(), QualityGovernor.MAX_LEVEL, QualityGovernor.getLevelName(governor.getLevel()),
+                governor.isHolding() ? ", holding: lower quality did not help" : "",
+                governor.getAverageFrameMillis(), governor.getFrameBudgetMillis(), governor.getAverageTickMillis(),
+                governor.getStepsDown(), governor.getStepsUp())));
+        } else {
+            source.sendFeedback(Component.literal("Quality: governor off, full quality"));
+        }
+        source.sendFeedback(Component.literal(String.format(
+            "Scan: %.1f/s effective, every %d ticks while idle, last %d ticks ago (max %d)",
+            scanScheduler.getEffectiveRate(), scanScheduler.getInterval(),
+            scanScheduler.getTicksSinceScan(), scanScheduler.getMaxStaleTicks())));
+        source.sendFeedback(Component.literal(String.format(
+            "Frustum: %d of %d off-screen last tick (raycasts avoided), %d total",
+            culler.getLastTickCulled(), culler.getLastTickTested(), culler.getTotalCulled())));
+        SectionOcclusionCuller sectionCuller = tracker.getSectionCuller();
+        if (TurtleTrackerConfig.isSectionCulling()) {
+            source.sendFeedback(Component.literal(String.format(
+                "Sections: %d of %d on-screen in occluded sections last tick (raycasts avoided), %d total; %d sections visible",
+                sectionCuller.getLastTickCulled(), sectionCuller.getLastTickTested(), sectionCuller.getTotalCulled(),
+                sectionCuller.getVisibleSectionCount())));
+        }
+        source.sendFeedback(Component.literal(String.format(
+            "Visibility: %d raycasts, %d deferred last tick, %.1f%% cache hits",
+            scheduler.getLastTickRaycasts(), scheduler.getLastTickDeferred(), scheduler.getCacheHitRate() * 100.0)));
+
+        if (!TrackerStats.isEnabled()) {
+            source.sendFeedback(Component.literal("Latency histograms: off (/turtletracker stats on)"));
+            return 1;
+        }
+        source.sendFeedback(Component.literal("Latency (µs): samples, p50, p99, max"));
+        for (TrackerStats.Phase phase : TrackerStats.Phase.values()) {
+            LatencyHistogram histogram = TrackerStats.getHistogram(phase);
+            source.sendFeedback(Component.literal(String.format(
+                "  %s: %d, %.1f, %.1f, %.1f", phase.getLabel(), histogram.getCount(),
+                histogram.getPercentile(50.0) / 1000.0, histogram.getPercentile(99.0) / 1000.0,
+                histogram.getMax() / 1000.0)));
+        }
+        return 1;
+    }
+
+    /**
+     * Clear the latency histograms
+     */
+    private static int resetStats(CommandContext<FabricClientCommandSource> context) {
+        TrackerStats.reset();
+        context.getSource().sendFeedback(Component.literal("Latency histograms cleared"));
+        return 1;
+    }
+
+    /**
+     * Turn histogram and Flight Recorder collection on or off until the game restarts
+     */
+    private static int setInstrumentation(CommandContext<FabricClientCommandSource> context, boolean enabled) {
+        TrackerStats.setEnabled(enabled);
+        context.getSource().sendFeedback(Component.literal("Latency histograms " + (enabled ? "on" : "off")));
+        return 1;
+    }
+
+    /**
+     * Start recording a replayable trace of the tracker's inputs and output
+     */
+    private static int startTrace(CommandContext<FabricClientCommandSource> context, TurtleTracker tracker) {
+        FabricClientCommandSource source = context.getSource();
+        Path directory = FabricLoader.getInstance().getGameDir().resolve(TRACE_DIRECTORY);
+        Path file = directory.resolve("trace-" + LocalDateTime.now().format(TRACE_NAME_FORMAT) + ".ttrace");
+        try {
+            Files.createDirectories(directory);
+            tracker.startTrace(file);
+        } catch (IOException e) {
+            source.sendError(Component.literal("Could not start trace: " + e.getMessage()));
+            return 0;
+        }
+        source.sendFeedback(Component.literal("Recording trace to " + file.getFileName()));
+        return 1;
+    }
+
+    /**
+     * Finish the current trace recording
+     */
+    private static int stopTrace(CommandContext<FabricClientCommandSource> context, TurtleTracker tracker) {
+        long frames = tracker.stopTrace();
+        if (frames < 0) {
+            context.getSource().sendError(Component.literal("No trace is being recorded"));
+            return 0;
+        }
+        context.getSource().sendFeedback(Component.literal("Trace finished: " + frames + " ticks recorded"));
+        return 1;
+    }
+
+    /**
+     * List where the nearest turtles were last seen, including ones long out of range
+     */
+    private static int showHistory(CommandContext<FabricClientCommandSource> context, TurtleTracker tracker,
+                                   int radius) {
+        FabricClientCommandSource source = context.getSource();
+        SightingStore store = tracker.getSightingHistory().getStore();
+        if (store == null || source.getClient().level == null) {
+            source.sendError(Component.literal("Sighting history is off or not in a world"));
+            return 0;
+        }
+
+        SightingIndex index = store.getIndex();
+        SpatialGrid.QueryResult result = new SpatialGrid.QueryResult();
+        index.findNearest(source.getPosition().x, source.getPosition().y, source.getPosition().z,
+            HISTORY_RESULTS, radius, result);
+        long now = source.getClient().level.getGameTime();
+
+        source.sendFeedback(Component.literal(String.format("%d turtles remembered, %d log records%s",
+            index.size(), store.getLogRecords(), store.isLoaded() ? "" : " (still loading)")));
+        if (result.size() == 0) {
+            source.sendFeedback(Component.literal("  none within " + radius + " blocks"));
+        }
+        for (int i = 0; i < result.size(); i++) {
+            int slot = result.id(i);
+            source.sendFeedback(Component.literal(String.format("  %.0fm at %.0f %.0f %.0f, seen %s ago",
+                Math.sqrt(result.distanceSqr(i)), index.x(slot), index.y(slot), index.z(slot),
+                formatAge(now - index.tick(slot)))));
+        }
+        return 1;
+    }
+
+    /**
+     * Rewrite the sighting log keeping only the latest position of every turtle
+     */
+    private static int compactHistory(CommandContext<FabricClientCommandSource> context, TurtleTracker tracker) {
+        SightingStore store = tracker.getSightingHistory().getStore();
+        if (store == null || !store.compact()) {
+            context.getSource().sendError(Component.literal("Sighting history is off or still loading"));
+            return 0;
+        }
+        context.getSource().sendFeedback(Component.literal(
+            "Compacting sighting log to " + store.getLogRecords() + " records"));
+        return 1;
+    }
+
+    /**
+     * List the nearest turtle egg nests in loaded chunks
+     */
+    private static int showNests(CommandContext<FabricClientCommandSource> context, TurtleTracker tracker, int radius) {
+        FabricClientCommandSource source = context.getSource();
+        NestIndex index = tracker.getNestTracker().getIndex();
+        SpatialGrid.QueryResult result = new SpatialGrid.QueryResult();
+        index.findNearest(source.getPosition().x, source.getPosition().y, source.getPosition().z,
+            NEST_RESULTS, radius, result);
+
+        source.sendFeedback(Component.literal(String.format("%d nests in loaded chunks", index.size())));
+        if (result.size() == 0) {
+            source.sendFeedback(Component.literal("  none within " + radius + " blocks"));
+        }
+        for (int i = 0; i < result.size(); i++) {
+            int id = result.id(i);
+            source.sendFeedback(Component.literal(String.format("  %.0fm at %d %d %d, %d eggs, hatch stage %d of 2",
+                Math.sqrt(result.distanceSqr(i)), index.x(id), index.y(id), index.z(id), index.eggs(id),
+                index.hatch(id))));
+        }
+        return 1;
+    }
+
+    private static String formatAge(long ticks) {
+        long seconds = Math.max(0, ticks) / 20;
+        if (seconds < 60) {
+            return seconds + "s";
+        }
+        if (seconds < 3600) {
+            return (seconds / 60) + "m";
+        }
+        if (seconds < 86400) {
+            return (seconds / 3600) + "h " + (seconds / 60 % 60) + "m";
+        }
+        return (seconds / 86400) + "d " + (seconds / 3600 % 24) + "h";
+    }
+
+    /**
+     * Compare the voxel occlusion backend against vanilla clip from the player's current position
+     */
+    private static int runOcclusionBenchmark(CommandContext<FabricClientCommandSource> context,
+                                             TurtleTracker tracker, int rays) {
+        FabricClientCommandSource source = context.getSource();
+        Minecraft client = source.getClient();
+        if (client.level == null || client.player == null) {
+            source.sendError(Component.literal("Not in a world"));
+            return 0;
+        }
+
+        // The tracker's cache is only kept current when a visibility path reads it; otherwise use a fresh one
+        SectionSolidityCache cache = tracker.getSolidityCache();
+        if (!tracker.usesSolidityCache()) {
+            cache = new SectionSolidityCache();
+            cache.reset(client.level);
+        }
+
+        Vec3 eye = client.player.getEyePosition();
+        List<Vec3> turtleEyes = new ArrayList<>();
+        for (Turtle turtle : tracker.getAllTurtles()) {
+            turtleEyes.add(new Vec3(turtle.getX(), turtle.getY() + turtle.getEyeHeight(), turtle.getZ()));
+        }
+        OcclusionBenchmark.Result result = OcclusionBenchmark.run(client.level, CollisionContext.of(client.player),
+            cache, eye, OcclusionBenchmark.corpus(eye, turtleEyes, rays, TurtleTracker.getSearchRadius(), BENCHMARK_SEED));
+
+        source.sendFeedback(Component.literal(String.format(
+            "Occlusion benchmark: %d rays, %.2f%% agreement", result.rays(), result.agreementRate() * 100.0)));
+        source.sendFeedback(Component.literal(String.format(
+            "  clip: %.0f ns/ray, %d clear", result.clipNanosPerRay(), result.clipVisible())));
+        source.sendFeedback(Component.literal(String.format(
+            "  voxel: %.0f ns/ray, %d clear", result.voxelNanosPerRay(), result.voxelVisible())));
+        source.sendFeedback(Component.literal(String.format(
+            "  only voxel hidden: %d, only clip hidden: %d", result.voxelOnlyHidden(), result.voxelOnlyVisible())));
+        return 1;
+    }
+}
@@ -0,0 +1,30 @@
+package com.turtletracker.event;
+
+import net.fabricmc.fabric.api.event.Event;
+import net.fabricmc.fabric.api.event.EventFactory;
+import net.minecraft.client.multiplayer.ClientLevel;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.block.state.BlockState;
+
+/**
+ * Fired on the client thread whenever a block in the client level changes
+ * This covers single block updates, section updates and the client's own predictions
+ * Fabric API has no client-side block change event, so this is raised from a mixin
+ */
+public interface BlockUpdateCallback {
+
+    Event<BlockUpdateCallback> EVENT = EventFactory.createArrayBacked(BlockUpdateCallback.class,
+        listeners -> (level, pos, oldState, newState) -> {
+            for (BlockUpdateCallback listener : listeners) {
+                listener.onBlockUpdated(level, pos, oldState, newState);
+            }
+        });
+
+    /**
+     * @param level The client level the block changed in
+     * @param pos Position of the changed block (may be mutable - copy it if you keep it)
+     * @param oldState The previous block state
+     * @param newState The new block state
+     */
+    void onBlockUpdated(ClientLevel level, BlockPos pos, BlockState oldState, BlockState newState);
+}
@@ -0,0 +1,30 @@
+package com.turtletracker.event;
+
+import com.turtletracker.core.LifecycleDelta;
+import net.fabricmc.fabric.api.event.Event;
+import net.fabricmc.fabric.api.event.EventFactory;
+
+/**
+ * Fired on the client thread after a tracker tick in which the tracked turtles changed
+ * Public API for other client mods: one batch per tick covering turtles that entered or
+ * left the search range, became visible or hidden, or moved past {@code eventMoveThreshold}
+ * since they were last reported. Nothing is fired on ticks where nothing changed.
+ *
+ * Every listener gets the same delta, computed once per tick. It is reused afterwards, so
+ * copy anything you need to keep. Snapshot indices resolve to entities through
+ * {@code level.getEntity(delta.snapshot().id(index))}.
+ */
+public interface TurtleLifecycleCallback {
+
+    Event<TurtleLifecycleCallback> EVENT = EventFactory.createArrayBacked(TurtleLifecycleCallback.class,
+        listeners -> delta -> {
+            for (TurtleLifecycleCallback listener : listeners) {
+                listener.onTurtlesChanged(delta);
+            }
+        });
+
+    /**
+     * @param delta What changed since the previous batch (only valid during the call)
+     */
+    void onTurtlesChanged(LifecycleDelta delta);
+}
@@ -0,0 +1,22 @@
+package com.turtletracker.mixin;
+
+import com.turtletracker.event.BlockUpdateCallback;
+import net.minecraft.client.multiplayer.ClientLevel;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.block.state.BlockState;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Raises {@link BlockUpdateCallback} from the client level's block update notification
+ */
+@Mixin(ClientLevel.class)
+public abstract class ClientLevelMixin {
+
+    @Inject(method = "sendBlockUpdated", at = @At("TAIL"))
+    private void turtleTracker$onBlockUpdated(BlockPos pos, BlockState oldState, BlockState newState, int flags, CallbackInfo ci) {
+        BlockUpdateCallback.EVENT.invoker().onBlockUpdated((ClientLevel) (Object) this, pos, oldState, newState);
+    }
+}
@@ -0,0 +1,17 @@
+package com.turtletracker.mixin;
+
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import net.minecraft.client.renderer.LevelRenderer;
+import net.minecraft.client.renderer.chunk.SectionRenderDispatcher;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+/**
+ * Exposes the sections the level renderer's occlusion graph left visible this frame
+ */
+@Mixin(LevelRenderer.class)
+public interface LevelRendererAccessor {
+
+    @Accessor("visibleSections")
+    ObjectArrayList<SectionRenderDispatcher.RenderSection> turtleTracker$getVisibleSections();
+}
@@ -0,0 +1,121 @@
+package com.turtletracker.render;
+
+import com.mojang.blaze3d.platform.NativeImage;
+import com.turtletracker.TurtleTrackerMod;
+import com.turtletracker.core.DensityGrid;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.gui.GuiGraphics;
+import net.minecraft.client.renderer.RenderType;
+import net.minecraft.client.renderer.texture.DynamicTexture;
+import net.minecraft.resources.ResourceLocation;
+
+/**
+ * Top-down turtle density map in the top-right corner of the HUD
+ *
+ * One texture pixel per {@link DensityGrid} cell, laid out the way the grid stores its
+ * window: as a ring, so a world cell always lands on the same pixel. Each frame only the
+ * cells the grid reports as changed are repainted, and the texture is only uploaded when
+ * there were any. Scrolling with the player costs nothing here; the map is drawn as up to
+ * four quads that start at the window's corner and wrap around the texture edges.
+ */
+public class DensityHeatmapOverlay {
+
+    private static final ResourceLocation TEXTURE_ID =
+        ResourceLocation.fromNamespaceAndPath(TurtleTrackerMod.MOD_ID, "density_heatmap");
+
+    private static final int MARGIN = 10;            // Distance from the top-right screen corner
+    private static final int BORDER_WIDTH = 1;
+    private static final int BACKGROUND_COLOR = 0x80000000; // Semi-transparent black, like the counter box
+    private static final int BORDER_COLOR = 0xFF00FF00;     // Green border, like the counter box
+    private static final int PLAYER_COLOR = 0xFFFFFFFF;
+
+    // Cell colours (ARGB) by turtle count: 1, 2-3, 4-7, 8 or more
+    private static final int[] DENSITY_COLORS = {0xA000AA00, 0xC0FFFF00, 0xE0FF8000, 0xF0FF2020};
+
+    private DynamicTexture texture;
+    private int textureSize;
+
+    // Repaints one cell; kept as a field so draining the grid does not allocate
+    private final DensityGrid.CellConsumer painter = this::paintCell;
+
+    /**
+     * Repaint the changed cells and draw the map
+     *
+     * @param guiGraphics The graphics context for rendering
+     * @param grid Density counts around the player
+     */
+    public void render(GuiGraphics guiGraphics, DensityGrid grid) {
+        int size = grid.size();
+        if (texture == null || textureSize != size) {
+            createTexture(size);
+        }
+        if (grid.drainDirty(painter) > 0) {
+            texture.upload();
+        }
+
+        Minecraft client = Minecraft.getInstance();
+        int x = client.getWindow().getGuiScaledWidth() - MARGIN - size;
+        int y = MARGIN;
+        guiGraphics.fill(x - BORDER_WIDTH, y - BORDER_WIDTH, x + size + BORDER_WIDTH, y + size + BORDER_WIDTH,
+            BORDER_COLOR);
+        guiGraphics.fill(x, y, x + size, y + size, BACKGROUND_COLOR);
+
+        // The window's first column and row sit at the ring origin; whatever lies past the
+        // texture edge continues from its other side
+        int originX = grid.originRingX();
+        int originZ = grid.originRingZ();
+        int firstWidth = size - originX;
+        int firstHeight = size - originZ;
+        blit(guiGraphics, x, y, originX, originZ, firstWidth, firstHeight);
+        blit(guiGraphics, x + firstWidth, y, 0, originZ, originX, firstHeight);
+        blit(guiGraphics, x, y + firstHeight, originX, 0, firstWidth, originZ);
+        blit(guiGraphics, x + firstWidth, y + firstHeight, 0, 0, originX, originZ);
+
+        // The player is always at the window centre
+        int centre = size / 2;
+        guiGraphics.fill(x + centre - 1, y + centre - 1, x + centre + 1, y + centre + 1, PLAYER_COLOR);
+    }
+
+    private void blit(GuiGraphics guiGraphics, int x, int y, int u, int v, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        guiGraphics.blit(RenderType::guiTextured, TEXTURE_ID, x, y, u, v, width, height, textureSize, textureSize);
+    }
+
+    private void createTexture(int size) {
+        close();
+        texture = new DynamicTexture(() -> "Turtle Tracker density heatmap", size, size, true);
+        textureSize = size;
+        Minecraft.getInstance().getTextureManager().register(TEXTURE_ID, texture);
+    }
+
+    private void paintCell(int ringX, int ringZ, int count) {
+        NativeImage pixels = texture.getPixels();
+        if (pixels != null) {
+            pixels.setPixel(ringX, ringZ, colorFor(count));
+        }
+    }
+
+    /**
+     * @return Cell colour (ARGB); empty cells are fully transparent
+     */
+    private static int colorFor(int count) {
+        if (count <= 0) {
+            return 0;
+        }
+        // Doubling buckets so a crowded beach does not wash out the sparse ones
+        int bucket = 31 - Integer.numberOfLeadingZeros(count);
+        return DENSITY_COLORS[Math.min(bucket, DENSITY_COLORS.length - 1)];
+    }
+
+    /**
+     * Release the texture (called when the client shuts down)
+     */
+    public void close() {
+        if (texture != null) {
+            Minecraft.getInstance().getTextureManager().release(TEXTURE_ID);
+            texture = null;
+        }
+    }
+}
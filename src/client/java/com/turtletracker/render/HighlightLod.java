@@ -0,0 +1,198 @@
+package com.turtletracker.render;
+
+import com.turtletracker.core.TrackerSnapshot;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Distance-based level of detail for the highlight markers
+ *
+ * Visible turtles close to the camera keep their full box, turtles at mid range become a
+ * small point marker and everything further away is merged per grid cell into one cluster
+ * marker with a count. The split is computed from a snapshot and a camera position and then
+ * reused until the caller decides it is out of date, so no per-frame work is done here.
+ */
+public class HighlightLod {
+
+    // Snapshot indices per tier
+    private int[] fullDetail = new int[64];
+    private int fullDetailCount = 0;
+    private int[] points = new int[64];
+    private int pointCount = 0;
+
+    // Clusters: centroid, member count and a ready-made label
+    private final Long2IntOpenHashMap clusterByCell = new Long2IntOpenHashMap();
+    private double[] clusterX = new double[16];
+    private double[] clusterY = new double[16];
+    private double[] clusterZ = new double[16];
+    private int[] clusterSize = new int[16];
+    private String[] clusterLabel = new String[16];
+    private int clusterCount = 0;
+
+    public HighlightLod() {
+        clusterByCell.defaultReturnValue(-1);
+    }
+
+    /**
+     * Split the visible turtles of a snapshot into detail tiers
+     *
+     * @param snapshot The snapshot to classify (nearest-first)
+     * @param cameraX Camera X
+     * @param cameraY Camera Y
+     * @param cameraZ Camera Z
+     * @param maxTurtles Only the nearest N visible turtles are considered
+     * @param fullDistance Turtles closer than this keep their full box
+     * @param pointDistance Turtles closer than this (but not full) get a point marker; the rest are clustered
+     * @param clusterCellSize Edge length of the grid cells far turtles are merged by
+     */
+    public void compute(TrackerSnapshot snapshot, double cameraX, double cameraY, double cameraZ, int maxTurtles,
+                        double fullDistance, double pointDistance, double clusterCellSize) {
+        clear();
+
+        double fullSqr = fullDistance * fullDistance;
+        double pointSqr = pointDistance * pointDistance;
+        int remaining = maxTurtles;
+
+        for (int i = 0; i < snapshot.size() && remaining > 0; i++) {
+            if (!snapshot.isVisible(i)) {
+                continue;
+            }
+            remaining--;
+
+            double dx = snapshot.x(i) - cameraX;
+            double dy = snapshot.y(i) - cameraY;
+            double dz = snapshot.z(i) - cameraZ;
+            double distanceSqr = dx * dx + dy * dy + dz * dz;
+
+            if (distanceSqr < fullSqr) {
+                fullDetail = append(fullDetail, fullDetailCount++, i);
+            } else if (distanceSqr < pointSqr) {
+                points = append(points, pointCount++, i);
+            } else {
+                addToCluster(snapshot, i, clusterCellSize);
+            }
+        }
+
+        // Turn sums into centroids and build the labels once per recompute
+        for (int c = 0; c < clusterCount; c++) {
+            clusterX[c] /= clusterSize[c];
+            clusterY[c] /= clusterSize[c];
+            clusterZ[c] /= clusterSize[c];
+            clusterLabel[c] = Integer.toString(clusterSize[c]);
+        }
+    }
+
+    /**
+     * Drop every tier (nothing is drawn until the next compute)
+     */
+    public void clear() {
+        fullDetailCount = 0;
+        pointCount = 0;
+        clusterCount = 0;
+        clusterByCell.clear();
+    }
+
+    private void addToCluster(TrackerSnapshot snapshot, int i, double cellSize) {
+        long cell = cellKey(
+            (int) Math.floor(snapshot.x(i) / cellSize),
+            (int) Math.floor(snapshot.y(i) / cellSize),
+            (int) Math.floor(snapshot.z(i) / cellSize));
+
+        int cluster = clusterByCell.get(cell);
+        if (cluster < 0) {
+            cluster = clusterCount++;
+            ensureClusterCapacity(clusterCount);
+            clusterByCell.put(cell, cluster);
+            clusterX[cluster] = 0.0;
+            clusterY[cluster] = 0.0;
+            clusterZ[cluster] = 0.0;
+            clusterSize[cluster] = 0;
+        }
+        clusterX[cluster] += snapshot.x(i);
+        clusterY[cluster] += snapshot.y(i) + snapshot.height(i) / 2.0;
+        clusterZ[cluster] += snapshot.z(i);
+        clusterSize[cluster]++;
+    }
+
+    private static long cellKey(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFF) << 42) | ((long) (z & 0x3FFFFF) << 20) | (y & 0xFFFFF);
+    }
+
+    private static int[] append(int[] array, int index, int value) {
+        if (index == array.length) {
+            array = Arrays.copyOf(array, array.length * 2);
+        }
+        array[index] = value;
+        return array;
+    }
+
+    private void ensureClusterCapacity(int size) {
+        if (clusterX.length >= size) {
+            return;
+        }
+        int newSize = clusterX.length * 2;
+        clusterX = Arrays.copyOf(clusterX, newSize);
+        clusterY = Arrays.copyOf(clusterY, newSize);
+        clusterZ = Arrays.copyOf(clusterZ, newSize);
+        clusterSize = Arrays.copyOf(clusterSize, newSize);
+        clusterLabel = Arrays.copyOf(clusterLabel, newSize);
+    }
+
+    /**
+     * @return Number of turtles drawn with a full box
+     */
+    public int fullDetailCount() {
+        return fullDetailCount;
+    }
+
+    /**
+     * @param n Index between 0 and fullDetailCount() - 1
+     * @return The snapshot index of that turtle
+     */
+    public int fullDetail(int n) {
+        return fullDetail[n];
+    }
+
+    /**
+     * @return Number of turtles drawn as a point marker
+     */
+    public int pointCount() {
+        return pointCount;
+    }
+
+    /**
+     * @param n Index between 0 and pointCount() - 1
+     * @return The snapshot index of that turtle
+     */
+    public int point(int n) {
+        return points[n];
+    }
+
+    public int clusterCount() {
+        return clusterCount;
+    }
+
+    public double clusterX(int c) {
+        return clusterX[c];
+    }
+
+    public double clusterY(int c) {
+        return clusterY[c];
+    }
+
+    public double clusterZ(int c) {
+        return clusterZ[c];
+    }
+
+    public int clusterSize(int c) {
+        return clusterSize[c];
+    }
+
+    /**
+     * @return The cluster's member count as text (built once per recompute)
+     */
+    public String clusterLabel(int c) {
+        return clusterLabel[c];
+    }
+}
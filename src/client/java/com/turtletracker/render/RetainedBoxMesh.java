@@ -0,0 +1,212 @@
+package com.turtletracker.render;
+
+import com.mojang.blaze3d.buffers.BufferType;
+import com.mojang.blaze3d.buffers.BufferUsage;
+import com.mojang.blaze3d.buffers.GpuBuffer;
+import com.mojang.blaze3d.pipeline.RenderTarget;
+import com.mojang.blaze3d.systems.RenderPass;
+import com.mojang.blaze3d.systems.RenderSystem;
+import com.mojang.blaze3d.vertex.BufferBuilder;
+import com.mojang.blaze3d.vertex.ByteBufferBuilder;
+import com.mojang.blaze3d.vertex.DefaultVertexFormat;
+import com.mojang.blaze3d.vertex.MeshData;
+import com.mojang.blaze3d.vertex.VertexFormat;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.RenderPipelines;
+import org.joml.Matrix4f;
+import org.joml.Matrix4fStack;
+
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+
+/**
+ * Highlight marker geometry (boxes and point crosses) kept on the GPU between frames
+ *
+ * Boxes are written once into a reusable vertex buffer, relative to an origin near the
+ * camera so float precision holds up far from world zero, and re-uploaded only when the
+ * caller rebuilds them. Every frame the whole set is drawn in one render pass with a
+ * translation from that origin to the current camera, without touching the shared
+ * immediate-mode buffers.
+ *
+ * Render thread only.
+ */
+public class RetainedBoxMesh implements AutoCloseable {
+
+    // Initial CPU staging size: 64 boxes of 12 lines (the builder grows as needed)
+    private static final int INITIAL_BYTES = DefaultVertexFormat.POSITION_COLOR_NORMAL.getVertexSize() * 4 * 12 * 64;
+
+    private final ByteBufferBuilder staging = new ByteBufferBuilder(INITIAL_BYTES);
+    private BufferBuilder builder;
+
+    // GPU side; reused while the new mesh fits
+    private GpuBuffer vertexBuffer;
+    private int vertexBufferCapacity = 0;
+    private int indexCount = 0;
+
+    // World position the vertices are relative to
+    private double originX;
+    private double originY;
+    private double originZ;
+
+    // Per-frame model-view: camera rotation plus the origin offset
+    private final Matrix4f modelView = new Matrix4f();
+
+    // Statistics
+    private long uploads = 0;
+
+    /**
+     * Start a new set of boxes, replacing whatever was uploaded before on {@link #upload()}
+     *
+     * @param originX World X the vertices will be relative to
+     * @param originY World Y the vertices will be relative to
+     * @param originZ World Z the vertices will be relative to
+     */
+    public void begin(double originX, double originY, double originZ) {
+        this.originX = originX;
+        this.originY = originY;
+        this.originZ = originZ;
+        builder = new BufferBuilder(staging, VertexFormat.Mode.LINES, DefaultVertexFormat.POSITION_COLOR_NORMAL);
+    }
+
+    /**
+     * Add a wireframe box in world coordinates (between {@link #begin} and {@link #upload})
+     */
+    public void addBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ,
+                       float r, float g, float b, float a) {
+        float x0 = (float) (minX - originX);
+        float y0 = (float) (minY - originY);
+        float z0 = (float) (minZ - originZ);
+        float x1 = (float) (maxX - originX);
+        float y1 = (float) (maxY - originY);
+        float z1 = (float) (maxZ - originZ);
+
+        // Bottom face edges
+        edge(x0, y0, z0, x1, y0, z0, r, g, b, a, 1.0f, 0.0f, 0.0f);
+        edge(x1, y0, z0, x1, y0, z1, r, g, b, a, 0.0f, 0.0f, 1.0f);
+        edge(x0, y0, z1, x1, y0, z1, r, g, b, a, 1.0f, 0.0f, 0.0f);
+        edge(x0, y0, z0, x0, y0, z1, r, g, b, a, 0.0f, 0.0f, 1.0f);
+
+        // Top face edges
+        edge(x0, y1, z0, x1, y1, z0, r, g, b, a, 1.0f, 0.0f, 0.0f);
+        edge(x1, y1, z0, x1, y1, z1, r, g, b, a, 0.0f, 0.0f, 1.0f);
+        edge(x0, y1, z1, x1, y1, z1, r, g, b, a, 1.0f, 0.0f, 0.0f);
+        edge(x0, y1, z0, x0, y1, z1, r, g, b, a, 0.0f, 0.0f, 1.0f);
+
+        // Vertical edges
+        edge(x0, y0, z0, x0, y1, z0, r, g, b, a, 0.0f, 1.0f, 0.0f);
+        edge(x1, y0, z0, x1, y1, z0, r, g, b, a, 0.0f, 1.0f, 0.0f);
+        edge(x1, y0, z1, x1, y1, z1, r, g, b, a, 0.0f, 1.0f, 0.0f);
+        edge(x0, y0, z1, x0, y1, z1, r, g, b, a, 0.0f, 1.0f, 0.0f);
+    }
+
+    /**
+     * Add a three-axis cross centred on a world position (a cheap point marker)
+     */
+    public void addCross(double x, double y, double z, double halfSize, float r, float g, float b, float a) {
+        float cx = (float) (x - originX);
+        float cy = (float) (y - originY);
+        float cz = (float) (z - originZ);
+        float h = (float) halfSize;
+
+        edge(cx - h, cy, cz, cx + h, cy, cz, r, g, b, a, 1.0f, 0.0f, 0.0f);
+        edge(cx, cy - h, cz, cx, cy + h, cz, r, g, b, a, 0.0f, 1.0f, 0.0f);
+        edge(cx, cy, cz - h, cx, cy, cz + h, r, g, b, a, 0.0f, 0.0f, 1.0f);
+    }
+
+    /**
+     * The lines shader widens each segment in screen space along its normal, so pass the edge direction
+     */
+    private void edge(float x0, float y0, float z0, float x1, float y1, float z1,
+                      float r, float g, float b, float a, float nx, float ny, float nz) {
+        builder.addVertex(x0, y0, z0).setColor(r, g, b, a).setNormal(nx, ny, nz);
+        builder.addVertex(x1, y1, z1).setColor(r, g, b, a).setNormal(nx, ny, nz);
+    }
+
+    /**
+     * Send the boxes added since {@link #begin} to the GPU
+     * The vertex buffer is only reallocated when the new mesh does not fit
+     */
+    public void upload() {
+        try (MeshData mesh = builder.build()) {
+            builder = null;
+            if (mesh == null) {
+                indexCount = 0;
+                return;
+            }
+
+            int bytes = mesh.vertexBuffer().remaining();
+            if (vertexBuffer == null || bytes > vertexBufferCapacity) {
+                if (vertexBuffer != null) {
+                    vertexBuffer.close();
+                }
+                // Leave headroom so a few more turtles don't force another allocation
+                vertexBufferCapacity = Math.max(bytes + bytes / 2, INITIAL_BYTES);
+                vertexBuffer = RenderSystem.getDevice().createBuffer(() -> "Turtle Tracker highlight boxes",
+                    BufferType.VERTICES, BufferUsage.DYNAMIC_WRITE, vertexBufferCapacity);
+            }
+            RenderSystem.getDevice().createCommandEncoder().writeToBuffer(vertexBuffer, mesh.vertexBuffer(), 0);
+            indexCount = mesh.drawState().indexCount();
+            uploads++;
+        }
+    }
+
+    /**
+     * Drop the current boxes without releasing the GPU buffer
+     */
+    public void clear() {
+        indexCount = 0;
+    }
+
+    /**
+     * Draw every uploaded box in a single call
+     *
+     * @param cameraRotation The frame's camera rotation matrix (WorldRenderContext#positionMatrix)
+     * @param cameraX Camera X in world coordinates
+     * @param cameraY Camera Y in world coordinates
+     * @param cameraZ Camera Z in world coordinates
+     */
+    public void draw(Matrix4f cameraRotation, double cameraX, double cameraY, double cameraZ) {
+        if (indexCount == 0 || vertexBuffer == null) {
+            return;
+        }
+
+        modelView.set(cameraRotation).translate(
+            (float) (originX - cameraX), (float) (originY - cameraY), (float) (originZ - cameraZ));
+
+        RenderSystem.AutoStorageIndexBuffer indices = RenderSystem.getSequentialBuffer(VertexFormat.Mode.LINES);
+        GpuBuffer indexBuffer = indices.getBuffer(indexCount);
+        RenderTarget target = Minecraft.getInstance().getMainRenderTarget();
+
+        Matrix4fStack modelViewStack = RenderSystem.getModelViewStack();
+        modelViewStack.pushMatrix();
+        modelViewStack.set(modelView);
+        try (RenderPass pass = RenderSystem.getDevice().createCommandEncoder().createRenderPass(
+                target.getColorTexture(), OptionalInt.empty(), target.getDepthTexture(), OptionalDouble.empty())) {
+            pass.setPipeline(RenderPipelines.LINES);
+            pass.setVertexBuffer(0, vertexBuffer);
+            pass.setIndexBuffer(indexBuffer, indices.type());
+            pass.drawIndexed(0, indexCount);
+        } finally {
+            modelViewStack.popMatrix();
+        }
+    }
+
+    /**
+     * @return Number of uploads since startup (one per rebuild)
+     */
+    public long getUploads() {
+        return uploads;
+    }
+
+    /**
+     * Release the GPU buffer and the staging memory
+     */
+    @Override
+    public void close() {
+        if (vertexBuffer != null) {
+            vertexBuffer.close();
+            vertexBuffer = null;
+        }
+        staging.close();
+    }
+}
@@ -3,44 +3,140 @@ package com.turtletracker.render;
 import com.mojang.blaze3d.vertex.*;
 import net.fabricmc.fabric.api.client.rendering.v1.WorldRenderContext;
 import net.minecraft.client.Camera;
+import net.minecraft.client.DeltaTracker;
 import net.minecraft.client.Minecraft;
+import net.minecraft.client.gui.Font;
 import net.minecraft.client.renderer.RenderType;
 import net.minecraft.client.renderer.LevelRenderer;
+import net.minecraft.client.renderer.LightTexture;
 import net.minecraft.client.renderer.MultiBufferSource;
-import net.minecraft.world.entity.animal.Turtle;
+import net.minecraft.util.Mth;
+import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.phys.Vec3;
-import net.minecraft.world.phys.AABB;
 import org.joml.Matrix4f;
 import com.turtletracker.TurtleTrackerMod;
+import com.turtletracker.config.TurtleTrackerConfig;
+import com.turtletracker.core.LastKnownPositions;
+import com.turtletracker.core.NestIndex;
+import com.turtletracker.core.QualityGovernor;
+import com.turtletracker.core.SpatialGrid;
+import com.turtletracker.core.TrackerSnapshot;
+import com.turtletracker.config.TrackedTypeSettings;
+import com.turtletracker.stats.TrackerStats;
+import com.turtletracker.tracker.FrustumCuller;
+import com.turtletracker.tracker.TypeTracker;
 
+import java.util.Arrays;
 import java.util.List;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * Working turtle renderer for Minecraft 1.21.5 using the new RenderLayer system
  * Creates highlighted boxes and smooth tracer lines for visible turtles
+ * Boxes are retained on the GPU between frames; tracers are drawn through a private immediate buffer
  */
 public class TurtleHighlightRenderer {
     
     private static final double MAX_TRACER_DISTANCE = 48.0;
     private static final float HIGHLIGHT_EXPANSION = 0.3f; // How much to expand the highlight box
-    private static final float SMOOTHING_FACTOR = 0.15f; // Lower = smoother but more lag, higher = more responsive
+    private static final double POINT_MARKER_SIZE = 0.35; // Half size of the mid-range cross marker
+    private static final double LOD_REBUILD_DISTANCE = 2.0; // Camera movement that re-splits the detail tiers
+    private static final float LABEL_SCALE = 0.025f; // Same text scale as name tags
+    private static final int TRACER_BUFFER_BYTES = 256 * 1024; // Initial size, grows as needed
+    private static final double SMOOTHING_TIME_CONSTANT = 0.1; // Seconds; lower = more responsive, higher = smoother but more lag
+    private static final double CROSSHAIR_DISTANCE = 1.5; // Distance in front of player
+    private static final double NEST_INSET = 0.125; // Egg block outline is inset from the block edges
+    private static final double NEST_HEIGHT = 0.45; // Roughly the height of a full clutch of eggs
     
     private int lastVisibleCount = -1;
     
-    // Smoothing cache for jitter reduction
-    private Vec3 lastCrosshairPos = Vec3.ZERO;
-    private final Map<Integer, Vec3> smoothedTurtlePositions = new HashMap<>();
+    // Snapshot version seen on the previous frame; per-snapshot bookkeeping is skipped while it is unchanged
+    private long lastSnapshotVersion = -1;
+    
+    // Ghost set seen on the previous frame, and whether the uploaded mesh contains ghost markers
+    private long lastGhostVersion = -1;
+    private boolean ghostsDrawn = false;
+    
+    // Nest set seen on the previous frame, whether the mesh contains nest markers, and the reusable query
+    private long lastNestVersion = -1;
+    private boolean nestsDrawn = false;
+    private final SpatialGrid.QueryResult nestQuery = new SpatialGrid.QueryResult();
+    
+    // Extra tracked types: snapshot versions seen on the previous frame and one set of detail tiers each
+    private long[] lastTypeVersions = new long[0];
+    private HighlightLod[] typeLods = new HighlightLod[0];
+    private boolean typesDrawn = false;
+    
+    // Server-reported turtles: snapshot version seen on the previous frame and their own detail tiers
+    private long lastRemoteVersion = -1;
+    private boolean remoteDrawn = false;
+    private final HighlightLod remoteLod = new HighlightLod();
+    
+    // Governor level the markers were last built at; LOD distances and tracer limits follow it
+    private int lastQualityLevel = -1;
+    
+    // Highlight boxes live on the GPU and are only re-uploaded when the snapshot changes
+    private final RetainedBoxMesh boxMesh = new RetainedBoxMesh();
+    
+    // Detail tiers and clusters, recomputed together with the box mesh
+    private final HighlightLod lod = new HighlightLod();
+    private double lodCameraX;
+    private double lodCameraY;
+    private double lodCameraZ;
+    
+    // Private immediate buffer for tracers so flushing them never flushes anyone else's geometry
+    private final ByteBufferBuilder tracerBytes = new ByteBufferBuilder(TRACER_BUFFER_BYTES);
+    private final MultiBufferSource.BufferSource tracerBuffers = MultiBufferSource.immediate(tracerBytes);
+    
+    // Smoothing state for jitter reduction
+    private boolean hasCrosshair = false;
+    private double crosshairX;
+    private double crosshairY;
+    private double crosshairZ;
 
     /**
      * Main render method using the new 1.21.5 rendering system
+     * 
+     * @param context The world render context
+     * @param snapshot The tracker snapshot to draw
+     * @param lastKnown Ghost positions and per-turtle tracer smoothing state
+     * @param nests Turtle egg nests; the ones within the search radius get a marker
+     * @param typeTrackers Extra tracked types, drawn in their own colours without tracers
+     * @param remote Turtles only the server companion reports, drawn in blue without tracers
+     * @param quality Current quality level; scales tracer count and distance and the LOD distances
+     * @param frustumCuller This frame's frustum; turtles outside it get no tracer
      */
-    public void render(WorldRenderContext context, List<Turtle> visibleTurtles, List<Turtle> allTurtles) {
-        if (visibleTurtles.isEmpty()) {
-            if (lastVisibleCount > 0) {
+    public void render(WorldRenderContext context, TrackerSnapshot snapshot, LastKnownPositions lastKnown,
+                       NestIndex nests, List<TypeTracker> typeTrackers, TrackerSnapshot remote,
+                       QualityGovernor quality, FrustumCuller frustumCuller) {
+        boolean snapshotChanged = snapshot.getVersion() != lastSnapshotVersion;
+        lastSnapshotVersion = snapshot.getVersion();
+        boolean ghostsChanged = lastKnown.getGhostVersion() != lastGhostVersion;
+        lastGhostVersion = lastKnown.getGhostVersion();
+        boolean drawGhosts = TurtleTrackerConfig.isGhostMarkers() && lastKnown.ghostCount() > 0;
+        boolean nestsChanged = nests.getVersion() != lastNestVersion;
+        lastNestVersion = nests.getVersion();
+        boolean drawNests = nests.size() > 0;
+        boolean typesChanged = checkTypeSnapshots(typeTrackers);
+        boolean drawTypes = anyTypeVisible(typeTrackers);
+        boolean remoteChanged = remote.getVersion() != lastRemoteVersion;
+        lastRemoteVersion = remote.getVersion();
+        boolean drawRemote = remote.visibleCount() > 0;
+        boolean qualityChanged = quality.getLevel() != lastQualityLevel;
+        lastQualityLevel = quality.getLevel();
+        
+        if (snapshot.visibleCount() == 0 && !drawGhosts && !drawNests && !drawTypes && !drawRemote) {
+            if (lastVisibleCount > 0 || ghostsDrawn || nestsDrawn || typesDrawn || remoteDrawn) {
                 lastVisibleCount = 0;
-                smoothedTurtlePositions.clear(); // Clear cache when no turtles
+                ghostsDrawn = false;
+                nestsDrawn = false;
+                typesDrawn = false;
+                remoteDrawn = false;
+                boxMesh.clear();
+                lod.clear();
+                remoteLod.clear();
+                for (HighlightLod typeLod : typeLods) {
+                    typeLod.clear();
+                }
                 TurtleTrackerMod.LOGGER.debug("No visible turtles");
             }
             return;
@@ -53,83 +149,265 @@ public class TurtleHighlightRenderer {
         Vec3 cameraPos = camera.getPosition();
         PoseStack poseStack = context.matrixStack();
         
-        // Get the buffer source from context (new 1.21.5 way)
-        MultiBufferSource.BufferSource bufferSource = client.renderBuffers().bufferSource();
-        
         try {
-            // Set up matrix transformations
-            poseStack.pushPose();
-            poseStack.translate(-cameraPos.x, -cameraPos.y, -cameraPos.z);
-            
-            // Render highlight boxes around visible turtles
-            renderTurtleHighlights(poseStack, bufferSource, visibleTurtles);
+            // Marker geometry only changes with the snapshot (or once the camera has moved enough
+            // to shift turtles between detail tiers) - re-upload then, otherwise just redraw
+            if (snapshotChanged || ghostsChanged || nestsChanged || typesChanged || remoteChanged || qualityChanged
+                    || lodCameraMoved(cameraPos)) {
+                long boxStart = TrackerStats.start();
+                double lodScale = quality.lodScale();
+                rebuildTurtleHighlights(snapshot, drawGhosts ? lastKnown : null, drawNests ? nests : null, cameraPos,
+                    lodScale);
+                rebuildTypeHighlights(typeTrackers, cameraPos, lodScale);
+                rebuildRemoteHighlights(remote, cameraPos, lodScale);
+                boxMesh.upload();
+                TrackerStats.end(TrackerStats.Phase.BOX_BUILD, boxStart);
+            }
+            boxMesh.draw(context.positionMatrix(), cameraPos.x, cameraPos.y, cameraPos.z);
             
-            // Render smooth tracer lines from player to visible turtles
-            renderSmoothTracerLines(poseStack, bufferSource, visibleTurtles, client);
+            // Tracers follow the crosshair every frame, so they stay immediate-mode
+            long tracerStart = TrackerStats.start();
+            poseStack.pushPose();
+            try {
+                poseStack.translate(-cameraPos.x, -cameraPos.y, -cameraPos.z);
+                renderSmoothTracerLines(poseStack, tracerBuffers, snapshot, lastKnown, frustumCuller, client,
+                    context.tickCounter(), quality.tracerScale());
+                renderClusterLabels(poseStack, tracerBuffers, camera, client.font, lod, 0xFFFFA500);
+                renderClusterLabels(poseStack, tracerBuffers, camera, client.font, remoteLod, 0xFF66B2FF);
+                for (int t = 0; t < typeTrackers.size(); t++) {
+                    renderClusterLabels(poseStack, tracerBuffers, camera, client.font, typeLods[t],
+                        0xFF000000 | typeTrackers.get(t).getSettings().color());
+                }
+            } finally {
+                poseStack.popPose();
+            }
             
-            // Finish all rendering
-            bufferSource.endBatch();
+            // Flush our own tracer buffer only - the shared vanilla batch is left alone
+            tracerBuffers.endBatch();
+            TrackerStats.end(TrackerStats.Phase.TRACER_BUILD, tracerStart);
             
         } catch (Exception e) {
             TurtleTrackerMod.LOGGER.warn("Error rendering turtle effects: {}", e.getMessage());
-        } finally {
-            poseStack.popPose();
         }
         
         // Log count changes
-        if (visibleTurtles.size() != lastVisibleCount) {
-            lastVisibleCount = visibleTurtles.size();
+        if (snapshotChanged && snapshot.visibleCount() != lastVisibleCount) {
+            lastVisibleCount = snapshot.visibleCount();
             TurtleTrackerMod.LOGGER.info("Rendering {} visible turtles with highlights and lines", 
-                                       visibleTurtles.size());
+                                       snapshot.visibleCount());
         }
     }
     
     /**
-     * Render highlight boxes using Minecraft's built-in line rendering
+     * Note which extra type snapshots changed since the previous frame
+     * 
+     * @return true if any of them did (or the set of types changed)
      */
-    private void renderTurtleHighlights(PoseStack poseStack, MultiBufferSource bufferSource, List<Turtle> visibleTurtles) {
-        // Use Minecraft's built-in LINES render type
-        VertexConsumer buffer = bufferSource.getBuffer(RenderType.lines());
-        Matrix4f matrix = poseStack.last().pose();
+    private boolean checkTypeSnapshots(List<TypeTracker> typeTrackers) {
+        boolean changed = false;
+        if (typeLods.length != typeTrackers.size()) {
+            typeLods = new HighlightLod[typeTrackers.size()];
+            for (int t = 0; t < typeLods.length; t++) {
+                typeLods[t] = new HighlightLod();
+            }
+            lastTypeVersions = new long[typeTrackers.size()];
+            Arrays.fill(lastTypeVersions, -1);
+            changed = true;
+        }
+        for (int t = 0; t < typeTrackers.size(); t++) {
+            long version = typeTrackers.get(t).getSnapshot().getVersion();
+            if (version != lastTypeVersions[t]) {
+                lastTypeVersions[t] = version;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+    
+    private static boolean anyTypeVisible(List<TypeTracker> typeTrackers) {
+        for (TypeTracker typeTracker : typeTrackers) {
+            if (typeTracker.getSnapshot().visibleCount() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private boolean lodCameraMoved(Vec3 cameraPos) {
+        double dx = cameraPos.x - lodCameraX;
+        double dy = cameraPos.y - lodCameraY;
+        double dz = cameraPos.z - lodCameraZ;
+        return dx * dx + dy * dy + dz * dz > LOD_REBUILD_DISTANCE * LOD_REBUILD_DISTANCE;
+    }
+    
+    /**
+     * Split the snapshot into detail tiers around the camera and start a mesh with the matching markers
+     * The GPU clips off-screen markers, so no per-frame frustum test is needed here
+     * 
+     * @param ghosts Cache whose ghosts get dimmed markers, or null to draw none
+     * @param nests Nest index to mark nests from, or null to draw none
+     * @param lodScale Share of the configured LOD distances to use
+     */
+    private void rebuildTurtleHighlights(TrackerSnapshot snapshot, LastKnownPositions ghosts, NestIndex nests,
+                                         Vec3 cameraPos, double lodScale) {
+        lod.compute(snapshot, cameraPos.x, cameraPos.y, cameraPos.z, TurtleTrackerConfig.getMaxRenderedTurtles(),
+            TurtleTrackerConfig.getLodFullDistance() * lodScale, TurtleTrackerConfig.getLodPointDistance() * lodScale,
+            TurtleTrackerConfig.getLodClusterSize());
+        lodCameraX = cameraPos.x;
+        lodCameraY = cameraPos.y;
+        lodCameraZ = cameraPos.z;
+        
+        boxMesh.begin(Math.floor(cameraPos.x), Math.floor(cameraPos.y), Math.floor(cameraPos.z));
         
-        for (Turtle turtle : visibleTurtles) {
-            // Get turtle's bounding box and expand it slightly
-            AABB boundingBox = turtle.getBoundingBox();
-            AABB expandedBox = boundingBox.inflate(HIGHLIGHT_EXPANSION);
+        // Close turtles: full box, rebuilt from the snapshot and expanded slightly
+        for (int n = 0; n < lod.fullDetailCount(); n++) {
+            int i = lod.fullDetail(n);
+            double halfWidth = snapshot.width(i) / 2.0 + HIGHLIGHT_EXPANSION;
+            boxMesh.addBox(
+                snapshot.x(i) - halfWidth, snapshot.y(i) - HIGHLIGHT_EXPANSION, snapshot.z(i) - halfWidth,
+                snapshot.x(i) + halfWidth, snapshot.y(i) + snapshot.height(i) + HIGHLIGHT_EXPANSION, snapshot.z(i) + halfWidth,
+                0.0f, 1.0f, 0.0f, 0.8f); // Green color
+        }
+        
+        // Mid range: a small cross at the turtle's centre (3 lines instead of 12)
+        for (int n = 0; n < lod.pointCount(); n++) {
+            int i = lod.point(n);
+            boxMesh.addCross(snapshot.x(i), snapshot.y(i) + snapshot.height(i) / 2.0, snapshot.z(i),
+                POINT_MARKER_SIZE, 0.0f, 1.0f, 0.0f, 0.8f); // Green color
+        }
+        
+        // Far away: one cross per cluster, growing with the number of turtles it stands for
+        for (int c = 0; c < lod.clusterCount(); c++) {
+            boxMesh.addCross(lod.clusterX(c), lod.clusterY(c), lod.clusterZ(c),
+                clusterMarkerSize(lod.clusterSize(c)), 1.0f, 0.65f, 0.0f, 0.9f); // Orange color
+        }
+        
+        // Turtles that left range: a faint cross where they were last seen, no box, tracer or label
+        ghostsDrawn = ghosts != null;
+        if (ghosts != null) {
+            for (int slot = ghosts.firstGhost(); slot >= 0; slot = ghosts.nextGhost(slot)) {
+                boxMesh.addCross(ghosts.x(slot), ghosts.y(slot) + ghosts.height(slot) / 2.0, ghosts.z(slot),
+                    POINT_MARKER_SIZE, 0.6f, 0.6f, 0.6f, 0.35f); // Dim grey
+            }
+        }
+        
+        // Egg nests in range: an outline of the egg block, brighter the closer the eggs are to hatching
+        nestsDrawn = nests != null;
+        if (nests != null) {
+            nests.findWithin(cameraPos.x, cameraPos.y, cameraPos.z, TurtleTrackerConfig.getSearchRadius(), nestQuery);
+            for (int n = 0; n < nestQuery.size(); n++) {
+                int id = nestQuery.id(n);
+                float alpha = 0.4f + 0.2f * nests.hatch(id);
+                boxMesh.addBox(
+                    nests.x(id) + NEST_INSET, nests.y(id), nests.z(id) + NEST_INSET,
+                    nests.x(id) + 1.0 - NEST_INSET, nests.y(id) + NEST_HEIGHT, nests.z(id) + 1.0 - NEST_INSET,
+                    1.0f, 1.0f, 0.6f, alpha); // Pale yellow
+            }
+        }
+    }
+    
+    /**
+     * Add every extra type's markers to the mesh started by {@link #rebuildTurtleHighlights}
+     * Same tiers as the turtles, but with the type's own colour, distances and no tracers
+     */
+    private void rebuildTypeHighlights(List<TypeTracker> typeTrackers, Vec3 cameraPos, double lodScale) {
+        typesDrawn = anyTypeVisible(typeTrackers);
+        for (int t = 0; t < typeTrackers.size(); t++) {
+            TrackerSnapshot typeSnapshot = typeTrackers.get(t).getSnapshot();
+            TrackedTypeSettings settings = typeTrackers.get(t).getSettings();
+            HighlightLod typeLod = typeLods[t];
+            typeLod.compute(typeSnapshot, cameraPos.x, cameraPos.y, cameraPos.z,
+                TurtleTrackerConfig.getMaxRenderedTurtles(), settings.lodFullDistance() * lodScale,
+                settings.lodPointDistance() * lodScale, TurtleTrackerConfig.getLodClusterSize());
+            float red = ((settings.color() >> 16) & 0xFF) / 255.0f;
+            float green = ((settings.color() >> 8) & 0xFF) / 255.0f;
+            float blue = (settings.color() & 0xFF) / 255.0f;
             
-            // Convert to camera-relative coordinates (already handled by matrix translation)
-            drawHighlightBox(buffer, matrix, expandedBox, 0.0f, 1.0f, 0.0f, 0.8f); // Green color
+            for (int n = 0; n < typeLod.fullDetailCount(); n++) {
+                int i = typeLod.fullDetail(n);
+                double halfWidth = typeSnapshot.width(i) / 2.0 + HIGHLIGHT_EXPANSION;
+                boxMesh.addBox(
+                    typeSnapshot.x(i) - halfWidth, typeSnapshot.y(i) - HIGHLIGHT_EXPANSION, typeSnapshot.z(i) - halfWidth,
+                    typeSnapshot.x(i) + halfWidth, typeSnapshot.y(i) + typeSnapshot.height(i) + HIGHLIGHT_EXPANSION,
+                    typeSnapshot.z(i) + halfWidth,
+                    red, green, blue, 0.8f);
+            }
+            for (int n = 0; n < typeLod.pointCount(); n++) {
+                int i = typeLod.point(n);
+                boxMesh.addCross(typeSnapshot.x(i), typeSnapshot.y(i) + typeSnapshot.height(i) / 2.0, typeSnapshot.z(i),
+                    POINT_MARKER_SIZE, red, green, blue, 0.8f);
+            }
+            for (int c = 0; c < typeLod.clusterCount(); c++) {
+                boxMesh.addCross(typeLod.clusterX(c), typeLod.clusterY(c), typeLod.clusterZ(c),
+                    clusterMarkerSize(typeLod.clusterSize(c)), red, green, blue, 0.9f);
+            }
         }
     }
     
     /**
-     * Draw a wireframe box using the new vertex system
+     * Add the server-reported turtles to the mesh
+     * Their positions are quantized and a few ticks old, so they only ever get crosses, never boxes
      */
-    private void drawHighlightBox(VertexConsumer buffer, Matrix4f matrix, AABB box, float r, float g, float b, float a) {
-        float minX = (float) box.minX;
-        float minY = (float) box.minY;
-        float minZ = (float) box.minZ;
-        float maxX = (float) box.maxX;
-        float maxY = (float) box.maxY;
-        float maxZ = (float) box.maxZ;
-        
-        // Bottom face edges (4 lines)
-        addLine(buffer, matrix, minX, minY, minZ, maxX, minY, minZ, r, g, b, a);
-        addLine(buffer, matrix, maxX, minY, minZ, maxX, minY, maxZ, r, g, b, a);
-        addLine(buffer, matrix, maxX, minY, maxZ, minX, minY, maxZ, r, g, b, a);
-        addLine(buffer, matrix, minX, minY, maxZ, minX, minY, minZ, r, g, b, a);
-        
-        // Top face edges (4 lines)
-        addLine(buffer, matrix, minX, maxY, minZ, maxX, maxY, minZ, r, g, b, a);
-        addLine(buffer, matrix, maxX, maxY, minZ, maxX, maxY, maxZ, r, g, b, a);
-        addLine(buffer, matrix, maxX, maxY, maxZ, minX, maxY, maxZ, r, g, b, a);
-        addLine(buffer, matrix, minX, maxY, maxZ, minX, maxY, minZ, r, g, b, a);
-        
-        // Vertical edges (4 lines)
-        addLine(buffer, matrix, minX, minY, minZ, minX, maxY, minZ, r, g, b, a);
-        addLine(buffer, matrix, maxX, minY, minZ, maxX, maxY, minZ, r, g, b, a);
-        addLine(buffer, matrix, maxX, minY, maxZ, maxX, maxY, maxZ, r, g, b, a);
-        addLine(buffer, matrix, minX, minY, maxZ, minX, maxY, maxZ, r, g, b, a);
+    private void rebuildRemoteHighlights(TrackerSnapshot remote, Vec3 cameraPos, double lodScale) {
+        remoteDrawn = remote.visibleCount() > 0;
+        remoteLod.compute(remote, cameraPos.x, cameraPos.y, cameraPos.z, TurtleTrackerConfig.getMaxRenderedTurtles(),
+            0.0, TurtleTrackerConfig.getLodPointDistance() * lodScale, TurtleTrackerConfig.getLodClusterSize());
+        for (int n = 0; n < remoteLod.pointCount(); n++) {
+            int i = remoteLod.point(n);
+            boxMesh.addCross(remote.x(i), remote.y(i) + remote.height(i) / 2.0, remote.z(i),
+                POINT_MARKER_SIZE, 0.4f, 0.7f, 1.0f, 0.6f); // Light blue
+        }
+        for (int c = 0; c < remoteLod.clusterCount(); c++) {
+            boxMesh.addCross(remoteLod.clusterX(c), remoteLod.clusterY(c), remoteLod.clusterZ(c),
+                clusterMarkerSize(remoteLod.clusterSize(c)), 0.4f, 0.7f, 1.0f, 0.7f); // Light blue
+        }
+    }
+    
+    private static double clusterMarkerSize(int members) {
+        return POINT_MARKER_SIZE + 0.25 * (31 - Integer.numberOfLeadingZeros(members));
+    }
+    
+    /**
+     * Draw each cluster's member count above its marker, facing the camera
+     * Labels are text, so they are the one part of the markers drawn immediate-mode every frame
+     */
+    private void renderClusterLabels(PoseStack poseStack, MultiBufferSource bufferSource, Camera camera, Font font,
+                                     HighlightLod tiers, int color) {
+        Vec3 cameraPos = camera.getPosition();
+        for (int c = 0; c < tiers.clusterCount(); c++) {
+            double x = tiers.clusterX(c);
+            double y = tiers.clusterY(c) + clusterMarkerSize(tiers.clusterSize(c)) + 0.5;
+            double z = tiers.clusterZ(c);
+            
+            // Grow with distance so the count stays readable
+            double dx = x - cameraPos.x;
+            double dy = y - cameraPos.y;
+            double dz = z - cameraPos.z;
+            float scale = LABEL_SCALE * (float) Math.max(1.0, Math.sqrt(dx * dx + dy * dy + dz * dz) / 16.0);
+            
+            String label = tiers.clusterLabel(c);
+            poseStack.pushPose();
+            poseStack.translate(x, y, z);
+            poseStack.mulPose(camera.rotation());
+            poseStack.scale(scale, -scale, scale);
+            font.drawInBatch(label, -font.width(label) / 2.0f, 0.0f, color, false,
+                poseStack.last().pose(), bufferSource, Font.DisplayMode.SEE_THROUGH, 0x40000000, LightTexture.FULL_BRIGHT);
+            poseStack.popPose();
+        }
+    }
+    
+    /**
+     * The snapshot's visible flag used the previous frame's view; re-check against this frame's
+     * so turtles that just left the screen are not drawn
+     */
+    private boolean isOnScreen(TrackerSnapshot snapshot, int i, FrustumCuller frustumCuller) {
+        if (!TurtleTrackerConfig.isFrustumCulling()) {
+            return true;
+        }
+        double halfWidth = snapshot.width(i) / 2.0;
+        return frustumCuller.isBoxInView(
+            snapshot.x(i) - halfWidth, snapshot.y(i), snapshot.z(i) - halfWidth,
+            snapshot.x(i) + halfWidth, snapshot.y(i) + snapshot.height(i), snapshot.z(i) + halfWidth);
     }
     
     /**
@@ -144,84 +422,103 @@ public class TurtleHighlightRenderer {
     
     /**
      * Render smooth tracer lines from crosshair to visible turtles
-     * Uses interpolation to reduce jitter when moving fast
+     * End points approach their targets with a time constant, so smoothing looks the same at any FPS
+     * Nothing in here allocates; the smoothing state lives in the fixed-size last known position cache
+     * 
+     * @param tracerScale Share of the configured tracer count and of the tracer distance to use
      */
-    private void renderSmoothTracerLines(PoseStack poseStack, MultiBufferSource bufferSource, List<Turtle> visibleTurtles, Minecraft client) {
+    private void renderSmoothTracerLines(PoseStack poseStack, MultiBufferSource bufferSource, TrackerSnapshot snapshot,
+                                         LastKnownPositions lastKnown, FrustumCuller frustumCuller, Minecraft client,
+                                         DeltaTracker deltaTracker, double tracerScale) {
         // Use Minecraft's built-in LINES render type
         VertexConsumer buffer = bufferSource.getBuffer(RenderType.lines());
         Matrix4f matrix = poseStack.last().pose();
         
+        // Frame time in game ticks (0 while paused) drives how far the end points move this frame
+        double blend = LastKnownPositions.blendFactor(
+            deltaTracker.getGameTimeDeltaTicks() / 20.0, SMOOTHING_TIME_CONSTANT);
+        
         // Get and smooth crosshair position
-        Vec3 targetCrosshairPos = getCrosshairWorldPosition(client);
-        Vec3 smoothedCrosshairPos = smoothPosition(lastCrosshairPos, targetCrosshairPos, SMOOTHING_FACTOR);
-        lastCrosshairPos = smoothedCrosshairPos;
+        updateCrosshair(client.player, deltaTracker.getGameTimeDeltaPartialTick(false), blend);
         
-        for (Turtle turtle : visibleTurtles) {
-            int turtleId = turtle.getId();
-            Vec3 targetTurtlePos = turtle.position().add(0, turtle.getBbHeight() / 2, 0);
+        int remaining = (int) Math.ceil(TurtleTrackerConfig.getMaxRenderedTurtles() * tracerScale);
+        double maxTracerDistance = MAX_TRACER_DISTANCE * tracerScale;
+        for (int i = 0; i < snapshot.size() && remaining > 0; i++) {
+            if (!snapshot.isVisible(i) || !isOnScreen(snapshot, i, frustumCuller)) {
+                continue;
+            }
+            remaining--;
             
-            // Smooth turtle position to reduce jitter
-            Vec3 lastTurtlePos = smoothedTurtlePositions.getOrDefault(turtleId, targetTurtlePos);
-            Vec3 smoothedTurtlePos = smoothPosition(lastTurtlePos, targetTurtlePos, SMOOTHING_FACTOR);
-            smoothedTurtlePositions.put(turtleId, smoothedTurtlePos);
+            // Smooth turtle position to reduce jitter; the state lives in the turtle's cache slot,
+            // so a turtle that comes back continues from where its tracer was
+            double turtleX = snapshot.x(i);
+            double turtleY = snapshot.y(i) + snapshot.height(i) / 2;
+            double turtleZ = snapshot.z(i);
+            int slot = lastKnown.slotOfEntity(snapshot.id(i));
+            if (slot >= 0) {
+                lastKnown.smooth(slot, turtleX, turtleY, turtleZ, blend);
+                turtleX = lastKnown.smoothX(slot);
+                turtleY = lastKnown.smoothY(slot);
+                turtleZ = lastKnown.smoothZ(slot);
+            }
             
-            double distance = smoothedCrosshairPos.distanceTo(smoothedTurtlePos);
+            double dx = turtleX - crosshairX;
+            double dy = turtleY - crosshairY;
+            double dz = turtleZ - crosshairZ;
+            double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
             
-            if (distance <= MAX_TRACER_DISTANCE && distance > 2.0) { // Don't draw for very close turtles
+            if (distance <= maxTracerDistance && distance > 2.0) { // Don't draw for very close turtles
                 // Calculate alpha based on distance (closer = more opaque)
-                float alpha = (float) Math.max(0.4, 1.0 - (distance / MAX_TRACER_DISTANCE));
+                float alpha = (float) Math.max(0.4, 1.0 - (distance / maxTracerDistance));
                 
                 // Draw yellow tracer line from smoothed crosshair to smoothed turtle position
                 addLine(buffer, matrix, 
-                       (float)smoothedCrosshairPos.x, (float)smoothedCrosshairPos.y, (float)smoothedCrosshairPos.z,
-                       (float)smoothedTurtlePos.x, (float)smoothedTurtlePos.y, (float)smoothedTurtlePos.z,
+                       (float) crosshairX, (float) crosshairY, (float) crosshairZ,
+                       (float) turtleX, (float) turtleY, (float) turtleZ,
                        1.0f, 1.0f, 0.0f, alpha); // Yellow color
             }
         }
-        
-        // Clean up positions for turtles that are no longer visible
-        cleanupOldPositions(visibleTurtles);
     }
     
     /**
-     * Smooth position interpolation to reduce jitter
-     * Uses linear interpolation (lerp) between old and new positions
+     * Move the smoothed crosshair towards the point a short distance in front of the player's eyes
+     * Position and look direction are interpolated with the partial tick, like the camera itself
      */
-    private Vec3 smoothPosition(Vec3 oldPos, Vec3 newPos, float factor) {
-        if (oldPos.equals(Vec3.ZERO)) {
-            return newPos; // First frame, no smoothing needed
-        }
+    private void updateCrosshair(Player player, float partialTick, double blend) {
+        // Interpolated eye position
+        double eyeX = Mth.lerp(partialTick, player.xo, player.getX());
+        double eyeY = Mth.lerp(partialTick, player.yo, player.getY()) + player.getEyeHeight();
+        double eyeZ = Mth.lerp(partialTick, player.zo, player.getZ());
         
-        // Linear interpolation: old + (new - old) * factor
-        return oldPos.add(newPos.subtract(oldPos).scale(factor));
-    }
-    
-    /**
-     * Remove cached positions for turtles that are no longer visible
-     */
-    private void cleanupOldPositions(List<Turtle> visibleTurtles) {
-        // Get IDs of currently visible turtles
-        var currentIds = visibleTurtles.stream()
-            .map(Turtle::getId)
-            .collect(java.util.stream.Collectors.toSet());
-        
-        // Remove cached positions for turtles that are no longer visible
-        smoothedTurtlePositions.entrySet().removeIf(entry -> !currentIds.contains(entry.getKey()));
-    }
-    
-    /**
-     * Calculate the world position where the crosshair is pointing
-     * This creates a point in front of the player in the direction they're looking
-     */
-    private Vec3 getCrosshairWorldPosition(Minecraft client) {
-        // Get player eye position and look direction
-        Vec3 eyePos = client.player.position().add(0, client.player.getEyeHeight(), 0);
-        Vec3 lookDirection = client.player.getLookAngle();
+        // Interpolated look direction (same formula as Entity#calculateViewVector)
+        double pitch = Math.toRadians(player.getViewXRot(partialTick));
+        double yaw = Math.toRadians(-player.getViewYRot(partialTick));
+        double horizontal = Math.cos(pitch);
         
         // Project the crosshair position a short distance in front of the player
         // This makes the lines appear to come from the crosshair area
-        double projectionDistance = 1.5; // Distance in front of player
+        double targetX = eyeX + Math.sin(yaw) * horizontal * CROSSHAIR_DISTANCE;
+        double targetY = eyeY - Math.sin(pitch) * CROSSHAIR_DISTANCE;
+        double targetZ = eyeZ + Math.cos(yaw) * horizontal * CROSSHAIR_DISTANCE;
         
-        return eyePos.add(lookDirection.scale(projectionDistance));
+        if (!hasCrosshair) {
+            // First frame, no smoothing needed
+            hasCrosshair = true;
+            crosshairX = targetX;
+            crosshairY = targetY;
+            crosshairZ = targetZ;
+            return;
+        }
+        crosshairX += (targetX - crosshairX) * blend;
+        crosshairY += (targetY - crosshairY) * blend;
+        crosshairZ += (targetZ - crosshairZ) * blend;
+    }
+    
+    /**
+     * Release GPU and staging memory (called when the client shuts down)
+     */
+    public void close() {
+        boxMesh.close();
+        tracerBytes.close();
     }
-}
\ No newline at end of file
+}
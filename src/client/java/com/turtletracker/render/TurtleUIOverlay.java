@@ -1,13 +1,25 @@
 package com.turtletracker.render;
 
+import com.turtletracker.config.TurtleTrackerConfig;
+import com.turtletracker.core.TrackerSnapshot;
+import com.turtletracker.stats.TrackerStats;
+import com.turtletracker.tracker.PhaseTimings;
+import com.turtletracker.tracker.TurtleTracker;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.GuiGraphics;
 import net.minecraft.client.gui.Font;
 import net.minecraft.network.chat.Component;
+import net.minecraft.util.FormattedCharSequence;
+import net.minecraft.world.entity.player.Player;
+
+import java.util.Locale;
 
 /**
  * UI Overlay class that renders the turtle count on the screen
  * Displays the number in the middle-left area of the screen with a background
+ *
+ * The laid-out text and box geometry are cached and only rebuilt when one of the
+ * displayed values changes, so a frame normally just draws the cached lines
  */
 public class TurtleUIOverlay {
     
@@ -20,46 +32,156 @@ public class TurtleUIOverlay {
     private static final int X_OFFSET = 20;  // Distance from left edge of screen
     private static final int PADDING = 8;    // Padding inside the background box
     private static final int BORDER_WIDTH = 2; // Width of the border
-
+    private static final int LINE_GAP = 2;   // Extra space between lines of the detailed panel
+    
+    // Timings change every scan; only refresh their text every this many scans
+    private static final long TIMING_REFRESH_SCANS = 10;
+    
+    private static final String[] DIRECTIONS = {"N", "NE", "E", "SE", "S", "SW", "W", "NW"};
+    
+    // Inputs the cached layout was built from
+    private boolean layoutValid = false;
+    private boolean cachedDetailed;
+    private int cachedScreenHeight;
+    private int cachedTotal;
+    private int cachedVisible;
+    private int cachedNearestDistance;
+    private int cachedNearestDirection;
+    private long cachedTimingGeneration;
+    
+    // Cached layout
+    private FormattedCharSequence[] lines = new FormattedCharSequence[0];
+    private int boxX;
+    private int boxY;
+    private int boxWidth;
+    private int boxHeight;
+    private int lineHeight;
+    
     /**
      * Render the turtle count UI overlay
      * This method is called every frame by the HUD render callback
      * 
      * @param guiGraphics The graphics context for rendering
-     * @param turtleCount The current number of tracked turtles
+     * @param tracker The turtle tracker to show counts and timings for
      */
-    public void render(GuiGraphics guiGraphics, int turtleCount) {
+    public void render(GuiGraphics guiGraphics, TurtleTracker tracker) {
         Minecraft client = Minecraft.getInstance();
         
         // Don't render if we're not in a world or if F3 debug screen is open
-        if (client.level == null || client.getDebugOverlay().showDebugScreen()) {
+        if (client.level == null || client.player == null || client.getDebugOverlay().showDebugScreen()) {
             return;
         }
         
-        // Get the font renderer for text rendering
-        Font fontRenderer = client.font;
+        long hudStart = TrackerStats.start();
         
-        // Create the text to display
-        Component turtleText = Component.literal("🐢 Turtles: " + turtleCount);
+        // Gather the displayed values, rounded the way they are shown
+        boolean detailed = TurtleTrackerConfig.isHudDetailed();
+        int screenHeight = client.getWindow().getGuiScaledHeight();
+        int total = tracker.getTurtleCount();
+        int visible = 0;
+        int nearestDistance = -1;
+        int nearestDirection = 0;
+        long timingGeneration = 0;
+        if (detailed) {
+            TrackerSnapshot snapshot = tracker.getSnapshot();
+            visible = snapshot.visibleCount();
+            if (snapshot.size() > 0) {
+                // The snapshot is nearest-first
+                Player player = client.player;
+                double dx = snapshot.x(0) - player.getX();
+                double dy = snapshot.y(0) - player.getY();
+                double dz = snapshot.z(0) - player.getZ();
+                nearestDistance = (int) Math.round(Math.sqrt(dx * dx + dy * dy + dz * dz));
+                nearestDirection = compassSector(dx, dz);
+            }
+            timingGeneration = tracker.getScanScheduler().getTotalScans() / TIMING_REFRESH_SCANS;
+        }
+        
+        if (!layoutValid
+                || detailed != cachedDetailed
+                || screenHeight != cachedScreenHeight
+                || total != cachedTotal
+                || visible != cachedVisible
+                || nearestDistance != cachedNearestDistance
+                || nearestDirection != cachedNearestDirection
+                || timingGeneration != cachedTimingGeneration) {
+            cachedDetailed = detailed;
+            cachedScreenHeight = screenHeight;
+            cachedTotal = total;
+            cachedVisible = visible;
+            cachedNearestDistance = nearestDistance;
+            cachedNearestDirection = nearestDirection;
+            cachedTimingGeneration = timingGeneration;
+            rebuildLayout(client.font, tracker, screenHeight);
+            layoutValid = true;
+        }
+        
+        // Render the background box with border
+        renderBackground(guiGraphics, boxX, boxY, boxWidth, boxHeight);
+        
+        // Render the text on top of the background
+        for (int i = 0; i < lines.length; i++) {
+            renderText(guiGraphics, client.font, lines[i], boxX + PADDING, boxY + PADDING + i * lineHeight);
+        }
+        
+        TrackerStats.end(TrackerStats.Phase.HUD, hudStart);
+    }
+    
+    /**
+     * Build the text lines and box geometry from the cached inputs
+     */
+    private void rebuildLayout(Font fontRenderer, TurtleTracker tracker, int screenHeight) {
+        Component[] text;
+        if (cachedDetailed) {
+            PhaseTimings timings = tracker.getPhaseTimings();
+            text = new Component[4 + PhaseTimings.PHASE_COUNT];
+            text[0] = Component.literal("🐢 Total: " + cachedTotal);
+            text[1] = Component.literal("👁 Visible: " + cachedVisible);
+            text[2] = Component.literal(cachedNearestDistance < 0
+                ? "Nearest: -"
+                : "Nearest: " + cachedNearestDistance + " m " + DIRECTIONS[cachedNearestDirection]);
+            text[3] = Component.literal(String.format(Locale.ROOT, "Scan: %.3f ms", timings.getTotalAverageMicros() / 1000.0));
+            for (int phase = 0; phase < PhaseTimings.PHASE_COUNT; phase++) {
+                text[4 + phase] = Component.literal(String.format(Locale.ROOT, "  %s: %.3f ms",
+                    PhaseTimings.getName(phase), timings.getAverageMicros(phase) / 1000.0));
+            }
+            lineHeight = fontRenderer.lineHeight + LINE_GAP;
+        } else {
+            text = new Component[] {Component.literal("🐢 Turtles: " + cachedTotal)};
+            lineHeight = fontRenderer.lineHeight;
+        }
         
         // Calculate text dimensions
-        int textWidth = fontRenderer.width(turtleText);
-        int textHeight = fontRenderer.lineHeight;
+        int textWidth = 0;
+        lines = new FormattedCharSequence[text.length];
+        for (int i = 0; i < text.length; i++) {
+            textWidth = Math.max(textWidth, fontRenderer.width(text[i]));
+            lines[i] = text[i].getVisualOrderText();
+        }
+        int textHeight = lineHeight * text.length - (text.length > 1 ? LINE_GAP : 0);
         
         // Calculate background box dimensions
-        int boxWidth = textWidth + (PADDING * 2);
-        int boxHeight = textHeight + (PADDING * 2);
+        boxWidth = textWidth + (PADDING * 2);
+        boxHeight = textHeight + (PADDING * 2);
         
         // Calculate positioning (middle-left of screen)
-        int screenHeight = client.getWindow().getGuiScaledHeight();
-        int x = X_OFFSET;
-        int y = (screenHeight / 2) - (boxHeight / 2);
-        
-        // Render the background box with border
-        renderBackground(guiGraphics, x, y, boxWidth, boxHeight);
-        
-        // Render the text on top of the background
-        renderText(guiGraphics, fontRenderer, turtleText, x + PADDING, y + PADDING);
+        boxX = X_OFFSET;
+        boxY = (screenHeight / 2) - (boxHeight / 2);
+    }
+    
+    /**
+     * @return Index into DIRECTIONS for a horizontal offset (north is -Z, east is +X)
+     */
+    private static int compassSector(double dx, double dz) {
+        double bearing = Math.toDegrees(Math.atan2(dx, -dz));
+        return Math.floorMod((int) Math.round(bearing / 45.0), DIRECTIONS.length);
+    }
+    
+    /**
+     * Force the layout to be rebuilt on the next frame
+     */
+    public void invalidate() {
+        layoutValid = false;
     }
     
     /**
@@ -90,53 +212,12 @@ public class TurtleUIOverlay {
      * 
      * @param guiGraphics The graphics context
      * @param fontRenderer The font renderer
-     * @param text The text component to render
+     * @param text The pre-laid-out text to render
      * @param x X position for the text
      * @param y Y position for the text
      */
-    private void renderText(GuiGraphics guiGraphics, Font fontRenderer, Component text, int x, int y) {
+    private void renderText(GuiGraphics guiGraphics, Font fontRenderer, FormattedCharSequence text, int x, int y) {
         // Render the text with shadow for better visibility
         guiGraphics.drawString(fontRenderer, text, x, y, TEXT_COLOR, true);
     }
-    
-    /**
-     * Alternative render method for when you want to show additional information
-     * This could be extended to show distance to nearest turtle, etc.
-     * 
-     * @param guiGraphics The graphics context
-     * @param turtleCount Total turtle count
-     * @param visibleCount Count of visible turtles
-     */
-    public void renderDetailed(GuiGraphics guiGraphics, int turtleCount, int visibleCount) {
-        Minecraft client = Minecraft.getInstance();
-        
-        if (client.level == null || client.getDebugOverlay().showDebugScreen()) {
-            return;
-        }
-        
-        Font fontRenderer = client.font;
-        
-        // Create multi-line text
-        Component line1 = Component.literal("🐢 Total: " + turtleCount);
-        Component line2 = Component.literal("👁 Visible: " + visibleCount);
-        
-        // Calculate dimensions for both lines
-        int textWidth = Math.max(fontRenderer.width(line1), fontRenderer.width(line2));
-        int textHeight = fontRenderer.lineHeight * 2 + 2; // 2 lines + small gap
-        
-        int boxWidth = textWidth + (PADDING * 2);
-        int boxHeight = textHeight + (PADDING * 2);
-        
-        // Position calculation
-        int screenHeight = client.getWindow().getGuiScaledHeight();
-        int x = X_OFFSET;
-        int y = (screenHeight / 2) - (boxHeight / 2);
-        
-        // Render background
-        renderBackground(guiGraphics, x, y, boxWidth, boxHeight);
-        
-        // Render both lines of text
-        guiGraphics.drawString(fontRenderer, line1, x + PADDING, y + PADDING, TEXT_COLOR, true);
-        guiGraphics.drawString(fontRenderer, line2, x + PADDING, y + PADDING + fontRenderer.lineHeight + 2, TEXT_COLOR, true);
-    }
-}
\ No newline at end of file
+}
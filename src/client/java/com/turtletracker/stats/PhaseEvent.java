@@ -0,0 +1,28 @@
+package com.turtletracker.stats;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JDK Flight Recorder event for one timed tracker phase
+ * The duration is carried as a field so the event can be emitted after the fact from {@link TrackerStats}
+ */
+@Name("com.turtletracker.Phase")
+@Label("Turtle Tracker Phase")
+@Category("Turtle Tracker")
+@Description("Time spent in one phase of the turtle tracker")
+@StackTrace(false)
+public class PhaseEvent extends Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Phase Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long phaseTime;
+}
@@ -0,0 +1,122 @@
+package com.turtletracker.stats;
+
+import com.turtletracker.core.LatencyHistogram;
+import jdk.jfr.EventType;
+
+/**
+ * Hot-path instrumentation for the tracker and its renderers
+ *
+ * Callers bracket a phase with {@link #start()} and {@link #end(Phase, long)}. While
+ * disabled, start returns 0 without reading the clock and end returns straight away,
+ * so instrumented code pays one static field read per call. While enabled, each phase
+ * feeds a fixed-size {@link LatencyHistogram} and, when a Flight Recorder recording has
+ * the event turned on, a {@link PhaseEvent}.
+ *
+ * Client thread only.
+ */
+public final class TrackerStats {
+
+    /**
+     * Instrumented phases, in the order they run
+     */
+    public enum Phase {
+        GRID("grid"),
+        QUERY("query"),
+        FILTER("filter"),
+        RAYCAST("raycast"),
+        // Async visibility only: capturing positions for the workers and reading their results
+        VISIBILITY_HANDOFF("handoff"),
+        SNAPSHOT("snapshot"),
+        BOX_BUILD("boxes"),
+        TRACER_BUILD("tracers"),
+        HUD("hud");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final LatencyHistogram[] HISTOGRAMS = new LatencyHistogram[PHASES.length];
+    private static final EventType PHASE_EVENT_TYPE = EventType.getEventType(PhaseEvent.class);
+
+    static {
+        for (int i = 0; i < HISTOGRAMS.length; i++) {
+            HISTOGRAMS[i] = new LatencyHistogram();
+        }
+    }
+
+    private static boolean enabled = false;
+
+    private TrackerStats() {
+    }
+
+    /**
+     * @return Start timestamp to pass to {@link #end}, or 0 while disabled
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Close a phase opened with {@link #start()}
+     *
+     * @param phase The phase that just finished
+     * @param startNanos Value returned by start()
+     */
+    public static void end(Phase phase, long startNanos) {
+        if (!enabled || startNanos == 0L) {
+            return;
+        }
+        record(phase, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Record a duration that was measured elsewhere
+     *
+     * @param phase The phase the duration belongs to
+     * @param nanos Duration in nanoseconds
+     */
+    public static void record(Phase phase, long nanos) {
+        if (!enabled) {
+            return;
+        }
+        HISTOGRAMS[phase.ordinal()].record(nanos);
+        if (PHASE_EVENT_TYPE.isEnabled()) {
+            PhaseEvent event = new PhaseEvent();
+            event.phase = phase.getLabel();
+            event.phaseTime = nanos;
+            event.commit();
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        TrackerStats.enabled = enabled;
+    }
+
+    /**
+     * @return The histogram for a phase (live; read on the client thread)
+     */
+    public static LatencyHistogram getHistogram(Phase phase) {
+        return HISTOGRAMS[phase.ordinal()];
+    }
+
+    /**
+     * Clear every histogram
+     */
+    public static void reset() {
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.turtletracker.tracker;
+
+import com.turtletracker.TurtleTrackerMod;
+import com.turtletracker.config.TrackedTypeSettings;
+import com.turtletracker.core.EntityTypeTable;
+import net.minecraft.client.multiplayer.ClientLevel;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.animal.Turtle;
+
+import java.util.List;
+
+/**
+ * Routes client entity load/unload events to the index of the tracked type they belong to
+ *
+ * Every tracked type shares this one pass: an entity's type is looked up once in an
+ * {@link EntityTypeTable} built from the registry at startup, and only entities of a
+ * tracked type reach an index. Tracked type 0 is always turtles; the configured extra
+ * types follow in order.
+ */
+public class EntityClassifier {
+
+    // Tracked type of turtles; the extra types start at 1
+    public static final int TURTLE = 0;
+
+    private final EntityTypeTable table = new EntityTypeTable(BuiltInRegistries.ENTITY_TYPE.size());
+
+    // Index per tracked type, by tracked type number
+    private final EntityIndex<?>[] indexes;
+
+    /**
+     * @param turtles Index for turtles
+     * @param extraTypes Trackers for the extra types, in configured order
+     */
+    public EntityClassifier(EntityIndex<Turtle> turtles, List<TypeTracker> extraTypes) {
+        indexes = new EntityIndex<?>[1 + extraTypes.size()];
+        indexes[TURTLE] = turtles;
+        table.set(BuiltInRegistries.ENTITY_TYPE.getId(EntityType.TURTLE), TURTLE);
+        for (int i = 0; i < extraTypes.size(); i++) {
+            indexes[1 + i] = extraTypes.get(i).getIndex();
+            table.set(extraTypes.get(i).getRawTypeId(), 1 + i);
+        }
+    }
+
+    /**
+     * Resolve a configured entity type id
+     *
+     * @return The entity type's raw registry id, or -1 (logged) if no such type exists
+     */
+    public static int resolveRawTypeId(TrackedTypeSettings settings) {
+        ResourceLocation id = ResourceLocation.tryParse(settings.entityType());
+        EntityType<?> type = id != null ? BuiltInRegistries.ENTITY_TYPE.getOptional(id).orElse(null) : null;
+        if (type == null) {
+            TurtleTrackerMod.LOGGER.warn("Unknown entity type {} in extraTrackedTypes, ignoring it", settings.entityType());
+            return -1;
+        }
+        return BuiltInRegistries.ENTITY_TYPE.getId(type);
+    }
+
+    /**
+     * Called when the client starts tracking an entity
+     */
+    public void onEntityLoad(Entity entity, ClientLevel world) {
+        int type = classify(entity);
+        if (type != EntityTypeTable.UNTRACKED) {
+            indexFor(type).add(entity, world);
+        }
+    }
+
+    /**
+     * Called when the client stops tracking an entity
+     */
+    public void onEntityUnload(Entity entity, ClientLevel world) {
+        int type = classify(entity);
+        if (type != EntityTypeTable.UNTRACKED) {
+            indexes[type].remove(entity.getId(), world);
+        }
+    }
+
+    /**
+     * Rebind every index to a new level and seed them with the entities that level already holds,
+     * classifying each entity once
+     *
+     * @param world The new client level, or null when leaving a world
+     */
+    public void rebuild(ClientLevel world) {
+        for (EntityIndex<?> index : indexes) {
+            index.reset(world);
+        }
+        if (world == null) {
+            return;
+        }
+
+        for (Entity entity : world.entitiesForRendering()) {
+            int type = classify(entity);
+            if (type != EntityTypeTable.UNTRACKED && !entity.isRemoved()) {
+                indexFor(type).add(entity, world);
+            }
+        }
+
+        TurtleTrackerMod.LOGGER.debug("Entity indexes rebuilt with {} turtles", indexes[TURTLE].size());
+    }
+
+    private int classify(Entity entity) {
+        return table.classify(BuiltInRegistries.ENTITY_TYPE.getId(entity.getType()));
+    }
+
+    // The table only maps an entity type to the index built for it, so the entity always fits
+    @SuppressWarnings("unchecked")
+    private EntityIndex<Entity> indexFor(int type) {
+        return (EntityIndex<Entity>) indexes[type];
+    }
+}
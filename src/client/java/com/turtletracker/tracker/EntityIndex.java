@@ -0,0 +1,222 @@
+package com.turtletracker.tracker;
+
+import com.turtletracker.core.EntityPositions;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import net.minecraft.client.multiplayer.ClientLevel;
+import net.minecraft.world.entity.Entity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Index of the entities of one tracked type, kept up to date from client entity load/unload events
+ * Instead of sweeping every entity around the player each tick, a tracker only
+ * iterates the entities registered here. {@link EntityClassifier} decides which
+ * index an entity belongs to, so nothing in here checks entity classes.
+ *
+ * The index is bound to a single client level. Any event coming from a different
+ * level (dimension change, reconnect) resets it so stale entities never leak across worlds
+ *
+ * It doubles as the {@link EntityPositions} view the tracker core reads, with slots as indices
+ *
+ * @param <E> The tracked entity class
+ */
+public class EntityIndex<E extends Entity> implements EntityPositions {
+
+    // Dense list of known entities so the per-tick loop can iterate by index
+    private final List<E> entities = new ArrayList<>();
+
+    // Maps entity id -> position in the entities list for O(1) swap-removal
+    private final Int2IntOpenHashMap slotById = new Int2IntOpenHashMap();
+
+    // The level the indexed entities belong to (null when not in a world)
+    private ClientLevel level;
+
+    // Bumped on every add, removal and reset so callers can cheaply detect churn
+    private long changeCount = 0;
+
+    // Optional observer for removals and resets (used to keep derived indexes in sync)
+    private Listener listener;
+
+    public EntityIndex() {
+        slotById.defaultReturnValue(-1);
+    }
+
+    /**
+     * Called when the client starts tracking an entity of this index's type
+     *
+     * @param entity The entity that was loaded
+     * @param world The level the entity was loaded into
+     */
+    public void add(E entity, ClientLevel world) {
+        // An entity from another level means we missed a world change - start over
+        if (world != level) {
+            reset(world);
+        }
+
+        changeCount++;
+        if (slotById.containsKey(entity.getId())) {
+            // Same id re-sent by the server - keep the newest entity object
+            entities.set(slotById.get(entity.getId()), entity);
+            return;
+        }
+
+        slotById.put(entity.getId(), entities.size());
+        entities.add(entity);
+    }
+
+    /**
+     * Called when the client stops tracking an entity of this index's type
+     *
+     * @param entityId The id of the entity that was unloaded
+     * @param world The level the entity was unloaded from
+     */
+    public void remove(int entityId, ClientLevel world) {
+        if (world == level) {
+            remove(entityId);
+        }
+    }
+
+    /**
+     * Remove an entity by id, moving the last entity into its slot
+     *
+     * @param entityId The id of the entity to remove
+     */
+    public void remove(int entityId) {
+        int slot = slotById.remove(entityId);
+        if (slot < 0) {
+            return;
+        }
+        changeCount++;
+        if (listener != null) {
+            listener.onEntityRemoved(entityId);
+        }
+
+        int lastSlot = entities.size() - 1;
+        E last = entities.remove(lastSlot);
+        if (slot != lastSlot) {
+            entities.set(slot, last);
+            slotById.put(last.getId(), slot);
+        }
+    }
+
+    /**
+     * Drop every indexed entity and bind to the given level
+     *
+     * @param world The new client level, or null when leaving a world
+     */
+    public void reset(ClientLevel world) {
+        entities.clear();
+        slotById.clear();
+        level = world;
+        changeCount++;
+        if (listener != null) {
+            listener.onIndexReset();
+        }
+    }
+
+    /**
+     * @return The number of entities of this type currently known to the client
+     */
+    @Override
+    public int size() {
+        return entities.size();
+    }
+
+    /**
+     * @param slot Index between 0 and size() - 1
+     * @return The entity stored at that slot
+     */
+    public E get(int slot) {
+        return entities.get(slot);
+    }
+
+    /**
+     * @param entityId The entity's id
+     * @return The indexed entity with that id, or null if it is not known
+     */
+    public E getById(int entityId) {
+        int slot = slotById.get(entityId);
+        return slot < 0 ? null : entities.get(slot);
+    }
+
+    @Override
+    public int id(int slot) {
+        return entities.get(slot).getId();
+    }
+
+    /**
+     * @return The entity's slot, or -1 if it is not known or has already been removed from the level
+     */
+    @Override
+    public int indexOf(int entityId) {
+        int slot = slotById.get(entityId);
+        return slot < 0 || entities.get(slot).isRemoved() ? -1 : slot;
+    }
+
+    @Override
+    public double x(int slot) {
+        return entities.get(slot).getX();
+    }
+
+    @Override
+    public double y(int slot) {
+        return entities.get(slot).getY();
+    }
+
+    @Override
+    public double z(int slot) {
+        return entities.get(slot).getZ();
+    }
+
+    @Override
+    public float width(int slot) {
+        return entities.get(slot).getBbWidth();
+    }
+
+    @Override
+    public float height(int slot) {
+        return entities.get(slot).getBbHeight();
+    }
+
+    @Override
+    public float eyeHeight(int slot) {
+        return entities.get(slot).getEyeHeight();
+    }
+
+    /**
+     * @return Counter that changes whenever an entity is added or removed or the index is reset
+     */
+    public long getChangeCount() {
+        return changeCount;
+    }
+
+    /**
+     * @param listener Observer notified when entities leave the index or the index is reset
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @return The level this index is currently bound to
+     */
+    public ClientLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * Observer for index changes that are not visible from the per-tick iteration
+     */
+    public interface Listener {
+        /**
+         * @param entityId Id of the entity that was removed
+         */
+        void onEntityRemoved(int entityId);
+
+        /**
+         * Every entity was dropped (level change)
+         */
+        void onIndexReset();
+    }
+}
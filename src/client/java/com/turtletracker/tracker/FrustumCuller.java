@@ -0,0 +1,100 @@
+package com.turtletracker.tracker;
+
+import com.turtletracker.core.FrustumPlanes;
+import com.turtletracker.core.ViewFilter;
+import org.joml.Matrix4f;
+
+/**
+ * Cheap view-frustum test shared by the tracker and the highlight renderer
+ *
+ * The frustum planes are copied from the camera at the start of each frame, so the
+ * tracker's tick runs against the previous frame's view and the renderer against the
+ * current one. Boxes are tested relative to the captured camera position, the same way
+ * vanilla's frustum does it, which keeps the float math precise far from the origin.
+ *
+ * Until a frame has been captured (or after a level change) every box counts as in view,
+ * so culling can only ever hide work, never turtles the player could see.
+ *
+ * The plane test itself is the core's {@link FrustumPlanes}, so trace replays cull exactly like the game.
+ */
+public class FrustumCuller implements ViewFilter {
+
+    private final Matrix4f viewProjection = new Matrix4f();
+    private final float[] matrixValues = new float[16];
+    private final FrustumPlanes planes = new FrustumPlanes();
+
+    // Statistics
+    private int lastTickTested = 0;
+    private int lastTickCulled = 0;
+    private long totalCulled = 0;
+
+    /**
+     * Copy the frustum of the frame about to be rendered
+     *
+     * @param projection The projection matrix
+     * @param view The camera rotation matrix (no translation)
+     * @param cameraX Camera X in world coordinates
+     * @param cameraY Camera Y in world coordinates
+     * @param cameraZ Camera Z in world coordinates
+     */
+    public void capture(Matrix4f projection, Matrix4f view, double cameraX, double cameraY, double cameraZ) {
+        projection.mul(view, viewProjection);
+        planes.set(viewProjection.get(matrixValues), cameraX, cameraY, cameraZ);
+    }
+
+    /**
+     * Forget the captured frustum (level change); everything counts as in view until the next frame
+     */
+    public void reset() {
+        planes.reset();
+    }
+
+    /**
+     * @return true if the box, grown by a small margin, intersects the captured frustum
+     */
+    @Override
+    public boolean isBoxInView(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        return planes.isBoxInView(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    /**
+     * Record how many turtles the tracker tested and culled this tick
+     *
+     * @param tested Turtles in range that went through the culling stage
+     * @param culled Turtles kept out of the raycast queue because they were off-screen
+     */
+    public void recordTick(int tested, int culled) {
+        lastTickTested = tested;
+        lastTickCulled = culled;
+        totalCulled += culled;
+    }
+
+    /**
+     * @return Whether a frame has been captured since the last reset
+     */
+    public boolean isCaptured() {
+        return planes.isSet();
+    }
+
+    /**
+     * @return The captured planes (what trace recordings store)
+     */
+    public FrustumPlanes getPlanes() {
+        return planes;
+    }
+
+    public int getLastTickTested() {
+        return lastTickTested;
+    }
+
+    /**
+     * @return Turtles skipped by the last tick's culling stage, i.e. raycasts that were not queued
+     */
+    public int getLastTickCulled() {
+        return lastTickCulled;
+    }
+
+    public long getTotalCulled() {
+        return totalCulled;
+    }
+}
@@ -0,0 +1,296 @@
+package com.turtletracker.tracker;
+
+import com.turtletracker.core.NestIndex;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.client.multiplayer.ClientLevel;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.TurtleEggBlock;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+
+/**
+ * Keeps a {@link NestIndex} of the turtle egg blocks in loaded chunks
+ *
+ * When a chunk loads, each section's block palette is checked for a turtle egg state
+ * first; sections that cannot contain one (nearly all of them) are skipped without
+ * reading a single block. The few candidate sections are copied on the client thread
+ * and scanned on a background thread, and the results are applied on the next tick.
+ * After that the index is only patched from block updates, never rescanned.
+ *
+ * A block update that lands while its chunk's scan is still running is applied at once
+ * and re-checked against the level after the scan result, so the older copy the worker
+ * read can never undo it.
+ *
+ * Must only be used on the client thread (apart from the worker it owns).
+ */
+public class NestTracker {
+
+    private static final Predicate<BlockState> IS_EGG = state -> state.is(Blocks.TURTLE_EGG);
+
+    private final ExecutorService scanner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Turtle Tracker Nest Scan");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final NestIndex index = new NestIndex();
+
+    // Chunk scans handed to the worker, by chunk key; absent once applied, unloaded or reset
+    private final Long2ObjectOpenHashMap<ChunkScan> pendingScans = new Long2ObjectOpenHashMap<>();
+
+    // Finished scans waiting for the client thread
+    private final Queue<ChunkScan> finishedScans = new ConcurrentLinkedQueue<>();
+
+    // Level the indexed nests belong to
+    private ClientLevel level;
+
+    // Statistics
+    private long chunksLoaded = 0;
+    private long chunksScanned = 0;
+    private long sectionsScanned = 0;
+    private long blockUpdates = 0;
+
+    /**
+     * Rebind to a new level, dropping every nest and discarding scans still in flight
+     *
+     * @param world The new client level, or null when leaving a world
+     */
+    public void reset(ClientLevel world) {
+        index.clear();
+        pendingScans.clear();
+        finishedScans.clear();
+        level = world;
+    }
+
+    /**
+     * Queue a scan of the sections of a freshly loaded chunk whose palette holds a turtle egg
+     */
+    public void onChunkLoad(ClientLevel world, LevelChunk chunk) {
+        if (world != level) {
+            reset(world);
+        }
+        chunksLoaded++;
+        ChunkPos chunkPos = chunk.getPos();
+        long key = chunkPos.toLong();
+
+        // A chunk can be sent again without unloading; the new data replaces the old
+        index.removeChunk(chunkPos.x, chunkPos.z);
+        pendingScans.remove(key);
+
+        List<PalettedContainer<BlockState>> candidates = null;
+        LevelChunkSection[] sections = chunk.getSections();
+        int[] candidateMinY = null;
+        for (int i = 0; i < sections.length; i++) {
+            LevelChunkSection section = sections[i];
+            if (section.hasOnlyAir() || !section.maybeHas(IS_EGG)) {
+                continue;
+            }
+            if (candidates == null) {
+                candidates = new ArrayList<>();
+                candidateMinY = new int[sections.length];
+            }
+            candidateMinY[candidates.size()] = world.getSectionYFromSectionIndex(i) << 4;
+            // The worker reads a private copy, so later block updates never race with it
+            candidates.add(section.getStates().copy());
+        }
+        if (candidates == null) {
+            return;
+        }
+
+        ChunkScan scan = new ChunkScan(chunkPos.getMinBlockX(), chunkPos.getMinBlockZ(), candidates, candidateMinY);
+        pendingScans.put(key, scan);
+        chunksScanned++;
+        sectionsScanned += scan.sectionCount;
+        scanner.execute(() -> {
+            scan.run();
+            finishedScans.add(scan);
+        });
+    }
+
+    /**
+     * Forget every nest in an unloaded chunk and drop its pending scan
+     */
+    public void onChunkUnload(ClientLevel world, LevelChunk chunk) {
+        if (world != level) {
+            return;
+        }
+        ChunkPos chunkPos = chunk.getPos();
+        index.removeChunk(chunkPos.x, chunkPos.z);
+        pendingScans.remove(chunkPos.toLong());
+    }
+
+    /**
+     * Patch the index after a client block update
+     */
+    public void onBlockChanged(ClientLevel world, BlockPos pos, BlockState oldState, BlockState newState) {
+        if (world != level || !(IS_EGG.test(oldState) || IS_EGG.test(newState))) {
+            return;
+        }
+        blockUpdates++;
+        apply(pos.getX(), pos.getY(), pos.getZ(), newState);
+
+        ChunkScan pending = pendingScans.get(ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4));
+        if (pending != null) {
+            pending.changedSince.add(pos.asLong());
+        }
+    }
+
+    /**
+     * Apply finished chunk scans (client thread, once per tick)
+     */
+    public void tick() {
+        ChunkScan scan;
+        while ((scan = finishedScans.poll()) != null) {
+            long key = ChunkPos.asLong(scan.minX >> 4, scan.minZ >> 4);
+            if (pendingScans.get(key) != scan) {
+                // Unloaded, reloaded or reset while the worker was busy
+                continue;
+            }
+            pendingScans.remove(key);
+
+            for (int i = 0; i < scan.nestCount; i++) {
+                index.put(scan.nestX[i], scan.nestY[i], scan.nestZ[i], scan.nestEggs[i], scan.nestHatch[i]);
+            }
+            // The worker saw the chunk as it was on load; re-read whatever changed since
+            for (int i = 0; i < scan.changedSince.size(); i++) {
+                BlockPos pos = BlockPos.of(scan.changedSince.getLong(i));
+                apply(pos.getX(), pos.getY(), pos.getZ(), level.getBlockState(pos));
+            }
+        }
+    }
+
+    private void apply(int x, int y, int z, BlockState state) {
+        if (IS_EGG.test(state)) {
+            index.put(x, y, z, state.getValue(TurtleEggBlock.EGGS), state.getValue(TurtleEggBlock.HATCH));
+        } else {
+            index.remove(x, y, z);
+        }
+    }
+
+    /**
+     * Stop the scan worker (called when the client shuts down)
+     */
+    public void shutdown() {
+        scanner.shutdownNow();
+    }
+
+    /**
+     * @return Indexed nests (client thread only)
+     */
+    public NestIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * @return Chunk scans still running on the worker
+     */
+    public int getPendingScans() {
+        return pendingScans.size();
+    }
+
+    /**
+     * @return Chunks seen loading since the tracker started
+     */
+    public long getChunksLoaded() {
+        return chunksLoaded;
+    }
+
+    /**
+     * @return Chunk loads with at least one section whose palette holds a turtle egg
+     */
+    public long getChunksScanned() {
+        return chunksScanned;
+    }
+
+    /**
+     * @return Sections whose blocks were actually read, as opposed to ruled out by their palette
+     */
+    public long getSectionsScanned() {
+        return sectionsScanned;
+    }
+
+    /**
+     * @return Block updates that touched a turtle egg
+     */
+    public long getBlockUpdates() {
+        return blockUpdates;
+    }
+
+    /**
+     * One chunk's candidate sections and, once the worker is done, the nests found in them
+     */
+    private static final class ChunkScan {
+        private final int minX;
+        private final int minZ;
+        private final List<PalettedContainer<BlockState>> sections;
+        private final int[] sectionMinY;
+        private final int sectionCount;
+
+        // Client thread: packed positions of egg updates that arrived while scanning
+        private final LongArrayList changedSince = new LongArrayList();
+
+        // Written by the worker, read after the hand-off through the finished queue
+        private int[] nestX = new int[4];
+        private int[] nestY = new int[4];
+        private int[] nestZ = new int[4];
+        private int[] nestEggs = new int[4];
+        private int[] nestHatch = new int[4];
+        private int nestCount = 0;
+
+        private ChunkScan(int minX, int minZ, List<PalettedContainer<BlockState>> sections, int[] sectionMinY) {
+            this.minX = minX;
+            this.minZ = minZ;
+            this.sections = sections;
+            this.sectionMinY = sectionMinY;
+            this.sectionCount = sections.size();
+        }
+
+        private void run() {
+            for (int s = 0; s < sectionCount; s++) {
+                PalettedContainer<BlockState> states = sections.get(s);
+                int minY = sectionMinY[s];
+                for (int y = 0; y < 16; y++) {
+                    for (int z = 0; z < 16; z++) {
+                        for (int x = 0; x < 16; x++) {
+                            BlockState state = states.get(x, y, z);
+                            if (IS_EGG.test(state)) {
+                                add(minX + x, minY + y, minZ + z, state);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        private void add(int x, int y, int z, BlockState state) {
+            if (nestCount == nestX.length) {
+                int newSize = nestCount * 2;
+                nestX = Arrays.copyOf(nestX, newSize);
+                nestY = Arrays.copyOf(nestY, newSize);
+                nestZ = Arrays.copyOf(nestZ, newSize);
+                nestEggs = Arrays.copyOf(nestEggs, newSize);
+                nestHatch = Arrays.copyOf(nestHatch, newSize);
+            }
+            nestX[nestCount] = x;
+            nestY[nestCount] = y;
+            nestZ[nestCount] = z;
+            nestEggs[nestCount] = state.getValue(TurtleEggBlock.EGGS);
+            nestHatch[nestCount] = state.getValue(TurtleEggBlock.HATCH);
+            nestCount++;
+        }
+    }
+}
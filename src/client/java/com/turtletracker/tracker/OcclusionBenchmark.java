@@ -0,0 +1,155 @@
+package com.turtletracker.tracker;
+
+import net.minecraft.world.level.ClipContext;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.phys.HitResult;
+import net.minecraft.world.phys.Vec3;
+import net.minecraft.world.phys.shapes.CollisionContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Comparison of the voxel DDA occlusion backend against vanilla {@code level.clip}
+ *
+ * In game the corpus is every tracked turtle plus a seeded set of random sight lines
+ * around the player, so results are reproducible at the same spot; the game tests run
+ * it over fixed block layouts. Both backends answer the same rays; we report how often
+ * they agree, which way they disagree and the average cost per ray of each.
+ *
+ * Nothing here touches client classes, so it also runs against a server level.
+ */
+public final class OcclusionBenchmark {
+
+    private OcclusionBenchmark() {
+    }
+
+    /**
+     * Outcome of a benchmark run
+     *
+     * @param rays Number of sight lines tested
+     * @param agreements Rays where both backends gave the same answer
+     * @param clipVisible Rays vanilla clip reported as clear
+     * @param voxelVisible Rays the voxel backend reported as clear
+     * @param voxelOnlyHidden Rays only the voxel backend reported as blocked (partial blocks it treats as full)
+     * @param clipNanos Total time spent in vanilla clip
+     * @param voxelNanos Total time spent in the voxel backend
+     */
+    public record Result(int rays, int agreements, int clipVisible, int voxelVisible, int voxelOnlyHidden,
+                         long clipNanos, long voxelNanos) {
+        public double agreementRate() {
+            return rays == 0 ? 1.0 : (double) agreements / rays;
+        }
+
+        /**
+         * @return Rays only vanilla clip reported as blocked; the voxel backend should never see through a block
+         */
+        public int voxelOnlyVisible() {
+            return rays - agreements - voxelOnlyHidden;
+        }
+
+        public double clipNanosPerRay() {
+            return rays == 0 ? 0.0 : (double) clipNanos / rays;
+        }
+
+        public double voxelNanosPerRay() {
+            return rays == 0 ? 0.0 : (double) voxelNanos / rays;
+        }
+    }
+
+    /**
+     * Build a corpus from fixed targets plus seeded random sight lines around the eye
+     *
+     * @param eye Start of every sight line
+     * @param fixedTargets Targets included as they are (e.g. tracked turtles' eyes)
+     * @param syntheticRays Extra random sight lines within the given radius
+     * @param radius Maximum length of the random sight lines
+     * @param seed Seed for the random sight lines
+     * @return The targets, fixed ones first
+     */
+    public static List<Vec3> corpus(Vec3 eye, List<Vec3> fixedTargets, int syntheticRays, double radius, long seed) {
+        List<Vec3> targets = new ArrayList<>(fixedTargets.size() + syntheticRays);
+        targets.addAll(fixedTargets);
+        Random random = new Random(seed);
+        for (int i = 0; i < syntheticRays; i++) {
+            double distance = 2.0 + random.nextDouble() * (radius - 2.0);
+            double yaw = random.nextDouble() * Math.PI * 2.0;
+            double pitch = (random.nextDouble() - 0.5) * Math.PI * 0.5;
+            targets.add(new Vec3(
+                eye.x + Math.cos(yaw) * Math.cos(pitch) * distance,
+                eye.y + Math.sin(pitch) * distance,
+                eye.z + Math.sin(yaw) * Math.cos(pitch) * distance));
+        }
+        return targets;
+    }
+
+    /**
+     * Run the comparison on the thread that owns the level
+     *
+     * @param level The level both backends read
+     * @param collision Collision context for vanilla clip (the player in game)
+     * @param cache The solidity cache backing the voxel backend, bound to the same level
+     * @param eye Start of every sight line
+     * @param targets End of each sight line
+     * @return Agreement and timing figures
+     */
+    public static Result run(Level level, CollisionContext collision, SectionSolidityCache cache,
+                             Vec3 eye, List<Vec3> targets) {
+        int rays = targets.size();
+        double[] targetX = new double[rays];
+        double[] targetY = new double[rays];
+        double[] targetZ = new double[rays];
+
+        // Build the corpus up front so only the checks themselves are timed
+        for (int i = 0; i < rays; i++) {
+            Vec3 target = targets.get(i);
+            targetX[i] = target.x;
+            targetY[i] = target.y;
+            targetZ[i] = target.z;
+        }
+
+        boolean[] clipResults = new boolean[rays];
+        boolean[] voxelResults = new boolean[rays];
+
+        // Warm both paths (and fill any missing cache sections) before timing
+        for (int i = 0; i < rays; i++) {
+            clip(level, collision, eye, targetX[i], targetY[i], targetZ[i]);
+            cache.isLineClear(eye.x, eye.y, eye.z, targetX[i], targetY[i], targetZ[i]);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < rays; i++) {
+            clipResults[i] = clip(level, collision, eye, targetX[i], targetY[i], targetZ[i]);
+        }
+        long clipNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < rays; i++) {
+            voxelResults[i] = cache.isLineClear(eye.x, eye.y, eye.z, targetX[i], targetY[i], targetZ[i]);
+        }
+        long voxelNanos = System.nanoTime() - start;
+
+        int agreements = 0;
+        int clipVisible = 0;
+        int voxelVisible = 0;
+        int voxelOnlyHidden = 0;
+        for (int i = 0; i < rays; i++) {
+            if (clipResults[i] == voxelResults[i]) agreements++;
+            else if (clipResults[i]) voxelOnlyHidden++;
+            if (clipResults[i]) clipVisible++;
+            if (voxelResults[i]) voxelVisible++;
+        }
+
+        return new Result(rays, agreements, clipVisible, voxelVisible, voxelOnlyHidden, clipNanos, voxelNanos);
+    }
+
+    /**
+     * Same raycast the tracker uses for its vanilla backend
+     */
+    private static boolean clip(Level level, CollisionContext collision, Vec3 eye, double x, double y, double z) {
+        ClipContext context = new ClipContext(eye, new Vec3(x, y, z),
+            ClipContext.Block.COLLIDER, ClipContext.Fluid.NONE, collision);
+        return level.clip(context).getType() == HitResult.Type.MISS;
+    }
+}
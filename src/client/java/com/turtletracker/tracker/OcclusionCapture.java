@@ -0,0 +1,64 @@
+package com.turtletracker.tracker;
+
+import com.turtletracker.core.AsyncVisibilityPipeline;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+/**
+ * Builds {@link OcclusionSnapshot}s on the client thread
+ *
+ * Only the chunk sections crossed by the requested sight lines are included. The bitsets
+ * come straight from the {@link SectionSolidityCache}; since the cache replaces arrays on
+ * change instead of mutating them, a capture is just a map of shared references.
+ */
+public class OcclusionCapture implements AsyncVisibilityPipeline.OracleCapture {
+
+    private final SectionSolidityCache solidityCache;
+
+    // State for the section walk visitor (avoids allocating a lambda per ray)
+    private Long2ObjectOpenHashMap<long[]> walkTarget;
+    private final OcclusionSnapshot.CellVisitor collectSection = this::collectSection;
+
+    /**
+     * @param solidityCache Event-maintained section bitsets to capture from
+     */
+    public OcclusionCapture(SectionSolidityCache solidityCache) {
+        this.solidityCache = solidityCache;
+    }
+
+    /**
+     * Capture the solidity of every section crossed by the sight lines from the eye to each target
+     * Must be called on the client thread
+     *
+     * @param eyeX Player eye X
+     * @param eyeY Player eye Y
+     * @param eyeZ Player eye Z
+     * @param targetX Target X coordinates
+     * @param targetY Target Y coordinates
+     * @param targetZ Target Z coordinates
+     * @param count Number of targets
+     * @return An immutable snapshot safe to hand to worker threads
+     */
+    @Override
+    public OcclusionSnapshot capture(double eyeX, double eyeY, double eyeZ,
+                                     double[] targetX, double[] targetY, double[] targetZ, int count) {
+        Long2ObjectOpenHashMap<long[]> sections = new Long2ObjectOpenHashMap<>();
+
+        walkTarget = sections;
+        for (int i = 0; i < count; i++) {
+            // Walk the section grid (16-block cells) along the sight line
+            OcclusionSnapshot.walkCells(eyeX / 16.0, eyeY / 16.0, eyeZ / 16.0,
+                targetX[i] / 16.0, targetY[i] / 16.0, targetZ[i] / 16.0, collectSection);
+        }
+        walkTarget = null;
+
+        return new OcclusionSnapshot(sections);
+    }
+
+    private boolean collectSection(int sectionX, int sectionY, int sectionZ) {
+        long key = OcclusionSnapshot.sectionKey(sectionX, sectionY, sectionZ);
+        if (!walkTarget.containsKey(key)) {
+            walkTarget.put(key, solidityCache.getSection(sectionX, sectionY, sectionZ));
+        }
+        return true;
+    }
+}
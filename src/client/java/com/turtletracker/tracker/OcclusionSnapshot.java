@@ -0,0 +1,157 @@
+package com.turtletracker.tracker;
+
+import com.turtletracker.core.OcclusionOracle;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+/**
+ * Immutable copy of block solidity for a set of chunk sections
+ *
+ * Each captured section is stored as a 4096-bit mask (64 longs), one bit per block,
+ * set when the block has a collision shape. Sections that were not captured, or
+ * were captured as empty, are treated as open air - the same answer vanilla gives
+ * for unloaded chunks. Because nothing here touches the level, line-of-sight tests
+ * against a snapshot are safe to run on worker threads.
+ */
+public final class OcclusionSnapshot implements OcclusionOracle {
+
+    // Shared marker for sections that contain no solid blocks
+    public static final long[] EMPTY_SECTION = new long[0];
+
+    // Number of longs needed to hold one bit per block of a 16x16x16 section
+    public static final int SECTION_WORDS = 4096 / 64;
+
+    // Packed section position -> solidity bits (never mutated after construction)
+    private final Long2ObjectOpenHashMap<long[]> sections;
+
+    // Reused visitor so line tests do not allocate
+    private final CellVisitor openCell = (x, y, z) -> !isSolid(x, y, z);
+
+    /**
+     * @param sections Section bitmasks keyed by {@link #sectionKey(int, int, int)}; ownership passes to the snapshot
+     */
+    public OcclusionSnapshot(Long2ObjectOpenHashMap<long[]> sections) {
+        this.sections = sections;
+    }
+
+    /**
+     * Pack section coordinates into a single long key
+     * Uses 22 bits for X and Z and 20 bits for Y, matching the range of loaded sections
+     */
+    public static long sectionKey(int sectionX, int sectionY, int sectionZ) {
+        return ((long) sectionX & 0x3FFFFFL) << 42 | ((long) sectionZ & 0x3FFFFFL) << 20 | ((long) sectionY & 0xFFFFFL);
+    }
+
+    /**
+     * Bit index of a block inside its section mask
+     */
+    public static int blockIndex(int localX, int localY, int localZ) {
+        return (localY << 8) | (localZ << 4) | localX;
+    }
+
+    /**
+     * @return true if the block at the given world coordinates has a collision shape
+     */
+    public boolean isSolid(int x, int y, int z) {
+        long[] bits = sections.get(sectionKey(x >> 4, y >> 4, z >> 4));
+        if (bits == null || bits.length == 0) {
+            return false;
+        }
+        int index = blockIndex(x & 15, y & 15, z & 15);
+        return (bits[index >>> 6] & (1L << (index & 63))) != 0;
+    }
+
+    /**
+     * Walk every block the segment passes through (3D DDA) and report whether none of them is solid
+     * Like vanilla's clip, both the start and the end block are included in the test
+     *
+     * @return true if there is a clear line of sight between the two points
+     */
+    @Override
+    public boolean isLineClear(double fromX, double fromY, double fromZ, double toX, double toY, double toZ) {
+        return walkCells(fromX, fromY, fromZ, toX, toY, toZ, openCell);
+    }
+
+    /**
+     * Visitor for {@link #walkCells}
+     */
+    @FunctionalInterface
+    public interface CellVisitor {
+        /**
+         * @return false to stop the walk early
+         */
+        boolean visit(int x, int y, int z);
+    }
+
+    /**
+     * Amanatides-Woo voxel traversal over unit cells from one point to another
+     * Callers can walk coarser grids by scaling the coordinates (e.g. divide by 16 for sections)
+     *
+     * @return true if every visited cell returned true
+     */
+    public static boolean walkCells(double fromX, double fromY, double fromZ,
+                                    double toX, double toY, double toZ, CellVisitor visitor) {
+        int x = (int) Math.floor(fromX);
+        int y = (int) Math.floor(fromY);
+        int z = (int) Math.floor(fromZ);
+        int endX = (int) Math.floor(toX);
+        int endY = (int) Math.floor(toY);
+        int endZ = (int) Math.floor(toZ);
+
+        double dx = toX - fromX;
+        double dy = toY - fromY;
+        double dz = toZ - fromZ;
+
+        int stepX = dx > 0 ? 1 : (dx < 0 ? -1 : 0);
+        int stepY = dy > 0 ? 1 : (dy < 0 ? -1 : 0);
+        int stepZ = dz > 0 ? 1 : (dz < 0 ? -1 : 0);
+
+        // Parametric distance (0..1 along the segment) needed to cross one cell on each axis
+        double tDeltaX = stepX != 0 ? Math.abs(1.0 / dx) : Double.POSITIVE_INFINITY;
+        double tDeltaY = stepY != 0 ? Math.abs(1.0 / dy) : Double.POSITIVE_INFINITY;
+        double tDeltaZ = stepZ != 0 ? Math.abs(1.0 / dz) : Double.POSITIVE_INFINITY;
+
+        // Parametric distance to the first cell boundary on each axis
+        double tMaxX = stepX > 0 ? (x + 1 - fromX) / dx : (stepX < 0 ? (fromX - x) / -dx : Double.POSITIVE_INFINITY);
+        double tMaxY = stepY > 0 ? (y + 1 - fromY) / dy : (stepY < 0 ? (fromY - y) / -dy : Double.POSITIVE_INFINITY);
+        double tMaxZ = stepZ > 0 ? (z + 1 - fromZ) / dz : (stepZ < 0 ? (fromZ - z) / -dz : Double.POSITIVE_INFINITY);
+
+        // Upper bound on visited cells so floating point drift can never loop forever
+        int remaining = Math.abs(endX - x) + Math.abs(endY - y) + Math.abs(endZ - z) + 1;
+
+        while (remaining-- > 0) {
+            if (!visitor.visit(x, y, z)) {
+                return false;
+            }
+            if (x == endX && y == endY && z == endZ) {
+                break;
+            }
+
+            // Step along whichever axis reaches its next boundary first
+            if (tMaxX < tMaxY) {
+                if (tMaxX < tMaxZ) {
+                    x += stepX;
+                    tMaxX += tDeltaX;
+                } else {
+                    z += stepZ;
+                    tMaxZ += tDeltaZ;
+                }
+            } else {
+                if (tMaxY < tMaxZ) {
+                    y += stepY;
+                    tMaxY += tDeltaY;
+                } else {
+                    z += stepZ;
+                    tMaxZ += tDeltaZ;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Number of sections held by this snapshot
+     */
+    public int sectionCount() {
+        return sections.size();
+    }
+}
@@ -0,0 +1,128 @@
+package com.turtletracker.tracker;
+
+import com.turtletracker.stats.TrackerStats;
+
+/**
+ * Wall-clock time spent in each phase of a tracker scan
+ *
+ * The tracker calls {@link #begin()} at the start of a scan and {@link #end(int)} after each
+ * phase; every end records the time since the previous mark. Besides the last value we keep
+ * an exponential moving average per phase, which is what the HUD shows. Samples are also
+ * forwarded to {@link TrackerStats} so the same measurement feeds the latency histograms.
+ * With async visibility the raycasts run on workers, so the visibility phase only covers
+ * the handoff to them and is recorded as such rather than as raycast time.
+ */
+public class PhaseTimings {
+
+    public static final int GRID = 0;
+    public static final int QUERY = 1;
+    public static final int CULL = 2;
+    public static final int VISIBILITY = 3;
+    public static final int SNAPSHOT = 4;
+    public static final int PHASE_COUNT = 5;
+
+    private static final String[] NAMES = {"grid", "query", "cull", "visibility", "snapshot"};
+
+    private static final TrackerStats.Phase[] STATS_PHASES = {
+        TrackerStats.Phase.GRID,
+        TrackerStats.Phase.QUERY,
+        TrackerStats.Phase.FILTER,
+        TrackerStats.Phase.RAYCAST,
+        TrackerStats.Phase.SNAPSHOT
+    };
+
+    // Weight of the newest sample in the moving average
+    private static final double AVERAGE_WEIGHT = 0.1;
+
+    private final TrackerStats.Phase[] statsPhases = STATS_PHASES.clone();
+
+    private final long[] lastNanos = new long[PHASE_COUNT];
+    private final double[] averageNanos = new double[PHASE_COUNT];
+    private final boolean[] hasSample = new boolean[PHASE_COUNT];
+    private long markNanos;
+
+    /**
+     * @param asyncVisibility Whether the visibility phase hands the raycasts to worker threads
+     */
+    public PhaseTimings(boolean asyncVisibility) {
+        if (asyncVisibility) {
+            statsPhases[VISIBILITY] = TrackerStats.Phase.VISIBILITY_HANDOFF;
+        }
+    }
+
+    /**
+     * Start timing a scan
+     */
+    public void begin() {
+        markNanos = System.nanoTime();
+    }
+
+    /**
+     * Record the time since the previous mark against a phase
+     *
+     * @param phase One of the phase constants
+     */
+    public void end(int phase) {
+        long now = System.nanoTime();
+        record(phase, now - markNanos);
+        markNanos = now;
+    }
+
+    /**
+     * Record a phase duration measured elsewhere
+     *
+     * @param phase One of the phase constants
+     * @param nanos Duration in nanoseconds
+     */
+    public void record(int phase, long nanos) {
+        lastNanos[phase] = nanos;
+        averageNanos[phase] = hasSample[phase]
+            ? averageNanos[phase] + (nanos - averageNanos[phase]) * AVERAGE_WEIGHT
+            : nanos;
+        hasSample[phase] = true;
+        TrackerStats.record(statsPhases[phase], nanos);
+    }
+
+    /**
+     * Forget every sample
+     */
+    public void reset() {
+        for (int phase = 0; phase < PHASE_COUNT; phase++) {
+            lastNanos[phase] = 0;
+            averageNanos[phase] = 0.0;
+            hasSample[phase] = false;
+        }
+    }
+
+    /**
+     * @return The phase's duration in the last scan, in nanoseconds
+     */
+    public long getLastNanos(int phase) {
+        return lastNanos[phase];
+    }
+
+    /**
+     * @return Moving average of the phase's duration, in microseconds
+     */
+    public double getAverageMicros(int phase) {
+        return averageNanos[phase] / 1000.0;
+    }
+
+    /**
+     * @return Moving average of a whole scan, in microseconds
+     */
+    public double getTotalAverageMicros() {
+        double total = 0.0;
+        for (int phase = 0; phase < PHASE_COUNT; phase++) {
+            total += averageNanos[phase];
+        }
+        return total / 1000.0;
+    }
+
+    /**
+     * @return Short display name of a phase
+     */
+    public static String getName(int phase) {
+        return NAMES[phase];
+    }
+}
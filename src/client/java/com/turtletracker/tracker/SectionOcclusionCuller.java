@@ -0,0 +1,164 @@
+package com.turtletracker.tracker;
+
+import com.turtletracker.core.ViewFilter;
+import com.turtletracker.mixin.LevelRendererAccessor;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import net.minecraft.client.renderer.LevelRenderer;
+import net.minecraft.client.renderer.chunk.SectionRenderDispatcher;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+
+/**
+ * Coarse occlusion test that reuses the work the level renderer already did
+ *
+ * Each frame vanilla walks its section visibility graph out from the camera and keeps the
+ * 16x16x16 sections that could show through open faces. An entity whose box only touches
+ * sections outside that set is taken to be behind terrain, so the tracker marks it hidden
+ * without a raycast; only entities in visible sections go on to the eye-to-eye
+ * line-of-sight check. This is a coarse test and can disagree with that raycast:
+ * - the graph is walked from the render camera, not the player's eye, which differs in
+ *   third person;
+ * - the set is frustum-culled, so it says nothing about sections off screen (the tracker
+ *   only asks about boxes inside the frustum);
+ * - it stops at the render distance;
+ * - the tick tests against the previous frame's set, so it lags a frame behind.
+ * Within the graph itself the test errs on the side of visible.
+ *
+ * Copying the set costs a pass over every visible section, so it is only done when the
+ * tracker asked for it, at most once per tick. Like the frustum, the tick tests against
+ * the previous frame's set. Until a set has been captured (after a level change, or while
+ * the renderer reports no sections at all) every box passes.
+ */
+public class SectionOcclusionCuller implements ViewFilter {
+
+    private final LongOpenHashSet visibleSections = new LongOpenHashSet();
+    private boolean captured = false;
+    private boolean captureRequested = false;
+
+    // Statistics; boxes are counted as they are tested, ticks are closed by recordTick()
+    private int tickTested = 0;
+    private int tickCulled = 0;
+    private int lastTickTested = 0;
+    private int lastTickCulled = 0;
+    private long totalCulled = 0;
+
+    /**
+     * Ask for the next frame's visible sections (called by the tracker each tick it has entities nearby)
+     */
+    public void requestCapture() {
+        captureRequested = true;
+    }
+
+    /**
+     * Copy the renderer's visible sections if the tracker asked for them
+     *
+     * @param levelRenderer The level renderer, after it set up this frame's sections
+     */
+    public void capture(LevelRenderer levelRenderer) {
+        if (!captureRequested) {
+            return;
+        }
+        captureRequested = false;
+
+        ObjectArrayList<SectionRenderDispatcher.RenderSection> sections =
+            ((LevelRendererAccessor) levelRenderer).turtleTracker$getVisibleSections();
+        visibleSections.clear();
+        for (int i = 0; i < sections.size(); i++) {
+            BlockPos origin = sections.get(i).getOrigin();
+            visibleSections.add(SectionPos.asLong(
+                SectionPos.blockToSectionCoord(origin.getX()),
+                SectionPos.blockToSectionCoord(origin.getY()),
+                SectionPos.blockToSectionCoord(origin.getZ())));
+        }
+        // An empty graph means the renderer is still catching up (teleport, reload), not that nothing is visible
+        captured = !visibleSections.isEmpty();
+    }
+
+    /**
+     * Forget the captured sections (level change); everything counts as visible until the next capture
+     */
+    public void reset() {
+        visibleSections.clear();
+        captured = false;
+        captureRequested = false;
+    }
+
+    /**
+     * @return true if the box touches at least one section the renderer considered visible
+     */
+    @Override
+    public boolean isBoxInView(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        if (!captured) {
+            return true;
+        }
+        tickTested++;
+        int minSectionX = SectionPos.blockToSectionCoord(minX);
+        int minSectionY = SectionPos.blockToSectionCoord(minY);
+        int minSectionZ = SectionPos.blockToSectionCoord(minZ);
+        int maxSectionX = SectionPos.blockToSectionCoord(maxX);
+        int maxSectionY = SectionPos.blockToSectionCoord(maxY);
+        int maxSectionZ = SectionPos.blockToSectionCoord(maxZ);
+        for (int sectionX = minSectionX; sectionX <= maxSectionX; sectionX++) {
+            for (int sectionY = minSectionY; sectionY <= maxSectionY; sectionY++) {
+                for (int sectionZ = minSectionZ; sectionZ <= maxSectionZ; sectionZ++) {
+                    if (visibleSections.contains(SectionPos.asLong(sectionX, sectionY, sectionZ))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        tickCulled++;
+        return false;
+    }
+
+    /**
+     * Close the current tick's statistics (called once per tick, before any filtering)
+     */
+    public void recordTick() {
+        lastTickTested = tickTested;
+        lastTickCulled = tickCulled;
+        totalCulled += tickCulled;
+        tickTested = 0;
+        tickCulled = 0;
+    }
+
+    /**
+     * @return Boxes hidden so far in the current tick
+     */
+    public int getTickCulled() {
+        return tickCulled;
+    }
+
+    /**
+     * @return Whether a section set has been captured since the last reset
+     */
+    public boolean isCaptured() {
+        return captured;
+    }
+
+    /**
+     * @return Sections in the last captured set
+     */
+    public int getVisibleSectionCount() {
+        return visibleSections.size();
+    }
+
+    /**
+     * @return Boxes that reached this stage last tick, i.e. were in range and on screen
+     */
+    public int getLastTickTested() {
+        return lastTickTested;
+    }
+
+    /**
+     * @return Boxes hidden last tick because all their sections were occluded, i.e. raycasts that were not queued
+     */
+    public int getLastTickCulled() {
+        return lastTickCulled;
+    }
+
+    public long getTotalCulled() {
+        return totalCulled;
+    }
+}
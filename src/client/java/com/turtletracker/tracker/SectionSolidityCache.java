@@ -0,0 +1,207 @@
+package com.turtletracker.tracker;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+
+/**
+ * Compact solid/non-solid bitset per loaded chunk section
+ *
+ * Sections are built from the level the first time a query touches them, dropped when
+ * their chunk loads or unloads and patched on every client block update, so occlusion
+ * queries never have to resolve a VoxelShape and chunks nobody looks through cost nothing.
+ * Bitsets are copy-on-write: a block change replaces the section's array instead of
+ * mutating it, which means arrays handed out to an {@link OcclusionSnapshot} stay valid
+ * and unchanged on worker threads.
+ *
+ * A block counts as solid when it has any collision shape. This is slightly more
+ * conservative than vanilla's clip for partial blocks (slabs, fences, ...), which only
+ * block the part of the cell their shape covers.
+ *
+ * Must only be used on the thread that owns the level (the client thread in game; the
+ * server thread when a game test checks it against a server level).
+ */
+public class SectionSolidityCache {
+
+    // Packed section position -> solidity bits (or EMPTY_SECTION)
+    private final Long2ObjectOpenHashMap<long[]> sections = new Long2ObjectOpenHashMap<>();
+
+    private final BlockPos.MutableBlockPos mutablePos = new BlockPos.MutableBlockPos();
+
+    // Level the cached sections belong to
+    private Level level;
+
+    // Reused visitor so line tests do not allocate
+    private final OcclusionSnapshot.CellVisitor openCell = (x, y, z) -> !isSolid(x, y, z);
+
+    // Statistics
+    private long sectionsBuilt = 0;
+    private long blockUpdates = 0;
+
+    /**
+     * Rebind to a new level, dropping every cached section
+     *
+     * @param world The new level, or null when leaving a world
+     */
+    public void reset(Level world) {
+        sections.clear();
+        level = world;
+    }
+
+    /**
+     * Forget any sections cached for a freshly loaded chunk; they are rebuilt from the new data when first read
+     */
+    public void onChunkLoad(Level world, LevelChunk chunk) {
+        if (world != level) {
+            reset(world);
+            return;
+        }
+        dropChunk(chunk);
+    }
+
+    /**
+     * Forget every section of an unloaded chunk
+     */
+    public void onChunkUnload(Level world, LevelChunk chunk) {
+        if (world != level) {
+            return;
+        }
+        dropChunk(chunk);
+    }
+
+    private void dropChunk(LevelChunk chunk) {
+        int chunkX = chunk.getPos().x;
+        int chunkZ = chunk.getPos().z;
+        int sectionCount = chunk.getSections().length;
+        for (int index = 0; index < sectionCount; index++) {
+            sections.remove(OcclusionSnapshot.sectionKey(chunkX, level.getSectionYFromSectionIndex(index), chunkZ));
+        }
+    }
+
+    /**
+     * Patch a single block after a client block update (copy-on-write)
+     */
+    public void onBlockChanged(Level world, BlockPos pos, BlockState newState) {
+        if (world != level) {
+            return;
+        }
+        long key = OcclusionSnapshot.sectionKey(pos.getX() >> 4, pos.getY() >> 4, pos.getZ() >> 4);
+        long[] bits = sections.get(key);
+        if (bits == null) {
+            // Section is not built yet - it will be read lazily with the new state
+            return;
+        }
+        blockUpdates++;
+
+        boolean solid = !newState.isAir() && !newState.getCollisionShape(world, pos).isEmpty();
+        int index = OcclusionSnapshot.blockIndex(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15);
+        long mask = 1L << (index & 63);
+        boolean wasSolid = bits.length != 0 && (bits[index >>> 6] & mask) != 0;
+        if (solid == wasSolid) {
+            return;
+        }
+
+        long[] updated = bits.length == 0 ? new long[OcclusionSnapshot.SECTION_WORDS] : bits.clone();
+        updated[index >>> 6] ^= mask;
+        sections.put(key, updated);
+    }
+
+    /**
+     * Get a section's bitset, building it from the level if it is not cached yet
+     */
+    public long[] getSection(int sectionX, int sectionY, int sectionZ) {
+        long key = OcclusionSnapshot.sectionKey(sectionX, sectionY, sectionZ);
+        long[] bits = sections.get(key);
+        if (bits != null) {
+            return bits;
+        }
+        if (level == null) {
+            return OcclusionSnapshot.EMPTY_SECTION;
+        }
+
+        LevelChunk chunk = level.getChunkSource().getChunkNow(sectionX, sectionZ);
+        if (chunk == null) {
+            // Unloaded chunks read as air; don't cache so the real data is picked up on load
+            return OcclusionSnapshot.EMPTY_SECTION;
+        }
+        int index = level.getSectionIndexFromSectionY(sectionY);
+        bits = index < 0 || index >= chunk.getSections().length
+            ? OcclusionSnapshot.EMPTY_SECTION
+            : buildSection(chunk.getSection(index), sectionX, sectionY, sectionZ);
+        sections.put(key, bits);
+        return bits;
+    }
+
+    /**
+     * @return true if the block at the given world coordinates has a collision shape
+     */
+    public boolean isSolid(int x, int y, int z) {
+        long[] bits = getSection(x >> 4, y >> 4, z >> 4);
+        if (bits.length == 0) {
+            return false;
+        }
+        int index = OcclusionSnapshot.blockIndex(x & 15, y & 15, z & 15);
+        return (bits[index >>> 6] & (1L << (index & 63))) != 0;
+    }
+
+    /**
+     * 3D DDA walk over the cached bitsets between two points
+     *
+     * @return true if no solid block lies on the segment
+     */
+    public boolean isLineClear(double fromX, double fromY, double fromZ, double toX, double toY, double toZ) {
+        return OcclusionSnapshot.walkCells(fromX, fromY, fromZ, toX, toY, toZ, openCell);
+    }
+
+    /**
+     * Read one section's solidity into a fresh bitmask
+     */
+    private long[] buildSection(LevelChunkSection section, int sectionX, int sectionY, int sectionZ) {
+        if (section.hasOnlyAir()) {
+            return OcclusionSnapshot.EMPTY_SECTION;
+        }
+        sectionsBuilt++;
+
+        long[] bits = new long[OcclusionSnapshot.SECTION_WORDS];
+        boolean anySolid = false;
+        int baseX = sectionX << 4;
+        int baseY = sectionY << 4;
+        int baseZ = sectionZ << 4;
+
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    BlockState state = section.getBlockState(x, y, z);
+                    if (state.isAir()) {
+                        continue;
+                    }
+                    mutablePos.set(baseX + x, baseY + y, baseZ + z);
+                    if (!state.getCollisionShape(level, mutablePos).isEmpty()) {
+                        int index = OcclusionSnapshot.blockIndex(x, y, z);
+                        bits[index >>> 6] |= 1L << (index & 63);
+                        anySolid = true;
+                    }
+                }
+            }
+        }
+        return anySolid ? bits : OcclusionSnapshot.EMPTY_SECTION;
+    }
+
+    /**
+     * @return Number of cached sections
+     */
+    public int size() {
+        return sections.size();
+    }
+
+    public long getSectionsBuilt() {
+        return sectionsBuilt;
+    }
+
+    public long getBlockUpdates() {
+        return blockUpdates;
+    }
+}
@@ -0,0 +1,216 @@
+package com.turtletracker.tracker;
+
+import com.turtletracker.TurtleTrackerMod;
+import com.turtletracker.config.TurtleTrackerConfig;
+import com.turtletracker.core.EntityPositions;
+import com.turtletracker.core.ScanScheduler;
+import com.turtletracker.core.TrackerCore;
+import com.turtletracker.core.TrackerSnapshot;
+import com.turtletracker.core.ViewFilter;
+import com.turtletracker.core.VisibilityScheduler;
+import com.turtletracker.core.sync.SyncDecoder;
+import com.turtletracker.network.SyncSubscribePayload;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
+import net.minecraft.world.entity.animal.Turtle;
+
+import java.util.function.IntPredicate;
+
+/**
+ * Turtles reported by the server companion, including ones beyond the client's entity range
+ *
+ * Frames from the server are applied to a {@link SyncDecoder}; a separate
+ * {@link TrackerCore} runs the usual grid, scan scheduling and range query over them and
+ * publishes its own snapshot. Turtles the client has loaded itself are hidden from that
+ * view, so they are only ever drawn once, with their exact position. The server only sends
+ * positions, so remote turtles get no raycasts and every one in range is drawn.
+ *
+ * Must only be used on the client thread.
+ */
+public class ServerTurtleFeed {
+
+    // Remote turtles are never line-of-sight checked
+    private static final IntPredicate ALWAYS_VISIBLE = id -> true;
+
+    private final SyncDecoder decoder = new SyncDecoder();
+    private final EntityIndex<Turtle> localTurtles;
+    private final EntityPositions remoteOnly;
+    private final TrackerCore core;
+
+    private boolean subscribed = false;
+    private long malformedFrames = 0;
+
+    /**
+     * @param localTurtles The client's own turtle index; turtles in it are left out of the remote snapshot
+     */
+    public ServerTurtleFeed(EntityIndex<Turtle> localTurtles) {
+        this.localTurtles = localTurtles;
+        remoteOnly = new RemoteOnlyView();
+        core = new TrackerCore(
+            new VisibilityScheduler(1, TurtleTrackerConfig.getVisibilityTtlTicks(), 0.0),
+            new ScanScheduler(
+                TurtleTrackerConfig.isAdaptiveScan(),
+                TurtleTrackerConfig.getScanIdleIntervalTicks(),
+                TurtleTrackerConfig.getScanMaxStaleTicks()
+            )
+        );
+
+        decoder.setListener(new SyncDecoder.Listener() {
+            @Override
+            public void onEntryRemoved(int entityId) {
+                core.onEntityRemoved(entityId);
+            }
+
+            @Override
+            public void onCleared() {
+                core.onEntitiesCleared();
+            }
+        });
+    }
+
+    /**
+     * Subscribe if the server runs the companion (called once the play connection is up)
+     */
+    public void onJoin() {
+        decoder.clear();
+        core.reset();
+        subscribed = ClientPlayNetworking.canSend(SyncSubscribePayload.TYPE);
+        if (subscribed) {
+            ClientPlayNetworking.send(new SyncSubscribePayload(SyncSubscribePayload.PROTOCOL));
+            TurtleTrackerMod.LOGGER.info("Subscribed to the server's turtle sync");
+        }
+    }
+
+    /**
+     * Apply one frame from the server; a broken frame drops everything and asks for a fresh start
+     */
+    public void onFrame(byte[] frame) {
+        try {
+            decoder.apply(frame);
+        } catch (IllegalArgumentException e) {
+            malformedFrames++;
+            TurtleTrackerMod.LOGGER.warn("Dropping turtle sync state after a bad frame: {}", e.getMessage());
+            decoder.clear();
+            ClientPlayNetworking.send(new SyncSubscribePayload(SyncSubscribePayload.PROTOCOL));
+        }
+    }
+
+    /**
+     * Forget everything the server sent (disconnect)
+     */
+    public void onDisconnect() {
+        subscribed = false;
+        decoder.clear();
+        core.reset();
+    }
+
+    /**
+     * Run one tick of the remote pipeline; the scan itself only runs when the scheduler asks for it
+     */
+    public void update(double playerX, double playerY, double playerZ, float yaw, float pitch) {
+        double radius = TurtleTrackerConfig.getSearchRadius();
+        boolean cylinder = TurtleTrackerConfig.isCylinderSearch();
+        double halfHeight = TurtleTrackerConfig.getSearchHalfHeight();
+        double maxMoveSqr = core.updateGrid(remoteOnly, playerX, playerY, playerZ, radius, cylinder, halfHeight);
+        // The local index decides which remote turtles are hidden, so its changes count as churn too
+        long churn = decoder.getChangeCount() + localTurtles.getChangeCount();
+        if (!core.shouldScan(playerX, playerY, playerZ, yaw, pitch, maxMoveSqr, churn)) {
+            return;
+        }
+        core.query(remoteOnly, playerX, playerY, playerZ, radius, cylinder, halfHeight);
+        core.filter(remoteOnly, ViewFilter.ALL);
+        core.publishSnapshot(remoteOnly, ALWAYS_VISIBLE);
+    }
+
+    /**
+     * Publish an empty snapshot (no player)
+     */
+    public void clear() {
+        core.publishEmpty();
+    }
+
+    /**
+     * Forget scan history; the server starts the new dimension with a reset frame of its own
+     */
+    public void reset() {
+        core.reset();
+    }
+
+    /**
+     * @return Remote turtles in range that the client has not loaded itself
+     */
+    public TrackerSnapshot getSnapshot() {
+        return core.getSnapshot();
+    }
+
+    /**
+     * @return Whether the server accepted the subscription channel
+     */
+    public boolean isSubscribed() {
+        return subscribed;
+    }
+
+    /**
+     * @return Turtles the server currently reports, loaded locally or not
+     */
+    public int getRemoteCount() {
+        return decoder.size();
+    }
+
+    public long getFramesApplied() {
+        return decoder.getFramesApplied();
+    }
+
+    public long getMalformedFrames() {
+        return malformedFrames;
+    }
+
+    /**
+     * The decoded entries, minus the turtles in the local index
+     */
+    private final class RemoteOnlyView implements EntityPositions {
+        @Override
+        public int size() {
+            return decoder.size();
+        }
+
+        @Override
+        public int id(int index) {
+            return decoder.id(index);
+        }
+
+        @Override
+        public int indexOf(int entityId) {
+            return localTurtles.indexOf(entityId) >= 0 ? -1 : decoder.indexOf(entityId);
+        }
+
+        @Override
+        public double x(int index) {
+            return decoder.x(index);
+        }
+
+        @Override
+        public double y(int index) {
+            return decoder.y(index);
+        }
+
+        @Override
+        public double z(int index) {
+            return decoder.z(index);
+        }
+
+        @Override
+        public float width(int index) {
+            return decoder.width(index);
+        }
+
+        @Override
+        public float height(int index) {
+            return decoder.height(index);
+        }
+
+        @Override
+        public float eyeHeight(int index) {
+            return decoder.eyeHeight(index);
+        }
+    }
+}
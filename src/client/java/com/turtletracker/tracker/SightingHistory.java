@@ -0,0 +1,123 @@
+package com.turtletracker.tracker;
+
+import com.turtletracker.TurtleTrackerMod;
+import com.turtletracker.config.TurtleTrackerConfig;
+import com.turtletracker.core.history.SightingStore;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.multiplayer.ClientLevel;
+import net.minecraft.client.multiplayer.ServerData;
+import net.minecraft.client.server.IntegratedServer;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.entity.animal.Turtle;
+import net.minecraft.world.level.storage.LevelResource;
+
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binds a {@link SightingStore} to the current world and dimension and feeds it the
+ * turtles the client knows about
+ *
+ * Logs live in {@code <game dir>/turtle_tracker_history/<world>/<dimension>.<generation>.log},
+ * where the world is the singleplayer save folder or the server address. All file work
+ * runs on one background thread shared by every store, so a store closing after a
+ * dimension change always finishes before the next one for the same file opens.
+ */
+public class SightingHistory {
+
+    private static final String DIRECTORY = "turtle_tracker_history";
+
+    // How long shutdown waits for queued sightings to reach the disk
+    private static final long SHUTDOWN_WAIT_MILLIS = 2000;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Turtle Tracker History");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Store for the current level, null when not in a world or history is disabled
+    private SightingStore store;
+
+    /**
+     * Close the previous level's store and open the one for the new level
+     *
+     * @param level The new client level, or null when leaving a world
+     */
+    public void onLevelChanged(ClientLevel level) {
+        if (store != null) {
+            store.close();
+            store = null;
+        }
+        if (level == null || !TurtleTrackerConfig.isSightingHistory()) {
+            return;
+        }
+        Path directory = FabricLoader.getInstance().getGameDir().resolve(DIRECTORY)
+            .resolve(worldKey(Minecraft.getInstance()));
+        String name = sanitize(dimensionKey(level.dimension().location()));
+        store = SightingStore.open(directory, name, TurtleTrackerConfig.getSightingLogIntervalTicks(), writer,
+            e -> TurtleTrackerMod.LOGGER.warn("Turtle sighting history stopped saving: {}", e.getMessage()));
+    }
+
+    /**
+     * Record every indexed turtle at the current game time and pass new sightings to the writer
+     */
+    public void record(EntityIndex<Turtle> turtleIndex, long gameTime) {
+        if (store == null) {
+            return;
+        }
+        for (int slot = 0; slot < turtleIndex.size(); slot++) {
+            Turtle turtle = turtleIndex.get(slot);
+            store.record(turtle.getUUID(), gameTime, turtle.getX(), turtle.getY(), turtle.getZ());
+        }
+        store.tick();
+    }
+
+    /**
+     * Flush the current store and wait briefly for the writer (called when the client shuts down)
+     */
+    public void shutdown() {
+        if (store != null) {
+            store.close();
+            store = null;
+        }
+        writer.shutdown();
+        try {
+            writer.awaitTermination(SHUTDOWN_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return The store for the current level, or null when there is none
+     */
+    public SightingStore getStore() {
+        return store;
+    }
+
+    private static String worldKey(Minecraft client) {
+        IntegratedServer server = client.getSingleplayerServer();
+        if (server != null) {
+            Path saveFolder = server.getWorldPath(LevelResource.ROOT).normalize().getFileName();
+            return "singleplayer_" + sanitize(saveFolder != null ? saveFolder.toString() : "world");
+        }
+        ServerData serverData = client.getCurrentServer();
+        if (serverData != null) {
+            return "server_" + sanitize(serverData.ip);
+        }
+        return "unknown";
+    }
+
+    private static String dimensionKey(ResourceLocation dimension) {
+        return dimension.getNamespace() + "_" + dimension.getPath();
+    }
+
+    // Keep names portable and free of the dots that separate log generations
+    private static String sanitize(String name) {
+        return name.replaceAll("[^A-Za-z0-9_-]", "_");
+    }
+}
@@ -1,30 +1,62 @@
 package com.turtletracker.tracker;
 
 import com.turtletracker.TurtleTrackerMod;
+import com.turtletracker.config.TrackedTypeSettings;
+import com.turtletracker.config.TurtleTrackerConfig;
+import com.turtletracker.core.AsyncVisibilityPipeline;
+import com.turtletracker.core.DensityGrid;
+import com.turtletracker.core.LastKnownPositions;
+import com.turtletracker.core.LifecycleDelta;
+import com.turtletracker.core.LifecycleDiff;
+import com.turtletracker.core.OcclusionOracle;
+import com.turtletracker.core.QualityGovernor;
+import com.turtletracker.core.ScanScheduler;
+import com.turtletracker.core.SectionChangeCounter;
+import com.turtletracker.core.SpatialGrid;
+import com.turtletracker.core.TrackerCore;
+import com.turtletracker.core.TrackerSnapshot;
+import com.turtletracker.core.ViewFilter;
+import com.turtletracker.core.VisibilityScheduler;
+import com.turtletracker.core.trace.TraceSettings;
+import com.turtletracker.core.trace.TraceWriter;
+import com.turtletracker.event.TurtleLifecycleCallback;
 import net.minecraft.client.Minecraft;
-import net.minecraft.world.entity.Entity;
+import net.minecraft.client.Options;
+import net.minecraft.client.multiplayer.ClientLevel;
+import net.minecraft.core.BlockPos;
 import net.minecraft.world.entity.animal.Turtle;
 import net.minecraft.world.entity.player.Player;
-import net.minecraft.world.phys.AABB;
 import net.minecraft.world.phys.Vec3;
 import net.minecraft.world.level.ClipContext;
 import net.minecraft.world.phys.HitResult;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Locale;
+import java.util.function.IntPredicate;
 
 /**
  * Main turtle tracking class that handles:
- * - Finding all turtles within a specified radius
+ * - Finding all turtles within a specified radius (using the event-driven {@link EntityIndex})
  * - Determining which turtles are visible to the player
  * - Maintaining lists of both all turtles and visible turtles
+ *
+ * The scan itself runs in the Minecraft-free {@link TrackerCore}; this class feeds it the
+ * turtle index, the frustum and a block raycast and keeps the Turtle lists in step.
+ * Extra entity types from the config run alongside in their own {@link TypeTracker}s,
+ * fed by the same {@link EntityClassifier} pass as the turtles. When the server runs the
+ * sync companion, the turtles it reports beyond the client's own range come through a
+ * {@link ServerTurtleFeed} with a snapshot of their own.
  */
 public class TurtleTracker {
     
-    // Maximum distance to search for turtles (in blocks)
-    private static final double SEARCH_RADIUS = 64.0;
+    // Heatmap window edge in cells (and texture pixels)
+    private static final int HEATMAP_CELLS = 64;
+    
+    // A client tick longer than this means the game cannot hold 20 ticks per second
+    private static final double TICK_BUDGET_MILLIS = 50.0;
     
     // List of all turtles within range (including those behind walls)
     private final List<Turtle> allTurtles = new ArrayList<>();
@@ -32,124 +64,539 @@ public class TurtleTracker {
     // List of turtles that are visible to the player (not blocked by walls)
     private final List<Turtle> visibleTurtles = new ArrayList<>();
     
-    // Set to track turtle IDs we've already processed this tick (prevents duplicates)
-    private final Set<Integer> processedTurtles = new HashSet<>();
-
+    // Event-driven index of every turtle the client currently knows about
+    private final EntityIndex<Turtle> turtleIndex = new EntityIndex<>();
+    
+    // One pipeline and snapshot per extra tracked entity type, in configured order
+    private final List<TypeTracker> typeTrackers = createTypeTrackers();
+    
+    // Sorts loaded entities into the turtle index and the extra types' indexes in one lookup
+    private final EntityClassifier classifier = new EntityClassifier(turtleIndex, typeTrackers);
+    
+    // Caches line-of-sight results and caps the number of raycasts per tick
+    private final VisibilityScheduler visibilityScheduler = new VisibilityScheduler(
+        TurtleTrackerConfig.getRaycastBudgetPerTick(),
+        TurtleTrackerConfig.getVisibilityTtlTicks(),
+        TurtleTrackerConfig.getVisibilityMoveThreshold()
+    );
+    
+    // Per-section solidity bitsets kept current from chunk and block events (only when usesSolidityCache())
+    private final SectionSolidityCache solidityCache = new SectionSolidityCache();
+    
+    // Use the voxel DDA over the solidity cache instead of vanilla clip for on-thread checks
+    private final boolean voxelBackend = TurtleTrackerConfig.isVoxelVisibilityBackend();
+    
+    // View-frustum pre-cull applied before turtles enter the visibility queue
+    private final FrustumCuller frustumCuller = new FrustumCuller();
+    private final boolean frustumCulling = TurtleTrackerConfig.isFrustumCulling();
+    
+    // Coarse occlusion from the renderer's visible sections, applied after the frustum test
+    private final SectionOcclusionCuller sectionCuller = new SectionOcclusionCuller();
+    private final boolean sectionCulling = TurtleTrackerConfig.isSectionCulling();
+    
+    // Frustum and section tests combined, kept as a field so filtering does not allocate
+    private final ViewFilter viewFilter = this::isBoxInView;
+    
+    // Block changes in the sections the turtle search volume overlaps; wake the scan scheduler
+    private final SectionChangeCounter blockChanges = new SectionChangeCounter();
+    
+    // Decides which ticks run the full scan, backing off while the scene is still
+    private final ScanScheduler scanScheduler = new ScanScheduler(
+        TurtleTrackerConfig.isAdaptiveScan(),
+        TurtleTrackerConfig.getScanIdleIntervalTicks(),
+        TurtleTrackerConfig.getScanMaxStaleTicks()
+    );
+    
+    // Time spent in each phase of the scan (shown on the detailed HUD)
+    private final PhaseTimings phaseTimings = new PhaseTimings(TurtleTrackerConfig.isAsyncVisibility());
+    
+    // Off-thread visibility pipeline, only created when asyncVisibility is enabled
+    private final AsyncVisibilityPipeline asyncVisibility = TurtleTrackerConfig.isAsyncVisibility()
+        ? new AsyncVisibilityPipeline(TurtleTrackerConfig.getVisibilityWorkerThreads(), new OcclusionCapture(solidityCache))
+        : null;
+    
+    // Failed async jobs already logged
+    private int reportedFailedJobs = 0;
+    
+    // Spatial grid, range query, filter, visibility scheduling and snapshot publishing
+    private final TrackerCore core = new TrackerCore(visibilityScheduler, scanScheduler);
+    
+    // Where the snapshot reads visibility from: the scheduler's cache or the last async result
+    private final IntPredicate visibleById = asyncVisibility != null
+        ? asyncVisibility::isVisible
+        : visibilityScheduler::isVisible;
+    
+    // Line-of-sight test handed to the core; reads currentClient so no lambda is allocated per tick
+    private final OcclusionOracle lineOfSight = this::isLineClear;
+    private Minecraft currentClient;
+    
+    // Turtles that left range stay here as ghosts; slots and tracer smoothing survive re-acquisition
+    private final LastKnownPositions lastKnownPositions = new LastKnownPositions(
+        TurtleTrackerConfig.getLastKnownCacheSize(),
+        TurtleTrackerConfig.getGhostMaxAgeSeconds() * 20L
+    );
+    
+    // Persistent last-known positions for the current world and dimension
+    private final SightingHistory sightingHistory = new SightingHistory();
+    
+    // Turtle egg nests in loaded chunks (fed by chunk load/unload and block update events)
+    private final NestTracker nestTracker = new NestTracker();
+    
+    // Turtle counts per map cell around the player for the heatmap (null when the heatmap is off)
+    private final DensityGrid densityGrid = TurtleTrackerConfig.isHeatmap()
+        ? new DensityGrid(HEATMAP_CELLS, TurtleTrackerConfig.getHeatmapCellSize())
+        : null;
+    
+    // Turtles reported by the server companion (null when serverSync is disabled)
+    private final ServerTurtleFeed serverFeed = TurtleTrackerConfig.isServerSync()
+        ? new ServerTurtleFeed(turtleIndex)
+        : null;
+    
+    // Scales tracers, raycasts, LOD, scan rate and radius to hold the target frame rate
+    private final QualityGovernor governor = new QualityGovernor(
+        TurtleTrackerConfig.isQualityGovernor(),
+        TurtleTrackerConfig.getTargetFps(),
+        TICK_BUDGET_MILLIS
+    );
+    
+    // Turns snapshot changes into one batch of lifecycle events per tick for other mods
+    private final LifecycleDiff lifecycleDiff = new LifecycleDiff(TurtleTrackerConfig.getEventMoveThreshold());
+    
+    // Search radius after the governor's reduction
+    private double searchRadius = TurtleTrackerConfig.getSearchRadius();
+    
+    // Frame and tick timestamps for the governor (0 = no previous frame / tick not started)
+    private long lastFrameNanos = 0;
+    private long tickStartNanos = 0;
+    
+    // Open trace recording and the oracle that records its answers (both null when not recording)
+    private TraceWriter traceWriter;
+    private OcclusionOracle recordingLineOfSight;
+    
+    /**
+     * Create the tracker and keep the spatial grid in sync with the turtle index
+     */
+    public TurtleTracker() {
+        turtleIndex.setListener(new EntityIndex.Listener() {
+            @Override
+            public void onEntityRemoved(int entityId) {
+                core.onEntityRemoved(entityId);
+                if (densityGrid != null) {
+                    densityGrid.remove(entityId);
+                }
+            }
+            
+            @Override
+            public void onIndexReset() {
+                core.onEntitiesCleared();
+                if (densityGrid != null) {
+                    densityGrid.clear();
+                }
+                if (traceWriter != null) {
+                    traceWriter.markGridCleared();
+                }
+            }
+        });
+    }
+    
     /**
      * Main update method called every client tick
-     * This scans for turtles around the player and updates our tracking lists
+     * This walks the turtle index around the player and updates our tracking lists
+     * The full scan only runs on the ticks the {@link ScanScheduler} picks
      * 
      * @param client The Minecraft client instance
      */
     public void updateTurtleTracking(Minecraft client) {
-        // Clear previous tick's data
-        clearTurtleLists();
-        
         // Get the current player - if null, we can't track anything
         Player player = client.player;
         if (player == null || client.level == null) {
+            clearTurtleLists();
+            core.publishEmpty();
+            dispatchLifecycle();
+            for (TypeTracker typeTracker : typeTrackers) {
+                typeTracker.clear();
+            }
+            if (serverFeed != null) {
+                serverFeed.clear();
+            }
             return;
         }
         
+        // The index should already follow the current level, but if a world change
+        // slipped past the events we rebuild it instead of tracking stale turtles
+        if (turtleIndex.getLevel() != client.level) {
+            onLevelChanged(client.level);
+        }
+        
+        // Close last tick's culling figures and ask the next frame for its visible sections
+        sectionCuller.recordTick();
+        if (sectionCulling && (turtleIndex.size() > 0 || !typeTrackers.isEmpty())) {
+            sectionCuller.requestCapture();
+        }
+        
+        // Step quality up or down from the recent frame and tick times; a trace holds its
+        // settings fixed so that it replays the same way
+        governor.setTargetFps(TurtleTrackerConfig.getTargetFps(), getFrameCap(client));
+        if (traceWriter == null && governor.evaluate()) {
+            applyQuality();
+        }
+        
+        // Pick up nest scans the worker finished since the last tick
+        nestTracker.tick();
+        
         // Get player's current position for distance calculations
         Vec3 playerPosition = player.position();
+        double eyeY = playerPosition.y + player.getEyeHeight();
         
-        // Create a bounding box around the player to search for entities
-        // This creates a cube extending SEARCH_RADIUS blocks in each direction
-        AABB searchArea = new AABB(
-            playerPosition.x - SEARCH_RADIUS, 
-            playerPosition.y - SEARCH_RADIUS, 
-            playerPosition.z - SEARCH_RADIUS,
-            playerPosition.x + SEARCH_RADIUS, 
-            playerPosition.y + SEARCH_RADIUS, 
-            playerPosition.z + SEARCH_RADIUS
-        );
+        // Extra entity types scan on their own schedule, so an idle type costs only its grid update
+        if (!typeTrackers.isEmpty()) {
+            currentClient = client;
+            for (TypeTracker typeTracker : typeTrackers) {
+                typeTracker.update(playerPosition.x, playerPosition.y, playerPosition.z, eyeY,
+                    player.getYRot(), player.getXRot(), viewFilter, lineOfSight);
+            }
+            currentClient = null;
+        }
+        
+        // Server-reported turtles only need positions, so their pipeline stops after the range query
+        if (serverFeed != null) {
+            serverFeed.update(playerPosition.x, playerPosition.y, playerPosition.z, player.getYRot(), player.getXRot());
+        }
+        
+        // The heatmap window follows the player every tick; scrolling only refills the new edge cells
+        if (densityGrid != null) {
+            densityGrid.recenter(playerPosition.x, playerPosition.z);
+        }
+        
+        // Refresh grid positions of the turtles the client knows about - no entity sweep needed
+        // and note how far the fastest one in or near the search volume moved since the last tick
+        boolean cylinder = TurtleTrackerConfig.isCylinderSearch();
+        double halfHeight = TurtleTrackerConfig.getSearchHalfHeight();
+        phaseTimings.begin();
+        double maxTurtleMoveSqr = core.updateGrid(turtleIndex, playerPosition.x, playerPosition.y, playerPosition.z,
+            searchRadius, cylinder, halfHeight);
+        phaseTimings.end(PhaseTimings.GRID);
+        
+        // While nothing changes, keep last scan's lists and snapshot instead of scanning every tick;
+        // turtles loading or unloading and block changes inside the search volume count as change
+        blockChanges.setVolume(playerPosition.x, playerPosition.y, playerPosition.z, searchRadius, cylinder, halfHeight);
+        long churn = turtleIndex.getChangeCount() + blockChanges.getCount();
+        if (!core.shouldScan(playerPosition.x, playerPosition.y, playerPosition.z,
+                player.getYRot(), player.getXRot(), maxTurtleMoveSqr, churn)) {
+            recordTraceFrame(player, playerPosition, eyeY, churn, false);
+            return;
+        }
+        
+        // Remember where every loaded turtle was seen; file writes happen off-thread
+        sightingHistory.record(turtleIndex, client.level.getGameTime());
+        
+        // Only turtles that crossed into another map cell change the heatmap counts
+        if (densityGrid != null) {
+            densityGrid.update(turtleIndex);
+        }
+        
+        // Range query only visits the chunk columns the search volume overlaps, nearest-first
+        // so consumers can take just the first N entries of the snapshot
+        phaseTimings.begin();
+        clearTurtleLists();
+        core.query(turtleIndex, playerPosition.x, playerPosition.y, playerPosition.z,
+            searchRadius, cylinder, halfHeight);
+        lastKnownPositions.beginScan(core.getTick());
+        for (int i = 0; i < core.inRangeCount(); i++) {
+            // Add to all turtles list (this includes turtles behind walls)
+            Turtle turtle = turtleIndex.get(core.inRange(i));
+            allTurtles.add(turtle);
+            lastKnownPositions.sighted(turtle.getUUID(), turtle.getId(), turtle.getX(), turtle.getY(), turtle.getZ(),
+                turtle.getBbWidth(), turtle.getBbHeight());
+        }
+        lastKnownPositions.endScan();
+        phaseTimings.end(PhaseTimings.QUERY);
         
-        // Get all entities within the search area
-        List<Entity> nearbyEntities = client.level.getEntities(player, searchArea);
+        // Off-screen turtles can never be highlighted and turtles in sections the renderer
+        // found occluded are hidden - keep both out of the raycast queue
+        int sectionCulledBefore = sectionCuller.getTickCulled();
+        int culled = core.filter(turtleIndex, viewFilter);
+        frustumCuller.recordTick(core.inRangeCount(), culled - (sectionCuller.getTickCulled() - sectionCulledBefore));
+        phaseTimings.end(PhaseTimings.CULL);
+        
+        if (asyncVisibility != null) {
+            // Async mode: capture positions for the workers and read the last published results
+            asyncVisibility.tick(core, turtleIndex, playerPosition.x, eyeY, playerPosition.z);
+            if (asyncVisibility.getFailedJobs() != reportedFailedJobs) {
+                reportedFailedJobs = asyncVisibility.getFailedJobs();
+                TurtleTrackerMod.LOGGER.warn("Turtle visibility job failed, discarding its results");
+            }
+        } else {
+            // Only turtles with stale cached results get a raycast, up to the per-tick budget
+            currentClient = client;
+            core.updateVisibility(turtleIndex, playerPosition.x, eyeY, playerPosition.z,
+                traceWriter != null ? recordingLineOfSight : lineOfSight);
+            currentClient = null;
+        }
+        phaseTimings.end(PhaseTimings.VISIBILITY);
         
-        // Process each entity to find turtles
-        for (Entity entity : nearbyEntities) {
-            // Check if this entity is a turtle and we haven't processed it yet
-            if (entity instanceof Turtle turtle && !processedTurtles.contains(entity.getId())) {
-                processTurtle(turtle, playerPosition, client);
-                processedTurtles.add(entity.getId());
+        // Only allocates a new snapshot (and bumps the version) when something changed
+        TrackerSnapshot snapshot = core.publishSnapshot(turtleIndex, visibleById);
+        for (int i = 0; i < snapshot.size(); i++) {
+            if (snapshot.isVisible(i)) {
+                visibleTurtles.add(allTurtles.get(i));
             }
         }
+        phaseTimings.end(PhaseTimings.SNAPSHOT);
+        
+        // Tell listening mods what changed; a snapshot that was reused costs nothing here
+        dispatchLifecycle();
         
         // Log turtle count for debugging (only if we found any)
         if (!allTurtles.isEmpty()) {
-            TurtleTrackerMod.LOGGER.debug("Found {} turtles ({} visible)", 
-                                        allTurtles.size(), visibleTurtles.size());
+            TurtleTrackerMod.LOGGER.debug("Found {} turtles ({} visible, {} off-screen, {} raycasts, {} deferred)", 
+                                        allTurtles.size(), visibleTurtles.size(),
+                                        frustumCuller.getLastTickCulled(),
+                                        visibilityScheduler.getLastTickRaycasts(),
+                                        visibilityScheduler.getLastTickDeferred());
+        }
+        
+        recordTraceFrame(player, playerPosition, eyeY, churn, true);
+    }
+    
+    /**
+     * Push the governor's current level into the schedulers and the search radius
+     */
+    private void applyQuality() {
+        visibilityScheduler.setBudget((int) Math.round(
+            TurtleTrackerConfig.getRaycastBudgetPerTick() * governor.raycastScale()));
+        scanScheduler.setMinInterval(governor.minScanInterval());
+        searchRadius = TurtleTrackerConfig.getSearchRadius() * governor.radiusScale();
+        for (TypeTracker typeTracker : typeTrackers) {
+            typeTracker.applyQuality(governor);
         }
+        TurtleTrackerMod.LOGGER.info("Tracker quality level {} ({}), frames averaging {} ms",
+            governor.getLevel(), QualityGovernor.getLevelName(governor.getLevel()),
+            String.format(Locale.ROOT, "%.1f", governor.getAverageFrameMillis()));
     }
     
     /**
-     * Process a single turtle to determine if it should be tracked
-     * Adds it to appropriate lists and checks visibility
+     * Note a client block change; only changes in sections a search volume overlaps wake the scan
      * 
-     * @param turtle The turtle entity to process
-     * @param playerPosition The player's current position
-     * @param client The Minecraft client instance
+     * @param level The level the block changed in
+     * @param pos The changed block
      */
-    private void processTurtle(Turtle turtle, Vec3 playerPosition, Minecraft client) {
-        // Calculate distance to the turtle
-        double distance = turtle.position().distanceTo(playerPosition);
-        
-        // Only track turtles within our search radius
-        if (distance <= SEARCH_RADIUS) {
-            // Add to all turtles list (this includes turtles behind walls)
-            allTurtles.add(turtle);
-            
-            // Check if the turtle is visible (not blocked by walls)
-            if (isTurtleVisible(turtle, playerPosition, client)) {
-                visibleTurtles.add(turtle);
+    public void onBlockChanged(ClientLevel level, BlockPos pos) {
+        if (level != turtleIndex.getLevel()) {
+            return;
+        }
+        blockChanges.onBlockChanged(pos.getX(), pos.getY(), pos.getZ());
+        for (TypeTracker typeTracker : typeTrackers) {
+            typeTracker.onBlockChanged(pos.getX(), pos.getY(), pos.getZ());
+        }
+    }
+    
+    /**
+     * The frame rate the game itself holds frames to: the frame limiter, or the display's refresh rate with vsync
+     * @return Frames per second, or 0 when frames are not capped
+     */
+    private static int getFrameCap(Minecraft client) {
+        int limit = client.options.framerateLimit().get();
+        int cap = limit >= Options.UNLIMITED_FRAMERATE_CUTOFF ? 0 : limit;
+        if (client.options.enableVsync().get()) {
+            int refreshRate = client.getWindow().getRefreshRate();
+            if (refreshRate > 0 && (cap == 0 || refreshRate < cap)) {
+                cap = refreshRate;
             }
         }
+        return cap;
+    }
+    
+    /**
+     * Note that a frame is being rendered; the gap since the previous one feeds the governor
+     * Frames while the window is inactive or the game is paused are frame-limited on purpose and skipped
+     */
+    public void onFrameRendered(Minecraft client) {
+        long now = System.nanoTime();
+        if (!client.isWindowActive() || client.isPaused()) {
+            lastFrameNanos = 0;
+            return;
+        }
+        if (lastFrameNanos != 0) {
+            governor.recordFrame(now - lastFrameNanos);
+        }
+        lastFrameNanos = now;
+    }
+    
+    /**
+     * Mark the start of a client tick
+     */
+    public void onClientTickStart() {
+        tickStartNanos = System.nanoTime();
+    }
+    
+    /**
+     * Mark the end of a client tick; its duration feeds the governor
+     */
+    public void onClientTickEnd() {
+        if (tickStartNanos != 0) {
+            governor.recordTick(System.nanoTime() - tickStartNanos);
+            tickStartNanos = 0;
+        }
     }
     
     /**
-     * Check if a turtle is visible to the player using raycasting
-     * This performs a line-of-sight check to see if there are blocks between
-     * the player and the turtle
+     * Append this tick to the open trace, if any; a write error stops the recording
+     */
+    private void recordTraceFrame(Player player, Vec3 playerPosition, double eyeY, long churn, boolean scanned) {
+        if (traceWriter == null) {
+            return;
+        }
+        try {
+            traceWriter.writeFrame(playerPosition.x, playerPosition.y, playerPosition.z, eyeY,
+                player.getYRot(), player.getXRot(), churn, frustumCulling ? frustumCuller.getPlanes() : null,
+                turtleIndex, scanned, core.getSnapshot());
+        } catch (IOException e) {
+            TurtleTrackerMod.LOGGER.warn("Stopping trace recording after a write error: {}", e.getMessage());
+            stopTrace();
+        }
+    }
+    
+    /**
+     * Start recording every tick's inputs, line-of-sight answers and output to a trace file
+     * Cached visibility and scan history are dropped first so the trace replays on its own
      * 
-     * @param turtle The turtle to check visibility for
-     * @param playerPosition The player's current position
-     * @param client The Minecraft client instance
-     * @return true if the turtle is visible, false if blocked by blocks
-     */
-    private boolean isTurtleVisible(Turtle turtle, Vec3 playerPosition, Minecraft client) {
-        // Get the turtle's position
-        Vec3 turtlePosition = turtle.position();
-        
-        // Adjust the start position to be at the player's eye level
-        // This prevents false negatives when the player is standing on the ground
-        Vec3 eyePosition = new Vec3(playerPosition.x, 
-                                   playerPosition.y + client.player.getEyeHeight(), 
-                                   playerPosition.z);
-        
-        // Adjust turtle position to be at the turtle's center/eye level
-        Vec3 turtleEyePosition = new Vec3(turtlePosition.x, 
-                                         turtlePosition.y + turtle.getEyeHeight(), 
-                                         turtlePosition.z);
-        
-        // Perform a raycast from player's eyes to turtle's center
-        // ClipContext.Block.COLLIDER means we check for collision with solid blocks
-        // ClipContext.Fluid.NONE means we ignore fluids (water, lava)
+     * @param file Where to write the trace (overwritten if it exists)
+     * @throws IOException If the file cannot be created
+     */
+    public void startTrace(Path file) throws IOException {
+        stopTrace();
+        // Record at the configured quality; the governor holds still until the trace stops
+        if (governor.getLevel() != QualityGovernor.LEVEL_FULL) {
+            governor.reset();
+            applyQuality();
+        }
+        TraceSettings settings = new TraceSettings(
+            TurtleTrackerConfig.getSearchRadius(), TurtleTrackerConfig.isCylinderSearch(),
+            TurtleTrackerConfig.getSearchHalfHeight(), visibilityScheduler.getBudget(),
+            TurtleTrackerConfig.getVisibilityTtlTicks(), TurtleTrackerConfig.getVisibilityMoveThreshold(),
+            TurtleTrackerConfig.isAdaptiveScan(), TurtleTrackerConfig.getScanIdleIntervalTicks(),
+            TurtleTrackerConfig.getScanMaxStaleTicks(), frustumCulling);
+        traceWriter = TraceWriter.open(file, settings);
+        recordingLineOfSight = traceWriter.wrap(lineOfSight);
+        
+        core.onEntitiesCleared();
+        core.reset();
+        if (asyncVisibility != null) {
+            asyncVisibility.clear();
+        }
+        clearTurtleLists();
+    }
+    
+    /**
+     * Finish the current trace recording, if any
+     * 
+     * @return Number of frames the trace holds, or -1 if nothing was being recorded
+     */
+    public long stopTrace() {
+        if (traceWriter == null) {
+            return -1;
+        }
+        long frames = traceWriter.getFrames();
+        try {
+            traceWriter.close();
+        } catch (IOException e) {
+            TurtleTrackerMod.LOGGER.warn("Failed to finish trace recording: {}", e.getMessage());
+        }
+        traceWriter = null;
+        recordingLineOfSight = null;
+        return frames;
+    }
+    
+    /**
+     * @return Whether a trace is being recorded
+     */
+    public boolean isRecordingTrace() {
+        return traceWriter != null;
+    }
+    
+    /**
+     * Called when the client level changes (dimension change, reconnect, disconnect)
+     * Rebinds the turtle index and forgets cached visibility since entity ids are per-level
+     * 
+     * @param level The new client level, or null when leaving a world
+     */
+    public void onLevelChanged(ClientLevel level) {
+        classifier.rebuild(level);
+        for (TypeTracker typeTracker : typeTrackers) {
+            typeTracker.reset();
+        }
+        if (serverFeed != null) {
+            serverFeed.reset();
+        }
+        solidityCache.reset(level);
+        nestTracker.reset(level);
+        sightingHistory.onLevelChanged(level);
+        lastKnownPositions.clear();
+        frustumCuller.reset();
+        sectionCuller.reset();
+        if (level == null && governor.getLevel() != QualityGovernor.LEVEL_FULL) {
+            // Leaving the world: start the next one at full quality
+            governor.reset();
+            applyQuality();
+        }
+        core.reset();
+        // Report the old level's turtles as gone now; the new level may reuse their ids
+        dispatchLifecycle();
+        if (asyncVisibility != null) {
+            asyncVisibility.clear();
+        }
+        clearTurtleLists();
+        if (traceWriter != null) {
+            traceWriter.markReset();
+        }
+    }
+    
+    /**
+     * Diff the current snapshot against the last one reported and fire
+     * {@link TurtleLifecycleCallback} once if anything changed
+     */
+    private void dispatchLifecycle() {
+        LifecycleDelta delta = lifecycleDiff.diff(core.getSnapshot(), core.getTick());
+        if (delta != null && !delta.isEmpty()) {
+            TurtleLifecycleCallback.EVENT.invoker().onTurtlesChanged(delta);
+        }
+    }
+    
+    /**
+     * View filter for the core - the frustum first, then the renderer's visible sections
+     * The renderer's set is frustum-culled itself, so it only says anything about boxes inside
+     * the frustum; boxes outside it go on to the raycast unless frustum culling is on.
+     * A trace only records the frustum, so section culling sits out while one is recording
+     * 
+     * @return true if the box may be on screen and not behind terrain
+     */
+    private boolean isBoxInView(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        boolean inFrustum = frustumCuller.isBoxInView(minX, minY, minZ, maxX, maxY, maxZ);
+        if (!inFrustum) {
+            return !frustumCulling;
+        }
+        return !sectionCulling || traceWriter != null
+            || sectionCuller.isBoxInView(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+    
+    /**
+     * Line-of-sight callback for the core - eye to eye, through the configured backend
+     * 
+     * @return true if no block lies between the two points
+     */
+    private boolean isLineClear(double fromX, double fromY, double fromZ, double toX, double toY, double toZ) {
+        if (voxelBackend) {
+            return solidityCache.isLineClear(fromX, fromY, fromZ, toX, toY, toZ);
+        }
         ClipContext clipContext = new ClipContext(
-            eyePosition,
-            turtleEyePosition,
+            new Vec3(fromX, fromY, fromZ),
+            new Vec3(toX, toY, toZ),
             ClipContext.Block.COLLIDER,
             ClipContext.Fluid.NONE,
-            client.player
+            currentClient.player
         );
-        
-        // Perform the actual raycast
-        HitResult hitResult = client.level.clip(clipContext);
-        
-        // If the raycast didn't hit anything (HitResult.Type.MISS), 
-        // then there's a clear line of sight to the turtle
-        return hitResult.getType() == HitResult.Type.MISS;
+        return currentClient.level.clip(clipContext).getType() == HitResult.Type.MISS;
     }
     
     /**
@@ -158,7 +605,6 @@ public class TurtleTracker {
     private void clearTurtleLists() {
         allTurtles.clear();
         visibleTurtles.clear();
-        processedTurtles.clear();
     }
     
     /**
@@ -169,8 +615,19 @@ public class TurtleTracker {
         return allTurtles.size();
     }
     
+    /**
+     * Get the latest tracker snapshot
+     * The returned object is immutable and only replaced when the tracked state changes,
+     * so callers can compare {@link TrackerSnapshot#getVersion()} to skip redundant work
+     * @return The current snapshot (never null)
+     */
+    public TrackerSnapshot getSnapshot() {
+        return core.getSnapshot();
+    }
+    
     /**
      * Get the list of all turtles within range
+     * Prefer {@link #getSnapshot()} on hot paths - this copies the list on every call
      * @return List of all tracked turtles
      */
     public List<Turtle> getAllTurtles() {
@@ -179,6 +636,7 @@ public class TurtleTracker {
     
     /**
      * Get the list of visible turtles (not blocked by walls)
+     * Prefer {@link #getSnapshot()} on hot paths - this copies the list on every call
      * @return List of visible turtles
      */
     public List<Turtle> getVisibleTurtles() {
@@ -186,10 +644,208 @@ public class TurtleTracker {
     }
     
     /**
-     * Get the current search radius
-     * @return The search radius in blocks
+     * Stop background work (called when the client shuts down)
+     */
+    public void shutdown() {
+        stopTrace();
+        if (asyncVisibility != null) {
+            asyncVisibility.shutdown();
+        }
+        sightingHistory.shutdown();
+        nestTracker.shutdown();
+    }
+    
+    /**
+     * Get the last known positions of recently tracked turtles
+     * @return The ghost cache, updated on every scan
+     */
+    public LastKnownPositions getLastKnownPositions() {
+        return lastKnownPositions;
+    }
+    
+    /**
+     * Get the persistent sighting history
+     * @return The history bound to the current level
+     */
+    public SightingHistory getSightingHistory() {
+        return sightingHistory;
+    }
+    
+    /**
+     * Get the turtle egg nest tracker
+     * @return The nest tracker for the current level
+     */
+    public NestTracker getNestTracker() {
+        return nestTracker;
+    }
+    
+    /**
+     * Get the turtle density counts behind the heatmap
+     * @return The grid, or null when the heatmap is disabled
+     */
+    public DensityGrid getDensityGrid() {
+        return densityGrid;
+    }
+    
+    /**
+     * Get the quality governor
+     * @return The governor (always present; it stays at full quality when disabled)
+     */
+    public QualityGovernor getGovernor() {
+        return governor;
+    }
+    
+    /**
+     * Get the server companion feed
+     * @return The feed, or null when serverSync is disabled
+     */
+    public ServerTurtleFeed getServerFeed() {
+        return serverFeed;
+    }
+    
+    /**
+     * Get the snapshot of server-reported turtles the client has not loaded itself
+     * @return The remote snapshot, empty when serverSync is disabled or the server has no companion
+     */
+    public TrackerSnapshot getRemoteSnapshot() {
+        return serverFeed != null ? serverFeed.getSnapshot() : TrackerSnapshot.EMPTY;
+    }
+    
+    /**
+     * Get the off-thread visibility pipeline
+     * @return The pipeline, or null when asyncVisibility is disabled
+     */
+    public AsyncVisibilityPipeline getAsyncVisibility() {
+        return asyncVisibility;
+    }
+    
+    /**
+     * Get the section solidity cache (fed by chunk load/unload and block update events)
+     * @return The solidity cache
+     */
+    public SectionSolidityCache getSolidityCache() {
+        return solidityCache;
+    }
+    
+    /**
+     * Whether any visibility path reads the solidity cache, i.e. whether its chunk and block listeners are needed
+     * @return true for the voxel backend or when asyncVisibility is enabled
+     */
+    public boolean usesSolidityCache() {
+        return voxelBackend || asyncVisibility != null;
+    }
+    
+    /**
+     * Get the frustum culler (captured each frame, shared with the highlight renderer)
+     * @return The frustum culler
+     */
+    public FrustumCuller getFrustumCuller() {
+        return frustumCuller;
+    }
+    
+    /**
+     * Get the section occlusion culler (captured from the level renderer once per tick)
+     * @return The section occlusion culler
+     */
+    public SectionOcclusionCuller getSectionCuller() {
+        return sectionCuller;
+    }
+    
+    /**
+     * Get the scan scheduler (effective scan rate and staleness)
+     * @return The scan scheduler
+     */
+    public ScanScheduler getScanScheduler() {
+        return scanScheduler;
+    }
+    
+    /**
+     * Get the per-phase scan timings
+     * @return The phase timings
+     */
+    public PhaseTimings getPhaseTimings() {
+        return phaseTimings;
+    }
+    
+    /**
+     * Get the visibility scheduler (raycast budget and cache statistics)
+     * @return The visibility scheduler
+     */
+    public VisibilityScheduler getVisibilityScheduler() {
+        return visibilityScheduler;
+    }
+    
+    /**
+     * Get the maximum number of line-of-sight raycasts per tick
+     * @return The raycast budget
+     */
+    public int getRaycastBudget() {
+        return visibilityScheduler.getBudget();
+    }
+    
+    /**
+     * Get the fraction of visibility lookups answered from the cache
+     * @return Cache hit rate between 0 and 1
+     */
+    public double getVisibilityCacheHitRate() {
+        return visibilityScheduler.getCacheHitRate();
+    }
+    
+    /**
+     * Get the turtle index fed by entity load/unload events
+     * @return The turtle index
+     */
+    public EntityIndex<Turtle> getTurtleIndex() {
+        return turtleIndex;
+    }
+    
+    /**
+     * Get the classifier that routes entity load/unload events to the tracked types' indexes
+     * @return The entity classifier
+     */
+    public EntityClassifier getClassifier() {
+        return classifier;
+    }
+    
+    /**
+     * Get the pipelines of the extra tracked entity types
+     * @return One tracker per configured type that exists in the registry, in configured order
+     */
+    public List<TypeTracker> getTypeTrackers() {
+        return typeTrackers;
+    }
+    
+    private static List<TypeTracker> createTypeTrackers() {
+        List<TypeTracker> trackers = new ArrayList<>();
+        for (TrackedTypeSettings settings : TurtleTrackerConfig.getTrackedTypes()) {
+            int rawTypeId = EntityClassifier.resolveRawTypeId(settings);
+            if (rawTypeId >= 0) {
+                trackers.add(new TypeTracker(settings, rawTypeId));
+            }
+        }
+        return List.copyOf(trackers);
+    }
+    
+    /**
+     * Find the turtles closest to a point among every turtle the client knows about
+     * Only nearby chunk columns are visited, so asking for a few turtles is cheap even with a large index
+     * 
+     * @param x Query X
+     * @param y Query Y
+     * @param z Query Z
+     * @param count Maximum number of turtles to return
+     * @param maxDistance Turtles further away are ignored
+     * @param result Reusable output, filled nearest-first with entity ids and squared distances
+     */
+    public void findNearest(double x, double y, double z, int count, double maxDistance, SpatialGrid.QueryResult result) {
+        core.getSpatialGrid().queryNearest(x, y, z, count, maxDistance, result);
+    }
+    
+    /**
+     * Get the configured search radius
+     * @return The search radius in blocks, before any quality reduction
      */
     public static double getSearchRadius() {
-        return SEARCH_RADIUS;
+        return TurtleTrackerConfig.getSearchRadius();
     }
 }
@@ -0,0 +1,149 @@
+package com.turtletracker.tracker;
+
+import com.turtletracker.config.TrackedTypeSettings;
+import com.turtletracker.config.TurtleTrackerConfig;
+import com.turtletracker.core.OcclusionOracle;
+import com.turtletracker.core.QualityGovernor;
+import com.turtletracker.core.ScanScheduler;
+import com.turtletracker.core.SectionChangeCounter;
+import com.turtletracker.core.TrackerCore;
+import com.turtletracker.core.TrackerSnapshot;
+import com.turtletracker.core.ViewFilter;
+import com.turtletracker.core.VisibilityScheduler;
+import net.minecraft.world.entity.Entity;
+
+import java.util.function.IntPredicate;
+
+/**
+ * Tracking pipeline for one extra entity type
+ *
+ * Each type gets its own index, spatial grid, scan scheduler, visibility cache and
+ * snapshot, so a type with nothing nearby or nothing moving costs next to nothing and
+ * types never invalidate each other's snapshots. Turtles keep their own richer pipeline
+ * in {@link TurtleTracker}; this one publishes positions and visibility only.
+ */
+public class TypeTracker {
+
+    private final TrackedTypeSettings settings;
+    private final int rawTypeId;
+    private final EntityIndex<Entity> index = new EntityIndex<>();
+    private final VisibilityScheduler visibilityScheduler;
+    private final ScanScheduler scanScheduler;
+    private final TrackerCore core;
+
+    // Search radius after the governor's reduction
+    private double searchRadius;
+
+    // Block changes in the sections this type's search volume overlaps
+    private final SectionChangeCounter blockChanges = new SectionChangeCounter();
+
+    // Visibility source for the snapshot, kept as a field so publishing does not allocate
+    private final IntPredicate visibleById;
+
+    /**
+     * @param settings The type's configured settings
+     * @param rawTypeId The entity type's raw registry id (see {@link EntityClassifier#resolveRawTypeId})
+     */
+    public TypeTracker(TrackedTypeSettings settings, int rawTypeId) {
+        this.settings = settings;
+        this.rawTypeId = rawTypeId;
+        visibilityScheduler = new VisibilityScheduler(
+            TurtleTrackerConfig.getRaycastBudgetPerTick(),
+            TurtleTrackerConfig.getVisibilityTtlTicks(),
+            TurtleTrackerConfig.getVisibilityMoveThreshold()
+        );
+        scanScheduler = new ScanScheduler(
+            TurtleTrackerConfig.isAdaptiveScan(),
+            TurtleTrackerConfig.getScanIdleIntervalTicks(),
+            TurtleTrackerConfig.getScanMaxStaleTicks()
+        );
+        core = new TrackerCore(visibilityScheduler, scanScheduler);
+        searchRadius = settings.searchRadius();
+        visibleById = visibilityScheduler::isVisible;
+
+        index.setListener(new EntityIndex.Listener() {
+            @Override
+            public void onEntityRemoved(int entityId) {
+                core.onEntityRemoved(entityId);
+            }
+
+            @Override
+            public void onIndexReset() {
+                core.onEntitiesCleared();
+            }
+        });
+    }
+
+    /**
+     * Run one tick of the pipeline; the scan itself only runs when the scheduler asks for it
+     * Only entities and block changes in or near this type's search volume count as activity
+     *
+     * @param viewFilter Frustum test, or {@link ViewFilter#ALL}
+     * @param lineOfSight Raycast used for entities whose cached visibility is stale
+     */
+    public void update(double playerX, double playerY, double playerZ, double eyeY, float yaw, float pitch,
+                       ViewFilter viewFilter, OcclusionOracle lineOfSight) {
+        boolean cylinder = TurtleTrackerConfig.isCylinderSearch();
+        double halfHeight = TurtleTrackerConfig.getSearchHalfHeight();
+        blockChanges.setVolume(playerX, playerY, playerZ, searchRadius, cylinder, halfHeight);
+        double maxMoveSqr = core.updateGrid(index, playerX, playerY, playerZ, searchRadius, cylinder, halfHeight);
+        long churn = index.getChangeCount() + blockChanges.getCount();
+        if (!core.shouldScan(playerX, playerY, playerZ, yaw, pitch, maxMoveSqr, churn)) {
+            return;
+        }
+        core.query(index, playerX, playerY, playerZ, searchRadius, cylinder, halfHeight);
+        core.filter(index, viewFilter);
+        core.updateVisibility(index, playerX, eyeY, playerZ, lineOfSight);
+        core.publishSnapshot(index, visibleById);
+    }
+
+    /**
+     * Note a client block change; it only wakes the scan if it is inside the search volume
+     */
+    public void onBlockChanged(int blockX, int blockY, int blockZ) {
+        blockChanges.onBlockChanged(blockX, blockY, blockZ);
+    }
+
+    /**
+     * Follow the quality governor's raycast budget, scan rate and radius reductions
+     */
+    public void applyQuality(QualityGovernor governor) {
+        visibilityScheduler.setBudget((int) Math.round(
+            TurtleTrackerConfig.getRaycastBudgetPerTick() * governor.raycastScale()));
+        scanScheduler.setMinInterval(governor.minScanInterval());
+        searchRadius = settings.searchRadius() * governor.radiusScale();
+    }
+
+    /**
+     * Publish an empty snapshot (no player)
+     */
+    public void clear() {
+        core.publishEmpty();
+    }
+
+    /**
+     * Forget cached visibility and scan history (level change)
+     */
+    public void reset() {
+        core.reset();
+    }
+
+    /**
+     * @return The last published snapshot for this type
+     */
+    public TrackerSnapshot getSnapshot() {
+        return core.getSnapshot();
+    }
+
+    public TrackedTypeSettings getSettings() {
+        return settings;
+    }
+
+    public int getRawTypeId() {
+        return rawTypeId;
+    }
+
+    public EntityIndex<Entity> getIndex() {
+        return index;
+    }
+}
@@ -0,0 +1,70 @@
+package com.turtletracker.gametest;
+
+import com.turtletracker.core.EntityPositions;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import net.minecraft.world.entity.animal.Turtle;
+
+import java.util.List;
+
+/**
+ * The turtles spawned into one stress arena, in the shape the tracker core reads
+ * Positions come straight from the live entities, like the client's turtle index
+ */
+final class ArenaTurtles implements EntityPositions {
+
+    private final Turtle[] turtles;
+    private final Int2IntOpenHashMap indexById = new Int2IntOpenHashMap();
+
+    ArenaTurtles(List<Turtle> spawned) {
+        turtles = spawned.toArray(new Turtle[0]);
+        indexById.defaultReturnValue(-1);
+        for (int i = 0; i < turtles.length; i++) {
+            indexById.put(turtles[i].getId(), i);
+        }
+    }
+
+    @Override
+    public int size() {
+        return turtles.length;
+    }
+
+    @Override
+    public int id(int index) {
+        return turtles[index].getId();
+    }
+
+    @Override
+    public int indexOf(int entityId) {
+        return indexById.get(entityId);
+    }
+
+    @Override
+    public double x(int index) {
+        return turtles[index].getX();
+    }
+
+    @Override
+    public double y(int index) {
+        return turtles[index].getY();
+    }
+
+    @Override
+    public double z(int index) {
+        return turtles[index].getZ();
+    }
+
+    @Override
+    public float width(int index) {
+        return turtles[index].getBbWidth();
+    }
+
+    @Override
+    public float height(int index) {
+        return turtles[index].getBbHeight();
+    }
+
+    @Override
+    public float eyeHeight(int index) {
+        return turtles[index].getEyeHeight();
+    }
+}
@@ -0,0 +1,204 @@
+package com.turtletracker.gametest;
+
+import com.turtletracker.TurtleTrackerMod;
+import com.turtletracker.tracker.OcclusionBenchmark;
+import com.turtletracker.tracker.SectionSolidityCache;
+import net.fabricmc.fabric.api.gametest.v1.GameTest;
+import net.minecraft.core.BlockPos;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.network.chat.Component;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.phys.Vec3;
+import net.minecraft.world.phys.shapes.CollisionContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Voxel occlusion backend against vanilla clip over fixed block layouts
+ *
+ * Each test fills a patterned wall across the arena with one kind of block and runs
+ * {@link OcclusionBenchmark} from a fixed eye to a fixed grid of targets behind it. For
+ * full cubes and blocks without a collision shape the two backends must agree on every
+ * ray. For partial blocks (slabs, fences, bars, stairs) the voxel backend knowingly treats
+ * the whole cell as solid, so it may report a ray as blocked that clip sees through, but
+ * never the other way round.
+ *
+ * The benchmark test times both backends over two walls and fails if the voxel walk is
+ * slower per ray than clip; the figures are logged either way so runs can be compared.
+ * Eye and targets sit off the block grid so no ray grazes an edge where the two walks
+ * could break a tie differently.
+ */
+public class OcclusionAgreementTest {
+
+    private static final String ARENA = "turtle_tracker_gametest:arena";
+
+    // Arena interior (matches the structure)
+    private static final int ARENA_SIZE = 64;
+    private static final int ARENA_HEIGHT = 16;
+
+    // The eye looks along +X through the walls at two planes of targets
+    private static final Vec3 EYE = new Vec3(3.31, 7.63, 31.77);
+    private static final int WALL_X = 12;
+    private static final int SECOND_WALL_X = 16;
+    private static final double[] TARGET_X = {20.3, 27.7};
+    private static final double TARGET_Y_OFFSET = 0.29;
+    private static final double TARGET_Z_START = 4.13;
+    private static final double TARGET_Z_STEP = 1.37;
+
+    // The benchmark repeats the corpus and keeps the median run of each backend
+    private static final int BENCHMARK_RUNS = 15;
+
+    @GameTest(structure = ARENA)
+    public void stoneAgrees(GameTestHelper helper) {
+        buildWall(helper, WALL_X, Blocks.STONE);
+        expectAgreement(helper, "stone");
+    }
+
+    @GameTest(structure = ARENA)
+    public void glassAgrees(GameTestHelper helper) {
+        buildWall(helper, WALL_X, Blocks.GLASS);
+        expectAgreement(helper, "glass");
+    }
+
+    @GameTest(structure = ARENA)
+    public void cobwebAgrees(GameTestHelper helper) {
+        // No collision shape: behind a stone wall, cobwebs must not hide anything for either backend
+        buildWall(helper, WALL_X, Blocks.STONE);
+        buildWall(helper, SECOND_WALL_X, Blocks.COBWEB);
+        expectAgreement(helper, "cobweb");
+    }
+
+    @GameTest(structure = ARENA)
+    public void slabsAreConservative(GameTestHelper helper) {
+        // Bottom slabs leave the top half of every cell open, so some rays must differ
+        buildWall(helper, WALL_X, Blocks.STONE_SLAB);
+        expectConservative(helper, "bottom slab", true);
+    }
+
+    @GameTest(structure = ARENA)
+    public void fencesAreConservative(GameTestHelper helper) {
+        buildWall(helper, WALL_X, Blocks.OAK_FENCE);
+        expectConservative(helper, "fence", false);
+    }
+
+    @GameTest(structure = ARENA)
+    public void ironBarsAreConservative(GameTestHelper helper) {
+        buildWall(helper, WALL_X, Blocks.IRON_BARS);
+        expectConservative(helper, "iron bars", false);
+    }
+
+    @GameTest(structure = ARENA)
+    public void stairsAreConservative(GameTestHelper helper) {
+        buildWall(helper, WALL_X, Blocks.STONE_STAIRS);
+        expectConservative(helper, "stairs", false);
+    }
+
+    @GameTest(structure = ARENA)
+    public void benchmark(GameTestHelper helper) {
+        buildWall(helper, WALL_X, Blocks.STONE);
+        buildWall(helper, SECOND_WALL_X, Blocks.STONE_SLAB);
+        SectionSolidityCache cache = new SectionSolidityCache();
+        cache.reset(helper.getLevel());
+        Vec3 eye = helper.absoluteVec(EYE);
+        List<Vec3> targets = targets(helper);
+
+        long[] clipNanos = new long[BENCHMARK_RUNS];
+        long[] voxelNanos = new long[BENCHMARK_RUNS];
+        for (int run = 0; run < BENCHMARK_RUNS; run++) {
+            OcclusionBenchmark.Result result =
+                OcclusionBenchmark.run(helper.getLevel(), CollisionContext.empty(), cache, eye, targets);
+            clipNanos[run] = result.clipNanos();
+            voxelNanos[run] = result.voxelNanos();
+        }
+        double clipPerRay = (double) median(clipNanos) / targets.size();
+        double voxelPerRay = (double) median(voxelNanos) / targets.size();
+
+        TurtleTrackerMod.LOGGER.info("Occlusion benchmark, {} rays x {} runs: clip {} ns/ray, voxel {} ns/ray",
+            targets.size(), BENCHMARK_RUNS, String.format("%.0f", clipPerRay), String.format("%.0f", voxelPerRay));
+
+        if (voxelPerRay > clipPerRay * TrackerStressTest.BUDGET_SCALE) {
+            helper.fail(Component.literal(String.format("Voxel backend took %.0f ns/ray, slower than clip at %.0f ns/ray",
+                voxelPerRay, clipPerRay)));
+        } else {
+            helper.succeed();
+        }
+    }
+
+    /**
+     * Every ray must get the same answer from both backends
+     */
+    private static void expectAgreement(GameTestHelper helper, String layout) {
+        OcclusionBenchmark.Result result = compare(helper, layout);
+        if (result.agreements() != result.rays()) {
+            helper.fail(Component.literal(layout + ": backends disagree on " + (result.rays() - result.agreements())
+                + " of " + result.rays() + " rays (" + result.voxelOnlyHidden() + " hidden only by voxel)"));
+        } else if (result.clipVisible() == 0 || result.clipVisible() == result.rays()) {
+            helper.fail(Component.literal(layout + ": layout is not mixed, " + result.clipVisible() + " of "
+                + result.rays() + " rays clear"));
+        } else {
+            helper.succeed();
+        }
+    }
+
+    /**
+     * The voxel backend may hide what clip sees, never show what clip hides
+     */
+    private static void expectConservative(GameTestHelper helper, String layout, boolean mustDiffer) {
+        OcclusionBenchmark.Result result = compare(helper, layout);
+        if (result.voxelOnlyVisible() > 0) {
+            helper.fail(Component.literal(layout + ": voxel backend sees through " + result.voxelOnlyVisible()
+                + " of " + result.rays() + " rays clip reports blocked"));
+        } else if (mustDiffer && result.voxelOnlyHidden() == 0) {
+            helper.fail(Component.literal(layout + ": expected the voxel backend to hide some rays clip sees"));
+        } else {
+            helper.succeed();
+        }
+    }
+
+    private static OcclusionBenchmark.Result compare(GameTestHelper helper, String layout) {
+        SectionSolidityCache cache = new SectionSolidityCache();
+        cache.reset(helper.getLevel());
+        OcclusionBenchmark.Result result = OcclusionBenchmark.run(helper.getLevel(), CollisionContext.empty(),
+            cache, helper.absoluteVec(EYE), targets(helper));
+        TurtleTrackerMod.LOGGER.info("{}: {} rays, {} clear by clip, {} by voxel, {} hidden only by voxel",
+            layout, result.rays(), result.clipVisible(), result.voxelVisible(), result.voxelOnlyHidden());
+        return result;
+    }
+
+    /**
+     * A wall across the whole arena at the given X, with a fixed pattern of gaps so some rays get through
+     */
+    private static void buildWall(GameTestHelper helper, int x, Block block) {
+        for (int y = 0; y < ARENA_HEIGHT; y++) {
+            for (int z = 0; z < ARENA_SIZE; z++) {
+                if ((y * 5 + z * 3) % 7 < 4) {
+                    helper.setBlock(new BlockPos(x, y, z), block);
+                }
+            }
+        }
+    }
+
+    /**
+     * Target grid behind the walls, in absolute coordinates
+     */
+    private static List<Vec3> targets(GameTestHelper helper) {
+        List<Vec3> targets = new ArrayList<>();
+        for (double x : TARGET_X) {
+            for (int y = 1; y < ARENA_HEIGHT - 1; y++) {
+                for (double z = TARGET_Z_START; z < ARENA_SIZE - 4; z += TARGET_Z_STEP) {
+                    targets.add(helper.absoluteVec(new Vec3(x, y + TARGET_Y_OFFSET, z)));
+                }
+            }
+        }
+        return targets;
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
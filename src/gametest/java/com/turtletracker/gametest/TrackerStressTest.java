@@ -0,0 +1,358 @@
+package com.turtletracker.gametest;
+
+import com.turtletracker.TurtleTrackerMod;
+import com.turtletracker.core.DensityGrid;
+import com.turtletracker.core.LatencyHistogram;
+import com.turtletracker.core.LifecycleDiff;
+import com.turtletracker.core.OcclusionOracle;
+import com.turtletracker.core.ScanScheduler;
+import com.turtletracker.core.TrackerCore;
+import com.turtletracker.core.TrackerSnapshot;
+import com.turtletracker.core.ViewFilter;
+import com.turtletracker.core.VisibilityScheduler;
+import com.turtletracker.render.HighlightLod;
+import net.fabricmc.fabric.api.gametest.v1.GameTest;
+import net.minecraft.core.BlockPos;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.animal.Turtle;
+import net.minecraft.world.level.ClipContext;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.phys.HitResult;
+import net.minecraft.world.phys.Vec3;
+import net.minecraft.world.phys.shapes.CollisionContext;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Tick-time and allocation budgets for the tracker with 100, 1,000 and 5,000 turtles,
+ * in an open arena and in one split into walled cells
+ *
+ * The client glue (entity events, camera, vanilla clip on the client level) cannot run on
+ * a headless test server, so each test drives the same Minecraft-free pipeline the client
+ * tracker does, with the mod's default settings: range query, filter, budgeted raycasts
+ * against the arena's real blocks, snapshot, lifecycle diff, heatmap counts and the
+ * highlight LOD split the renderer prepares. The observer turns a little every tick so
+ * the scan never idles.
+ *
+ * The warm-up lasts long enough for the raycast budget to reach every turtle once. By its
+ * end the tracker's answers must match the arena: in the open arena every turtle is
+ * visible, and behind the walls exactly the turtles in the observer's own cell are. The
+ * same must still hold after the measured ticks, so a pipeline that falls behind cannot
+ * pass by leaving turtles unchecked (which reads as hidden).
+ *
+ * After the warm-up, every tick is timed and the allocating thread's bytes are counted. A
+ * test fails if the 99th percentile tick or the mean allocation per tick goes over its
+ * budget. Budgets grow with the turtle count; slower machines can scale all of them with
+ * {@code -PgametestBudgetScale=<factor>}.
+ */
+public class TrackerStressTest {
+
+    private static final String ARENA = "turtle_tracker_gametest:arena";
+
+    // Arena interior (matches the structure), observer position and lattice spacing
+    private static final int ARENA_SIZE = 64;
+    private static final int ARENA_HEIGHT = 16;
+    private static final Vec3 OBSERVER = new Vec3(32.0, 7.0, 32.0);
+    private static final double EYE_HEIGHT = 1.62;
+    private static final double SPACING = 1.5;
+
+    // Walls of the occluded arena: full-height stone planes across both axes, leaving the observer's cell open
+    private static final int[] WALLS = {8, 16, 24, 40, 48, 56};
+    // Interior of the observer's cell, between the walls at 24 and 40
+    private static final double CELL_MIN = 25.0;
+    private static final double CELL_MAX = 40.0;
+
+    // Mod defaults
+    private static final double SEARCH_RADIUS = 64.0;
+    private static final int RAYCAST_BUDGET = 32;
+    private static final int VISIBILITY_TTL_TICKS = 10;
+    private static final double VISIBILITY_MOVE_THRESHOLD = 0.5;
+    private static final int MAX_RENDERED = 512;
+    private static final double LOD_FULL_DISTANCE = 16.0;
+    private static final double LOD_POINT_DISTANCE = 48.0;
+    private static final double LOD_CLUSTER_SIZE = 16.0;
+
+    private static final float TURN_PER_TICK = 3.0f;
+    // Settling time on top of the ticks the raycast budget needs to check every turtle once
+    private static final int WARMUP_TICKS = 40;
+    private static final int MEASURED_TICKS = 200;
+
+    // Per-tick budgets: a fixed part plus a part per turtle
+    private static final long BASE_TICK_NANOS = 1_000_000L;
+    private static final long TICK_NANOS_PER_TURTLE = 1_000L;
+    private static final long BASE_ALLOCATION_BYTES = 16 * 1024L;
+    private static final long ALLOCATION_BYTES_PER_TURTLE = 64L;
+
+    // Shared with the other game tests' timing checks
+    static final double BUDGET_SCALE =
+        Double.parseDouble(System.getProperty("turtletracker.gametest.budgetScale", "1"));
+
+    @GameTest(structure = ARENA, maxTicks = 300)
+    public void open100(GameTestHelper helper) {
+        new StressRun(helper, 100, false).start();
+    }
+
+    @GameTest(structure = ARENA, maxTicks = 300)
+    public void open1000(GameTestHelper helper) {
+        new StressRun(helper, 1000, false).start();
+    }
+
+    // The first raycast pass over 5,000 turtles takes 157 ticks of the warm-up
+    @GameTest(structure = ARENA, maxTicks = 450)
+    public void open5000(GameTestHelper helper) {
+        new StressRun(helper, 5000, false).start();
+    }
+
+    @GameTest(structure = ARENA, maxTicks = 300)
+    public void occluded100(GameTestHelper helper) {
+        new StressRun(helper, 100, true).start();
+    }
+
+    @GameTest(structure = ARENA, maxTicks = 300)
+    public void occluded1000(GameTestHelper helper) {
+        new StressRun(helper, 1000, true).start();
+    }
+
+    @GameTest(structure = ARENA, maxTicks = 450)
+    public void occluded5000(GameTestHelper helper) {
+        new StressRun(helper, 5000, true).start();
+    }
+
+    /**
+     * One arena: builds it, then runs and measures one tracker tick per server tick
+     */
+    private static final class StressRun {
+
+        private final GameTestHelper helper;
+        private final ServerLevel level;
+        private final int turtleCount;
+        private final boolean occluded;
+        private final int warmupTicks;
+
+        private final VisibilityScheduler visibilityScheduler =
+            new VisibilityScheduler(RAYCAST_BUDGET, VISIBILITY_TTL_TICKS, VISIBILITY_MOVE_THRESHOLD);
+        private final TrackerCore core = new TrackerCore(visibilityScheduler, new ScanScheduler(true, 10, 20));
+        private final IntPredicate visibleById = visibilityScheduler::isVisible;
+        private final OcclusionOracle lineOfSight = this::isLineClear;
+        private final LifecycleDiff lifecycleDiff = new LifecycleDiff(1.0);
+        private final DensityGrid densityGrid = new DensityGrid(64, 4.0);
+        private final DensityGrid.CellConsumer ignoreCell = (ringX, ringZ, count) -> { };
+        private final HighlightLod lod = new HighlightLod();
+        private long lodVersion = -1;
+
+        private final LatencyHistogram tickTimes = new LatencyHistogram();
+        private final com.sun.management.ThreadMXBean threads = allocationCounter();
+        private long allocatedBytes = 0;
+
+        private ArenaTurtles turtles;
+        private Vec3 observer;
+        private Vec3 cellCorner;
+        private Vec3 cellOpposite;
+        private float yaw = 0.0f;
+        private int ticks = 0;
+        private boolean finished = false;
+
+        StressRun(GameTestHelper helper, int turtleCount, boolean occluded) {
+            this.helper = helper;
+            this.level = helper.getLevel();
+            this.turtleCount = turtleCount;
+            this.occluded = occluded;
+            this.warmupTicks = WARMUP_TICKS + (turtleCount + RAYCAST_BUDGET - 1) / RAYCAST_BUDGET;
+        }
+
+        void start() {
+            if (occluded) {
+                buildWalls();
+            }
+            turtles = new ArenaTurtles(spawnTurtles());
+            observer = helper.absoluteVec(OBSERVER);
+            cellCorner = helper.absoluteVec(new Vec3(CELL_MIN, 0.0, CELL_MIN));
+            cellOpposite = helper.absoluteVec(new Vec3(CELL_MAX, 0.0, CELL_MAX));
+            helper.onEachTick(this::tick);
+        }
+
+        private void buildWalls() {
+            for (int wall : WALLS) {
+                for (int along = 0; along < ARENA_SIZE; along++) {
+                    for (int y = 0; y < ARENA_HEIGHT; y++) {
+                        helper.setBlock(new BlockPos(wall, y, along), Blocks.STONE);
+                        helper.setBlock(new BlockPos(along, y, wall), Blocks.STONE);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Spread the turtles evenly over every free lattice point, so 100 and 5,000 turtles fill the same arena
+         */
+        private List<Turtle> spawnTurtles() {
+            List<Vec3> candidates = new ArrayList<>();
+            for (double y = 1.0; y < ARENA_HEIGHT - 1; y += 1.0) {
+                for (double x = SPACING; x < ARENA_SIZE - 1; x += SPACING) {
+                    for (double z = SPACING; z < ARENA_SIZE - 1; z += SPACING) {
+                        Vec3 position = new Vec3(x, y, z);
+                        if (level.noCollision(EntityType.TURTLE.getDimensions()
+                                .makeBoundingBox(helper.absoluteVec(position)))) {
+                            candidates.add(position);
+                        }
+                    }
+                }
+            }
+            if (candidates.size() < turtleCount) {
+                throw new IllegalStateException("Arena only has room for " + candidates.size() + " turtles");
+            }
+
+            List<Turtle> spawned = new ArrayList<>(turtleCount);
+            for (int i = 0; i < turtleCount; i++) {
+                Turtle turtle = helper.spawn(EntityType.TURTLE, candidates.get((int) ((long) i * candidates.size() / turtleCount)));
+                // Frozen in place: the tracker's cost is what is measured, not turtle AI or physics
+                turtle.setNoAi(true);
+                turtle.setNoGravity(true);
+                turtle.setSilent(true);
+                turtle.setInvulnerable(true);
+                spawned.add(turtle);
+            }
+            return spawned;
+        }
+
+        private void tick() {
+            if (finished) {
+                return;
+            }
+            ticks++;
+            yaw = (yaw + TURN_PER_TICK) % 360.0f;
+
+            boolean measured = ticks > warmupTicks;
+            long allocatedBefore = measured ? allocated() : 0;
+            long start = System.nanoTime();
+            runTracker();
+            long elapsed = System.nanoTime() - start;
+            if (measured) {
+                allocatedBytes += allocated() - allocatedBefore;
+                tickTimes.record(elapsed);
+            }
+
+            if (ticks == warmupTicks) {
+                String wrong = checkVisibility(core.getSnapshot());
+                if (wrong != null) {
+                    finished = true;
+                    helper.fail(Component.literal(wrong + " after the " + warmupTicks + " tick warm-up"));
+                }
+            } else if (ticks == warmupTicks + MEASURED_TICKS) {
+                finished = true;
+                check();
+            }
+        }
+
+        /**
+         * One client tracker tick, phase for phase
+         */
+        private void runTracker() {
+            double maxMoveSqr = core.updateGrid(turtles);
+            if (core.shouldScan(observer.x, observer.y, observer.z, yaw, 0.0f, maxMoveSqr, 0)) {
+                core.query(turtles, observer.x, observer.y, observer.z, SEARCH_RADIUS, false, 0.0);
+                core.filter(turtles, ViewFilter.ALL);
+                core.updateVisibility(turtles, observer.x, observer.y + EYE_HEIGHT, observer.z, lineOfSight);
+                TrackerSnapshot snapshot = core.publishSnapshot(turtles, visibleById);
+                densityGrid.update(turtles);
+                lifecycleDiff.diff(snapshot, core.getTick());
+                if (snapshot.getVersion() != lodVersion) {
+                    lodVersion = snapshot.getVersion();
+                    lod.compute(snapshot, observer.x, observer.y + EYE_HEIGHT, observer.z, MAX_RENDERED,
+                        LOD_FULL_DISTANCE, LOD_POINT_DISTANCE, LOD_CLUSTER_SIZE);
+                }
+            }
+            densityGrid.recenter(observer.x, observer.z);
+            densityGrid.drainDirty(ignoreCell);
+        }
+
+        private boolean isLineClear(double fromX, double fromY, double fromZ, double toX, double toY, double toZ) {
+            ClipContext clipContext = new ClipContext(new Vec3(fromX, fromY, fromZ), new Vec3(toX, toY, toZ),
+                ClipContext.Block.COLLIDER, ClipContext.Fluid.NONE, CollisionContext.empty());
+            return level.clip(clipContext).getType() == HitResult.Type.MISS;
+        }
+
+        private void check() {
+            TrackerSnapshot snapshot = core.getSnapshot();
+            long tickBudget = (long) ((BASE_TICK_NANOS + TICK_NANOS_PER_TURTLE * turtleCount) * BUDGET_SCALE);
+            long allocationBudget =
+                (long) ((BASE_ALLOCATION_BYTES + ALLOCATION_BYTES_PER_TURTLE * turtleCount) * BUDGET_SCALE);
+            long p99 = tickTimes.getPercentile(99.0);
+            long allocationPerTick = allocatedBytes / MEASURED_TICKS;
+
+            TurtleTrackerMod.LOGGER.info(
+                "{} arena, {} turtles: tick p50 {} us, p99 {} us, max {} us (budget {} us); {} bytes/tick (budget {}); {} visible",
+                occluded ? "Occluded" : "Open", turtleCount, tickTimes.getPercentile(50.0) / 1000, p99 / 1000,
+                tickTimes.getMax() / 1000, tickBudget / 1000, threads != null ? allocationPerTick : "n/a",
+                allocationBudget, snapshot.visibleCount());
+
+            String wrong = checkVisibility(snapshot);
+            if (wrong != null) {
+                helper.fail(Component.literal(wrong + " at the end of the run"));
+            } else if (p99 > tickBudget) {
+                helper.fail(Component.literal("Tracker tick p99 " + p99 / 1000 + " us over the "
+                    + tickBudget / 1000 + " us budget"));
+            } else if (threads != null && allocationPerTick > allocationBudget) {
+                helper.fail(Component.literal("Tracker allocated " + allocationPerTick + " bytes per tick, over the "
+                    + allocationBudget + " byte budget"));
+            } else {
+                helper.succeed();
+            }
+        }
+
+        /**
+         * Compare the snapshot with what the observer can actually see
+         *
+         * @return What is wrong, or null when every turtle is tracked and visible exactly when it should be
+         */
+        private String checkVisibility(TrackerSnapshot snapshot) {
+            if (snapshot.size() != turtleCount) {
+                return "Tracked " + snapshot.size() + " of " + turtleCount + " turtles in range";
+            }
+            int shownThroughWalls = 0;
+            int hiddenInView = 0;
+            for (int i = 0; i < snapshot.size(); i++) {
+                boolean inView = !occluded || isInObserverCell(snapshot.x(i), snapshot.z(i));
+                if (snapshot.isVisible(i) && !inView) {
+                    shownThroughWalls++;
+                } else if (!snapshot.isVisible(i) && inView) {
+                    hiddenInView++;
+                }
+            }
+            if (shownThroughWalls > 0) {
+                return shownThroughWalls + " turtles outside the observer's cell visible through the walls";
+            }
+            if (hiddenInView > 0) {
+                return hiddenInView + " turtles in plain sight of the observer still hidden";
+            }
+            return null;
+        }
+
+        private boolean isInObserverCell(double x, double z) {
+            return x > Math.min(cellCorner.x, cellOpposite.x) && x < Math.max(cellCorner.x, cellOpposite.x)
+                && z > Math.min(cellCorner.z, cellOpposite.z) && z < Math.max(cellCorner.z, cellOpposite.z);
+        }
+
+        private long allocated() {
+            return threads != null ? threads.getCurrentThreadAllocatedBytes() : 0;
+        }
+
+        /**
+         * @return The JVM's per-thread allocation counter, or null where it is unavailable (allocation is then not checked)
+         */
+        private static com.sun.management.ThreadMXBean allocationCounter() {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                    && threads.isThreadAllocatedMemorySupported()) {
+                threads.setThreadAllocatedMemoryEnabled(true);
+                return threads;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.turtletracker.gametest;
+
+import com.turtletracker.server.TurtleSyncServer;
+import net.fabricmc.fabric.api.gametest.v1.GameTest;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.animal.Pig;
+import net.minecraft.world.entity.animal.Turtle;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.phys.Vec3;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The server companion's turtle tables must follow the real entity load and unload events
+ *
+ * A companion with only its entity listeners registered watches the game test level while
+ * turtles are spawned and removed; no subscriber or network connection is involved.
+ */
+public class TurtleSyncServerTest {
+
+    private static final String ARENA = "turtle_tracker_gametest:arena";
+
+    // Listens to every level for the whole test run, like the companion on a real server
+    private static final TurtleSyncServer SERVER = createServer();
+
+    private static TurtleSyncServer createServer() {
+        TurtleSyncServer server = new TurtleSyncServer();
+        server.registerEntityEvents();
+        return server;
+    }
+
+    @GameTest(structure = ARENA, maxTicks = 40)
+    public void tablesFollowEntityLoadAndUnload(GameTestHelper helper) {
+        ResourceKey<Level> dimension = helper.getLevel().dimension();
+        List<Turtle> turtles = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Turtle turtle = helper.spawn(EntityType.TURTLE, new Vec3(4.5 + i * 2.0, 1.0, 4.5));
+            turtle.setNoAi(true);
+            turtles.add(turtle);
+        }
+        Pig pig = helper.spawn(EntityType.PIG, new Vec3(4.5, 1.0, 10.5));
+
+        for (Turtle turtle : turtles) {
+            if (!SERVER.isTracked(dimension, turtle.getId())) {
+                helper.fail(Component.literal("Spawned turtle " + turtle.getId() + " is not tracked"));
+            }
+        }
+        if (SERVER.isTracked(dimension, pig.getId())) {
+            helper.fail(Component.literal("A pig is tracked as a turtle"));
+        }
+
+        // Remove half of them; the rest must stay
+        for (int i = 0; i < turtles.size(); i += 2) {
+            turtles.get(i).discard();
+        }
+        helper.runAfterDelay(1, () -> {
+            for (int i = 0; i < turtles.size(); i++) {
+                boolean removed = i % 2 == 0;
+                if (SERVER.isTracked(dimension, turtles.get(i).getId()) == removed) {
+                    helper.fail(Component.literal("Turtle " + turtles.get(i).getId()
+                        + (removed ? " is still tracked after it was removed" : " was dropped while still loaded")));
+                }
+            }
+            helper.succeed();
+        });
+    }
+}
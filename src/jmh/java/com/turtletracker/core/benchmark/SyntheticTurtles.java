@@ -0,0 +1,107 @@
+package com.turtletracker.core.benchmark;
+
+import com.turtletracker.core.EntityPositions;
+
+import java.util.SplittableRandom;
+
+/**
+ * Randomly scattered turtle-sized entities around the origin
+ * Entity ids equal their index, so lookups are a bounds check
+ */
+final class SyntheticTurtles implements EntityPositions {
+
+    // Turtles are spread over a box a bit larger than the default 64 block search radius
+    private static final double SPREAD = 96.0;
+    private static final double GROUND_Y = 63.0;
+
+    // Share of turtles that take a step in each wander() call
+    private static final double WANDER_SHARE = 0.05;
+    private static final double STEP = 0.1;
+
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+    private final SplittableRandom random;
+    private boolean nudged = false;
+
+    SyntheticTurtles(int count, long seed) {
+        random = new SplittableRandom(seed);
+        x = new double[count];
+        y = new double[count];
+        z = new double[count];
+        for (int i = 0; i < count; i++) {
+            x[i] = random.nextDouble(-SPREAD, SPREAD);
+            y[i] = GROUND_Y + random.nextInt(0, 8);
+            z[i] = random.nextDouble(-SPREAD, SPREAD);
+        }
+    }
+
+    /**
+     * Move a small share of the turtles one step, like grazing turtles between two ticks
+     */
+    void wander() {
+        int steps = Math.max(1, (int) (x.length * WANDER_SHARE));
+        for (int n = 0; n < steps; n++) {
+            int i = random.nextInt(x.length);
+            x[i] = clamp(x[i] + random.nextDouble(-STEP, STEP));
+            z[i] = clamp(z[i] + random.nextDouble(-STEP, STEP));
+        }
+    }
+
+    /**
+     * Move one turtle back and forth by a tiny amount so the next snapshot differs from the last
+     */
+    void nudge(int index) {
+        x[index] += nudged ? -0.001 : 0.001;
+        nudged = !nudged;
+    }
+
+    private static double clamp(double value) {
+        return Math.max(-SPREAD, Math.min(SPREAD, value));
+    }
+
+    @Override
+    public int size() {
+        return x.length;
+    }
+
+    @Override
+    public int id(int index) {
+        return index;
+    }
+
+    @Override
+    public int indexOf(int entityId) {
+        return entityId >= 0 && entityId < x.length ? entityId : -1;
+    }
+
+    @Override
+    public double x(int index) {
+        return x[index];
+    }
+
+    @Override
+    public double y(int index) {
+        return y[index];
+    }
+
+    @Override
+    public double z(int index) {
+        return z[index];
+    }
+
+    @Override
+    public float width(int index) {
+        return 1.2f;
+    }
+
+    @Override
+    public float height(int index) {
+        return 0.4f;
+    }
+
+    @Override
+    public float eyeHeight(int index) {
+        return 0.2f;
+    }
+}
@@ -0,0 +1,50 @@
+package com.turtletracker.core.benchmark;
+
+import com.turtletracker.core.OcclusionOracle;
+
+/**
+ * Procedural block world standing in for a level
+ *
+ * Everything below the ground is solid and roughly one block in sixty-four above it is a
+ * hashed obstacle. Lines are sampled every half block, so a test costs about as much
+ * per block of distance as a real raycast and a fair share of turtles end up hidden.
+ */
+final class SyntheticWorld implements OcclusionOracle {
+
+    private static final int GROUND_Y = 62;
+    private static final double SAMPLE_STEP = 0.5;
+
+    private final long seed;
+
+    SyntheticWorld(long seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public boolean isLineClear(double fromX, double fromY, double fromZ, double toX, double toY, double toZ) {
+        double dx = toX - fromX;
+        double dy = toY - fromY;
+        double dz = toZ - fromZ;
+        double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        int samples = (int) (length / SAMPLE_STEP);
+        for (int i = 1; i < samples; i++) {
+            double t = (double) i / samples;
+            if (isSolid((int) Math.floor(fromX + dx * t), (int) Math.floor(fromY + dy * t),
+                    (int) Math.floor(fromZ + dz * t))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isSolid(int x, int y, int z) {
+        if (y <= GROUND_Y) {
+            return true;
+        }
+        long hash = seed ^ (x * 0x9E3779B97F4A7C15L) ^ (y * 0xC2B2AE3D27D4EB4FL) ^ (z * 0x165667B19E3779F9L);
+        hash ^= hash >>> 29;
+        hash *= 0xBF58476D1CE4E5B9L;
+        hash ^= hash >>> 32;
+        return (hash & 63) == 0;
+    }
+}
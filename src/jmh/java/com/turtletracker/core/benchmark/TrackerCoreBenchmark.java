@@ -0,0 +1,183 @@
+package com.turtletracker.core.benchmark;
+
+import com.turtletracker.core.LastKnownPositions;
+import com.turtletracker.core.ScanScheduler;
+import com.turtletracker.core.TrackerCore;
+import com.turtletracker.core.TrackerSnapshot;
+import com.turtletracker.core.ViewFilter;
+import com.turtletracker.core.VisibilityScheduler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+
+/**
+ * Per-phase cost of a tracker scan over synthetic turtles
+ *
+ * The core runs with the mod's default settings (64 block sphere, 32 raycasts per tick,
+ * 10 tick visibility TTL) around a player at the origin looking towards +Z. Every phase
+ * benchmark starts from the state a full tick leaves behind, so it measures that phase
+ * alone in steady state; {@link #tick()} measures the whole pipeline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrackerCoreBenchmark {
+
+    private static final long SEED = 0x7475727431L;
+
+    private static final double SEARCH_RADIUS = 64.0;
+    private static final double PLAYER_X = 0.0;
+    private static final double PLAYER_Y = 63.0;
+    private static final double PLAYER_Z = 0.0;
+    private static final double EYE_Y = PLAYER_Y + 1.62;
+
+    // 90 degree wedge in front of the player, standing in for the camera frustum
+    private static final ViewFilter VIEW = (minX, minY, minZ, maxX, maxY, maxZ) -> {
+        double depth = maxZ - PLAYER_Z;
+        return depth > 0.0 && minX - PLAYER_X <= depth && maxX - PLAYER_X >= -depth;
+    };
+
+    // One frame at 60 FPS with the renderer's smoothing time constant
+    private static final double SMOOTHING_BLEND = LastKnownPositions.blendFactor(1.0 / 60.0, 0.1);
+
+    @Param({"10", "100", "1000", "10000"})
+    public int turtles;
+
+    private SyntheticTurtles entities;
+    private SyntheticWorld world;
+    private TrackerCore core;
+    private IntPredicate visibleById;
+    private LastKnownPositions lastKnown;
+    private UUID[] uuids;
+    private long lastKnownTick = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        entities = new SyntheticTurtles(turtles, SEED);
+        world = new SyntheticWorld(SEED);
+        core = new TrackerCore(new VisibilityScheduler(32, 10, 0.5), new ScanScheduler(false, 10, 20));
+        visibleById = core::isVisible;
+        lastKnown = new LastKnownPositions(turtles, 6000);
+        uuids = new UUID[turtles];
+        for (int i = 0; i < turtles; i++) {
+            uuids[i] = new UUID(SEED, i);
+        }
+
+        // Fill the visibility cache the way a player standing still for a while would
+        for (int i = 0; i < 20 + turtles / 32; i++) {
+            tick();
+        }
+        lastKnown();
+    }
+
+    /**
+     * Grid refresh and range query (includes moving 5% of the turtles)
+     */
+    @Benchmark
+    public int scan() {
+        entities.wander();
+        core.updateGrid(entities);
+        core.query(entities, PLAYER_X, PLAYER_Y, PLAYER_Z, SEARCH_RADIUS, false, 0.0);
+        return core.inRangeCount();
+    }
+
+    /**
+     * View filter over the turtles in range
+     */
+    @Benchmark
+    public int filter() {
+        return core.filter(entities, VIEW);
+    }
+
+    /**
+     * Visibility queueing plus this tick's raycasts (mostly cache hits after warm-up)
+     */
+    @Benchmark
+    public int visibility() {
+        core.shouldScan(PLAYER_X, PLAYER_Y, PLAYER_Z, 0.0f, 0.0f, 0.0, 0L);
+        core.updateVisibility(entities, PLAYER_X, EYE_Y, PLAYER_Z, world);
+        return core.getVisibilityScheduler().getLastTickRaycasts();
+    }
+
+    /**
+     * Snapshot publish when one turtle moved, so a new snapshot is built every time
+     */
+    @Benchmark
+    public TrackerSnapshot snapshot() {
+        if (core.inRangeCount() > 0) {
+            entities.nudge(core.inRange(0));
+        }
+        return core.publishSnapshot(entities, visibleById);
+    }
+
+    /**
+     * Snapshot publish when nothing changed (compare only, no allocation)
+     */
+    @Benchmark
+    public TrackerSnapshot snapshotUnchanged() {
+        return core.publishSnapshot(entities, visibleById);
+    }
+
+    /**
+     * Last known position bookkeeping for one scan over the turtles in range
+     */
+    @Benchmark
+    public int lastKnown() {
+        lastKnown.beginScan(++lastKnownTick);
+        for (int i = 0; i < core.inRangeCount(); i++) {
+            int index = core.inRange(i);
+            lastKnown.sighted(uuids[entities.id(index)], entities.id(index), entities.x(index), entities.y(index),
+                entities.z(index), entities.width(index), entities.height(index));
+        }
+        lastKnown.endScan();
+        return lastKnown.ghostCount();
+    }
+
+    /**
+     * One frame of tracer end-point smoothing over the visible turtles
+     */
+    @Benchmark
+    public int smoothing() {
+        TrackerSnapshot snapshot = core.getSnapshot();
+        int slot = 0;
+        for (int i = 0; i < snapshot.size(); i++) {
+            if (snapshot.isVisible(i)) {
+                slot = lastKnown.slotOfEntity(snapshot.id(i));
+                if (slot >= 0) {
+                    lastKnown.smooth(slot, snapshot.x(i), snapshot.y(i), snapshot.z(i), SMOOTHING_BLEND);
+                }
+            }
+        }
+        return slot;
+    }
+
+    /**
+     * A full tick: every phase in order
+     */
+    @Benchmark
+    public TrackerSnapshot tick() {
+        entities.wander();
+        double maxMoveSqr = core.updateGrid(entities);
+        core.shouldScan(PLAYER_X, PLAYER_Y, PLAYER_Z, 0.0f, 0.0f, maxMoveSqr, 0L);
+        core.query(entities, PLAYER_X, PLAYER_Y, PLAYER_Z, SEARCH_RADIUS, false, 0.0);
+        core.filter(entities, VIEW);
+        core.updateVisibility(entities, PLAYER_X, EYE_Y, PLAYER_Z, world);
+        return core.publishSnapshot(entities, visibleById);
+    }
+}
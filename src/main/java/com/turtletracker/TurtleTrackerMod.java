@@ -1,6 +1,11 @@
 package com.turtletracker;
 
+import com.turtletracker.config.TurtleTrackerConfig;
+import com.turtletracker.network.SyncSubscribePayload;
+import com.turtletracker.network.TurtleSyncPayload;
+import com.turtletracker.server.TurtleSyncServer;
 import net.fabricmc.api.ModInitializer;
+import net.fabricmc.fabric.api.networking.v1.PayloadTypeRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,6 +20,9 @@ public class TurtleTrackerMod implements ModInitializer {
     // Create a logger for this mod using SLF4J (Simple Logging Facade for Java)
     // This allows us to output debug information and errors to the console
     public static final Logger LOGGER = LoggerFactory.getLogger(MOD_ID);
+    
+    // Server companion streaming turtle positions to subscribed clients (null unless enabled)
+    private static TurtleSyncServer syncServer;
 
     /**
      * This method is called when the mod is initialized
@@ -23,15 +31,31 @@ public class TurtleTrackerMod implements ModInitializer {
      */
     @Override
     public void onInitialize() {
+        // Load the config here so the server companion and the client both see it
+        TurtleTrackerConfig.load();
+        
+        // Sync payloads are registered on both sides; the client needs them even when the server has no companion
+        PayloadTypeRegistry.playS2C().register(TurtleSyncPayload.TYPE, TurtleSyncPayload.CODEC);
+        PayloadTypeRegistry.playC2S().register(SyncSubscribePayload.TYPE, SyncSubscribePayload.CODEC);
+        
+        // Only a server with the companion enabled accepts subscriptions, so clients can tell it is there
+        if (TurtleTrackerConfig.isServerCompanion()) {
+            syncServer = new TurtleSyncServer();
+            syncServer.register();
+            LOGGER.info("Turtle Tracker server companion enabled");
+        }
+        
         // Log that our mod has been initialized
         LOGGER.info("Turtle Tracker mod initialized!");
         
-        // Since our turtle tracking functionality is primarily client-side,
-        // we don't need to register much here. The main logic will be in
-        // the client initializer class.
-        
-        // If we needed to register items, blocks, or server-side functionality,
-        // we would do it here. For now, this serves as the entry point
-        // and logging confirmation that the mod loaded correctly.
+        // The tracking and rendering itself is client-side and lives in the client initializer
+    }
+    
+    /**
+     * Getter for the server companion
+     * @return The companion, or null when serverCompanion is disabled
+     */
+    public static TurtleSyncServer getSyncServer() {
+        return syncServer;
     }
 }
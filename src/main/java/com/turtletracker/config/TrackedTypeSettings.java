@@ -0,0 +1,14 @@
+package com.turtletracker.config;
+
+/**
+ * Settings for one extra tracked entity type (turtles use the top-level options)
+ *
+ * @param entityType Registry id of the entity type, e.g. {@code minecraft:frog}
+ * @param color Marker colour as 0xRRGGBB
+ * @param searchRadius Tracking radius in blocks
+ * @param lodFullDistance Visible entities closer than this get a full box
+ * @param lodPointDistance Up to this distance entities get a cross; further ones are clustered
+ */
+public record TrackedTypeSettings(String entityType, int color, double searchRadius,
+                                  double lodFullDistance, double lodPointDistance) {
+}
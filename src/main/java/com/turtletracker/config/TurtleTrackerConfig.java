@@ -0,0 +1,481 @@
+package com.turtletracker.config;
+
+import com.turtletracker.TurtleTrackerMod;
+import net.fabricmc.loader.api.FabricLoader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Simple properties-file configuration for the Turtle Tracker mod
+ * Values are read once at startup from config/turtle_tracker.properties
+ * Missing keys fall back to their defaults and the file is rewritten so
+ * players can see every available option
+ */
+public final class TurtleTrackerConfig {
+
+    private static final String FILE_NAME = TurtleTrackerMod.MOD_ID + ".properties";
+
+    // Marker colours handed to extra tracked types that do not set their own, in list order
+    private static final int[] DEFAULT_TYPE_COLORS = {0x33CCFF, 0xFF66CC, 0xFFCC33, 0x9966FF, 0x66FFCC};
+
+    // Maximum number of line-of-sight raycasts performed per client tick
+    private static int raycastBudgetPerTick = 32;
+
+    // How many ticks a cached visibility result stays valid before it is re-checked
+    private static int visibilityTtlTicks = 10;
+
+    // How far (in blocks) a turtle may move relative to the player before its cached result is re-checked
+    private static double visibilityMoveThreshold = 0.5;
+
+    // Run line-of-sight tests on worker threads against a copy of nearby block data
+    private static boolean asyncVisibility = false;
+
+    // Worker threads used when asyncVisibility is enabled
+    private static int visibilityWorkerThreads = 2;
+
+    // Line-of-sight backend for on-thread checks: "clip" (vanilla raycast) or "voxel" (DDA over cached section bitsets)
+    private static String visibilityBackend = "clip";
+
+    // Skip line-of-sight checks (and rendering) for turtles outside the camera frustum
+    private static boolean frustumCulling = true;
+
+    // Hide turtles in chunk sections the renderer's occlusion graph culled, without a raycast
+    private static boolean sectionCulling = true;
+
+    // Lower the scan rate while nothing around the player changes
+    private static boolean adaptiveScan = true;
+
+    // Ticks between scans once the scene has been quiet for a while
+    private static int scanIdleIntervalTicks = 10;
+
+    // Hard upper bound on how many ticks old the tracked data may get
+    private static int scanMaxStaleTicks = 20;
+
+    // Maximum distance to track turtles (in blocks)
+    private static double searchRadius = 64.0;
+
+    // Search volume shape: "sphere" or "cylinder" (vertical cylinder of radius searchRadius)
+    private static String searchShape = "sphere";
+
+    // Maximum vertical distance for the cylinder shape (in blocks)
+    private static double searchHalfHeight = 32.0;
+
+    // Only the nearest N visible turtles get highlight boxes and tracers
+    private static int maxRenderedTurtles = 512;
+
+    // Show the extended HUD panel (counts, nearest turtle, scan timings) instead of just the count
+    private static boolean hudDetailed = false;
+
+    // Visible turtles closer than this get a full box, up to lodPointDistance a point marker, beyond that a cluster marker
+    private static double lodFullDistance = 16.0;
+    private static double lodPointDistance = 40.0;
+
+    // Edge length (in blocks) of the grid cells distant turtles are merged by
+    private static double lodClusterSize = 8.0;
+
+    // Collect per-phase latency histograms and Flight Recorder events (off costs one field read per phase)
+    private static boolean instrumentation = false;
+
+    // Remember where turtles were last seen, per world and dimension, across sessions
+    private static boolean sightingHistory = true;
+
+    // A turtle that stays put is written to the sighting log at most once per this many ticks
+    private static int sightingLogIntervalTicks = 600;
+
+    // Turtles that left range are kept at their last known position; the cache never holds more than this
+    private static int lastKnownCacheSize = 1024;
+
+    // Drop a last known position after this many seconds without seeing the turtle again
+    private static int ghostMaxAgeSeconds = 300;
+
+    // Draw dimmed markers at the last known positions of turtles that left range
+    private static boolean ghostMarkers = true;
+
+    // Index turtle egg nests in loaded chunks and mark the ones within the search radius
+    private static boolean nestTracking = true;
+
+    // Entity types tracked besides turtles, as comma-separated registry ids (e.g. minecraft:frog,minecraft:axolotl)
+    // Each one reads type.<namespace>.<path>.color / searchRadius / lodFullDistance / lodPointDistance
+    private static String extraTrackedTypes = "";
+    private static List<TrackedTypeSettings> trackedTypes = List.of();
+
+    // Lower tracker quality step by step while the game runs below targetFps, and raise it again with headroom
+    private static boolean qualityGovernor = true;
+    private static int targetFps = 60;
+
+    // Show a top-down map of turtle density around the player, and the map's cell size in blocks
+    private static boolean heatmap = false;
+    private static double heatmapCellSize = 4.0;
+
+    // Blocks a turtle must move from where it was last reported before listeners get a moved event
+    private static double eventMoveThreshold = 1.0;
+
+    // Server: run the sync companion and send turtle positions to clients that subscribe
+    private static boolean serverCompanion = false;
+
+    // Server: ticks between sync frames, and the average bytes per second each subscriber may use
+    private static int syncIntervalTicks = 5;
+    private static int syncBytesPerSecond = 16384;
+
+    // Client: subscribe to the server companion when it is present and draw the turtles it reports
+    private static boolean serverSync = true;
+
+    private TurtleTrackerConfig() {
+    }
+
+    /**
+     * Load the config file, creating it with defaults if it does not exist yet
+     */
+    public static void load() {
+        Path path = FabricLoader.getInstance().getConfigDir().resolve(FILE_NAME);
+        Properties properties = new Properties();
+
+        if (Files.exists(path)) {
+            try (Reader reader = Files.newBufferedReader(path)) {
+                properties.load(reader);
+            } catch (IOException e) {
+                TurtleTrackerMod.LOGGER.warn("Could not read {}, using defaults: {}", path, e.getMessage());
+            }
+        }
+
+        raycastBudgetPerTick = getInt(properties, "raycastBudgetPerTick", raycastBudgetPerTick, 1);
+        visibilityTtlTicks = getInt(properties, "visibilityTtlTicks", visibilityTtlTicks, 1);
+        visibilityMoveThreshold = getDouble(properties, "visibilityMoveThreshold", visibilityMoveThreshold, 0.0);
+        asyncVisibility = getBoolean(properties, "asyncVisibility", asyncVisibility);
+        visibilityWorkerThreads = getInt(properties, "visibilityWorkerThreads", visibilityWorkerThreads, 1);
+        visibilityBackend = getChoice(properties, "visibilityBackend", visibilityBackend, "clip", "voxel");
+        frustumCulling = getBoolean(properties, "frustumCulling", frustumCulling);
+        sectionCulling = getBoolean(properties, "sectionCulling", sectionCulling);
+        adaptiveScan = getBoolean(properties, "adaptiveScan", adaptiveScan);
+        scanIdleIntervalTicks = getInt(properties, "scanIdleIntervalTicks", scanIdleIntervalTicks, 1);
+        scanMaxStaleTicks = getInt(properties, "scanMaxStaleTicks", scanMaxStaleTicks, 1);
+        searchRadius = getDouble(properties, "searchRadius", searchRadius, 1.0);
+        searchShape = getChoice(properties, "searchShape", searchShape, "sphere", "cylinder");
+        searchHalfHeight = getDouble(properties, "searchHalfHeight", searchHalfHeight, 1.0);
+        maxRenderedTurtles = getInt(properties, "maxRenderedTurtles", maxRenderedTurtles, 0);
+        hudDetailed = getBoolean(properties, "hudDetailed", hudDetailed);
+        lodFullDistance = getDouble(properties, "lodFullDistance", lodFullDistance, 0.0);
+        lodPointDistance = Math.max(lodFullDistance, getDouble(properties, "lodPointDistance", lodPointDistance, 0.0));
+        lodClusterSize = getDouble(properties, "lodClusterSize", lodClusterSize, 1.0);
+        instrumentation = getBoolean(properties, "instrumentation", instrumentation);
+        sightingHistory = getBoolean(properties, "sightingHistory", sightingHistory);
+        sightingLogIntervalTicks = getInt(properties, "sightingLogIntervalTicks", sightingLogIntervalTicks, 1);
+        lastKnownCacheSize = getInt(properties, "lastKnownCacheSize", lastKnownCacheSize, 1);
+        ghostMaxAgeSeconds = getInt(properties, "ghostMaxAgeSeconds", ghostMaxAgeSeconds, 0);
+        ghostMarkers = getBoolean(properties, "ghostMarkers", ghostMarkers);
+        nestTracking = getBoolean(properties, "nestTracking", nestTracking);
+        extraTrackedTypes = properties.getProperty("extraTrackedTypes", extraTrackedTypes).trim();
+        trackedTypes = loadTrackedTypes(properties);
+        qualityGovernor = getBoolean(properties, "qualityGovernor", qualityGovernor);
+        targetFps = getInt(properties, "targetFps", targetFps, 10);
+        heatmap = getBoolean(properties, "heatmap", heatmap);
+        heatmapCellSize = getDouble(properties, "heatmapCellSize", heatmapCellSize, 1.0);
+        eventMoveThreshold = getDouble(properties, "eventMoveThreshold", eventMoveThreshold, 0.0);
+        serverCompanion = getBoolean(properties, "serverCompanion", serverCompanion);
+        syncIntervalTicks = getInt(properties, "syncIntervalTicks", syncIntervalTicks, 1);
+        syncBytesPerSecond = getInt(properties, "syncBytesPerSecond", syncBytesPerSecond, 256);
+        serverSync = getBoolean(properties, "serverSync", serverSync);
+
+        save(path);
+    }
+
+    /**
+     * Write the current values back so new options show up in existing files
+     */
+    private static void save(Path path) {
+        Properties properties = new Properties();
+        properties.setProperty("raycastBudgetPerTick", Integer.toString(raycastBudgetPerTick));
+        properties.setProperty("visibilityTtlTicks", Integer.toString(visibilityTtlTicks));
+        properties.setProperty("visibilityMoveThreshold", Double.toString(visibilityMoveThreshold));
+        properties.setProperty("asyncVisibility", Boolean.toString(asyncVisibility));
+        properties.setProperty("visibilityWorkerThreads", Integer.toString(visibilityWorkerThreads));
+        properties.setProperty("visibilityBackend", visibilityBackend);
+        properties.setProperty("frustumCulling", Boolean.toString(frustumCulling));
+        properties.setProperty("sectionCulling", Boolean.toString(sectionCulling));
+        properties.setProperty("adaptiveScan", Boolean.toString(adaptiveScan));
+        properties.setProperty("scanIdleIntervalTicks", Integer.toString(scanIdleIntervalTicks));
+        properties.setProperty("scanMaxStaleTicks", Integer.toString(scanMaxStaleTicks));
+        properties.setProperty("searchRadius", Double.toString(searchRadius));
+        properties.setProperty("searchShape", searchShape);
+        properties.setProperty("searchHalfHeight", Double.toString(searchHalfHeight));
+        properties.setProperty("maxRenderedTurtles", Integer.toString(maxRenderedTurtles));
+        properties.setProperty("hudDetailed", Boolean.toString(hudDetailed));
+        properties.setProperty("lodFullDistance", Double.toString(lodFullDistance));
+        properties.setProperty("lodPointDistance", Double.toString(lodPointDistance));
+        properties.setProperty("lodClusterSize", Double.toString(lodClusterSize));
+        properties.setProperty("instrumentation", Boolean.toString(instrumentation));
+        properties.setProperty("sightingHistory", Boolean.toString(sightingHistory));
+        properties.setProperty("sightingLogIntervalTicks", Integer.toString(sightingLogIntervalTicks));
+        properties.setProperty("lastKnownCacheSize", Integer.toString(lastKnownCacheSize));
+        properties.setProperty("ghostMaxAgeSeconds", Integer.toString(ghostMaxAgeSeconds));
+        properties.setProperty("ghostMarkers", Boolean.toString(ghostMarkers));
+        properties.setProperty("nestTracking", Boolean.toString(nestTracking));
+        properties.setProperty("extraTrackedTypes", extraTrackedTypes);
+        for (TrackedTypeSettings type : trackedTypes) {
+            String prefix = typeKeyPrefix(type.entityType());
+            properties.setProperty(prefix + "color", String.format("%06X", type.color()));
+            properties.setProperty(prefix + "searchRadius", Double.toString(type.searchRadius()));
+            properties.setProperty(prefix + "lodFullDistance", Double.toString(type.lodFullDistance()));
+            properties.setProperty(prefix + "lodPointDistance", Double.toString(type.lodPointDistance()));
+        }
+        properties.setProperty("qualityGovernor", Boolean.toString(qualityGovernor));
+        properties.setProperty("targetFps", Integer.toString(targetFps));
+        properties.setProperty("heatmap", Boolean.toString(heatmap));
+        properties.setProperty("heatmapCellSize", Double.toString(heatmapCellSize));
+        properties.setProperty("eventMoveThreshold", Double.toString(eventMoveThreshold));
+        properties.setProperty("serverCompanion", Boolean.toString(serverCompanion));
+        properties.setProperty("syncIntervalTicks", Integer.toString(syncIntervalTicks));
+        properties.setProperty("syncBytesPerSecond", Integer.toString(syncBytesPerSecond));
+        properties.setProperty("serverSync", Boolean.toString(serverSync));
+
+        try {
+            Files.createDirectories(path.getParent());
+            try (Writer writer = Files.newBufferedWriter(path)) {
+                properties.store(writer, "Turtle Tracker configuration");
+            }
+        } catch (IOException e) {
+            TurtleTrackerMod.LOGGER.warn("Could not write {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Parse extraTrackedTypes and each type's options; per-type values default to the turtle ones
+     */
+    private static List<TrackedTypeSettings> loadTrackedTypes(Properties properties) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (String entry : extraTrackedTypes.split(",")) {
+            String id = entry.trim().toLowerCase(Locale.ROOT);
+            if (id.isEmpty()) {
+                continue;
+            }
+            if (id.indexOf(':') < 0) {
+                id = "minecraft:" + id;
+            }
+            // Turtles are always tracked through the main options
+            if (!id.equals("minecraft:turtle")) {
+                ids.add(id);
+            }
+        }
+
+        List<TrackedTypeSettings> types = new ArrayList<>();
+        for (String id : ids) {
+            String prefix = typeKeyPrefix(id);
+            int defaultColor = DEFAULT_TYPE_COLORS[types.size() % DEFAULT_TYPE_COLORS.length];
+            int color = getColor(properties, prefix + "color", defaultColor);
+            double radius = getDouble(properties, prefix + "searchRadius", searchRadius, 1.0);
+            double fullDistance = getDouble(properties, prefix + "lodFullDistance", lodFullDistance, 0.0);
+            double pointDistance = Math.max(fullDistance,
+                getDouble(properties, prefix + "lodPointDistance", lodPointDistance, 0.0));
+            types.add(new TrackedTypeSettings(id, color, radius, fullDistance, pointDistance));
+        }
+        return List.copyOf(types);
+    }
+
+    // minecraft:frog -> type.minecraft.frog.
+    private static String typeKeyPrefix(String entityType) {
+        return "type." + entityType.replace(':', '.') + ".";
+    }
+
+    private static int getColor(Properties properties, String key, int fallback) {
+        String value = properties.getProperty(key, String.format("%06X", fallback)).trim();
+        if (value.startsWith("#")) {
+            value = value.substring(1);
+        }
+        try {
+            return Integer.parseInt(value, 16) & 0xFFFFFF;
+        } catch (NumberFormatException e) {
+            TurtleTrackerMod.LOGGER.warn("Invalid value for {}, using {}", key, String.format("%06X", fallback));
+            return fallback;
+        }
+    }
+
+    private static int getInt(Properties properties, String key, int fallback, int min) {
+        try {
+            return Math.max(min, Integer.parseInt(properties.getProperty(key, Integer.toString(fallback)).trim()));
+        } catch (NumberFormatException e) {
+            TurtleTrackerMod.LOGGER.warn("Invalid value for {}, using {}", key, fallback);
+            return fallback;
+        }
+    }
+
+    private static double getDouble(Properties properties, String key, double fallback, double min) {
+        try {
+            return Math.max(min, Double.parseDouble(properties.getProperty(key, Double.toString(fallback)).trim()));
+        } catch (NumberFormatException e) {
+            TurtleTrackerMod.LOGGER.warn("Invalid value for {}, using {}", key, fallback);
+            return fallback;
+        }
+    }
+
+    private static boolean getBoolean(Properties properties, String key, boolean fallback) {
+        return Boolean.parseBoolean(properties.getProperty(key, Boolean.toString(fallback)).trim());
+    }
+
+    private static String getChoice(Properties properties, String key, String fallback, String... choices) {
+        String value = properties.getProperty(key, fallback).trim().toLowerCase(Locale.ROOT);
+        for (String choice : choices) {
+            if (choice.equals(value)) {
+                return choice;
+            }
+        }
+        TurtleTrackerMod.LOGGER.warn("Invalid value for {}, using {}", key, fallback);
+        return fallback;
+    }
+
+    public static int getRaycastBudgetPerTick() {
+        return raycastBudgetPerTick;
+    }
+
+    public static int getVisibilityTtlTicks() {
+        return visibilityTtlTicks;
+    }
+
+    public static double getVisibilityMoveThreshold() {
+        return visibilityMoveThreshold;
+    }
+
+    public static boolean isAsyncVisibility() {
+        return asyncVisibility;
+    }
+
+    public static int getVisibilityWorkerThreads() {
+        return visibilityWorkerThreads;
+    }
+
+    public static boolean isVoxelVisibilityBackend() {
+        return visibilityBackend.equals("voxel");
+    }
+
+    public static boolean isFrustumCulling() {
+        return frustumCulling;
+    }
+
+    public static boolean isSectionCulling() {
+        return sectionCulling;
+    }
+
+    public static boolean isAdaptiveScan() {
+        return adaptiveScan;
+    }
+
+    public static int getScanIdleIntervalTicks() {
+        return scanIdleIntervalTicks;
+    }
+
+    public static int getScanMaxStaleTicks() {
+        return scanMaxStaleTicks;
+    }
+
+    public static double getSearchRadius() {
+        return searchRadius;
+    }
+
+    public static boolean isCylinderSearch() {
+        return searchShape.equals("cylinder");
+    }
+
+    public static double getSearchHalfHeight() {
+        return searchHalfHeight;
+    }
+
+    public static int getMaxRenderedTurtles() {
+        return maxRenderedTurtles;
+    }
+
+    public static boolean isHudDetailed() {
+        return hudDetailed;
+    }
+
+    public static double getLodFullDistance() {
+        return lodFullDistance;
+    }
+
+    public static double getLodPointDistance() {
+        return lodPointDistance;
+    }
+
+    public static double getLodClusterSize() {
+        return lodClusterSize;
+    }
+
+    public static boolean isInstrumentation() {
+        return instrumentation;
+    }
+
+    public static boolean isSightingHistory() {
+        return sightingHistory;
+    }
+
+    public static int getSightingLogIntervalTicks() {
+        return sightingLogIntervalTicks;
+    }
+
+    public static int getLastKnownCacheSize() {
+        return lastKnownCacheSize;
+    }
+
+    public static int getGhostMaxAgeSeconds() {
+        return ghostMaxAgeSeconds;
+    }
+
+    public static boolean isGhostMarkers() {
+        return ghostMarkers;
+    }
+
+    public static boolean isNestTracking() {
+        return nestTracking;
+    }
+
+    /**
+     * @return Entity types tracked besides turtles, in configured order
+     */
+    public static List<TrackedTypeSettings> getTrackedTypes() {
+        return trackedTypes;
+    }
+
+    public static boolean isQualityGovernor() {
+        return qualityGovernor;
+    }
+
+    public static int getTargetFps() {
+        return targetFps;
+    }
+
+    public static boolean isHeatmap() {
+        return heatmap;
+    }
+
+    public static double getHeatmapCellSize() {
+        return heatmapCellSize;
+    }
+
+    public static double getEventMoveThreshold() {
+        return eventMoveThreshold;
+    }
+
+    public static boolean isServerCompanion() {
+        return serverCompanion;
+    }
+
+    public static int getSyncIntervalTicks() {
+        return syncIntervalTicks;
+    }
+
+    public static int getSyncBytesPerSecond() {
+        return syncBytesPerSecond;
+    }
+
+    public static boolean isServerSync() {
+        return serverSync;
+    }
+}
@@ -0,0 +1,281 @@
+package com.turtletracker.core;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Off-thread line-of-sight pipeline
+ *
+ * On the ticking thread we only capture the eye and target positions of the entities
+ * that passed the core's filter, plus an {@link OcclusionOracle} that is safe to use
+ * off-thread (in game an immutable copy of the sections the sight lines cross), then
+ * hand the job to a small worker pool. Results are written into a back buffer that
+ * nobody else reads; once the job is done the next tick swaps it with the front buffer.
+ * Readers always see a complete front buffer because the swap is a single reference
+ * assignment made on the ticking thread, after the workers have finished, and the old
+ * front buffer is only written again once it has been swapped out.
+ *
+ * A buffer returned by {@link #getPublished()} stays valid until the next {@link #tick};
+ * read it from the ticking thread.
+ */
+public class AsyncVisibilityPipeline {
+
+    // Don't split a job into slices smaller than this many rays
+    private static final int MIN_RAYS_PER_SLICE = 64;
+
+    private final OracleCapture oracleCapture;
+    private final ExecutorService workers;
+    private final int parallelism;
+
+    // Published results read by the tracker and renderer; swapped, never written in place while published
+    private volatile VisibilityBuffer front = new VisibilityBuffer();
+
+    // Buffer owned by the in-flight job (or the next job to be captured)
+    private VisibilityBuffer back = new VisibilityBuffer();
+
+    // Job currently running on the workers, or null when idle
+    private CompletableFuture<Void> inFlight;
+
+    // Statistics
+    private long publishedGeneration = 0;
+    private int skippedTicks = 0;
+    private int failedJobs = 0;
+
+    /**
+     * Builds the line-of-sight test one job runs against (ticking thread)
+     */
+    @FunctionalInterface
+    public interface OracleCapture {
+        /**
+         * @return An oracle the workers may call concurrently for the given sight lines
+         */
+        OcclusionOracle capture(double eyeX, double eyeY, double eyeZ,
+                                double[] targetX, double[] targetY, double[] targetZ, int count);
+    }
+
+    /**
+     * @param threads Number of worker threads
+     * @param oracleCapture Captures each job's occlusion data on the ticking thread
+     */
+    public AsyncVisibilityPipeline(int threads, OracleCapture oracleCapture) {
+        this.oracleCapture = oracleCapture;
+        this.parallelism = Math.max(1, threads);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "Turtle Tracker Visibility #" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Ticking-thread step: publish a finished job, then capture and submit the next one
+     * The job covers the entities that passed the core's last {@link TrackerCore#filter}
+     *
+     * @param core The core that just filtered this tick's entities
+     * @param entities The view the core filtered
+     * @param eyeX Observer eye X
+     * @param eyeY Observer eye Y
+     * @param eyeZ Observer eye Z
+     */
+    public void tick(TrackerCore core, EntityPositions entities, double eyeX, double eyeY, double eyeZ) {
+        if (inFlight != null) {
+            if (!inFlight.isDone()) {
+                // Workers are still busy - keep showing the last published results
+                skippedTicks++;
+                return;
+            }
+            if (inFlight.isCompletedExceptionally()) {
+                // Discard the failed job's results; the caller can report getFailedJobs()
+                failedJobs++;
+            } else {
+                publish();
+            }
+            inFlight = null;
+        }
+
+        VisibilityBuffer job = back;
+        job.capture(core, entities, eyeX, eyeY, eyeZ, ++publishedGeneration);
+        job.oracle = oracleCapture.capture(eyeX, eyeY, eyeZ,
+            job.targetX, job.targetY, job.targetZ, job.count);
+
+        inFlight = submit(job);
+    }
+
+    /**
+     * Pointer swap: the finished back buffer becomes the published front buffer
+     */
+    private void publish() {
+        VisibilityBuffer finished = back;
+        back = front;
+        front = finished;
+    }
+
+    /**
+     * Split the job into slices across the worker pool and index the results once all are done
+     */
+    private CompletableFuture<Void> submit(VisibilityBuffer job) {
+        int slices = Math.max(1, Math.min(parallelism, (job.count + MIN_RAYS_PER_SLICE - 1) / MIN_RAYS_PER_SLICE));
+        int perSlice = (job.count + slices - 1) / slices;
+
+        CompletableFuture<?>[] parts = new CompletableFuture<?>[slices];
+        for (int s = 0; s < slices; s++) {
+            int from = s * perSlice;
+            int to = Math.min(job.count, from + perSlice);
+            parts[s] = CompletableFuture.runAsync(() -> job.computeRange(from, to), workers);
+        }
+        return CompletableFuture.allOf(parts).thenRun(job::indexResults);
+    }
+
+    /**
+     * @param entityId The entity's id
+     * @return The published visibility for that entity (false if it was not part of the last job)
+     */
+    public boolean isVisible(int entityId) {
+        return front.isVisible(entityId);
+    }
+
+    /**
+     * @return The currently published result buffer
+     */
+    public VisibilityBuffer getPublished() {
+        return front;
+    }
+
+    /**
+     * @return Ticks on which no new job was started because the previous one was still running
+     */
+    public int getSkippedTicks() {
+        return skippedTicks;
+    }
+
+    /**
+     * @return Jobs whose results were discarded because a worker threw
+     */
+    public int getFailedJobs() {
+        return failedJobs;
+    }
+
+    /**
+     * Drop published results (used on world change)
+     * An in-flight job is left to finish but its results are discarded
+     */
+    public void clear() {
+        if (inFlight != null) {
+            inFlight.cancel(false);
+            inFlight = null;
+        }
+        front = new VisibilityBuffer();
+        back = new VisibilityBuffer();
+    }
+
+    /**
+     * Stop the worker threads
+     */
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * One side of the double buffer: job inputs captured on the ticking thread and results written by the workers
+     */
+    public static final class VisibilityBuffer {
+        private int[] ids = new int[0];
+        private double[] targetX = new double[0];
+        private double[] targetY = new double[0];
+        private double[] targetZ = new double[0];
+        private boolean[] visible = new boolean[0];
+        private final Int2IntOpenHashMap slotById = new Int2IntOpenHashMap();
+        private int count;
+        private long generation;
+        private double eyeX;
+        private double eyeY;
+        private double eyeZ;
+        private OcclusionOracle oracle;
+
+        private VisibilityBuffer() {
+            slotById.defaultReturnValue(-1);
+        }
+
+        /**
+         * Copy the positions the job needs (ticking thread only)
+         */
+        private void capture(TrackerCore core, EntityPositions entities, double eyeX, double eyeY, double eyeZ,
+                             long generation) {
+            this.eyeX = eyeX;
+            this.eyeY = eyeY;
+            this.eyeZ = eyeZ;
+            this.generation = generation;
+            this.count = core.inViewCount();
+            ensureCapacity(count);
+
+            for (int i = 0; i < count; i++) {
+                int index = core.inView(i);
+                ids[i] = entities.id(index);
+                targetX[i] = entities.x(index);
+                targetY[i] = entities.y(index) + entities.eyeHeight(index);
+                targetZ[i] = entities.z(index);
+            }
+        }
+
+        /**
+         * Run the occlusion test for a slice of the captured entities (worker threads)
+         */
+        private void computeRange(int from, int to) {
+            for (int i = from; i < to; i++) {
+                visible[i] = oracle.isLineClear(eyeX, eyeY, eyeZ, targetX[i], targetY[i], targetZ[i]);
+            }
+        }
+
+        /**
+         * Build the id lookup once every slice has finished (worker thread)
+         */
+        private void indexResults() {
+            slotById.clear();
+            for (int i = 0; i < count; i++) {
+                slotById.put(ids[i], i);
+            }
+            // The captured occlusion data is not needed after the job; let it be collected
+            oracle = null;
+        }
+
+        private void ensureCapacity(int size) {
+            if (ids.length >= size) {
+                return;
+            }
+            int newSize = Math.max(size, ids.length * 2);
+            ids = Arrays.copyOf(ids, newSize);
+            targetX = Arrays.copyOf(targetX, newSize);
+            targetY = Arrays.copyOf(targetY, newSize);
+            targetZ = Arrays.copyOf(targetZ, newSize);
+            visible = Arrays.copyOf(visible, newSize);
+        }
+
+        /**
+         * @return The published visibility for that entity (false if it was not part of this job)
+         */
+        public boolean isVisible(int entityId) {
+            int slot = slotById.get(entityId);
+            return slot >= 0 && visible[slot];
+        }
+
+        /**
+         * @return Number of entities the job covered
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * @return Monotonic job number, useful to detect a new publication
+         */
+        public long getGeneration() {
+            return generation;
+        }
+    }
+}
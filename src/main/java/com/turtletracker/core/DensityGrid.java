@@ -0,0 +1,287 @@
+package com.turtletracker.core;
+
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Top-down entity counts per grid cell, with a square window around the observer kept
+ * ready for a heatmap texture
+ *
+ * Counts are kept incrementally: each entity remembers its cell, and only entities that
+ * crossed into another cell touch the counts. The window is addressed as a ring (a world
+ * cell always maps to the same window cell, modulo the window size), so following the
+ * observer only refills the rows and columns that scrolled into view; everything else
+ * stays where it is. Changed window cells are queued until {@link #drainDirty} hands them
+ * to the consumer, which then only has to repaint those.
+ *
+ * Single-threaded.
+ */
+public class DensityGrid {
+
+    // Marks an entity with no cell yet
+    private static final long NO_CELL = Long.MIN_VALUE;
+
+    /**
+     * Receives changed window cells
+     */
+    @FunctionalInterface
+    public interface CellConsumer {
+        /**
+         * @param ringX Window column (world cell X modulo the window size)
+         * @param ringZ Window row (world cell Z modulo the window size)
+         * @param count Entities in the cell
+         */
+        void accept(int ringX, int ringZ, int count);
+    }
+
+    private final int size;
+    private final double cellSize;
+
+    // Non-empty world cells -> entity count
+    private final Long2IntOpenHashMap countByCell = new Long2IntOpenHashMap();
+
+    // Entity id -> world cell it is counted in
+    private final Int2LongOpenHashMap cellById = new Int2LongOpenHashMap();
+
+    // Window counts by ring index (ringZ * size + ringX)
+    private final int[] window;
+
+    // World cell at the window's minimum corner
+    private int originX;
+    private int originZ;
+    private boolean hasOrigin = false;
+
+    // Window cells changed since the last drain
+    private final int[] dirtyCells;
+    private final boolean[] dirty;
+    private int dirtyCount = 0;
+
+    /**
+     * @param size Window edge length in cells
+     * @param cellSize Cell edge length in blocks
+     */
+    public DensityGrid(int size, double cellSize) {
+        this.size = Math.max(1, size);
+        this.cellSize = cellSize;
+        window = new int[this.size * this.size];
+        dirtyCells = new int[window.length];
+        dirty = new boolean[window.length];
+        cellById.defaultReturnValue(NO_CELL);
+    }
+
+    /**
+     * Count every entity in a view at its current position; only cell changes cost anything
+     */
+    public void update(EntityPositions entities) {
+        for (int i = 0; i < entities.size(); i++) {
+            move(entities.id(i), entities.x(i), entities.z(i));
+        }
+    }
+
+    /**
+     * Count an entity at a position, moving it out of its previous cell if needed
+     */
+    public void move(int entityId, double x, double z) {
+        int cellX = (int) Math.floor(x / cellSize);
+        int cellZ = (int) Math.floor(z / cellSize);
+        long cell = cellKey(cellX, cellZ);
+        long previous = cellById.put(entityId, cell);
+        if (previous == cell) {
+            return;
+        }
+        if (previous != NO_CELL) {
+            addToCell(previous, -1);
+        }
+        addToCell(cell, 1);
+    }
+
+    /**
+     * Stop counting an entity
+     */
+    public void remove(int entityId) {
+        long previous = cellById.remove(entityId);
+        if (previous != NO_CELL) {
+            addToCell(previous, -1);
+        }
+    }
+
+    /**
+     * Forget every entity; the whole window is repainted empty
+     */
+    public void clear() {
+        countByCell.clear();
+        cellById.clear();
+        hasOrigin = false;
+        Arrays.fill(window, 0);
+        markAllDirty();
+    }
+
+    /**
+     * Keep the window centred on the observer, refilling only the cells that scrolled into view
+     */
+    public void recenter(double x, double z) {
+        int newOriginX = (int) Math.floor(x / cellSize) - size / 2;
+        int newOriginZ = (int) Math.floor(z / cellSize) - size / 2;
+        if (hasOrigin && newOriginX == originX && newOriginZ == originZ) {
+            return;
+        }
+
+        int dx = newOriginX - originX;
+        int dz = newOriginZ - originZ;
+        if (!hasOrigin || Math.abs(dx) >= size || Math.abs(dz) >= size) {
+            // Teleport or first use: nothing of the old window survives
+            originX = newOriginX;
+            originZ = newOriginZ;
+            hasOrigin = true;
+            for (int rz = 0; rz < size; rz++) {
+                for (int rx = 0; rx < size; rx++) {
+                    refill(originX + rx, originZ + rz);
+                }
+            }
+            return;
+        }
+
+        // Columns entering on the side we moved towards, over the old rows
+        int fromX = dx > 0 ? originX + size : newOriginX;
+        for (int cellX = fromX; cellX < fromX + Math.abs(dx); cellX++) {
+            for (int cellZ = originZ; cellZ < originZ + size; cellZ++) {
+                refill(cellX, cellZ);
+            }
+        }
+        originX = newOriginX;
+
+        // Then rows entering, over the new columns
+        int fromZ = dz > 0 ? originZ + size : newOriginZ;
+        for (int cellZ = fromZ; cellZ < fromZ + Math.abs(dz); cellZ++) {
+            for (int cellX = originX; cellX < originX + size; cellX++) {
+                refill(cellX, cellZ);
+            }
+        }
+        originZ = newOriginZ;
+    }
+
+    /**
+     * Hand every window cell changed since the last call to a consumer and forget them
+     *
+     * @return Number of cells passed on
+     */
+    public int drainDirty(CellConsumer consumer) {
+        int drained = dirtyCount;
+        for (int i = 0; i < dirtyCount; i++) {
+            int ring = dirtyCells[i];
+            dirty[ring] = false;
+            consumer.accept(ring % size, ring / size, window[ring]);
+        }
+        dirtyCount = 0;
+        return drained;
+    }
+
+    private void addToCell(long cell, int delta) {
+        int count = countByCell.addTo(cell, delta) + delta;
+        if (count <= 0) {
+            countByCell.remove(cell);
+        }
+        int cellX = (int) (cell >> 32);
+        int cellZ = (int) cell;
+        if (hasOrigin && cellX - originX >= 0 && cellX - originX < size
+                && cellZ - originZ >= 0 && cellZ - originZ < size) {
+            setWindow(ringIndex(cellX, cellZ), Math.max(0, count));
+        }
+    }
+
+    private void refill(int cellX, int cellZ) {
+        int ring = ringIndex(cellX, cellZ);
+        int count = countByCell.get(cellKey(cellX, cellZ));
+        // A scrolled-in cell may still hold the count of the one that scrolled out
+        if (window[ring] != count) {
+            setWindow(ring, count);
+        }
+    }
+
+    private void setWindow(int ring, int count) {
+        window[ring] = count;
+        if (!dirty[ring]) {
+            dirty[ring] = true;
+            dirtyCells[dirtyCount++] = ring;
+        }
+    }
+
+    private void markAllDirty() {
+        for (int ring = 0; ring < window.length; ring++) {
+            if (!dirty[ring]) {
+                dirty[ring] = true;
+                dirtyCells[dirtyCount++] = ring;
+            }
+        }
+    }
+
+    private int ringIndex(int cellX, int cellZ) {
+        return Math.floorMod(cellZ, size) * size + Math.floorMod(cellX, size);
+    }
+
+    private static long cellKey(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return Window edge length in cells
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Cell edge length in blocks
+     */
+    public double cellSize() {
+        return cellSize;
+    }
+
+    /**
+     * @return Window column of the window's minimum corner (where the texture wraps)
+     */
+    public int originRingX() {
+        return Math.floorMod(originX, size);
+    }
+
+    /**
+     * @return Window row of the window's minimum corner
+     */
+    public int originRingZ() {
+        return Math.floorMod(originZ, size);
+    }
+
+    /**
+     * @return World cell X at the window's minimum corner
+     */
+    public int originX() {
+        return originX;
+    }
+
+    public int originZ() {
+        return originZ;
+    }
+
+    /**
+     * @return Entities counted in a world cell
+     */
+    public int count(int cellX, int cellZ) {
+        return countByCell.get(cellKey(cellX, cellZ));
+    }
+
+    /**
+     * @return Entities currently counted
+     */
+    public int trackedCount() {
+        return cellById.size();
+    }
+
+    /**
+     * @return Whether any window cell changed since the last drain
+     */
+    public boolean hasDirty() {
+        return dirtyCount > 0;
+    }
+}
@@ -0,0 +1,48 @@
+package com.turtletracker.core;
+
+/**
+ * Index-addressed, read-only view of the entities a {@link TrackerCore} tracks
+ *
+ * Indices only need to stay stable for the duration of one scan; ids must stay stable
+ * for the lifetime of an entity. Implementations should answer every call without
+ * allocating, since the core reads them in its per-tick loops.
+ */
+public interface EntityPositions {
+
+    /**
+     * @return Number of entities in the view
+     */
+    int size();
+
+    /**
+     * @return Entity id of the entity at an index
+     */
+    int id(int index);
+
+    /**
+     * @param entityId An entity id
+     * @return The entity's index, or -1 when it is unknown or no longer present
+     */
+    int indexOf(int entityId);
+
+    double x(int index);
+
+    double y(int index);
+
+    double z(int index);
+
+    /**
+     * @return Bounding box width (the box is centred on x and z)
+     */
+    float width(int index);
+
+    /**
+     * @return Bounding box height (the box starts at y)
+     */
+    float height(int index);
+
+    /**
+     * @return Eye height above y; line-of-sight tests aim at this point
+     */
+    float eyeHeight(int index);
+}
@@ -0,0 +1,44 @@
+package com.turtletracker.core;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed lookup from an entity type's raw registry id to the tracked type it belongs to
+ *
+ * Built once from the configured type list; classifying an entity is then a single array
+ * read however many types are tracked, instead of one class check per type.
+ */
+public final class EntityTypeTable {
+
+    // Returned for entity types nothing tracks
+    public static final int UNTRACKED = -1;
+
+    // Raw type id -> tracked type index, or UNTRACKED
+    private final int[] trackedByRawId;
+
+    /**
+     * @param rawIdCount Number of entity types in the registry (raw ids are 0 to rawIdCount - 1)
+     */
+    public EntityTypeTable(int rawIdCount) {
+        trackedByRawId = new int[rawIdCount];
+        Arrays.fill(trackedByRawId, UNTRACKED);
+    }
+
+    /**
+     * Map an entity type to a tracked type
+     *
+     * @param rawId The entity type's raw registry id
+     * @param trackedType Index of the tracked type
+     */
+    public void set(int rawId, int trackedType) {
+        trackedByRawId[rawId] = trackedType;
+    }
+
+    /**
+     * @param rawId An entity type's raw registry id
+     * @return Index of the tracked type, or {@link #UNTRACKED}
+     */
+    public int classify(int rawId) {
+        return rawId >= 0 && rawId < trackedByRawId.length ? trackedByRawId[rawId] : UNTRACKED;
+    }
+}
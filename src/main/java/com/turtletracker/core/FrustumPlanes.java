@@ -0,0 +1,106 @@
+package com.turtletracker.core;
+
+/**
+ * View frustum built from a combined projection * view matrix
+ *
+ * The six clip planes are extracted from the matrix (Gribb-Hartmann) and boxes are
+ * tested relative to the camera position with their most positive corner per plane,
+ * grown by a small margin. Since only the matrix and camera position define the test,
+ * a recorded frustum gives the same answers when it is rebuilt later.
+ *
+ * Until a matrix has been set (or after a reset) every box counts as in view.
+ */
+public final class FrustumPlanes implements ViewFilter {
+
+    // Extra room around each box so entities at the screen edge don't flicker while the camera turns
+    private static final float MARGIN = 1.0f;
+
+    // Column-major projection * view matrix and the planes (a, b, c, d per plane) derived from it
+    private final float[] matrix = new float[16];
+    private final float[] planes = new float[24];
+
+    // Camera position the matrix is relative to
+    private double cameraX;
+    private double cameraY;
+    private double cameraZ;
+
+    private boolean set = false;
+
+    /**
+     * @param viewProjection Column-major projection * view matrix without camera translation
+     * @param cameraX Camera X in world coordinates
+     * @param cameraY Camera Y in world coordinates
+     * @param cameraZ Camera Z in world coordinates
+     */
+    public void set(float[] viewProjection, double cameraX, double cameraY, double cameraZ) {
+        System.arraycopy(viewProjection, 0, matrix, 0, 16);
+        this.cameraX = cameraX;
+        this.cameraY = cameraY;
+        this.cameraZ = cameraZ;
+
+        // Each plane is the last row plus or minus one of the others
+        for (int axis = 0; axis < 3; axis++) {
+            for (int side = 0; side < 2; side++) {
+                int plane = (axis * 2 + side) * 4;
+                float sign = side == 0 ? 1.0f : -1.0f;
+                for (int column = 0; column < 4; column++) {
+                    planes[plane + column] = matrix[column * 4 + 3] + sign * matrix[column * 4 + axis];
+                }
+            }
+        }
+        set = true;
+    }
+
+    /**
+     * Forget the matrix; everything counts as in view until the next {@link #set}
+     */
+    public void reset() {
+        set = false;
+    }
+
+    @Override
+    public boolean isBoxInView(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        if (!set) {
+            return true;
+        }
+        float x0 = (float) (minX - cameraX) - MARGIN;
+        float y0 = (float) (minY - cameraY) - MARGIN;
+        float z0 = (float) (minZ - cameraZ) - MARGIN;
+        float x1 = (float) (maxX - cameraX) + MARGIN;
+        float y1 = (float) (maxY - cameraY) + MARGIN;
+        float z1 = (float) (maxZ - cameraZ) + MARGIN;
+
+        for (int plane = 0; plane < 24; plane += 4) {
+            float a = planes[plane];
+            float b = planes[plane + 1];
+            float c = planes[plane + 2];
+            if (a * (a < 0 ? x0 : x1) + b * (b < 0 ? y0 : y1) + c * (c < 0 ? z0 : z1) < -planes[plane + 3]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isSet() {
+        return set;
+    }
+
+    /**
+     * @return The live column-major matrix (do not modify)
+     */
+    public float[] getMatrix() {
+        return matrix;
+    }
+
+    public double getCameraX() {
+        return cameraX;
+    }
+
+    public double getCameraY() {
+        return cameraY;
+    }
+
+    public double getCameraZ() {
+        return cameraZ;
+    }
+}
@@ -0,0 +1,373 @@
+package com.turtletracker.core;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Bounded cache of the last known position of every recently tracked turtle, keyed by UUID
+ *
+ * Turtles that are in range are "live"; once a scan no longer reports one (it walked out
+ * of range or its chunk unloaded) it stays here as a ghost at its last position until it
+ * is re-acquired, ages out or is evicted. All storage is allocated up front for a fixed
+ * number of slots, so the cache never grows past its cap. Slots sit in a recency list
+ * ordered by the scan they were last seen in: live entries at the head, then ghosts from
+ * newest to oldest. Age eviction trims the tail and a full cache reuses the tail slot.
+ *
+ * A slot also carries the smoothed tracer end point, so a re-acquired turtle keeps its
+ * slot and glides on from where its marker was instead of starting over. Entity ids
+ * change when a turtle is reloaded; the UUID is what ties the sightings together.
+ */
+public class LastKnownPositions {
+
+    private final int capacity;
+    private final long maxAgeTicks;
+
+    private final Object2IntOpenHashMap<UUID> slotByUuid = new Object2IntOpenHashMap<>();
+
+    // Live entries only: current entity id -> slot
+    private final Int2IntOpenHashMap slotByEntityId = new Int2IntOpenHashMap();
+
+    // Entries as parallel arrays indexed by slot
+    private final UUID[] uuids;
+    private final int[] entityIds;
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+    private final float[] width;
+    private final float[] height;
+    private final long[] lastSeen;
+
+    // Smoothed tracer end points; NaN X means not smoothed yet
+    private final double[] smoothX;
+    private final double[] smoothY;
+    private final double[] smoothZ;
+
+    // Recency list, most recently seen first
+    private final int[] newer;
+    private final int[] older;
+    private int head = -1;
+    private int tail = -1;
+
+    // Slots never used yet are handed out in order; evicted ones go on a free stack
+    private final int[] freeSlots;
+    private int freeCount = 0;
+    private int usedSlots = 0;
+    private int size = 0;
+
+    // Scan bookkeeping: the tick of the current and of the previous scan
+    private long scanTick = Long.MIN_VALUE;
+    private long previousScanTick = Long.MIN_VALUE;
+    private int liveCount = 0;
+    private int firstGhost = -1;
+
+    // Bumped whenever a ghost appears, comes back or is dropped
+    private long ghostVersion = 0;
+
+    /**
+     * @param capacity Hard cap on cached turtles (live and ghost)
+     * @param maxAgeTicks Ghosts not seen for longer than this are dropped
+     */
+    public LastKnownPositions(int capacity, long maxAgeTicks) {
+        this.capacity = Math.max(1, capacity);
+        this.maxAgeTicks = maxAgeTicks;
+        uuids = new UUID[this.capacity];
+        entityIds = new int[this.capacity];
+        x = new double[this.capacity];
+        y = new double[this.capacity];
+        z = new double[this.capacity];
+        width = new float[this.capacity];
+        height = new float[this.capacity];
+        lastSeen = new long[this.capacity];
+        smoothX = new double[this.capacity];
+        smoothY = new double[this.capacity];
+        smoothZ = new double[this.capacity];
+        newer = new int[this.capacity];
+        older = new int[this.capacity];
+        freeSlots = new int[this.capacity];
+        slotByUuid.defaultReturnValue(-1);
+        slotByEntityId.defaultReturnValue(-1);
+    }
+
+    /**
+     * Blend factor for an exponential approach over a frame
+     *
+     * @param frameSeconds Time since the previous frame
+     * @param timeConstantSeconds Time to cover about 63% of the remaining distance
+     * @return Fraction of the remaining distance to cover this frame
+     */
+    public static double blendFactor(double frameSeconds, double timeConstantSeconds) {
+        if (frameSeconds <= 0.0) {
+            return 0.0;
+        }
+        return 1.0 - Math.exp(-frameSeconds / timeConstantSeconds);
+    }
+
+    /**
+     * Start a scan; every turtle still in range must be reported through {@link #sighted} before {@link #endScan}
+     *
+     * @param tick Current tick (must increase from scan to scan)
+     */
+    public void beginScan(long tick) {
+        previousScanTick = scanTick;
+        scanTick = tick;
+        liveCount = 0;
+    }
+
+    /**
+     * Report a turtle in range during the current scan
+     * A known UUID keeps its slot (and smoothing state) even if its entity id changed
+     *
+     * @return The turtle's slot
+     */
+    public int sighted(UUID uuid, int entityId, double posX, double posY, double posZ, float bbWidth, float bbHeight) {
+        int slot = slotByUuid.getInt(uuid);
+        if (slot < 0) {
+            slot = allocate();
+            uuids[slot] = uuid;
+            entityIds[slot] = -1;
+            lastSeen[slot] = Long.MIN_VALUE;
+            smoothX[slot] = Double.NaN;
+            slotByUuid.put(uuid, slot);
+            linkAtHead(slot);
+            size++;
+        } else {
+            if (lastSeen[slot] != previousScanTick && lastSeen[slot] != scanTick) {
+                // A ghost came back
+                ghostVersion++;
+            }
+            unlink(slot);
+            linkAtHead(slot);
+        }
+
+        if (entityIds[slot] != entityId) {
+            if (entityIds[slot] >= 0) {
+                slotByEntityId.remove(entityIds[slot]);
+            }
+            entityIds[slot] = entityId;
+            slotByEntityId.put(entityId, slot);
+        }
+        x[slot] = posX;
+        y[slot] = posY;
+        z[slot] = posZ;
+        width[slot] = bbWidth;
+        height[slot] = bbHeight;
+        if (lastSeen[slot] != scanTick) {
+            lastSeen[slot] = scanTick;
+            liveCount++;
+        }
+        return slot;
+    }
+
+    /**
+     * Finish the scan: turtles that were live last scan but not reported now become ghosts,
+     * and ghosts older than the age limit are dropped
+     */
+    public void endScan() {
+        // Live entries form the head of the list; right behind them are the ones that just left
+        int slot = head;
+        for (int i = 0; i < liveCount; i++) {
+            slot = older[slot];
+        }
+        firstGhost = slot;
+        while (slot >= 0 && lastSeen[slot] == previousScanTick && entityIds[slot] >= 0) {
+            slotByEntityId.remove(entityIds[slot]);
+            entityIds[slot] = -1;
+            ghostVersion++;
+            slot = older[slot];
+        }
+
+        // Live entries are never older than the current scan, so this only ever trims ghosts
+        while (tail >= 0 && scanTick - lastSeen[tail] > maxAgeTicks) {
+            evict(tail);
+        }
+    }
+
+    /**
+     * Forget everything (level change: entity ids and positions no longer apply)
+     */
+    public void clear() {
+        slotByUuid.clear();
+        slotByEntityId.clear();
+        Arrays.fill(uuids, null);
+        head = -1;
+        tail = -1;
+        firstGhost = -1;
+        freeCount = 0;
+        usedSlots = 0;
+        size = 0;
+        liveCount = 0;
+        scanTick = Long.MIN_VALUE;
+        previousScanTick = Long.MIN_VALUE;
+        ghostVersion++;
+    }
+
+    /**
+     * Move a live entry's smoothed point towards a target (a fresh entry starts at the target)
+     *
+     * @param blend Fraction of the remaining distance to cover, from {@link #blendFactor}
+     */
+    public void smooth(int slot, double targetX, double targetY, double targetZ, double blend) {
+        if (Double.isNaN(smoothX[slot])) {
+            smoothX[slot] = targetX;
+            smoothY[slot] = targetY;
+            smoothZ[slot] = targetZ;
+            return;
+        }
+        smoothX[slot] += (targetX - smoothX[slot]) * blend;
+        smoothY[slot] += (targetY - smoothY[slot]) * blend;
+        smoothZ[slot] += (targetZ - smoothZ[slot]) * blend;
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (usedSlots < capacity) {
+            return usedSlots++;
+        }
+        // Full: reuse the least recently seen slot (never a live one unless everything is live)
+        evict(tail);
+        return freeSlots[--freeCount];
+    }
+
+    private void evict(int slot) {
+        unlink(slot);
+        slotByUuid.removeInt(uuids[slot]);
+        if (entityIds[slot] >= 0) {
+            slotByEntityId.remove(entityIds[slot]);
+            if (lastSeen[slot] == scanTick) {
+                liveCount--;
+            }
+        }
+        uuids[slot] = null;
+        freeSlots[freeCount++] = slot;
+        size--;
+        ghostVersion++;
+    }
+
+    private void linkAtHead(int slot) {
+        newer[slot] = -1;
+        older[slot] = head;
+        if (head >= 0) {
+            newer[head] = slot;
+        }
+        head = slot;
+        if (tail < 0) {
+            tail = slot;
+        }
+    }
+
+    private void unlink(int slot) {
+        if (slot == firstGhost) {
+            firstGhost = older[slot];
+        }
+        int n = newer[slot];
+        int o = older[slot];
+        if (n >= 0) {
+            older[n] = o;
+        } else {
+            head = o;
+        }
+        if (o >= 0) {
+            newer[o] = n;
+        } else {
+            tail = n;
+        }
+    }
+
+    /**
+     * @return Slot of a live entry by its current entity id, or -1
+     */
+    public int slotOfEntity(int entityId) {
+        return slotByEntityId.get(entityId);
+    }
+
+    /**
+     * @return Most recently seen ghost, or -1 if there is none; continue with {@link #nextGhost}
+     */
+    public int firstGhost() {
+        return firstGhost;
+    }
+
+    /**
+     * @return The next older ghost, or -1 at the end
+     */
+    public int nextGhost(int slot) {
+        return older[slot];
+    }
+
+    /**
+     * @return Changes whenever a ghost appears, disappears or comes back
+     */
+    public long getGhostVersion() {
+        return ghostVersion;
+    }
+
+    /**
+     * @return Cached turtles, live and ghost
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Turtles reported in the last scan
+     */
+    public int liveCount() {
+        return liveCount;
+    }
+
+    public int ghostCount() {
+        return size - liveCount;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public UUID uuid(int slot) {
+        return uuids[slot];
+    }
+
+    public double x(int slot) {
+        return x[slot];
+    }
+
+    public double y(int slot) {
+        return y[slot];
+    }
+
+    public double z(int slot) {
+        return z[slot];
+    }
+
+    public float width(int slot) {
+        return width[slot];
+    }
+
+    public float height(int slot) {
+        return height[slot];
+    }
+
+    /**
+     * @return Tick of the scan that last reported this turtle
+     */
+    public long lastSeen(int slot) {
+        return lastSeen[slot];
+    }
+
+    public double smoothX(int slot) {
+        return smoothX[slot];
+    }
+
+    public double smoothY(int slot) {
+        return smoothY[slot];
+    }
+
+    public double smoothZ(int slot) {
+        return smoothZ[slot];
+    }
+}
@@ -0,0 +1,191 @@
+package com.turtletracker.core;
+
+import java.util.Arrays;
+
+/**
+ * What changed between two snapshots, as filled in by {@link LifecycleDiff}
+ *
+ * Entities that entered, became visible, became hidden or moved are given by their index
+ * into {@link #snapshot()}, so positions and sizes are read from there. Entities that left
+ * are no longer in the snapshot and are given by id, with the position they were last
+ * reported at. An entity that enters while visible is listed under both entered and
+ * became visible; one that leaves is only listed under left, and {@link #leftWasVisible}
+ * tells whether it was visible until then.
+ *
+ * One instance is reused for every diff: read it during the callback, never keep it.
+ */
+public final class LifecycleDelta {
+
+    private TrackerSnapshot snapshot = TrackerSnapshot.EMPTY;
+    private long tick;
+
+    private int[] entered = new int[16];
+    private int enteredCount = 0;
+    private int[] becameVisible = new int[16];
+    private int becameVisibleCount = 0;
+    private int[] becameHidden = new int[16];
+    private int becameHiddenCount = 0;
+    private int[] moved = new int[16];
+    private int movedCount = 0;
+
+    private int[] leftIds = new int[16];
+    private double[] leftX = new double[16];
+    private double[] leftY = new double[16];
+    private double[] leftZ = new double[16];
+    private boolean[] leftVisible = new boolean[16];
+    private int leftCount = 0;
+
+    void begin(TrackerSnapshot snapshot, long tick) {
+        this.snapshot = snapshot;
+        this.tick = tick;
+        enteredCount = 0;
+        becameVisibleCount = 0;
+        becameHiddenCount = 0;
+        movedCount = 0;
+        leftCount = 0;
+    }
+
+    void addEntered(int index) {
+        if (enteredCount == entered.length) {
+            entered = Arrays.copyOf(entered, enteredCount * 2);
+        }
+        entered[enteredCount++] = index;
+    }
+
+    void addBecameVisible(int index) {
+        if (becameVisibleCount == becameVisible.length) {
+            becameVisible = Arrays.copyOf(becameVisible, becameVisibleCount * 2);
+        }
+        becameVisible[becameVisibleCount++] = index;
+    }
+
+    void addBecameHidden(int index) {
+        if (becameHiddenCount == becameHidden.length) {
+            becameHidden = Arrays.copyOf(becameHidden, becameHiddenCount * 2);
+        }
+        becameHidden[becameHiddenCount++] = index;
+    }
+
+    void addMoved(int index) {
+        if (movedCount == moved.length) {
+            moved = Arrays.copyOf(moved, movedCount * 2);
+        }
+        moved[movedCount++] = index;
+    }
+
+    void addLeft(int id, double x, double y, double z, boolean visible) {
+        if (leftCount == leftIds.length) {
+            int newSize = leftCount * 2;
+            leftIds = Arrays.copyOf(leftIds, newSize);
+            leftX = Arrays.copyOf(leftX, newSize);
+            leftY = Arrays.copyOf(leftY, newSize);
+            leftZ = Arrays.copyOf(leftZ, newSize);
+            leftVisible = Arrays.copyOf(leftVisible, newSize);
+        }
+        leftIds[leftCount] = id;
+        leftX[leftCount] = x;
+        leftY[leftCount] = y;
+        leftZ[leftCount] = z;
+        leftVisible[leftCount] = visible;
+        leftCount++;
+    }
+
+    /**
+     * @return The snapshot the indices refer to
+     */
+    public TrackerSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return Tracker tick the diff was taken on
+     */
+    public long tick() {
+        return tick;
+    }
+
+    /**
+     * @return Whether nothing changed
+     */
+    public boolean isEmpty() {
+        return enteredCount == 0 && becameVisibleCount == 0 && becameHiddenCount == 0
+            && movedCount == 0 && leftCount == 0;
+    }
+
+    public int enteredCount() {
+        return enteredCount;
+    }
+
+    /**
+     * @return Snapshot index of the i-th entity that came into range
+     */
+    public int entered(int i) {
+        return entered[i];
+    }
+
+    public int becameVisibleCount() {
+        return becameVisibleCount;
+    }
+
+    /**
+     * @return Snapshot index of the i-th entity that gained line of sight
+     */
+    public int becameVisible(int i) {
+        return becameVisible[i];
+    }
+
+    public int becameHiddenCount() {
+        return becameHiddenCount;
+    }
+
+    /**
+     * @return Snapshot index of the i-th entity that lost line of sight
+     */
+    public int becameHidden(int i) {
+        return becameHidden[i];
+    }
+
+    public int movedCount() {
+        return movedCount;
+    }
+
+    /**
+     * @return Snapshot index of the i-th entity that moved past the threshold since it was last reported
+     */
+    public int moved(int i) {
+        return moved[i];
+    }
+
+    public int leftCount() {
+        return leftCount;
+    }
+
+    /**
+     * @return Id of the i-th entity that went out of range or unloaded
+     */
+    public int leftId(int i) {
+        return leftIds[i];
+    }
+
+    /**
+     * @return Last reported position of the i-th entity that left
+     */
+    public double leftX(int i) {
+        return leftX[i];
+    }
+
+    public double leftY(int i) {
+        return leftY[i];
+    }
+
+    public double leftZ(int i) {
+        return leftZ[i];
+    }
+
+    /**
+     * @return Whether the i-th entity that left was visible right up to leaving
+     */
+    public boolean leftWasVisible(int i) {
+        return leftVisible[i];
+    }
+}
@@ -0,0 +1,146 @@
+package com.turtletracker.core;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Turns consecutive snapshots into lifecycle events: entered range, left range, became
+ * visible, became hidden and moved significantly
+ *
+ * The diff keeps one record per reported entity (id, visibility and the position it was
+ * last reported at) in parallel arrays, and only runs when the snapshot version changed.
+ * Movement is measured from the last reported position rather than the previous
+ * snapshot, so slow drift still produces a moved event once it adds up. The result goes
+ * into a single reused {@link LifecycleDelta}; however many listeners read it, the diff
+ * runs once.
+ *
+ * Single-threaded.
+ */
+public class LifecycleDiff {
+
+    private final double moveThresholdSqr;
+    private final LifecycleDelta delta = new LifecycleDelta();
+
+    // Entity id -> record slot
+    private final Int2IntOpenHashMap slotById = new Int2IntOpenHashMap();
+
+    // Records, packed at the front; leaving entities are swap-removed
+    private int[] ids = new int[64];
+    private double[] x = new double[64];
+    private double[] y = new double[64];
+    private double[] z = new double[64];
+    private boolean[] visible = new boolean[64];
+    private long[] seenPass = new long[64];
+    private int count = 0;
+
+    // Incremented for every diff; records not stamped with it have left
+    private long pass = 0;
+    private long lastVersion = -1;
+
+    /**
+     * @param moveThreshold Distance in blocks an entity must move from its last reported position to be reported again
+     */
+    public LifecycleDiff(double moveThreshold) {
+        this.moveThresholdSqr = moveThreshold * moveThreshold;
+        slotById.defaultReturnValue(-1);
+    }
+
+    /**
+     * Compare a snapshot with the previously diffed one
+     *
+     * @param snapshot The tracker's current snapshot
+     * @param tick Tracker tick, passed through to the delta
+     * @return The reused delta, or null if the snapshot is the one diffed last time
+     */
+    public LifecycleDelta diff(TrackerSnapshot snapshot, long tick) {
+        if (snapshot.getVersion() == lastVersion) {
+            return null;
+        }
+        lastVersion = snapshot.getVersion();
+        pass++;
+        delta.begin(snapshot, tick);
+
+        for (int i = 0; i < snapshot.size(); i++) {
+            int id = snapshot.id(i);
+            boolean nowVisible = snapshot.isVisible(i);
+            int slot = slotById.get(id);
+            if (slot < 0) {
+                slot = add(id, snapshot.x(i), snapshot.y(i), snapshot.z(i), nowVisible);
+                delta.addEntered(i);
+                if (nowVisible) {
+                    delta.addBecameVisible(i);
+                }
+            } else {
+                if (nowVisible != visible[slot]) {
+                    visible[slot] = nowVisible;
+                    if (nowVisible) {
+                        delta.addBecameVisible(i);
+                    } else {
+                        delta.addBecameHidden(i);
+                    }
+                }
+                double dx = snapshot.x(i) - x[slot];
+                double dy = snapshot.y(i) - y[slot];
+                double dz = snapshot.z(i) - z[slot];
+                if (dx * dx + dy * dy + dz * dz >= moveThresholdSqr) {
+                    x[slot] = snapshot.x(i);
+                    y[slot] = snapshot.y(i);
+                    z[slot] = snapshot.z(i);
+                    delta.addMoved(i);
+                }
+            }
+            seenPass[slot] = pass;
+        }
+
+        // Whatever was not in this snapshot left; walk backwards so swap-removal keeps unvisited slots ahead
+        for (int slot = count - 1; slot >= 0; slot--) {
+            if (seenPass[slot] != pass) {
+                delta.addLeft(ids[slot], x[slot], y[slot], z[slot], visible[slot]);
+                remove(slot);
+            }
+        }
+        return delta;
+    }
+
+    private int add(int id, double posX, double posY, double posZ, boolean isVisible) {
+        if (count == ids.length) {
+            int newSize = count * 2;
+            ids = Arrays.copyOf(ids, newSize);
+            x = Arrays.copyOf(x, newSize);
+            y = Arrays.copyOf(y, newSize);
+            z = Arrays.copyOf(z, newSize);
+            visible = Arrays.copyOf(visible, newSize);
+            seenPass = Arrays.copyOf(seenPass, newSize);
+        }
+        int slot = count++;
+        ids[slot] = id;
+        x[slot] = posX;
+        y[slot] = posY;
+        z[slot] = posZ;
+        visible[slot] = isVisible;
+        slotById.put(id, slot);
+        return slot;
+    }
+
+    private void remove(int slot) {
+        slotById.remove(ids[slot]);
+        int last = --count;
+        if (slot != last) {
+            ids[slot] = ids[last];
+            x[slot] = x[last];
+            y[slot] = y[last];
+            z[slot] = z[last];
+            visible[slot] = visible[last];
+            seenPass[slot] = seenPass[last];
+            slotById.put(ids[slot], slot);
+        }
+    }
+
+    /**
+     * @return Entities currently reported as in range
+     */
+    public int size() {
+        return count;
+    }
+}
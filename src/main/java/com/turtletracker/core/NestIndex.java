@@ -0,0 +1,244 @@
+package com.turtletracker.core;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Index of known turtle egg nests, one entry per egg block
+ *
+ * Nests are kept in a {@link SpatialGrid} for radius and nearest queries and grouped by
+ * chunk column so a whole chunk can be replaced or dropped at once. Only columns that
+ * contain nests have an entry, so memory grows with the number of nests and not with
+ * the loaded area. Ids are recycled through a free list to keep the arrays dense.
+ *
+ * Single-threaded; the tracker applies scan results and block updates on the client thread.
+ */
+public class NestIndex {
+
+    // Packed block position -> nest id
+    private final Long2IntOpenHashMap idByPos = new Long2IntOpenHashMap();
+
+    // Chunk column key -> ids of the nests in it
+    private final Long2ObjectOpenHashMap<ChunkNests> nestsByChunk = new Long2ObjectOpenHashMap<>();
+
+    private final SpatialGrid grid = new SpatialGrid();
+
+    // Nests as parallel arrays indexed by id
+    private int[] x = new int[16];
+    private int[] y = new int[16];
+    private int[] z = new int[16];
+    private byte[] eggs = new byte[16];
+    private byte[] hatch = new byte[16];
+    private int[] indexInChunk = new int[16];
+    private int idLimit = 0;
+
+    private int[] freeIds = new int[16];
+    private int freeCount = 0;
+    private int size = 0;
+
+    // Bumped on every change so consumers can cache derived data
+    private long version = 0;
+
+    public NestIndex() {
+        idByPos.defaultReturnValue(-1);
+    }
+
+    /**
+     * Add or update the nest at a block
+     *
+     * @param eggCount Eggs in the block (1-4)
+     * @param hatchStage Hatch progress (0-2)
+     */
+    public void put(int blockX, int blockY, int blockZ, int eggCount, int hatchStage) {
+        long pos = packPos(blockX, blockY, blockZ);
+        int id = idByPos.get(pos);
+        if (id < 0) {
+            id = allocate();
+            x[id] = blockX;
+            y[id] = blockY;
+            z[id] = blockZ;
+            idByPos.put(pos, id);
+            addToChunk(id, chunkKey(blockX >> 4, blockZ >> 4));
+            grid.update(id, blockX + 0.5, blockY, blockZ + 0.5);
+            size++;
+        } else if (eggs[id] == eggCount && hatch[id] == hatchStage) {
+            return;
+        }
+        eggs[id] = (byte) eggCount;
+        hatch[id] = (byte) hatchStage;
+        version++;
+    }
+
+    /**
+     * Forget the nest at a block, if any
+     */
+    public void remove(int blockX, int blockY, int blockZ) {
+        int id = idByPos.remove(packPos(blockX, blockY, blockZ));
+        if (id < 0) {
+            return;
+        }
+        removeFromChunk(id, chunkKey(blockX >> 4, blockZ >> 4));
+        release(id);
+    }
+
+    /**
+     * Forget every nest in a chunk column (unloaded, or about to be replaced by a fresh scan)
+     */
+    public void removeChunk(int chunkX, int chunkZ) {
+        ChunkNests chunk = nestsByChunk.remove(chunkKey(chunkX, chunkZ));
+        if (chunk == null) {
+            return;
+        }
+        for (int i = 0; i < chunk.size; i++) {
+            int id = chunk.ids[i];
+            idByPos.remove(packPos(x[id], y[id], z[id]));
+            release(id);
+        }
+    }
+
+    /**
+     * Forget everything
+     */
+    public void clear() {
+        idByPos.clear();
+        nestsByChunk.clear();
+        grid.clear();
+        idLimit = 0;
+        freeCount = 0;
+        size = 0;
+        version++;
+    }
+
+    /**
+     * @param result Cleared and filled with the ids and squared distances of the nests in the sphere
+     */
+    public void findWithin(double cx, double cy, double cz, double radius, SpatialGrid.QueryResult result) {
+        grid.querySphere(cx, cy, cz, radius, result);
+    }
+
+    /**
+     * @param result Cleared and filled nearest-first with up to {@code k} nest ids
+     */
+    public void findNearest(double cx, double cy, double cz, int k, double maxRadius, SpatialGrid.QueryResult result) {
+        grid.queryNearest(cx, cy, cz, k, maxRadius, result);
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeIds[--freeCount];
+        }
+        int id = idLimit++;
+        if (id == x.length) {
+            int newSize = id * 2;
+            x = Arrays.copyOf(x, newSize);
+            y = Arrays.copyOf(y, newSize);
+            z = Arrays.copyOf(z, newSize);
+            eggs = Arrays.copyOf(eggs, newSize);
+            hatch = Arrays.copyOf(hatch, newSize);
+            indexInChunk = Arrays.copyOf(indexInChunk, newSize);
+        }
+        return id;
+    }
+
+    private void release(int id) {
+        grid.remove(id);
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        }
+        freeIds[freeCount++] = id;
+        size--;
+        version++;
+    }
+
+    private void addToChunk(int id, long key) {
+        ChunkNests chunk = nestsByChunk.get(key);
+        if (chunk == null) {
+            chunk = new ChunkNests();
+            nestsByChunk.put(key, chunk);
+        }
+        if (chunk.size == chunk.ids.length) {
+            chunk.ids = Arrays.copyOf(chunk.ids, chunk.size * 2);
+        }
+        indexInChunk[id] = chunk.size;
+        chunk.ids[chunk.size++] = id;
+    }
+
+    private void removeFromChunk(int id, long key) {
+        ChunkNests chunk = nestsByChunk.get(key);
+        int index = indexInChunk[id];
+        int moved = chunk.ids[--chunk.size];
+        if (index != chunk.size) {
+            chunk.ids[index] = moved;
+            indexInChunk[moved] = index;
+        }
+        if (chunk.size == 0) {
+            nestsByChunk.remove(key);
+        }
+    }
+
+    // Same bit layout as vanilla's packed block positions
+    private static long packPos(int blockX, int blockY, int blockZ) {
+        return ((long) blockX & 0x3FFFFFFL) << 38 | ((long) blockZ & 0x3FFFFFFL) << 12 | (blockY & 0xFFFL);
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return Number of known nests
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Number of chunk columns that contain at least one nest
+     */
+    public int chunkCount() {
+        return nestsByChunk.size();
+    }
+
+    /**
+     * @return Changes whenever a nest is added, removed or changes
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public int x(int id) {
+        return x[id];
+    }
+
+    public int y(int id) {
+        return y[id];
+    }
+
+    public int z(int id) {
+        return z[id];
+    }
+
+    /**
+     * @return Eggs in the block (1-4)
+     */
+    public int eggs(int id) {
+        return eggs[id];
+    }
+
+    /**
+     * @return Hatch progress (0-2; the eggs hatch after stage 2)
+     */
+    public int hatch(int id) {
+        return hatch[id];
+    }
+
+    /**
+     * Ids of the nests in one chunk column
+     */
+    private static final class ChunkNests {
+        private int[] ids = new int[4];
+        private int size;
+    }
+}
@@ -0,0 +1,14 @@
+package com.turtletracker.core;
+
+/**
+ * Line-of-sight test a {@link TrackerCore} uses to decide visibility
+ * In game this is a block raycast; benchmarks plug in a synthetic world
+ */
+@FunctionalInterface
+public interface OcclusionOracle {
+
+    /**
+     * @return true if nothing blocks the straight line between the two points
+     */
+    boolean isLineClear(double fromX, double fromY, double fromZ, double toX, double toY, double toZ);
+}
@@ -0,0 +1,347 @@
+package com.turtletracker.core;
+
+/**
+ * Steps tracker quality down while frames or ticks run over budget, and back up once there
+ * is headroom again
+ *
+ * Each level keeps the reductions of the levels below it and adds one more, cheapest
+ * visual loss first: fewer and shorter tracers, a smaller raycast budget, closer LOD
+ * distances, a lower scan rate and finally a smaller search radius. Frame and tick times
+ * are smoothed with an exponential moving average and checked once per tick.
+ *
+ * Hysteresis keeps the level from flapping: stepping down needs a full second over
+ * budget, stepping up needs several seconds well under it, and after any change the
+ * governor waits for the averages to settle. If a step up is followed by a step down
+ * soon after, the next step up waits twice as long.
+ *
+ * When the game's own frame cap is what keeps the frame rate at or below the target,
+ * frames at the cap are as fast as they can get: the budget is the cap plus a margin,
+ * and frames near the cap count as headroom. A step down that did not make frames or
+ * ticks measurably faster means the tracker is not what is slow (e.g. the GPU is), so
+ * the step is undone and the governor holds instead of giving up more quality, until
+ * the load grows well past what it was or a stretch of headroom clears it.
+ */
+public class QualityGovernor {
+
+    public static final int LEVEL_FULL = 0;
+    public static final int LEVEL_TRACERS = 1;
+    public static final int LEVEL_RAYCASTS = 2;
+    public static final int LEVEL_LOD = 3;
+    public static final int LEVEL_SCAN_RATE = 4;
+    public static final int LEVEL_RADIUS = 5;
+    public static final int MAX_LEVEL = LEVEL_RADIUS;
+
+    private static final String[] LEVEL_NAMES = {
+        "full", "fewer tracers", "fewer raycasts", "closer LOD", "lower scan rate", "smaller radius"
+    };
+
+    // Smoothing per sample; frames arrive far more often than ticks
+    private static final double FRAME_ALPHA = 0.05;
+    private static final double TICK_ALPHA = 0.1;
+
+    // Frame gaps longer than this are pauses or loading screens, not slow frames
+    private static final long MAX_FRAME_NANOS = 1_000_000_000L;
+
+    // Over budget above 100% of it, headroom below 75%; in between nothing changes
+    private static final double HEADROOM = 0.75;
+
+    // With a frame cap: over budget 10% above the cap's frame time, headroom within 5% of it
+    private static final double CAP_MARGIN = 0.10;
+    private static final double CAP_HEADROOM = 0.05;
+
+    // A step down must lower the load by this share to count; holding ends once the load grows by the other
+    private static final double MIN_IMPROVEMENT = 0.03;
+    private static final double RETRY_LOAD_GROWTH = 0.15;
+
+    // Ticks the condition must hold before a step down / up, and the quiet period after any step
+    private static final int DOWN_TICKS = 20;
+    private static final int UP_TICKS = 100;
+    private static final int MAX_UP_TICKS = 1600;
+    private static final int SETTLE_TICKS = 40;
+
+    private final boolean enabled;
+    private final double tickBudgetNanos;
+    private double frameBudgetNanos;
+    private double frameHeadroomNanos;
+
+    private double frameAverageNanos = 0.0;
+    private double tickAverageNanos = 0.0;
+    private boolean hasFrame = false;
+    private boolean hasTick = false;
+
+    private int level = LEVEL_FULL;
+    private int overTicks = 0;
+    private int underTicks = 0;
+    private int settleTicks = 0;
+
+    // Ticks of headroom needed before the next step up; doubles when stepping up did not hold
+    private int upTicks = UP_TICKS;
+    private int ticksSinceStepUp = Integer.MAX_VALUE;
+
+    // Load when quality last stepped down (NaN once headroom or a step up cleared it)
+    private double loadAtStepDown = Double.NaN;
+    private boolean stepUndone = false;
+    private boolean holding = false;
+
+    // Statistics
+    private long stepsDown = 0;
+    private long stepsUp = 0;
+
+    /**
+     * @param enabled False to stay at full quality whatever the timings
+     * @param targetFps Frame rate to hold
+     * @param tickBudgetMillis Longest acceptable client tick
+     */
+    public QualityGovernor(boolean enabled, int targetFps, double tickBudgetMillis) {
+        this.enabled = enabled;
+        this.tickBudgetNanos = tickBudgetMillis * 1_000_000.0;
+        setTargetFps(targetFps, 0);
+    }
+
+    /**
+     * Change the frame rate to hold
+     *
+     * @param targetFps Configured frame rate to hold
+     * @param frameCap The game's own frame limit (frame limiter or vsync), 0 when uncapped
+     */
+    public void setTargetFps(int targetFps, int frameCap) {
+        if (frameCap > 0 && frameCap <= targetFps) {
+            // The cap decides the frame rate; frames at the cap have nothing left to gain
+            double capNanos = 1_000_000_000.0 / frameCap;
+            frameBudgetNanos = capNanos * (1.0 + CAP_MARGIN);
+            frameHeadroomNanos = capNanos * (1.0 + CAP_HEADROOM);
+        } else {
+            frameBudgetNanos = 1_000_000_000.0 / Math.max(1, targetFps);
+            frameHeadroomNanos = frameBudgetNanos * HEADROOM;
+        }
+    }
+
+    /**
+     * Record the time between two rendered frames
+     */
+    public void recordFrame(long frameNanos) {
+        if (frameNanos <= 0 || frameNanos > MAX_FRAME_NANOS) {
+            return;
+        }
+        if (!hasFrame) {
+            frameAverageNanos = frameNanos;
+            hasFrame = true;
+        } else {
+            frameAverageNanos += (frameNanos - frameAverageNanos) * FRAME_ALPHA;
+        }
+    }
+
+    /**
+     * Record how long one client tick took
+     */
+    public void recordTick(long tickNanos) {
+        if (tickNanos <= 0) {
+            return;
+        }
+        if (!hasTick) {
+            tickAverageNanos = tickNanos;
+            hasTick = true;
+        } else {
+            tickAverageNanos += (tickNanos - tickAverageNanos) * TICK_ALPHA;
+        }
+    }
+
+    /**
+     * Check the averages against the budgets (once per tick)
+     *
+     * @return true if the level changed
+     */
+    public boolean evaluate() {
+        if (!enabled || !hasFrame) {
+            return false;
+        }
+        if (ticksSinceStepUp < Integer.MAX_VALUE) {
+            ticksSinceStepUp++;
+        }
+        if (settleTicks > 0) {
+            settleTicks--;
+            return false;
+        }
+
+        boolean over = frameAverageNanos > frameBudgetNanos || tickAverageNanos > tickBudgetNanos;
+        boolean headroom = frameAverageNanos < frameHeadroomNanos
+            && tickAverageNanos < tickBudgetNanos * HEADROOM;
+
+        if (over) {
+            underTicks = 0;
+            if (++overTicks >= DOWN_TICKS) {
+                return stepDown();
+            }
+        } else if (headroom) {
+            overTicks = 0;
+            holding = false;
+            if (++underTicks >= upTicks) {
+                // Clear headroom for a while: whatever made the last step down useless has passed
+                loadAtStepDown = Double.NaN;
+                if (level > LEVEL_FULL) {
+                    level--;
+                    stepsUp++;
+                    ticksSinceStepUp = 0;
+                    settle();
+                    return true;
+                }
+            }
+            // A long stable stretch forgives earlier oscillation
+            if (underTicks >= MAX_UP_TICKS) {
+                upTicks = UP_TICKS;
+            }
+        } else {
+            overTicks = 0;
+            underTicks = 0;
+            holding = false;
+        }
+        return false;
+    }
+
+    /**
+     * Over budget for long enough: give up one more level, unless the last step down bought nothing
+     *
+     * @return true if the level changed
+     */
+    private boolean stepDown() {
+        double load = load();
+        if (!Double.isNaN(loadAtStepDown) && load > loadAtStepDown * (1.0 - MIN_IMPROVEMENT)
+                && load < loadAtStepDown * (1.0 + RETRY_LOAD_GROWTH)) {
+            // Lower quality did not make anything faster; undo the useless step and hold
+            overTicks = 0;
+            holding = true;
+            if (stepUndone) {
+                return false;
+            }
+            stepUndone = true;
+            level--;
+            stepsUp++;
+            settle();
+            return true;
+        }
+        if (level == MAX_LEVEL) {
+            return false;
+        }
+        // Stepping up right before made things worse: be slower to try it again
+        if (ticksSinceStepUp < upTicks) {
+            upTicks = Math.min(MAX_UP_TICKS, upTicks * 2);
+        }
+        holding = false;
+        loadAtStepDown = load;
+        stepUndone = false;
+        level++;
+        stepsDown++;
+        settle();
+        return true;
+    }
+
+    /**
+     * @return The worse of the frame and tick averages, as a share of its budget
+     */
+    private double load() {
+        return Math.max(frameAverageNanos / frameBudgetNanos, tickAverageNanos / tickBudgetNanos);
+    }
+
+    private void settle() {
+        overTicks = 0;
+        underTicks = 0;
+        settleTicks = SETTLE_TICKS;
+    }
+
+    /**
+     * Back to full quality (e.g. when leaving a world)
+     */
+    public void reset() {
+        level = LEVEL_FULL;
+        overTicks = 0;
+        underTicks = 0;
+        settleTicks = 0;
+        upTicks = UP_TICKS;
+        ticksSinceStepUp = Integer.MAX_VALUE;
+        loadAtStepDown = Double.NaN;
+        stepUndone = false;
+        holding = false;
+        hasFrame = false;
+        hasTick = false;
+    }
+
+    /**
+     * @return Share of the configured tracer count and distance to use
+     */
+    public double tracerScale() {
+        return level >= LEVEL_TRACERS ? 0.5 : 1.0;
+    }
+
+    /**
+     * @return Share of the configured raycast budget to use
+     */
+    public double raycastScale() {
+        return level >= LEVEL_RAYCASTS ? 0.5 : 1.0;
+    }
+
+    /**
+     * @return Share of the configured LOD distances to use
+     */
+    public double lodScale() {
+        return level >= LEVEL_LOD ? 0.5 : 1.0;
+    }
+
+    /**
+     * @return Fewest ticks between two scans, even while the scene is busy
+     */
+    public int minScanInterval() {
+        return level >= LEVEL_SCAN_RATE ? 2 : 1;
+    }
+
+    /**
+     * @return Share of the configured search radius to use
+     */
+    public double radiusScale() {
+        return level >= LEVEL_RADIUS ? 0.75 : 1.0;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return Current level, {@link #LEVEL_FULL} to {@link #MAX_LEVEL}
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * @return Short description of the reduction a level adds
+     */
+    public static String getLevelName(int level) {
+        return LEVEL_NAMES[level];
+    }
+
+    public double getAverageFrameMillis() {
+        return frameAverageNanos / 1_000_000.0;
+    }
+
+    public double getAverageTickMillis() {
+        return tickAverageNanos / 1_000_000.0;
+    }
+
+    public double getFrameBudgetMillis() {
+        return frameBudgetNanos / 1_000_000.0;
+    }
+
+    /**
+     * @return true while the governor holds because stepping down did not help
+     */
+    public boolean isHolding() {
+        return holding;
+    }
+
+    public long getStepsDown() {
+        return stepsDown;
+    }
+
+    public long getStepsUp() {
+        return stepsUp;
+    }
+}
@@ -0,0 +1,200 @@
+package com.turtletracker.core;
+
+/**
+ * Decides on which ticks the tracker runs its full scan (range query, visibility, snapshot)
+ *
+ * While the player, the camera, the turtles and the set of loaded turtles are all still,
+ * the interval between scans backs off towards an idle interval. Any change drops it
+ * straight back to every tick and holds it there for a short while. However quiet the
+ * scene is, a scan always runs once the published data is maxStaleTicks old.
+ */
+public class ScanScheduler {
+
+    // Player movement (blocks) or camera rotation (degrees) since the last scan that counts as activity
+    private static final double PLAYER_MOVE_THRESHOLD = 0.1;
+    private static final float ROTATION_THRESHOLD = 2.0f;
+
+    // Per-tick turtle movement (blocks) that counts as activity
+    private static final double TURTLE_MOVE_THRESHOLD = 0.05;
+
+    // Ticks to stay at full rate after the last activity before backing off
+    private static final int ACTIVE_HOLD_TICKS = 20;
+
+    // Window for the effective rate readout (5 seconds)
+    private static final int RATE_WINDOW_TICKS = 100;
+
+    private final boolean adaptive;
+    private final int idleInterval;
+    private final int maxStaleTicks;
+
+    // Player state at the last scan
+    private double lastX;
+    private double lastY;
+    private double lastZ;
+    private float lastYaw;
+    private float lastPitch;
+    private long lastChurn;
+    private boolean hasScanned = false;
+
+    // Current interval between scans and how long the scene has been quiet
+    private int interval = 1;
+    private int quietTicks = 0;
+    private int ticksSinceScan = 0;
+
+    // Fewest ticks between two scans even while active (raised by the quality governor)
+    private int minInterval = 1;
+
+    // Ring of per-tick scan flags for the effective rate
+    private final boolean[] scanHistory = new boolean[RATE_WINDOW_TICKS];
+    private int historyPos = 0;
+    private int historyFilled = 0;
+    private int scansInWindow = 0;
+
+    // Statistics
+    private long totalScans = 0;
+
+    /**
+     * @param adaptive False to scan every tick (the old fixed 20 Hz behaviour)
+     * @param idleInterval Ticks between scans once the scene has been quiet for a while
+     * @param maxStaleTicks Hard upper bound on ticks between two scans
+     */
+    public ScanScheduler(boolean adaptive, int idleInterval, int maxStaleTicks) {
+        this.adaptive = adaptive;
+        this.maxStaleTicks = Math.max(1, maxStaleTicks);
+        this.idleInterval = Math.max(1, Math.min(idleInterval, this.maxStaleTicks));
+    }
+
+    /**
+     * Called once per client tick
+     *
+     * @param playerX Player X
+     * @param playerY Player Y
+     * @param playerZ Player Z
+     * @param yaw Camera yaw in degrees
+     * @param pitch Camera pitch in degrees
+     * @param maxTurtleMoveSqr Largest squared distance a turtle in or near the search volume moved during the last tick
+     * @param churn Monotonic counter of turtle load/unload events and block changes inside the search volume
+     * @return true if the full scan should run this tick
+     */
+    public boolean shouldScan(double playerX, double playerY, double playerZ, float yaw, float pitch,
+                              double maxTurtleMoveSqr, long churn) {
+        ticksSinceScan++;
+
+        boolean active = !hasScanned
+            || !adaptive
+            || churn != lastChurn
+            || maxTurtleMoveSqr > TURTLE_MOVE_THRESHOLD * TURTLE_MOVE_THRESHOLD
+            || distanceSqr(playerX, playerY, playerZ) > PLAYER_MOVE_THRESHOLD * PLAYER_MOVE_THRESHOLD
+            || Math.abs(wrapDegrees(yaw - lastYaw)) > ROTATION_THRESHOLD
+            || Math.abs(pitch - lastPitch) > ROTATION_THRESHOLD;
+
+        // The staleness bound wins over any back-off
+        boolean scan = !hasScanned
+            || (active && ticksSinceScan >= minInterval)
+            || ticksSinceScan >= Math.max(interval, minInterval)
+            || ticksSinceScan >= maxStaleTicks;
+
+        if (active) {
+            // Something changed - back to full rate straight away
+            interval = 1;
+            quietTicks = 0;
+        } else if (++quietTicks > ACTIVE_HOLD_TICKS && scan) {
+            // Quiet for a while: double the interval after each idle scan
+            interval = Math.min(idleInterval, interval * 2);
+        }
+
+        if (scan) {
+            lastX = playerX;
+            lastY = playerY;
+            lastZ = playerZ;
+            lastYaw = yaw;
+            lastPitch = pitch;
+            lastChurn = churn;
+            hasScanned = true;
+            ticksSinceScan = 0;
+            totalScans++;
+        }
+        recordHistory(scan);
+        return scan;
+    }
+
+    /**
+     * Force a scan on the next tick (level change, config reload)
+     */
+    public void reset() {
+        hasScanned = false;
+        interval = 1;
+        quietTicks = 0;
+    }
+
+    /**
+     * Cap the scan rate while the scene is busy
+     *
+     * @param minInterval Fewest ticks between two scans (1 = every tick)
+     */
+    public void setMinInterval(int minInterval) {
+        this.minInterval = Math.max(1, Math.min(minInterval, maxStaleTicks));
+    }
+
+    public int getMinInterval() {
+        return minInterval;
+    }
+
+    private double distanceSqr(double x, double y, double z) {
+        double dx = x - lastX;
+        double dy = y - lastY;
+        double dz = z - lastZ;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private static float wrapDegrees(float degrees) {
+        float wrapped = degrees % 360.0f;
+        if (wrapped >= 180.0f) {
+            wrapped -= 360.0f;
+        } else if (wrapped < -180.0f) {
+            wrapped += 360.0f;
+        }
+        return wrapped;
+    }
+
+    private void recordHistory(boolean scan) {
+        if (historyFilled == RATE_WINDOW_TICKS) {
+            if (scanHistory[historyPos]) {
+                scansInWindow--;
+            }
+        } else {
+            historyFilled++;
+        }
+        scanHistory[historyPos] = scan;
+        if (scan) {
+            scansInWindow++;
+        }
+        historyPos = (historyPos + 1) % RATE_WINDOW_TICKS;
+    }
+
+    /**
+     * @return Scans per second over the last five seconds (20 at full rate)
+     */
+    public double getEffectiveRate() {
+        return historyFilled == 0 ? 0.0 : scansInWindow * 20.0 / historyFilled;
+    }
+
+    /**
+     * @return Current ticks between scans while the scene stays quiet
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    public int getTicksSinceScan() {
+        return ticksSinceScan;
+    }
+
+    public int getMaxStaleTicks() {
+        return maxStaleTicks;
+    }
+
+    public long getTotalScans() {
+        return totalScans;
+    }
+}
@@ -0,0 +1,71 @@
+package com.turtletracker.core;
+
+/**
+ * Counts block changes in the chunk sections a search volume overlaps
+ *
+ * The scan scheduler wakes up whenever its churn counter moves. A block change far outside
+ * the search volume cannot change a scan's result, so only changes in sections that
+ * overlap the volume's bounding box are counted. The volume follows the observer through
+ * {@link #setVolume}; until it is first set nothing counts.
+ */
+public class SectionChangeCounter {
+
+    private double minX;
+    private double minY;
+    private double minZ;
+    private double maxX;
+    private double maxY;
+    private double maxZ;
+    private boolean hasVolume = false;
+    private long count = 0;
+
+    /**
+     * Move the volume (called once per tick with the observer's position and search settings)
+     *
+     * @param centerX Search centre X
+     * @param centerY Search centre Y
+     * @param centerZ Search centre Z
+     * @param radius Search radius
+     * @param cylinder Search a vertical cylinder instead of a sphere
+     * @param halfHeight Vertical reach of the cylinder
+     */
+    public void setVolume(double centerX, double centerY, double centerZ,
+                          double radius, boolean cylinder, double halfHeight) {
+        double verticalReach = cylinder ? halfHeight : radius;
+        minX = centerX - radius;
+        maxX = centerX + radius;
+        minY = centerY - verticalReach;
+        maxY = centerY + verticalReach;
+        minZ = centerZ - radius;
+        maxZ = centerZ + radius;
+        hasVolume = true;
+    }
+
+    /**
+     * Count a block change if its section overlaps the volume
+     *
+     * @param blockX Block X
+     * @param blockY Block Y
+     * @param blockZ Block Z
+     */
+    public void onBlockChanged(int blockX, int blockY, int blockZ) {
+        if (!hasVolume) {
+            return;
+        }
+        int sectionMinX = blockX & ~15;
+        int sectionMinY = blockY & ~15;
+        int sectionMinZ = blockZ & ~15;
+        if (sectionMinX + 16 > minX && sectionMinX <= maxX
+                && sectionMinY + 16 > minY && sectionMinY <= maxY
+                && sectionMinZ + 16 > minZ && sectionMinZ <= maxZ) {
+            count++;
+        }
+    }
+
+    /**
+     * @return Monotonic count of block changes inside the volume, for the scan scheduler's churn
+     */
+    public long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,459 @@
+package com.turtletracker.core;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Chunk-bucketed spatial index over tracked entity positions
+ *
+ * Entries are grouped by the 16x16 chunk column they stand in (or by larger square
+ * cells, see {@link #SpatialGrid(int)}), so radius and nearest-K queries only visit the
+ * columns that can possibly contain a hit instead of scanning every entry. All distance
+ * tests use squared distances.
+ *
+ * Query results are written into a caller-owned {@link QueryResult} so repeated queries
+ * do not allocate once the result buffer has grown to its working size.
+ */
+public class SpatialGrid {
+
+    // log2 of the bucket edge length in blocks
+    private final int cellShift;
+    private final double cellSize;
+
+    // Entity id -> entry slot
+    private final Int2IntOpenHashMap slotById = new Int2IntOpenHashMap();
+
+    // Entries as parallel arrays indexed by slot
+    private int[] entryIds = new int[64];
+    private double[] entryX = new double[64];
+    private double[] entryY = new double[64];
+    private double[] entryZ = new double[64];
+    private long[] entryBucket = new long[64];
+    private int[] entryIndexInBucket = new int[64];
+    private int entryCount = 0;
+
+    // Chunk column key -> slots of the entries standing in it
+    private final Long2ObjectOpenHashMap<Bucket> buckets = new Long2ObjectOpenHashMap<>();
+
+    // Scratch space for nearest-K searches (max-heap of the best candidates so far)
+    private int[] heapSlots = new int[16];
+    private double[] heapDistances = new double[16];
+
+    public SpatialGrid() {
+        this(4);
+    }
+
+    /**
+     * @param cellShift log2 of the bucket edge length in blocks (4 buckets by chunk column)
+     */
+    public SpatialGrid(int cellShift) {
+        this.cellShift = cellShift;
+        this.cellSize = 1 << cellShift;
+        slotById.defaultReturnValue(-1);
+    }
+
+    /**
+     * Insert an entry or move an existing one
+     * Entries that stay inside the same chunk column only have their coordinates updated
+     *
+     * @return Squared distance the entry moved since its previous update (0 for a new entry)
+     */
+    public double update(int entityId, double x, double y, double z) {
+        long bucketKey = bucketKey(chunkCoord(x), chunkCoord(z));
+        int slot = slotById.get(entityId);
+
+        if (slot < 0) {
+            slot = entryCount++;
+            ensureCapacity(entryCount);
+            entryIds[slot] = entityId;
+            slotById.put(entityId, slot);
+            addToBucket(slot, bucketKey);
+            entryX[slot] = x;
+            entryY[slot] = y;
+            entryZ[slot] = z;
+            return 0.0;
+        } else if (entryBucket[slot] != bucketKey) {
+            removeFromBucket(slot);
+            addToBucket(slot, bucketKey);
+        }
+
+        double dx = x - entryX[slot];
+        double dy = y - entryY[slot];
+        double dz = z - entryZ[slot];
+        entryX[slot] = x;
+        entryY[slot] = y;
+        entryZ[slot] = z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Remove an entry; the last entry is moved into the freed slot
+     */
+    public void remove(int entityId) {
+        int slot = slotById.remove(entityId);
+        if (slot < 0) {
+            return;
+        }
+        removeFromBucket(slot);
+
+        int last = --entryCount;
+        if (slot != last) {
+            // Move the last entry into the hole and fix up its bucket reference
+            entryIds[slot] = entryIds[last];
+            entryX[slot] = entryX[last];
+            entryY[slot] = entryY[last];
+            entryZ[slot] = entryZ[last];
+            entryBucket[slot] = entryBucket[last];
+            entryIndexInBucket[slot] = entryIndexInBucket[last];
+            buckets.get(entryBucket[slot]).slots[entryIndexInBucket[slot]] = slot;
+            slotById.put(entryIds[slot], slot);
+        }
+    }
+
+    /**
+     * Remove every entry
+     */
+    public void clear() {
+        slotById.clear();
+        buckets.clear();
+        entryCount = 0;
+    }
+
+    /**
+     * @return Number of indexed entries
+     */
+    public int size() {
+        return entryCount;
+    }
+
+    /**
+     * Find every entry within a sphere
+     *
+     * @param result Cleared and filled with the matching ids and squared distances
+     */
+    public void querySphere(double cx, double cy, double cz, double radius, QueryResult result) {
+        result.clear();
+        double radiusSqr = radius * radius;
+        int minChunkX = chunkCoord(cx - radius);
+        int maxChunkX = chunkCoord(cx + radius);
+        int minChunkZ = chunkCoord(cz - radius);
+        int maxChunkZ = chunkCoord(cz + radius);
+
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                Bucket bucket = buckets.get(bucketKey(chunkX, chunkZ));
+                if (bucket == null) {
+                    continue;
+                }
+                for (int i = 0; i < bucket.size; i++) {
+                    int slot = bucket.slots[i];
+                    double dx = entryX[slot] - cx;
+                    double dy = entryY[slot] - cy;
+                    double dz = entryZ[slot] - cz;
+                    double distanceSqr = dx * dx + dy * dy + dz * dz;
+                    if (distanceSqr <= radiusSqr) {
+                        result.add(entryIds[slot], distanceSqr);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Find every entry within a vertical cylinder
+     * The reported distance is the full 3D squared distance so results can still be sorted nearest-first
+     *
+     * @param radius Horizontal radius
+     * @param halfHeight Maximum vertical distance from the center
+     * @param result Cleared and filled with the matching ids and squared distances
+     */
+    public void queryCylinder(double cx, double cy, double cz, double radius, double halfHeight, QueryResult result) {
+        result.clear();
+        double radiusSqr = radius * radius;
+        int minChunkX = chunkCoord(cx - radius);
+        int maxChunkX = chunkCoord(cx + radius);
+        int minChunkZ = chunkCoord(cz - radius);
+        int maxChunkZ = chunkCoord(cz + radius);
+
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                Bucket bucket = buckets.get(bucketKey(chunkX, chunkZ));
+                if (bucket == null) {
+                    continue;
+                }
+                for (int i = 0; i < bucket.size; i++) {
+                    int slot = bucket.slots[i];
+                    double dy = entryY[slot] - cy;
+                    if (dy > halfHeight || dy < -halfHeight) {
+                        continue;
+                    }
+                    double dx = entryX[slot] - cx;
+                    double dz = entryZ[slot] - cz;
+                    double horizontalSqr = dx * dx + dz * dz;
+                    if (horizontalSqr <= radiusSqr) {
+                        result.add(entryIds[slot], horizontalSqr + dy * dy);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the K entries closest to a point, searching chunk rings outwards and stopping
+     * as soon as no unvisited ring can contain anything closer than the current K-th best
+     *
+     * @param k Maximum number of results
+     * @param maxRadius Entries further than this are ignored
+     * @param result Cleared and filled nearest-first
+     */
+    public void queryNearest(double cx, double cy, double cz, int k, double maxRadius, QueryResult result) {
+        result.clear();
+        if (k <= 0 || entryCount == 0) {
+            return;
+        }
+        if (heapSlots.length < k) {
+            heapSlots = new int[k];
+            heapDistances = new double[k];
+        }
+
+        double maxRadiusSqr = maxRadius * maxRadius;
+        int centerChunkX = chunkCoord(cx);
+        int centerChunkZ = chunkCoord(cz);
+        int maxRing = (int) Math.ceil(maxRadius / cellSize) + 1;
+        int heapSize = 0;
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Anything in this ring is at least (ring - 1) full cells away horizontally
+            double ringMin = Math.max(0, ring - 1) * cellSize;
+            double ringMinSqr = ringMin * ringMin;
+            if (ringMinSqr > maxRadiusSqr || (heapSize == k && ringMinSqr > heapDistances[0])) {
+                break;
+            }
+
+            for (int chunkX = centerChunkX - ring; chunkX <= centerChunkX + ring; chunkX++) {
+                // Only the outline of the square is new in this ring
+                boolean edgeColumn = chunkX == centerChunkX - ring || chunkX == centerChunkX + ring;
+                int stepZ = edgeColumn ? 1 : Math.max(1, ring * 2);
+                for (int chunkZ = centerChunkZ - ring; chunkZ <= centerChunkZ + ring; chunkZ += stepZ) {
+                    Bucket bucket = buckets.get(bucketKey(chunkX, chunkZ));
+                    if (bucket == null) {
+                        continue;
+                    }
+                    for (int i = 0; i < bucket.size; i++) {
+                        int slot = bucket.slots[i];
+                        double dx = entryX[slot] - cx;
+                        double dy = entryY[slot] - cy;
+                        double dz = entryZ[slot] - cz;
+                        double distanceSqr = dx * dx + dy * dy + dz * dz;
+                        if (distanceSqr > maxRadiusSqr) {
+                            continue;
+                        }
+                        if (heapSize < k) {
+                            heapPush(heapSize++, slot, distanceSqr);
+                        } else if (distanceSqr < heapDistances[0]) {
+                            heapReplaceTop(heapSize, slot, distanceSqr);
+                        }
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < heapSize; i++) {
+            result.add(entryIds[heapSlots[i]], heapDistances[i]);
+        }
+        result.sortByDistance();
+    }
+
+    private void heapPush(int index, int slot, double distanceSqr) {
+        // Sift up: the largest distance stays at the root
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heapDistances[parent] >= distanceSqr) {
+                break;
+            }
+            heapSlots[index] = heapSlots[parent];
+            heapDistances[index] = heapDistances[parent];
+            index = parent;
+        }
+        heapSlots[index] = slot;
+        heapDistances[index] = distanceSqr;
+    }
+
+    private void heapReplaceTop(int size, int slot, double distanceSqr) {
+        // Sift the new candidate down from the root
+        int index = 0;
+        while (true) {
+            int child = index * 2 + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heapDistances[child + 1] > heapDistances[child]) {
+                child++;
+            }
+            if (heapDistances[child] <= distanceSqr) {
+                break;
+            }
+            heapSlots[index] = heapSlots[child];
+            heapDistances[index] = heapDistances[child];
+            index = child;
+        }
+        heapSlots[index] = slot;
+        heapDistances[index] = distanceSqr;
+    }
+
+    private void addToBucket(int slot, long bucketKey) {
+        Bucket bucket = buckets.get(bucketKey);
+        if (bucket == null) {
+            bucket = new Bucket();
+            buckets.put(bucketKey, bucket);
+        }
+        entryBucket[slot] = bucketKey;
+        entryIndexInBucket[slot] = bucket.size;
+        bucket.add(slot);
+    }
+
+    private void removeFromBucket(int slot) {
+        long bucketKey = entryBucket[slot];
+        Bucket bucket = buckets.get(bucketKey);
+        int index = entryIndexInBucket[slot];
+        int moved = bucket.slots[--bucket.size];
+        if (index != bucket.size) {
+            bucket.slots[index] = moved;
+            entryIndexInBucket[moved] = index;
+        }
+        if (bucket.size == 0) {
+            buckets.remove(bucketKey);
+        }
+    }
+
+    private void ensureCapacity(int size) {
+        if (size <= entryIds.length) {
+            return;
+        }
+        int newSize = Math.max(size, entryIds.length * 2);
+        entryIds = Arrays.copyOf(entryIds, newSize);
+        entryX = Arrays.copyOf(entryX, newSize);
+        entryY = Arrays.copyOf(entryY, newSize);
+        entryZ = Arrays.copyOf(entryZ, newSize);
+        entryBucket = Arrays.copyOf(entryBucket, newSize);
+        entryIndexInBucket = Arrays.copyOf(entryIndexInBucket, newSize);
+    }
+
+    private int chunkCoord(double blockCoord) {
+        return ((int) Math.floor(blockCoord)) >> cellShift;
+    }
+
+    private static long bucketKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Slots of the entries inside one chunk column
+     */
+    private static final class Bucket {
+        private int[] slots = new int[4];
+        private int size;
+
+        private void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+    }
+
+    /**
+     * Reusable, caller-owned query output (entity ids with their squared distances)
+     */
+    public static final class QueryResult {
+        private int size;
+        private int[] ids = new int[64];
+        private double[] distanceSqr = new double[64];
+
+        public void clear() {
+            size = 0;
+        }
+
+        void add(int id, double distSqr) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                distanceSqr = Arrays.copyOf(distanceSqr, size * 2);
+            }
+            ids[size] = id;
+            distanceSqr[size] = distSqr;
+            size++;
+        }
+
+        /**
+         * Sort the results nearest-first (in place, no allocation)
+         */
+        public void sortByDistance() {
+            quickSort(0, size - 1);
+        }
+
+        private void quickSort(int low, int high) {
+            while (low < high) {
+                if (high - low < 16) {
+                    insertionSort(low, high);
+                    return;
+                }
+                double pivot = distanceSqr[(low + high) >>> 1];
+                int i = low;
+                int j = high;
+                while (i <= j) {
+                    while (distanceSqr[i] < pivot) i++;
+                    while (distanceSqr[j] > pivot) j--;
+                    if (i <= j) {
+                        swap(i++, j--);
+                    }
+                }
+                // Recurse into the smaller half to bound the stack depth
+                if (j - low < high - i) {
+                    quickSort(low, j);
+                    low = i;
+                } else {
+                    quickSort(i, high);
+                    high = j;
+                }
+            }
+        }
+
+        private void insertionSort(int low, int high) {
+            for (int i = low + 1; i <= high; i++) {
+                int id = ids[i];
+                double distance = distanceSqr[i];
+                int j = i - 1;
+                while (j >= low && distanceSqr[j] > distance) {
+                    ids[j + 1] = ids[j];
+                    distanceSqr[j + 1] = distanceSqr[j];
+                    j--;
+                }
+                ids[j + 1] = id;
+                distanceSqr[j + 1] = distance;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+            double distance = distanceSqr[a];
+            distanceSqr[a] = distanceSqr[b];
+            distanceSqr[b] = distance;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int id(int index) {
+            return ids[index];
+        }
+
+        public double distanceSqr(int index) {
+            return distanceSqr[index];
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package com.turtletracker.core;
+
+import java.util.function.IntPredicate;
+
+/**
+ * Minecraft-independent tracking pipeline
+ *
+ * One tick is split into the same phases the mod times: {@link #updateGrid} keeps the
+ * spatial grid in sync with the entities, {@link #shouldScan} decides whether the rest
+ * runs at all, {@link #query} collects the entities in range nearest-first,
+ * {@link #filter} drops the ones outside the view, {@link #updateVisibility} spends the
+ * raycast budget on the remaining ones and {@link #publishSnapshot} stages and publishes
+ * the result. Entities and line-of-sight come in through {@link EntityPositions} and
+ * {@link OcclusionOracle}, so the whole pipeline runs without a game instance.
+ *
+ * Single-threaded; the per-scan arrays are reused, so a steady-state tick does not allocate.
+ */
+public class TrackerCore {
+
+    // How far outside the search volume an entity's movement still counts as activity (blocks)
+    private static final double NEAR_VOLUME_MARGIN = 2.0;
+
+    private final SpatialGrid spatialGrid = new SpatialGrid();
+    private final SpatialGrid.QueryResult rangeResult = new SpatialGrid.QueryResult();
+    private final VisibilityScheduler visibilityScheduler;
+    private final ScanScheduler scanScheduler;
+    private final TrackerSnapshot.Builder snapshotBuilder = new TrackerSnapshot.Builder();
+    private TrackerSnapshot snapshot = TrackerSnapshot.EMPTY;
+
+    // Entities in range this scan (indices into the EntityPositions), nearest-first
+    private int[] inRange = new int[64];
+    private int inRangeCount = 0;
+
+    // Per in-range slot: did the entity pass the view filter
+    private boolean[] inView = new boolean[64];
+
+    // In-range slots that passed the view filter; visibility handles index this
+    private int[] inViewSlots = new int[64];
+    private int inViewCount = 0;
+
+    // Raycast callback handed to the scheduler; reads the fields below so no lambda is allocated per tick
+    private final IntPredicate raycastHandle = this::raycastAt;
+    private EntityPositions currentEntities;
+    private OcclusionOracle currentOracle;
+    private double currentEyeX;
+    private double currentEyeY;
+    private double currentEyeZ;
+
+    // Monotonic tick counter used for visibility cache ages
+    private long tick = 0;
+
+    /**
+     * @param visibilityScheduler Raycast budget and visibility cache
+     * @param scanScheduler Decides which ticks run the full scan
+     */
+    public TrackerCore(VisibilityScheduler visibilityScheduler, ScanScheduler scanScheduler) {
+        this.visibilityScheduler = visibilityScheduler;
+        this.scanScheduler = scanScheduler;
+    }
+
+    /**
+     * Move every entity to its current position in the spatial grid
+     *
+     * @param entities Every entity the core should know about
+     * @return Largest squared distance any entity moved since the previous call
+     */
+    public double updateGrid(EntityPositions entities) {
+        double maxMoveSqr = 0.0;
+        for (int i = 0; i < entities.size(); i++) {
+            maxMoveSqr = Math.max(maxMoveSqr,
+                spatialGrid.update(entities.id(i), entities.x(i), entities.y(i), entities.z(i)));
+        }
+        return maxMoveSqr;
+    }
+
+    /**
+     * Move every entity to its current position in the spatial grid, but only report the
+     * movement of entities in or near the search volume
+     * An entity wandering far outside the volume cannot change the next scan's result, so
+     * it must not keep the scan scheduler awake. "Near" is the volume's bounding box widened
+     * by a small margin, which also catches an entity that is about to walk in.
+     *
+     * @param entities Every entity the core should know about
+     * @param centerX Search centre X
+     * @param centerY Search centre Y
+     * @param centerZ Search centre Z
+     * @param radius Search radius
+     * @param cylinder Search a vertical cylinder instead of a sphere
+     * @param halfHeight Vertical reach of the cylinder
+     * @return Largest squared distance an entity near the volume moved since the previous call
+     */
+    public double updateGrid(EntityPositions entities, double centerX, double centerY, double centerZ,
+                             double radius, boolean cylinder, double halfHeight) {
+        double reach = radius + NEAR_VOLUME_MARGIN;
+        double verticalReach = (cylinder ? halfHeight : radius) + NEAR_VOLUME_MARGIN;
+        double maxMoveSqr = 0.0;
+        for (int i = 0; i < entities.size(); i++) {
+            double x = entities.x(i);
+            double y = entities.y(i);
+            double z = entities.z(i);
+            double moveSqr = spatialGrid.update(entities.id(i), x, y, z);
+            if (Math.abs(x - centerX) <= reach && Math.abs(z - centerZ) <= reach
+                    && Math.abs(y - centerY) <= verticalReach) {
+                maxMoveSqr = Math.max(maxMoveSqr, moveSqr);
+            }
+        }
+        return maxMoveSqr;
+    }
+
+    /**
+     * Advance the tick and ask the scan scheduler whether the full scan runs
+     * Call exactly once per tick, after {@link #updateGrid}
+     *
+     * @param churn Monotonic counter of entity and world changes
+     * @return true if query, filter, visibility and snapshot should run this tick
+     */
+    public boolean shouldScan(double playerX, double playerY, double playerZ, float yaw, float pitch,
+                              double maxMoveSqr, long churn) {
+        tick++;
+        return scanScheduler.shouldScan(playerX, playerY, playerZ, yaw, pitch, maxMoveSqr, churn);
+    }
+
+    /**
+     * Collect the entities inside the search volume, nearest-first
+     *
+     * @param entities The same view passed to {@link #updateGrid}
+     * @param centerX Search centre X
+     * @param centerY Search centre Y
+     * @param centerZ Search centre Z
+     * @param radius Search radius
+     * @param cylinder Search a vertical cylinder instead of a sphere
+     * @param halfHeight Vertical reach of the cylinder
+     */
+    public void query(EntityPositions entities, double centerX, double centerY, double centerZ,
+                      double radius, boolean cylinder, double halfHeight) {
+        inRangeCount = 0;
+        inViewCount = 0;
+
+        if (cylinder) {
+            spatialGrid.queryCylinder(centerX, centerY, centerZ, radius, halfHeight, rangeResult);
+        } else {
+            spatialGrid.querySphere(centerX, centerY, centerZ, radius, rangeResult);
+        }
+        rangeResult.sortByDistance();
+
+        if (inRange.length < rangeResult.size()) {
+            inRange = new int[Math.max(rangeResult.size(), inRange.length * 2)];
+        }
+        for (int i = 0; i < rangeResult.size(); i++) {
+            int index = entities.indexOf(rangeResult.id(i));
+            if (index >= 0) {
+                inRange[inRangeCount++] = index;
+            }
+        }
+    }
+
+    /**
+     * Test every entity in range against a view filter
+     *
+     * @param entities The view passed to {@link #query}
+     * @param filter The box test, or {@link ViewFilter#ALL}
+     * @return Number of entities the filter rejected
+     */
+    public int filter(EntityPositions entities, ViewFilter filter) {
+        if (inView.length < inRangeCount) {
+            int newSize = Math.max(inRangeCount, inView.length * 2);
+            inView = new boolean[newSize];
+            inViewSlots = new int[newSize];
+        }
+
+        inViewCount = 0;
+        for (int slot = 0; slot < inRangeCount; slot++) {
+            int index = inRange[slot];
+            double halfWidth = entities.width(index) / 2.0;
+            double x = entities.x(index);
+            double y = entities.y(index);
+            double z = entities.z(index);
+            boolean visibleOnScreen = filter.isBoxInView(
+                x - halfWidth, y, z - halfWidth, x + halfWidth, y + entities.height(index), z + halfWidth);
+            inView[slot] = visibleOnScreen;
+            if (visibleOnScreen) {
+                inViewSlots[inViewCount++] = slot;
+            }
+        }
+        return inRangeCount - inViewCount;
+    }
+
+    /**
+     * Queue every entity that passed the filter and spend this tick's raycast budget
+     *
+     * @param entities The view passed to {@link #query}
+     * @param eyeX Observer eye X
+     * @param eyeY Observer eye Y
+     * @param eyeZ Observer eye Z
+     * @param oracle Line-of-sight test for the entities that need a fresh result
+     */
+    public void updateVisibility(EntityPositions entities, double eyeX, double eyeY, double eyeZ,
+                                 OcclusionOracle oracle) {
+        visibilityScheduler.beginTick(tick);
+        for (int handle = 0; handle < inViewCount; handle++) {
+            int index = inRange[inViewSlots[handle]];
+            visibilityScheduler.request(handle, entities.id(index),
+                entities.x(index) - eyeX,
+                entities.y(index) + entities.eyeHeight(index) - eyeY,
+                entities.z(index) - eyeZ);
+        }
+
+        currentEntities = entities;
+        currentOracle = oracle;
+        currentEyeX = eyeX;
+        currentEyeY = eyeY;
+        currentEyeZ = eyeZ;
+        visibilityScheduler.runRaycasts(raycastHandle);
+        currentEntities = null;
+        currentOracle = null;
+    }
+
+    private boolean raycastAt(int handle) {
+        int index = inRange[inViewSlots[handle]];
+        return currentOracle.isLineClear(currentEyeX, currentEyeY, currentEyeZ,
+            currentEntities.x(index), currentEntities.y(index) + currentEntities.eyeHeight(index),
+            currentEntities.z(index));
+    }
+
+    /**
+     * Stage every entity in range and publish the snapshot
+     * An entity counts as visible when it passed the filter and the given test accepts its id
+     *
+     * @param entities The view passed to {@link #query}
+     * @param visibleById Visibility by entity id (e.g. {@link #isVisible} or an off-thread result)
+     * @return The published snapshot; the previous instance when nothing changed
+     */
+    public TrackerSnapshot publishSnapshot(EntityPositions entities, IntPredicate visibleById) {
+        snapshotBuilder.reset();
+        for (int slot = 0; slot < inRangeCount; slot++) {
+            int index = inRange[slot];
+            int id = entities.id(index);
+            snapshotBuilder.add(id, entities.x(index), entities.y(index), entities.z(index),
+                entities.width(index), entities.height(index), inView[slot] && visibleById.test(id));
+        }
+        snapshot = snapshotBuilder.publish(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Drop this scan's results and publish an empty snapshot (no observer)
+     */
+    public void publishEmpty() {
+        inRangeCount = 0;
+        inViewCount = 0;
+        snapshotBuilder.reset();
+        snapshot = snapshotBuilder.publish(snapshot);
+    }
+
+    /**
+     * Forget cached visibility and scan history, e.g. when entity ids stop being meaningful
+     */
+    public void reset() {
+        scanScheduler.reset();
+        visibilityScheduler.clear();
+        publishEmpty();
+    }
+
+    /**
+     * Remove an entity from the spatial grid
+     */
+    public void onEntityRemoved(int entityId) {
+        spatialGrid.remove(entityId);
+    }
+
+    /**
+     * Remove every entity from the spatial grid
+     */
+    public void onEntitiesCleared() {
+        spatialGrid.clear();
+    }
+
+    /**
+     * @return The cached visibility of an entity (false if it was never checked)
+     */
+    public boolean isVisible(int entityId) {
+        return visibilityScheduler.isVisible(entityId);
+    }
+
+    /**
+     * @return Number of entities in range after the last query
+     */
+    public int inRangeCount() {
+        return inRangeCount;
+    }
+
+    /**
+     * @param slot Between 0 and inRangeCount() - 1 (snapshot order)
+     * @return The entity's index in the view passed to {@link #query}
+     */
+    public int inRange(int slot) {
+        return inRange[slot];
+    }
+
+    /**
+     * @return Number of entities that passed the last filter
+     */
+    public int inViewCount() {
+        return inViewCount;
+    }
+
+    /**
+     * @param handle Between 0 and inViewCount() - 1
+     * @return The entity's index in the view passed to {@link #query}
+     */
+    public int inView(int handle) {
+        return inRange[inViewSlots[handle]];
+    }
+
+    public TrackerSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public SpatialGrid getSpatialGrid() {
+        return spatialGrid;
+    }
+
+    public VisibilityScheduler getVisibilityScheduler() {
+        return visibilityScheduler;
+    }
+
+    public ScanScheduler getScanScheduler() {
+        return scanScheduler;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+}
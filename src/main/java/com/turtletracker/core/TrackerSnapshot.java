@@ -0,0 +1,217 @@
+package com.turtletracker.core;
+
+import java.util.Arrays;
+
+/**
+ * Immutable, versioned view of the tracker state stored as primitive arrays
+ *
+ * A new snapshot is only built when the tracked set, a position or a visibility flag
+ * actually changed, and every rebuild bumps {@link #getVersion()}. Consumers that cache
+ * derived data (render geometry, HUD text, ...) can compare versions and skip their work
+ * entirely while nothing moves. Reading a snapshot never allocates.
+ */
+public final class TrackerSnapshot {
+
+    // Shared snapshot used before anything has been tracked
+    public static final TrackerSnapshot EMPTY = new TrackerSnapshot(0, 0,
+        new int[0], new double[0], new double[0], new double[0], new float[0], new float[0], new long[0], 0);
+
+    private final long version;
+    private final int size;
+    private final int[] ids;
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+    private final float[] width;
+    private final float[] height;
+    private final long[] visibleBits;
+    private final int visibleCount;
+
+    private TrackerSnapshot(long version, int size, int[] ids, double[] x, double[] y, double[] z,
+                            float[] width, float[] height, long[] visibleBits, int visibleCount) {
+        this.version = version;
+        this.size = size;
+        this.ids = ids;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.width = width;
+        this.height = height;
+        this.visibleBits = visibleBits;
+        this.visibleCount = visibleCount;
+    }
+
+    /**
+     * @return Monotonic version; changes exactly when the snapshot content changes
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return Number of tracked turtles
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Number of tracked turtles with a clear line of sight
+     */
+    public int visibleCount() {
+        return visibleCount;
+    }
+
+    public int id(int index) {
+        return ids[index];
+    }
+
+    public double x(int index) {
+        return x[index];
+    }
+
+    public double y(int index) {
+        return y[index];
+    }
+
+    public double z(int index) {
+        return z[index];
+    }
+
+    /**
+     * @return Bounding box width of the turtle (babies are smaller)
+     */
+    public float width(int index) {
+        return width[index];
+    }
+
+    /**
+     * @return Bounding box height of the turtle
+     */
+    public float height(int index) {
+        return height[index];
+    }
+
+    public boolean isVisible(int index) {
+        return (visibleBits[index >>> 6] & (1L << (index & 63))) != 0;
+    }
+
+    /**
+     * Hash of the content, independent of the version
+     * Two snapshots with the same entries, order and visibility hash the same, even across runs
+     *
+     * @return 64-bit FNV-1a style hash
+     */
+    public long contentHash() {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < size; i++) {
+            hash = mix(hash, ids[i]);
+            hash = mix(hash, Double.doubleToLongBits(x[i]));
+            hash = mix(hash, Double.doubleToLongBits(y[i]));
+            hash = mix(hash, Double.doubleToLongBits(z[i]));
+            hash = mix(hash, Float.floatToIntBits(width[i]));
+            hash = mix(hash, Float.floatToIntBits(height[i]));
+        }
+        for (long word : visibleBits) {
+            hash = mix(hash, word);
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        return (hash ^ value) * 0x100000001B3L;
+    }
+
+    /**
+     * Reusable staging area the tracker fills every tick
+     * {@link #publish(TrackerSnapshot)} compares it with the current snapshot and only
+     * allocates a new one when something differs
+     */
+    public static final class Builder {
+        private int size;
+        private int[] ids = new int[64];
+        private double[] x = new double[64];
+        private double[] y = new double[64];
+        private double[] z = new double[64];
+        private float[] width = new float[64];
+        private float[] height = new float[64];
+        private long[] visibleBits = new long[1];
+        private int visibleCount;
+
+        /**
+         * Start staging a new tick
+         */
+        public void reset() {
+            size = 0;
+            visibleCount = 0;
+            Arrays.fill(visibleBits, 0L);
+        }
+
+        /**
+         * Stage one tracked turtle
+         */
+        public void add(int id, double posX, double posY, double posZ, float bbWidth, float bbHeight, boolean visible) {
+            ensureCapacity(size + 1);
+            ids[size] = id;
+            x[size] = posX;
+            y[size] = posY;
+            z[size] = posZ;
+            width[size] = bbWidth;
+            height[size] = bbHeight;
+            if (visible) {
+                visibleBits[size >>> 6] |= 1L << (size & 63);
+                visibleCount++;
+            }
+            size++;
+        }
+
+        /**
+         * @param current The currently published snapshot
+         * @return {@code current} when the staged state is identical, otherwise a new snapshot with the next version
+         */
+        public TrackerSnapshot publish(TrackerSnapshot current) {
+            if (matches(current)) {
+                return current;
+            }
+            int words = (size + 63) >>> 6;
+            return new TrackerSnapshot(current.version + 1, size,
+                Arrays.copyOf(ids, size), Arrays.copyOf(x, size), Arrays.copyOf(y, size), Arrays.copyOf(z, size),
+                Arrays.copyOf(width, size), Arrays.copyOf(height, size),
+                Arrays.copyOf(visibleBits, words), visibleCount);
+        }
+
+        private boolean matches(TrackerSnapshot current) {
+            if (current.size != size || current.visibleCount != visibleCount) {
+                return false;
+            }
+            for (int i = 0; i < size; i++) {
+                if (current.ids[i] != ids[i] || current.x[i] != x[i] || current.y[i] != y[i] || current.z[i] != z[i]
+                        || current.width[i] != width[i] || current.height[i] != height[i]) {
+                    return false;
+                }
+            }
+            for (int w = 0; w < current.visibleBits.length; w++) {
+                if (current.visibleBits[w] != visibleBits[w]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void ensureCapacity(int needed) {
+            if (needed > ids.length) {
+                int newSize = Math.max(needed, ids.length * 2);
+                ids = Arrays.copyOf(ids, newSize);
+                x = Arrays.copyOf(x, newSize);
+                y = Arrays.copyOf(y, newSize);
+                z = Arrays.copyOf(z, newSize);
+                width = Arrays.copyOf(width, newSize);
+                height = Arrays.copyOf(height, newSize);
+            }
+            int words = (needed + 63) >>> 6;
+            if (words > visibleBits.length) {
+                visibleBits = Arrays.copyOf(visibleBits, Math.max(words, visibleBits.length * 2));
+            }
+        }
+    }
+}
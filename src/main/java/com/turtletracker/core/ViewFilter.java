@@ -0,0 +1,16 @@
+package com.turtletracker.core;
+
+/**
+ * Box test a {@link TrackerCore} uses to keep off-screen entities out of the visibility queue
+ */
+@FunctionalInterface
+public interface ViewFilter {
+
+    // Accepts every box (filtering disabled)
+    ViewFilter ALL = (minX, minY, minZ, maxX, maxY, maxZ) -> true;
+
+    /**
+     * @return true if the world-space box may be on screen
+     */
+    boolean isBoxInView(double minX, double minY, double minZ, double maxX, double maxY, double maxZ);
+}
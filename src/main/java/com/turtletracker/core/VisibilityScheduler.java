@@ -0,0 +1,292 @@
+package com.turtletracker.core;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Time-sliced line-of-sight scheduler
+ *
+ * Keeps one cached visibility result per entity id and only re-checks a turtle when
+ * its position relative to the player moved past a threshold or its result is older
+ * than a TTL. At most {@code budget} raycasts run per tick; stale turtles that do not
+ * fit are served in round-robin order on the following ticks and keep their last
+ * known result until then. The relative position a result is compared against is the
+ * one it was actually raycast at, so a deferred turtle stays stale until it is served.
+ *
+ * Usage per tick:
+ * 1. {@link #beginTick(long)}
+ * 2. {@link #request(int, int, double, double, double)} for each turtle in range
+ * 3. {@link #runRaycasts(IntPredicate)} to spend the budget
+ * 4. {@link #isVisible(int)} to read the results
+ */
+public class VisibilityScheduler {
+
+    // Ticks without a request after which a cache entry is dropped
+    private static final int EVICT_AFTER_TICKS = 100;
+
+    // Entity id -> cache slot
+    private final Int2IntOpenHashMap slotById = new Int2IntOpenHashMap();
+
+    // Cache entries stored as parallel primitive arrays indexed by slot
+    private int[] entryIds = new int[64];
+    private boolean[] entryVisible = new boolean[64];
+    private boolean[] entryChecked = new boolean[64];
+    private long[] entryCheckedTick = new long[64];
+    private long[] entryRequestedTick = new long[64];
+    private double[] entryRelX = new double[64];
+    private double[] entryRelY = new double[64];
+    private double[] entryRelZ = new double[64];
+    // Relative position at the latest request, committed to entryRel* once the raycast runs
+    private double[] entryPendingRelX = new double[64];
+    private double[] entryPendingRelY = new double[64];
+    private double[] entryPendingRelZ = new double[64];
+    private int[] entryHandle = new int[64];
+
+    // Free cache slots ready for reuse
+    private int[] freeSlots = new int[64];
+    private int freeCount = 0;
+    private int slotCount = 0;
+
+    // Cache slots that need a raycast this tick (never-checked ones are kept separate so they go first)
+    private int[] pendingNew = new int[64];
+    private int pendingNewCount = 0;
+    private int[] pendingStale = new int[64];
+    private int pendingStaleCount = 0;
+
+    // Rotates the starting point through the stale list so no turtle is starved
+    private int roundRobinCursor = 0;
+
+    private int budget;
+    private int ttlTicks;
+    private double moveThresholdSqr;
+    private long currentTick;
+
+    // Statistics
+    private long totalRequests = 0;
+    private long totalHits = 0;
+    private long totalRaycasts = 0;
+    private int lastTickRequests = 0;
+    private int lastTickRaycasts = 0;
+    private int lastTickDeferred = 0;
+
+    /**
+     * @param budget Maximum raycasts per tick
+     * @param ttlTicks Age in ticks after which a cached result is re-checked
+     * @param moveThreshold Relative movement in blocks after which a cached result is re-checked
+     */
+    public VisibilityScheduler(int budget, int ttlTicks, double moveThreshold) {
+        this.budget = Math.max(1, budget);
+        this.ttlTicks = Math.max(1, ttlTicks);
+        this.moveThresholdSqr = moveThreshold * moveThreshold;
+        slotById.defaultReturnValue(-1);
+    }
+
+    /**
+     * Start a new tick - clears the pending queues and occasionally evicts forgotten turtles
+     *
+     * @param tick Monotonic tick counter
+     */
+    public void beginTick(long tick) {
+        currentTick = tick;
+        pendingNewCount = 0;
+        pendingStaleCount = 0;
+        lastTickRequests = 0;
+        lastTickRaycasts = 0;
+        lastTickDeferred = 0;
+
+        if (tick % EVICT_AFTER_TICKS == 0) {
+            evictForgotten();
+        }
+    }
+
+    /**
+     * Register a turtle for this tick and queue it for a raycast if its cached result is stale
+     *
+     * @param handle Caller-side index passed back to the raycast function
+     * @param entityId The turtle's entity id
+     * @param relX Turtle eye X minus player eye X
+     * @param relY Turtle eye Y minus player eye Y
+     * @param relZ Turtle eye Z minus player eye Z
+     */
+    public void request(int handle, int entityId, double relX, double relY, double relZ) {
+        totalRequests++;
+        lastTickRequests++;
+
+        int slot = slotById.get(entityId);
+        if (slot < 0) {
+            slot = allocateSlot(entityId);
+        }
+        entryRequestedTick[slot] = currentTick;
+        entryHandle[slot] = handle;
+
+        if (!entryChecked[slot]) {
+            pendingNew = push(pendingNew, pendingNewCount++, slot);
+            storePendingRelative(slot, relX, relY, relZ);
+            return;
+        }
+
+        double dx = relX - entryRelX[slot];
+        double dy = relY - entryRelY[slot];
+        double dz = relZ - entryRelZ[slot];
+        boolean moved = dx * dx + dy * dy + dz * dz > moveThresholdSqr;
+        boolean expired = currentTick - entryCheckedTick[slot] >= ttlTicks;
+
+        if (moved || expired) {
+            pendingStale = push(pendingStale, pendingStaleCount++, slot);
+            storePendingRelative(slot, relX, relY, relZ);
+        } else {
+            totalHits++;
+        }
+    }
+
+    /**
+     * Spend this tick's raycast budget on the queued turtles
+     * Never-checked turtles go first, then stale ones starting at the round-robin cursor
+     *
+     * @param raycast Returns true when the turtle behind the given handle is visible
+     */
+    public void runRaycasts(IntPredicate raycast) {
+        int remaining = budget;
+
+        for (int i = 0; i < pendingNewCount && remaining > 0; i++, remaining--) {
+            storeResult(pendingNew[i], raycast);
+        }
+        int deferred = Math.max(0, pendingNewCount - budget);
+
+        if (pendingStaleCount > 0) {
+            int start = roundRobinCursor % pendingStaleCount;
+            int served = Math.min(remaining, pendingStaleCount);
+            for (int i = 0; i < served; i++) {
+                storeResult(pendingStale[(start + i) % pendingStaleCount], raycast);
+            }
+            roundRobinCursor = start + served;
+            deferred += pendingStaleCount - served;
+        }
+
+        lastTickDeferred = deferred;
+    }
+
+    /**
+     * @param entityId The turtle's entity id
+     * @return The cached visibility (false if the turtle has never been checked)
+     */
+    public boolean isVisible(int entityId) {
+        int slot = slotById.get(entityId);
+        return slot >= 0 && entryVisible[slot];
+    }
+
+    /**
+     * Forget every cached result (used on world change)
+     */
+    public void clear() {
+        slotById.clear();
+        slotCount = 0;
+        freeCount = 0;
+        roundRobinCursor = 0;
+    }
+
+    private void storeResult(int slot, IntPredicate raycast) {
+        entryVisible[slot] = raycast.test(entryHandle[slot]);
+        entryChecked[slot] = true;
+        entryCheckedTick[slot] = currentTick;
+        entryRelX[slot] = entryPendingRelX[slot];
+        entryRelY[slot] = entryPendingRelY[slot];
+        entryRelZ[slot] = entryPendingRelZ[slot];
+        totalRaycasts++;
+        lastTickRaycasts++;
+    }
+
+    private void storePendingRelative(int slot, double relX, double relY, double relZ) {
+        entryPendingRelX[slot] = relX;
+        entryPendingRelY[slot] = relY;
+        entryPendingRelZ[slot] = relZ;
+    }
+
+    private int allocateSlot(int entityId) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            slot = slotCount++;
+            ensureCapacity(slotCount);
+        }
+        entryIds[slot] = entityId;
+        entryVisible[slot] = false;
+        entryChecked[slot] = false;
+        slotById.put(entityId, slot);
+        return slot;
+    }
+
+    private void evictForgotten() {
+        for (int slot = 0; slot < slotCount; slot++) {
+            int id = entryIds[slot];
+            if (slotById.get(id) == slot && currentTick - entryRequestedTick[slot] > EVICT_AFTER_TICKS) {
+                slotById.remove(id);
+                freeSlots = push(freeSlots, freeCount++, slot);
+            }
+        }
+    }
+
+    private void ensureCapacity(int size) {
+        if (size <= entryIds.length) {
+            return;
+        }
+        int newSize = Math.max(size, entryIds.length * 2);
+        entryIds = Arrays.copyOf(entryIds, newSize);
+        entryVisible = Arrays.copyOf(entryVisible, newSize);
+        entryChecked = Arrays.copyOf(entryChecked, newSize);
+        entryCheckedTick = Arrays.copyOf(entryCheckedTick, newSize);
+        entryRequestedTick = Arrays.copyOf(entryRequestedTick, newSize);
+        entryRelX = Arrays.copyOf(entryRelX, newSize);
+        entryRelY = Arrays.copyOf(entryRelY, newSize);
+        entryRelZ = Arrays.copyOf(entryRelZ, newSize);
+        entryPendingRelX = Arrays.copyOf(entryPendingRelX, newSize);
+        entryPendingRelY = Arrays.copyOf(entryPendingRelY, newSize);
+        entryPendingRelZ = Arrays.copyOf(entryPendingRelZ, newSize);
+        entryHandle = Arrays.copyOf(entryHandle, newSize);
+    }
+
+    private static int[] push(int[] array, int index, int value) {
+        if (index >= array.length) {
+            array = Arrays.copyOf(array, array.length * 2);
+        }
+        array[index] = value;
+        return array;
+    }
+
+    public int getBudget() {
+        return budget;
+    }
+
+    public void setBudget(int budget) {
+        this.budget = Math.max(1, budget);
+    }
+
+    /**
+     * @return Fraction of requests answered from the cache since startup (0 when nothing was requested)
+     */
+    public double getCacheHitRate() {
+        return totalRequests == 0 ? 0.0 : (double) totalHits / totalRequests;
+    }
+
+    public long getTotalRaycasts() {
+        return totalRaycasts;
+    }
+
+    public int getLastTickRequests() {
+        return lastTickRequests;
+    }
+
+    public int getLastTickRaycasts() {
+        return lastTickRaycasts;
+    }
+
+    /**
+     * @return Stale turtles that did not fit into the last tick's budget
+     */
+    public int getLastTickDeferred() {
+        return lastTickDeferred;
+    }
+}
@@ -0,0 +1,75 @@
+package com.turtletracker.core.history;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of sightings stored as primitive arrays
+ * Carries appends and compaction snapshots from the client thread to the log writer
+ */
+public final class SightingBatch {
+
+    private int size;
+    private long[] uuidMost;
+    private long[] uuidLeast;
+    private long[] tick;
+    private double[] x;
+    private double[] y;
+    private double[] z;
+
+    public SightingBatch(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        uuidMost = new long[capacity];
+        uuidLeast = new long[capacity];
+        tick = new long[capacity];
+        x = new double[capacity];
+        y = new double[capacity];
+        z = new double[capacity];
+    }
+
+    public void add(long mostBits, long leastBits, long gameTick, double posX, double posY, double posZ) {
+        if (size == tick.length) {
+            int newSize = size * 2;
+            uuidMost = Arrays.copyOf(uuidMost, newSize);
+            uuidLeast = Arrays.copyOf(uuidLeast, newSize);
+            tick = Arrays.copyOf(tick, newSize);
+            x = Arrays.copyOf(x, newSize);
+            y = Arrays.copyOf(y, newSize);
+            z = Arrays.copyOf(z, newSize);
+        }
+        uuidMost[size] = mostBits;
+        uuidLeast[size] = leastBits;
+        tick[size] = gameTick;
+        x[size] = posX;
+        y[size] = posY;
+        z[size] = posZ;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long uuidMost(int index) {
+        return uuidMost[index];
+    }
+
+    public long uuidLeast(int index) {
+        return uuidLeast[index];
+    }
+
+    public long tick(int index) {
+        return tick[index];
+    }
+
+    public double x(int index) {
+        return x[index];
+    }
+
+    public double y(int index) {
+        return y[index];
+    }
+
+    public double z(int index) {
+        return z[index];
+    }
+}
@@ -0,0 +1,149 @@
+package com.turtletracker.core.history;
+
+import com.turtletracker.core.SpatialGrid;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Latest known sighting of every turtle, bucketed by region
+ *
+ * However many records a {@link SightingLog} holds, only the newest one per turtle lives
+ * here, and positions are kept in a {@link SpatialGrid} of 128 block regions keyed by slot,
+ * so "last seen near X" queries only visit the regions around X. History is much sparser
+ * than the live tracker's view, hence the coarser cells. Slots are dense and never reused,
+ * so a slot stays valid for as long as the index is not cleared.
+ *
+ * Not thread-safe: the client thread owns the live index.
+ */
+public final class SightingIndex {
+
+    // Regions are 128 blocks (8x8 chunks) across
+    private static final int REGION_SHIFT = 7;
+
+    private final Object2IntOpenHashMap<UUID> slotByUuid = new Object2IntOpenHashMap<>();
+    private final SpatialGrid grid = new SpatialGrid(REGION_SHIFT);
+
+    private UUID[] uuids = new UUID[64];
+    private long[] tick = new long[64];
+    private double[] x = new double[64];
+    private double[] y = new double[64];
+    private double[] z = new double[64];
+    private int size = 0;
+
+    public SightingIndex() {
+        slotByUuid.defaultReturnValue(-1);
+    }
+
+    /**
+     * Record a sighting unless a newer one for the same turtle is already known
+     *
+     * @return The turtle's slot
+     */
+    public int update(UUID uuid, long gameTick, double posX, double posY, double posZ) {
+        int slot = slotByUuid.getInt(uuid);
+        if (slot < 0) {
+            slot = size++;
+            ensureCapacity(size);
+            uuids[slot] = uuid;
+            slotByUuid.put(uuid, slot);
+        } else if (gameTick < tick[slot]) {
+            return slot;
+        }
+        tick[slot] = gameTick;
+        x[slot] = posX;
+        y[slot] = posY;
+        z[slot] = posZ;
+        grid.update(slot, posX, posY, posZ);
+        return slot;
+    }
+
+    /**
+     * Add every entry of another index, keeping the newer sighting where both know a turtle
+     */
+    public void mergeFrom(SightingIndex other) {
+        for (int slot = 0; slot < other.size; slot++) {
+            update(other.uuids[slot], other.tick[slot], other.x[slot], other.y[slot], other.z[slot]);
+        }
+    }
+
+    /**
+     * Copy the latest sighting of every turtle, in slot order
+     */
+    public SightingBatch toBatch() {
+        SightingBatch batch = new SightingBatch(size);
+        for (int slot = 0; slot < size; slot++) {
+            batch.add(uuids[slot].getMostSignificantBits(), uuids[slot].getLeastSignificantBits(),
+                tick[slot], x[slot], y[slot], z[slot]);
+        }
+        return batch;
+    }
+
+    /**
+     * Find the K turtles last seen closest to a point
+     *
+     * @param result Cleared and filled nearest-first with slots and squared distances
+     */
+    public void findNearest(double cx, double cy, double cz, int k, double maxRadius, SpatialGrid.QueryResult result) {
+        grid.queryNearest(cx, cy, cz, k, maxRadius, result);
+    }
+
+    /**
+     * Find every turtle last seen within a sphere
+     *
+     * @param result Cleared and filled with slots and squared distances
+     */
+    public void findWithin(double cx, double cy, double cz, double radius, SpatialGrid.QueryResult result) {
+        grid.querySphere(cx, cy, cz, radius, result);
+    }
+
+    /**
+     * @return The turtle's slot, or -1 if it has never been seen
+     */
+    public int slotOf(UUID uuid) {
+        return slotByUuid.getInt(uuid);
+    }
+
+    /**
+     * @return Number of distinct turtles known
+     */
+    public int size() {
+        return size;
+    }
+
+    public UUID uuid(int slot) {
+        return uuids[slot];
+    }
+
+    /**
+     * @return Game tick of the latest sighting
+     */
+    public long tick(int slot) {
+        return tick[slot];
+    }
+
+    public double x(int slot) {
+        return x[slot];
+    }
+
+    public double y(int slot) {
+        return y[slot];
+    }
+
+    public double z(int slot) {
+        return z[slot];
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= uuids.length) {
+            return;
+        }
+        int newSize = Math.max(needed, uuids.length * 2);
+        uuids = Arrays.copyOf(uuids, newSize);
+        tick = Arrays.copyOf(tick, newSize);
+        x = Arrays.copyOf(x, newSize);
+        y = Arrays.copyOf(y, newSize);
+        z = Arrays.copyOf(z, newSize);
+    }
+}
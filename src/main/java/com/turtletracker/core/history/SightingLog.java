@@ -0,0 +1,210 @@
+package com.turtletracker.core.history;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only, memory-mapped file of turtle sightings
+ *
+ * Layout: a 32 byte header (magic, format version, committed record count) followed by
+ * fixed-size records of UUID, game tick and position. Appends are plain stores into the
+ * mapping; the record count in the header is bumped after the record itself, so a crash
+ * leaves at most one torn record past the committed end, which is ignored on reopen.
+ * The mapping grows by doubling, which also extends the file.
+ *
+ * Not thread-safe: one thread owns a log (see {@link SightingStore}).
+ */
+public final class SightingLog implements Closeable {
+
+    static final int MAGIC = 0x5454534C; // "TTSL"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int RECORD_BYTES = 48;
+
+    private static final int COUNT_OFFSET = 8;
+    private static final long INITIAL_BYTES = 1 << 20;
+
+    // One mapping covers the whole file, so a log is capped at what a single buffer can address
+    private static final long MAX_BYTES = Integer.MAX_VALUE;
+
+    private final Path file;
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long records;
+
+    private SightingLog(Path file, FileChannel channel, MappedByteBuffer buffer, long records) {
+        this.file = file;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.records = records;
+    }
+
+    /**
+     * Open a log, creating it if it does not exist yet
+     *
+     * @param file The log file
+     * @return The open log, positioned after its last committed record
+     * @throws IOException If the file cannot be opened or is not a sighting log
+     */
+    public static SightingLog open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = channel.size();
+            if (size == 0) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, INITIAL_BYTES);
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, FORMAT_VERSION);
+                buffer.putLong(COUNT_OFFSET, 0L);
+                return new SightingLog(file, channel, buffer, 0);
+            }
+            if (size < HEADER_BYTES || size > MAX_BYTES) {
+                throw new IOException("Not a sighting log: " + file);
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a sighting log: " + file);
+            }
+            int version = buffer.getInt(4);
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported sighting log version " + version + ": " + file);
+            }
+            // A count past the end of the file means the header was written but the file was cut
+            long records = Math.min(buffer.getLong(COUNT_OFFSET), (size - HEADER_BYTES) / RECORD_BYTES);
+            return new SightingLog(file, channel, buffer, Math.max(0, records));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Write a complete log in one go with ordinary file writes
+     * Used for compaction: the file is only renamed into place once it is fully written
+     *
+     * @param file The file to create or overwrite
+     * @param sightings Records to write, in order
+     * @throws IOException If writing fails
+     */
+    static void writeAll(Path file, SightingBatch sightings) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer chunk = ByteBuffer.allocate(HEADER_BYTES + RECORD_BYTES * 1024);
+            chunk.putInt(MAGIC);
+            chunk.putInt(FORMAT_VERSION);
+            chunk.putLong(sightings.size());
+            chunk.position(HEADER_BYTES);
+            for (int i = 0; i < sightings.size(); i++) {
+                if (chunk.remaining() < RECORD_BYTES) {
+                    drain(channel, chunk);
+                }
+                chunk.putLong(sightings.uuidMost(i));
+                chunk.putLong(sightings.uuidLeast(i));
+                chunk.putLong(sightings.tick(i));
+                chunk.putDouble(sightings.x(i));
+                chunk.putDouble(sightings.y(i));
+                chunk.putDouble(sightings.z(i));
+            }
+            drain(channel, chunk);
+            channel.force(true);
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer chunk) throws IOException {
+        chunk.flip();
+        while (chunk.hasRemaining()) {
+            channel.write(chunk);
+        }
+        chunk.clear();
+    }
+
+    /**
+     * Append one sighting
+     *
+     * @throws IOException If the log is full or the file cannot grow
+     */
+    public void append(long uuidMost, long uuidLeast, long tick, double x, double y, double z) throws IOException {
+        int offset = Math.toIntExact(HEADER_BYTES + records * RECORD_BYTES);
+        if (offset + RECORD_BYTES > buffer.capacity()) {
+            grow(offset + RECORD_BYTES);
+        }
+        buffer.putLong(offset, uuidMost);
+        buffer.putLong(offset + 8, uuidLeast);
+        buffer.putLong(offset + 16, tick);
+        buffer.putDouble(offset + 24, x);
+        buffer.putDouble(offset + 32, y);
+        buffer.putDouble(offset + 40, z);
+        records++;
+        buffer.putLong(COUNT_OFFSET, records);
+    }
+
+    private void grow(long needed) throws IOException {
+        long newSize = Math.max(needed, (long) buffer.capacity() * 2);
+        if (newSize > MAX_BYTES) {
+            if (needed > MAX_BYTES) {
+                throw new IOException("Sighting log is full: " + file);
+            }
+            newSize = MAX_BYTES;
+        }
+        // Mapping past the end extends the file; the old mapping is released once unreachable
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, newSize);
+    }
+
+    /**
+     * Visit every committed record in append order
+     */
+    public void forEach(SightingVisitor visitor) {
+        for (long i = 0; i < records; i++) {
+            int offset = (int) (HEADER_BYTES + i * RECORD_BYTES);
+            visitor.accept(buffer.getLong(offset), buffer.getLong(offset + 8), buffer.getLong(offset + 16),
+                buffer.getDouble(offset + 24), buffer.getDouble(offset + 32), buffer.getDouble(offset + 40));
+        }
+    }
+
+    /**
+     * @return Number of committed records
+     */
+    public long size() {
+        return records;
+    }
+
+    /**
+     * @return The log file
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Flush the mapping to disk
+     */
+    public void force() {
+        buffer.force();
+    }
+
+    /**
+     * Flush and close the file (the mapping itself is released by the garbage collector)
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            buffer.force();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Receives records read back from a log
+     */
+    @FunctionalInterface
+    public interface SightingVisitor {
+        void accept(long uuidMost, long uuidLeast, long tick, double x, double y, double z);
+    }
+}
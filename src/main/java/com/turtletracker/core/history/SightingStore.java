@@ -0,0 +1,343 @@
+package com.turtletracker.core.history;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Persistent turtle sighting history for one world and dimension
+ *
+ * The client thread records sightings into a live {@link SightingIndex} and queues the
+ * ones worth keeping; {@link #tick()} hands the queue to the writer executor as a single
+ * batch, so the client thread never touches the file. The writer owns the
+ * {@link SightingLog}: it loads the existing log into a separate index (merged into the
+ * live one on a later tick), appends batches and compacts.
+ *
+ * Compaction writes the latest sighting of every turtle to the next log generation
+ * ({@code <name>.<generation>.log}) with ordinary writes, renames it into place and only
+ * then drops the old generation, so a crash at any point leaves one complete log. Old
+ * generations that could not be deleted (still mapped) are removed on the next open.
+ *
+ * The writer must run tasks one at a time and in order; stores for different levels
+ * may share it.
+ */
+public final class SightingStore {
+
+    // Compact once the log holds this many records and several per known turtle
+    private static final long COMPACT_MIN_RECORDS = 1 << 16;
+    private static final int COMPACT_RATIO = 4;
+
+    // A turtle that moved this far since its last logged sighting is logged again right away
+    private static final double LOG_MOVE_DISTANCE = 2.0;
+
+    private final Path directory;
+    private final String name;
+    private final int logIntervalTicks;
+    private final Executor writer;
+    private final Consumer<IOException> errorHandler;
+
+    // Client thread state
+    private final SightingIndex index = new SightingIndex();
+    private long[] loggedTick = new long[64];
+    private double[] loggedX = new double[64];
+    private double[] loggedY = new double[64];
+    private double[] loggedZ = new double[64];
+    private SightingBatch pending = new SightingBatch(64);
+    private long logRecords = 0;
+    private boolean loaded = false;
+    private boolean closed = false;
+
+    // Handed over by the writer once the existing log has been read
+    private volatile SightingIndex loadedIndex;
+    private volatile long loadedRecords;
+
+    // Writer thread state
+    private SightingLog log;
+    private long generation;
+
+    private SightingStore(Path directory, String name, int logIntervalTicks, Executor writer,
+                          Consumer<IOException> errorHandler) {
+        this.directory = directory;
+        this.name = name;
+        this.logIntervalTicks = logIntervalTicks;
+        this.writer = writer;
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Open the history stored under {@code directory/name.*.log}; loading happens on the writer
+     *
+     * @param directory Directory holding the world's logs (created if needed)
+     * @param name File name prefix, one per dimension
+     * @param logIntervalTicks A turtle that stays put is logged at most once per this many ticks
+     * @param writer Serial executor that performs all file work
+     * @param errorHandler Told about write failures (on the writer thread); the store stops persisting after one
+     * @return The store, usable immediately
+     */
+    public static SightingStore open(Path directory, String name, int logIntervalTicks, Executor writer,
+                                     Consumer<IOException> errorHandler) {
+        SightingStore store = new SightingStore(directory, name, Math.max(1, logIntervalTicks), writer, errorHandler);
+        writer.execute(store::load);
+        return store;
+    }
+
+    /**
+     * Client thread: note that a turtle was seen
+     * The live index always takes the sighting; the log only gets it when the turtle moved
+     * noticeably or its last logged sighting is older than the log interval
+     *
+     * @param uuid The turtle's UUID
+     * @param gameTick Level game time
+     */
+    public void record(UUID uuid, long gameTick, double x, double y, double z) {
+        if (closed) {
+            return;
+        }
+        int known = index.slotOf(uuid);
+        int slot = index.update(uuid, gameTick, x, y, z);
+        if (known >= 0) {
+            double dx = x - loggedX[slot];
+            double dy = y - loggedY[slot];
+            double dz = z - loggedZ[slot];
+            boolean moved = dx * dx + dy * dy + dz * dz >= LOG_MOVE_DISTANCE * LOG_MOVE_DISTANCE;
+            if (!moved && gameTick - loggedTick[slot] < logIntervalTicks) {
+                return;
+            }
+        }
+        markLogged(slot, gameTick, x, y, z);
+        pending.add(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), gameTick, x, y, z);
+    }
+
+    /**
+     * Client thread, once per tick: adopt the loaded history, send queued sightings to the writer
+     * and compact when the log has grown well past the number of turtles it describes
+     */
+    public void tick() {
+        if (closed) {
+            return;
+        }
+        if (!loaded && loadedIndex != null) {
+            mergeLoaded();
+        }
+        if (pending.size() > 0) {
+            SightingBatch batch = pending;
+            pending = new SightingBatch(Math.max(64, batch.size()));
+            logRecords += batch.size();
+            writer.execute(() -> append(batch));
+        }
+        if (loaded && logRecords >= COMPACT_MIN_RECORDS && logRecords > (long) index.size() * COMPACT_RATIO) {
+            compact();
+        }
+    }
+
+    /**
+     * Client thread: rewrite the log with only the latest sighting of every turtle
+     *
+     * @return false if the existing history has not finished loading yet
+     */
+    public boolean compact() {
+        if (closed || !loaded) {
+            return false;
+        }
+        // Everything queued before this point is in the snapshot, so the pending batch can go with it
+        pending = new SightingBatch(64);
+        SightingBatch latest = index.toBatch();
+        logRecords = latest.size();
+        writer.execute(() -> rewrite(latest));
+        return true;
+    }
+
+    /**
+     * Client thread: flush queued sightings and close the log on the writer
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        if (pending.size() > 0) {
+            SightingBatch batch = pending;
+            writer.execute(() -> append(batch));
+        }
+        closed = true;
+        writer.execute(this::closeLog);
+    }
+
+    private void mergeLoaded() {
+        int before = index.size();
+        index.mergeFrom(loadedIndex);
+        for (int slot = before; slot < index.size(); slot++) {
+            markLogged(slot, index.tick(slot), index.x(slot), index.y(slot), index.z(slot));
+        }
+        logRecords += loadedRecords;
+        loadedIndex = null;
+        loaded = true;
+    }
+
+    private void markLogged(int slot, long gameTick, double x, double y, double z) {
+        if (slot >= loggedTick.length) {
+            int newSize = Math.max(slot + 1, loggedTick.length * 2);
+            loggedTick = Arrays.copyOf(loggedTick, newSize);
+            loggedX = Arrays.copyOf(loggedX, newSize);
+            loggedY = Arrays.copyOf(loggedY, newSize);
+            loggedZ = Arrays.copyOf(loggedZ, newSize);
+        }
+        loggedTick[slot] = gameTick;
+        loggedX[slot] = x;
+        loggedY[slot] = y;
+        loggedZ[slot] = z;
+    }
+
+    /**
+     * Writer: open the newest generation, read it into an index and drop older generations
+     */
+    private void load() {
+        SightingIndex fromDisk = new SightingIndex();
+        try {
+            Files.createDirectories(directory);
+            generation = findNewestGeneration();
+            log = SightingLog.open(generationFile(generation));
+            log.forEach((most, least, tick, x, y, z) -> fromDisk.update(new UUID(most, least), tick, x, y, z));
+            deleteOlderGenerations();
+        } catch (IOException e) {
+            fail(e);
+        }
+        loadedRecords = log != null ? log.size() : 0;
+        loadedIndex = fromDisk;
+    }
+
+    /**
+     * Writer: append a batch of sightings
+     */
+    private void append(SightingBatch batch) {
+        if (log == null) {
+            return;
+        }
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                log.append(batch.uuidMost(i), batch.uuidLeast(i), batch.tick(i), batch.x(i), batch.y(i), batch.z(i));
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Writer: replace the log with the next generation holding only the given sightings
+     */
+    private void rewrite(SightingBatch latest) {
+        if (log == null) {
+            return;
+        }
+        long nextGeneration = generation + 1;
+        Path target = generationFile(nextGeneration);
+        Path temp = directory.resolve(name + ".compact.tmp");
+        try {
+            SightingLog.writeAll(temp, latest);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            SightingLog compacted = SightingLog.open(target);
+            SightingLog old = log;
+            log = compacted;
+            generation = nextGeneration;
+            old.close();
+            deleteOlderGenerations();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Writer: flush and close the log
+     */
+    private void closeLog() {
+        if (log == null) {
+            return;
+        }
+        try {
+            log.close();
+        } catch (IOException e) {
+            errorHandler.accept(e);
+        }
+        log = null;
+    }
+
+    private void fail(IOException e) {
+        errorHandler.accept(e);
+        if (log != null) {
+            try {
+                log.close();
+            } catch (IOException ignored) {
+                // Already reporting the first failure
+            }
+            log = null;
+        }
+    }
+
+    private long findNewestGeneration() throws IOException {
+        long newest = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, name + ".*.log")) {
+            for (Path file : files) {
+                long fileGeneration = parseGeneration(file);
+                if (fileGeneration > newest) {
+                    newest = fileGeneration;
+                }
+            }
+        }
+        return newest;
+    }
+
+    private void deleteOlderGenerations() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, name + ".*.log")) {
+            for (Path file : files) {
+                long fileGeneration = parseGeneration(file);
+                if (fileGeneration >= 0 && fileGeneration < generation) {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException e) {
+                        // Still mapped on some platforms - the next open removes it
+                    }
+                }
+            }
+        }
+    }
+
+    private long parseGeneration(Path file) {
+        String fileName = file.getFileName().toString();
+        String number = fileName.substring(name.length() + 1, fileName.length() - ".log".length());
+        try {
+            return Long.parseLong(number);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private Path generationFile(long fileGeneration) {
+        return directory.resolve(name + "." + fileGeneration + ".log");
+    }
+
+    /**
+     * @return Latest sighting of every known turtle (client thread only)
+     */
+    public SightingIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * @return true once the history saved by earlier sessions is part of the index
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * @return Records in the log file, including ones still queued for the writer
+     */
+    public long getLogRecords() {
+        return logRecords;
+    }
+}
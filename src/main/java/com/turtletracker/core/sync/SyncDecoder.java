@@ -0,0 +1,215 @@
+package com.turtletracker.core.sync;
+
+import com.turtletracker.core.EntityPositions;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Client end of the sync: applies frames from a {@link SyncEncoder} and exposes the result
+ * as {@link EntityPositions}
+ *
+ * The server only sends positions, so every entry reports the turtle's bounding box and eye
+ * height. Entries are dense and removed by swapping in the last one; indices are therefore
+ * only stable between two {@link #apply} calls, which is all a scan needs.
+ *
+ * Single-threaded: apply frames on the client thread.
+ */
+public final class SyncDecoder implements EntityPositions {
+
+    // Adult turtle dimensions; babies are smaller but the server does not say which is which
+    private static final float TURTLE_WIDTH = 1.2F;
+    private static final float TURTLE_HEIGHT = 0.4F;
+    private static final float TURTLE_EYE_HEIGHT = 0.34F;
+
+    /**
+     * Notified about entries leaving the view, so a tracker can drop their cached state
+     */
+    public interface Listener {
+        void onEntryRemoved(int entityId);
+
+        void onCleared();
+    }
+
+    private final Int2IntOpenHashMap slotById = new Int2IntOpenHashMap();
+    private int[] ids = new int[64];
+    private int[] qx = new int[64];
+    private int[] qy = new int[64];
+    private int[] qz = new int[64];
+    private double[] x = new double[64];
+    private double[] y = new double[64];
+    private double[] z = new double[64];
+    private int size = 0;
+
+    private Listener listener;
+
+    // Bumped on every applied change; feeds the scan scheduler's churn counter
+    private long changeCount = 0;
+    private long framesApplied = 0;
+
+    public SyncDecoder() {
+        slotById.defaultReturnValue(-1);
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Apply one frame
+     *
+     * @throws IllegalArgumentException if the frame is malformed or refers to unknown entries;
+     *                                  the caller should {@link #clear} and resubscribe
+     */
+    public void apply(byte[] frame) {
+        SyncReader reader = new SyncReader(frame);
+        int flags = reader.readByte();
+        if ((flags & SyncEncoder.FLAG_RESET) != 0) {
+            clear();
+        }
+
+        int removalCount = reader.readVarInt();
+        for (int i = 0; i < removalCount; i++) {
+            remove(reader.readVarInt());
+        }
+
+        int entryCount = reader.readVarInt();
+        for (int i = 0; i < entryCount; i++) {
+            long key = reader.readVarLong();
+            int id = (int) (key >>> 1);
+            int dx = reader.readSignedVarInt();
+            int dy = reader.readSignedVarInt();
+            int dz = reader.readSignedVarInt();
+            int slot = slotById.get(id);
+            if ((key & 1) != 0) {
+                if (slot < 0) {
+                    slot = add(id);
+                }
+                qx[slot] = dx;
+                qy[slot] = dy;
+                qz[slot] = dz;
+            } else {
+                if (slot < 0) {
+                    throw new IllegalArgumentException("Sync frame moves unknown entity " + id);
+                }
+                qx[slot] += dx;
+                qy[slot] += dy;
+                qz[slot] += dz;
+            }
+            x[slot] = SyncRegistry.dequantize(qx[slot]);
+            y[slot] = SyncRegistry.dequantize(qy[slot]);
+            z[slot] = SyncRegistry.dequantize(qz[slot]);
+        }
+        if (reader.hasRemaining()) {
+            throw new IllegalArgumentException("Sync frame has trailing data");
+        }
+        changeCount += removalCount + entryCount;
+        framesApplied++;
+    }
+
+    /**
+     * Forget every entry (disconnect, dimension change or a broken frame)
+     */
+    public void clear() {
+        slotById.clear();
+        size = 0;
+        changeCount++;
+        if (listener != null) {
+            listener.onCleared();
+        }
+    }
+
+    private int add(int id) {
+        int slot = size++;
+        if (slot == ids.length) {
+            int newSize = slot * 2;
+            ids = Arrays.copyOf(ids, newSize);
+            qx = Arrays.copyOf(qx, newSize);
+            qy = Arrays.copyOf(qy, newSize);
+            qz = Arrays.copyOf(qz, newSize);
+            x = Arrays.copyOf(x, newSize);
+            y = Arrays.copyOf(y, newSize);
+            z = Arrays.copyOf(z, newSize);
+        }
+        ids[slot] = id;
+        slotById.put(id, slot);
+        return slot;
+    }
+
+    private void remove(int id) {
+        int slot = slotById.remove(id);
+        if (slot < 0) {
+            return;
+        }
+        int last = --size;
+        if (slot != last) {
+            ids[slot] = ids[last];
+            qx[slot] = qx[last];
+            qy[slot] = qy[last];
+            qz[slot] = qz[last];
+            x[slot] = x[last];
+            y[slot] = y[last];
+            z[slot] = z[last];
+            slotById.put(ids[slot], slot);
+        }
+        if (listener != null) {
+            listener.onEntryRemoved(id);
+        }
+    }
+
+    /**
+     * @return Changes whenever an entry is added, moved or removed
+     */
+    public long getChangeCount() {
+        return changeCount;
+    }
+
+    public long getFramesApplied() {
+        return framesApplied;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int id(int index) {
+        return ids[index];
+    }
+
+    @Override
+    public int indexOf(int entityId) {
+        return slotById.get(entityId);
+    }
+
+    @Override
+    public double x(int index) {
+        return x[index];
+    }
+
+    @Override
+    public double y(int index) {
+        return y[index];
+    }
+
+    @Override
+    public double z(int index) {
+        return z[index];
+    }
+
+    @Override
+    public float width(int index) {
+        return TURTLE_WIDTH;
+    }
+
+    @Override
+    public float height(int index) {
+        return TURTLE_HEIGHT;
+    }
+
+    @Override
+    public float eyeHeight(int index) {
+        return TURTLE_EYE_HEIGHT;
+    }
+}
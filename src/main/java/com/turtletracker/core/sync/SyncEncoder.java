@@ -0,0 +1,215 @@
+package com.turtletracker.core.sync;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Encodes one subscriber's view of a {@link SyncRegistry} as delta frames
+ *
+ * The encoder remembers the quantized position it last sent for every entity, so a
+ * frame only carries entities that appeared, moved by at least one unit or left. Moves
+ * are sent as small signed deltas, new entities as absolute positions.
+ *
+ * Frame layout (all integers are VarInts, positions and deltas zigzag-encoded):
+ * flags byte ({@link #FLAG_RESET}: forget everything before applying), removal count
+ * and removed ids, entry count and per entry {@code id << 1 | isNew} followed by x, y, z.
+ *
+ * Bandwidth is capped with a token bucket refilled at the configured byte rate. Changes
+ * that do not fit stay pending and are picked up by later frames; entries are visited
+ * round-robin so a busy registry cannot starve any of them. Removals always go out.
+ *
+ * Single-threaded: call {@link #encode} from the server thread.
+ */
+public final class SyncEncoder {
+
+    // Frame flag: the receiver drops every entry it has before applying the frame
+    static final int FLAG_RESET = 1;
+
+    // Entity id -> slot in the sent arrays
+    private final Int2IntOpenHashMap sentSlotById = new Int2IntOpenHashMap();
+    private int[] sentIds = new int[64];
+    private int[] sentX = new int[64];
+    private int[] sentY = new int[64];
+    private int[] sentZ = new int[64];
+    private int sentCount = 0;
+
+    // Where the next frame resumes walking the registry
+    private int cursor = 0;
+    private boolean resetPending = true;
+
+    // Token bucket in bytes
+    private final double refillPerFrame;
+    private final double maxTokens;
+    private double tokens;
+
+    private final SyncWriter frame = new SyncWriter();
+    private final SyncWriter removals = new SyncWriter();
+    private final SyncWriter entries = new SyncWriter();
+
+    // Statistics
+    private long bytesSent = 0;
+    private int lastFrameEntries = 0;
+    private int lastFramePending = 0;
+
+    /**
+     * @param bytesPerSecond Average bandwidth cap for this subscriber
+     * @param frameIntervalTicks Ticks between {@link #encode} calls (20 ticks per second)
+     */
+    public SyncEncoder(int bytesPerSecond, int frameIntervalTicks) {
+        sentSlotById.defaultReturnValue(-1);
+        refillPerFrame = bytesPerSecond * Math.max(1, frameIntervalTicks) / 20.0;
+        maxTokens = Math.max(refillPerFrame, bytesPerSecond);
+        tokens = maxTokens;
+    }
+
+    /**
+     * Start over: the next frame tells the receiver to drop everything and resends every entry
+     * (used when the subscriber changes dimension)
+     */
+    public void reset() {
+        sentSlotById.clear();
+        sentCount = 0;
+        cursor = 0;
+        resetPending = true;
+    }
+
+    /**
+     * Build the next frame
+     *
+     * @param registry Current authoritative positions
+     * @return The encoded frame, or null when there is nothing to send
+     */
+    public byte[] encode(SyncRegistry registry) {
+        tokens = Math.min(maxTokens, tokens + refillPerFrame);
+        removals.clear();
+        entries.clear();
+
+        // Entities the receiver knows about that are gone
+        int removalCount = 0;
+        for (int slot = sentCount - 1; slot >= 0; slot--) {
+            int id = sentIds[slot];
+            if (!registry.contains(id)) {
+                removals.writeVarInt(id);
+                removeSent(slot);
+                removalCount++;
+            }
+        }
+
+        // New and moved entities, round-robin from where the last frame stopped
+        int budget = (int) tokens - removals.size() - 12;
+        int entryCount = 0;
+        int pending = 0;
+        int size = registry.size();
+        if (cursor >= size) {
+            cursor = 0;
+        }
+        for (int visited = 0; visited < size; visited++) {
+            int slot = (cursor + visited) % size;
+            int id = registry.id(slot);
+            int sent = sentSlotById.get(id);
+            if (sent >= 0 && sentX[sent] == registry.qx(slot) && sentY[sent] == registry.qy(slot)
+                    && sentZ[sent] == registry.qz(slot)) {
+                continue;
+            }
+            if (entries.size() >= budget && entryCount > 0) {
+                // Out of bandwidth: count what is left and resume here next frame
+                if (pending == 0) {
+                    cursor = slot;
+                }
+                pending++;
+                continue;
+            }
+            if (sent < 0) {
+                entries.writeVarLong(((long) id << 1) | 1);
+                entries.writeSignedVarInt(registry.qx(slot));
+                entries.writeSignedVarInt(registry.qy(slot));
+                entries.writeSignedVarInt(registry.qz(slot));
+                sent = addSent(id);
+            } else {
+                entries.writeVarLong((long) id << 1);
+                entries.writeSignedVarInt(registry.qx(slot) - sentX[sent]);
+                entries.writeSignedVarInt(registry.qy(slot) - sentY[sent]);
+                entries.writeSignedVarInt(registry.qz(slot) - sentZ[sent]);
+            }
+            sentX[sent] = registry.qx(slot);
+            sentY[sent] = registry.qy(slot);
+            sentZ[sent] = registry.qz(slot);
+            entryCount++;
+        }
+        if (pending == 0) {
+            cursor = 0;
+        }
+        lastFrameEntries = entryCount;
+        lastFramePending = pending;
+
+        if (!resetPending && removalCount == 0 && entryCount == 0) {
+            return null;
+        }
+        frame.clear();
+        frame.writeByte(resetPending ? FLAG_RESET : 0);
+        frame.writeVarInt(removalCount);
+        frame.writeBytes(removals);
+        frame.writeVarInt(entryCount);
+        frame.writeBytes(entries);
+        resetPending = false;
+
+        tokens -= frame.size();
+        bytesSent += frame.size();
+        return frame.toByteArray();
+    }
+
+    private int addSent(int id) {
+        int slot = sentCount++;
+        if (slot == sentIds.length) {
+            int newSize = slot * 2;
+            sentIds = Arrays.copyOf(sentIds, newSize);
+            sentX = Arrays.copyOf(sentX, newSize);
+            sentY = Arrays.copyOf(sentY, newSize);
+            sentZ = Arrays.copyOf(sentZ, newSize);
+        }
+        sentIds[slot] = id;
+        sentSlotById.put(id, slot);
+        return slot;
+    }
+
+    private void removeSent(int slot) {
+        sentSlotById.remove(sentIds[slot]);
+        int last = --sentCount;
+        if (slot != last) {
+            sentIds[slot] = sentIds[last];
+            sentX[slot] = sentX[last];
+            sentY[slot] = sentY[last];
+            sentZ[slot] = sentZ[last];
+            sentSlotById.put(sentIds[slot], slot);
+        }
+    }
+
+    /**
+     * @return Entities the receiver currently knows about
+     */
+    public int getSentCount() {
+        return sentCount;
+    }
+
+    /**
+     * @return Total frame bytes produced
+     */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * @return Entries in the last frame
+     */
+    public int getLastFrameEntries() {
+        return lastFrameEntries;
+    }
+
+    /**
+     * @return Changed entries the last frame had no bandwidth left for
+     */
+    public int getLastFramePending() {
+        return lastFramePending;
+    }
+}
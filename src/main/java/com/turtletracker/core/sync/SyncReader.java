@@ -0,0 +1,51 @@
+package com.turtletracker.core.sync;
+
+/**
+ * Reads the encodings written by {@link SyncWriter}
+ * Any truncated or over-long value throws {@link IllegalArgumentException}.
+ */
+final class SyncReader {
+
+    private final byte[] data;
+    private int position = 0;
+
+    SyncReader(byte[] data) {
+        this.data = data;
+    }
+
+    int readByte() {
+        if (position >= data.length) {
+            throw new IllegalArgumentException("Sync frame ends early");
+        }
+        return data[position++] & 0xFF;
+    }
+
+    int readVarInt() {
+        long value = readVarLong();
+        if ((value >>> 32) != 0) {
+            throw new IllegalArgumentException("Sync frame value out of range");
+        }
+        return (int) value;
+    }
+
+    int readSignedVarInt() {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Sync frame value too long");
+    }
+
+    boolean hasRemaining() {
+        return position < data.length;
+    }
+}
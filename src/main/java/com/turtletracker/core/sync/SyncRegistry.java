@@ -0,0 +1,118 @@
+package com.turtletracker.core.sync;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Authoritative table of turtle positions for one dimension, quantized for syncing
+ *
+ * The server refreshes it from the live entities before encoding; every subscriber's
+ * {@link SyncEncoder} diffs it against what that subscriber was last sent. Positions are
+ * stored in 1/{@value #UNITS_PER_BLOCK} block units, so jitter below that never counts
+ * as movement. Entries are dense and removed by swapping in the last one.
+ */
+public final class SyncRegistry {
+
+    // Position resolution: 1/8 block is finer than any marker and keeps deltas to a byte
+    public static final int UNITS_PER_BLOCK = 8;
+
+    // Entity id -> slot
+    private final Int2IntOpenHashMap slotById = new Int2IntOpenHashMap();
+
+    private int[] ids = new int[64];
+    private int[] qx = new int[64];
+    private int[] qy = new int[64];
+    private int[] qz = new int[64];
+    private int size = 0;
+
+    public SyncRegistry() {
+        slotById.defaultReturnValue(-1);
+    }
+
+    /**
+     * Convert a block coordinate to sync units
+     */
+    public static int quantize(double coordinate) {
+        return (int) Math.round(coordinate * UNITS_PER_BLOCK);
+    }
+
+    /**
+     * Convert sync units back to a block coordinate
+     */
+    public static double dequantize(int units) {
+        return units / (double) UNITS_PER_BLOCK;
+    }
+
+    /**
+     * Add an entity or move it
+     */
+    public void update(int entityId, double x, double y, double z) {
+        int slot = slotById.get(entityId);
+        if (slot < 0) {
+            slot = size++;
+            if (slot == ids.length) {
+                int newSize = slot * 2;
+                ids = Arrays.copyOf(ids, newSize);
+                qx = Arrays.copyOf(qx, newSize);
+                qy = Arrays.copyOf(qy, newSize);
+                qz = Arrays.copyOf(qz, newSize);
+            }
+            ids[slot] = entityId;
+            slotById.put(entityId, slot);
+        }
+        qx[slot] = quantize(x);
+        qy[slot] = quantize(y);
+        qz[slot] = quantize(z);
+    }
+
+    /**
+     * Forget an entity, if known
+     */
+    public void remove(int entityId) {
+        int slot = slotById.remove(entityId);
+        if (slot < 0) {
+            return;
+        }
+        int last = --size;
+        if (slot != last) {
+            ids[slot] = ids[last];
+            qx[slot] = qx[last];
+            qy[slot] = qy[last];
+            qz[slot] = qz[last];
+            slotById.put(ids[slot], slot);
+        }
+    }
+
+    public void clear() {
+        slotById.clear();
+        size = 0;
+    }
+
+    public boolean contains(int entityId) {
+        return slotById.containsKey(entityId);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int id(int slot) {
+        return ids[slot];
+    }
+
+    /**
+     * @return Quantized X of the entry at a slot
+     */
+    public int qx(int slot) {
+        return qx[slot];
+    }
+
+    public int qy(int slot) {
+        return qy[slot];
+    }
+
+    public int qz(int slot) {
+        return qz[slot];
+    }
+}
@@ -0,0 +1,60 @@
+package com.turtletracker.core.sync;
+
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer with the variable-length integer encodings used by sync frames
+ * Unsigned values use 7-bit groups (like the game's own VarInt); signed values are
+ * zigzag-encoded first so small deltas of either sign stay small.
+ */
+final class SyncWriter {
+
+    private byte[] data = new byte[256];
+    private int size = 0;
+
+    void writeByte(int value) {
+        ensure(1);
+        data[size++] = (byte) value;
+    }
+
+    void writeVarInt(int value) {
+        writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    void writeSignedVarInt(int value) {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    void writeVarLong(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            data[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[size++] = (byte) value;
+    }
+
+    void writeBytes(SyncWriter other) {
+        ensure(other.size);
+        System.arraycopy(other.data, 0, data, size, other.size);
+        size += other.size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(data, size);
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > data.length) {
+            data = Arrays.copyOf(data, Math.max(size + extra, data.length * 2));
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.turtletracker.core.trace;
+
+import com.turtletracker.core.EntityPositions;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * One recorded client tick, reused by {@link TraceReader} for every frame it reads
+ *
+ * Holds the tick's inputs (player pose, scan churn counter, camera frustum and every
+ * indexed turtle), the line-of-sight answers the game computed and a hash of the
+ * snapshot the game published at the end of the tick.
+ */
+public final class TraceFrame implements EntityPositions {
+
+    static final int FLAG_RESET = 1;
+    static final int FLAG_GRID_CLEARED = 2;
+    static final int FLAG_SCANNED = 4;
+    static final int FLAG_FRUSTUM = 8;
+
+    private int flags;
+
+    // Player pose
+    private double playerX;
+    private double playerY;
+    private double playerZ;
+    private double eyeY;
+    private float yaw;
+    private float pitch;
+    private long churn;
+
+    // Captured frustum, valid when FLAG_FRUSTUM is set
+    private final float[] frustumMatrix = new float[16];
+    private double cameraX;
+    private double cameraY;
+    private double cameraZ;
+
+    // Every indexed turtle
+    private int entityCount;
+    private int[] ids = new int[64];
+    private double[] x = new double[64];
+    private double[] y = new double[64];
+    private double[] z = new double[64];
+    private float[] width = new float[64];
+    private float[] height = new float[64];
+    private float[] eyeHeight = new float[64];
+    private final Int2IntOpenHashMap indexById = new Int2IntOpenHashMap();
+
+    // Line-of-sight answers by target point (a tick has at most the raycast budget of them)
+    private int answerCount;
+    private double[] answerX = new double[32];
+    private double[] answerY = new double[32];
+    private double[] answerZ = new double[32];
+    private boolean[] answerClear = new boolean[32];
+
+    private long snapshotHash;
+
+    public TraceFrame() {
+        indexById.defaultReturnValue(-1);
+    }
+
+    /**
+     * Read the body of a frame (after its marker byte)
+     */
+    void read(DataInput in) throws IOException {
+        flags = in.readUnsignedByte();
+        playerX = in.readDouble();
+        playerY = in.readDouble();
+        playerZ = in.readDouble();
+        eyeY = in.readDouble();
+        yaw = in.readFloat();
+        pitch = in.readFloat();
+        churn = in.readLong();
+
+        if ((flags & FLAG_FRUSTUM) != 0) {
+            for (int i = 0; i < 16; i++) {
+                frustumMatrix[i] = in.readFloat();
+            }
+            cameraX = in.readDouble();
+            cameraY = in.readDouble();
+            cameraZ = in.readDouble();
+        }
+
+        entityCount = in.readInt();
+        ensureEntityCapacity(entityCount);
+        indexById.clear();
+        for (int i = 0; i < entityCount; i++) {
+            ids[i] = in.readInt();
+            x[i] = in.readDouble();
+            y[i] = in.readDouble();
+            z[i] = in.readDouble();
+            width[i] = in.readFloat();
+            height[i] = in.readFloat();
+            eyeHeight[i] = in.readFloat();
+            indexById.put(ids[i], i);
+        }
+
+        answerCount = in.readInt();
+        ensureAnswerCapacity(answerCount);
+        for (int i = 0; i < answerCount; i++) {
+            answerX[i] = in.readDouble();
+            answerY[i] = in.readDouble();
+            answerZ[i] = in.readDouble();
+            answerClear[i] = in.readBoolean();
+        }
+
+        snapshotHash = in.readLong();
+    }
+
+    private void ensureEntityCapacity(int size) {
+        if (size <= ids.length) {
+            return;
+        }
+        int newSize = Math.max(size, ids.length * 2);
+        ids = Arrays.copyOf(ids, newSize);
+        x = Arrays.copyOf(x, newSize);
+        y = Arrays.copyOf(y, newSize);
+        z = Arrays.copyOf(z, newSize);
+        width = Arrays.copyOf(width, newSize);
+        height = Arrays.copyOf(height, newSize);
+        eyeHeight = Arrays.copyOf(eyeHeight, newSize);
+    }
+
+    private void ensureAnswerCapacity(int size) {
+        if (size <= answerX.length) {
+            return;
+        }
+        int newSize = Math.max(size, answerX.length * 2);
+        answerX = Arrays.copyOf(answerX, newSize);
+        answerY = Arrays.copyOf(answerY, newSize);
+        answerZ = Arrays.copyOf(answerZ, newSize);
+        answerClear = Arrays.copyOf(answerClear, newSize);
+    }
+
+    /**
+     * @return 1 if the recorded line to this point was clear, 0 if blocked, -1 if it was never tested
+     */
+    public int findAnswer(double toX, double toY, double toZ) {
+        for (int i = 0; i < answerCount; i++) {
+            if (answerX[i] == toX && answerY[i] == toY && answerZ[i] == toZ) {
+                return answerClear[i] ? 1 : 0;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return true if the tracker changed level before this tick (visibility and scan history were reset)
+     */
+    public boolean isReset() {
+        return (flags & FLAG_RESET) != 0;
+    }
+
+    /**
+     * @return true if the turtle index was cleared before this tick
+     */
+    public boolean isGridCleared() {
+        return (flags & FLAG_GRID_CLEARED) != 0;
+    }
+
+    /**
+     * @return true if the recording ran the full scan this tick
+     */
+    public boolean isScanned() {
+        return (flags & FLAG_SCANNED) != 0;
+    }
+
+    /**
+     * @return true if a frustum had been captured when the tick ran
+     */
+    public boolean hasFrustum() {
+        return (flags & FLAG_FRUSTUM) != 0;
+    }
+
+    public double getPlayerX() {
+        return playerX;
+    }
+
+    public double getPlayerY() {
+        return playerY;
+    }
+
+    public double getPlayerZ() {
+        return playerZ;
+    }
+
+    public double getEyeY() {
+        return eyeY;
+    }
+
+    public float getYaw() {
+        return yaw;
+    }
+
+    public float getPitch() {
+        return pitch;
+    }
+
+    public long getChurn() {
+        return churn;
+    }
+
+    public float[] getFrustumMatrix() {
+        return frustumMatrix;
+    }
+
+    public double getCameraX() {
+        return cameraX;
+    }
+
+    public double getCameraY() {
+        return cameraY;
+    }
+
+    public double getCameraZ() {
+        return cameraZ;
+    }
+
+    /**
+     * @return Hash of the snapshot the recording published at the end of this tick
+     */
+    public long getSnapshotHash() {
+        return snapshotHash;
+    }
+
+    @Override
+    public int size() {
+        return entityCount;
+    }
+
+    @Override
+    public int id(int index) {
+        return ids[index];
+    }
+
+    @Override
+    public int indexOf(int entityId) {
+        return indexById.get(entityId);
+    }
+
+    @Override
+    public double x(int index) {
+        return x[index];
+    }
+
+    @Override
+    public double y(int index) {
+        return y[index];
+    }
+
+    @Override
+    public double z(int index) {
+        return z[index];
+    }
+
+    @Override
+    public float width(int index) {
+        return width[index];
+    }
+
+    @Override
+    public float height(int index) {
+        return height[index];
+    }
+
+    @Override
+    public float eyeHeight(int index) {
+        return eyeHeight[index];
+    }
+}
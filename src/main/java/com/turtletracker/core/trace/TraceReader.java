@@ -0,0 +1,91 @@
+package com.turtletracker.core.trace;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams the frames of a trace written by {@link TraceWriter}
+ * Only the current frame is held in memory, so recordings of any length can be replayed
+ */
+public final class TraceReader implements Closeable {
+
+    private final DataInputStream in;
+    private final TraceSettings settings;
+    private boolean finished = false;
+
+    private TraceReader(DataInputStream in, TraceSettings settings) {
+        this.in = in;
+        this.settings = settings;
+    }
+
+    /**
+     * Open a trace and read its header
+     *
+     * @param file The trace file
+     * @return The reader, positioned before the first frame
+     * @throws IOException If the file cannot be read or is not a trace of a supported version
+     */
+    public static TraceReader open(Path file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+            new GZIPInputStream(Files.newInputStream(file), 64 * 1024)));
+        try {
+            if (in.readInt() != TraceWriter.MAGIC) {
+                throw new IOException("Not a turtle tracker trace: " + file);
+            }
+            int version = in.readInt();
+            if (version != TraceWriter.FORMAT_VERSION) {
+                throw new IOException("Unsupported trace format version " + version + ": " + file);
+            }
+            return new TraceReader(in, TraceSettings.read(in));
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The tracker settings the trace was recorded with
+     */
+    public TraceSettings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Read the next frame into a reusable frame object
+     * A trace cut short (game crash) simply ends at the last complete frame
+     *
+     * @param frame The frame to fill
+     * @return false once there are no more frames
+     * @throws IOException If reading fails
+     */
+    public boolean next(TraceFrame frame) throws IOException {
+        if (finished) {
+            return false;
+        }
+        try {
+            int marker = in.readUnsignedByte();
+            if (marker == TraceWriter.MARKER_FRAME) {
+                frame.read(in);
+                return true;
+            }
+            if (marker != TraceWriter.MARKER_END) {
+                throw new IOException("Corrupt trace: unexpected marker " + marker);
+            }
+        } catch (EOFException e) {
+            // Truncated recording - stop at the last complete frame
+        }
+        finished = true;
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,182 @@
+package com.turtletracker.core.trace;
+
+import com.turtletracker.core.FrustumPlanes;
+import com.turtletracker.core.LatencyHistogram;
+import com.turtletracker.core.OcclusionOracle;
+import com.turtletracker.core.ScanScheduler;
+import com.turtletracker.core.TrackerCore;
+import com.turtletracker.core.ViewFilter;
+import com.turtletracker.core.VisibilityScheduler;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.IntPredicate;
+
+/**
+ * Headless replay of a recorded trace through the current {@link TrackerCore}
+ *
+ * Every frame is fed to a core built from the recorded settings, using the recorded
+ * frustum and line-of-sight answers instead of a level. The snapshot published after each
+ * tick is hashed and compared with the hash the recording stored, so a replay shows both
+ * how long each tick takes now and whether the output still matches the version that
+ * recorded it. Line-of-sight tests the recording never made count as clear.
+ *
+ * Usage: {@code TraceReplay <trace> [<trace> ...]}; exits with status 1 if any output differs.
+ */
+public final class TraceReplay {
+
+    /**
+     * @param frames Ticks replayed
+     * @param scans Ticks on which the replay ran the full scan
+     * @param scanMismatches Ticks where the replay and the recording disagreed on scanning
+     * @param outputMismatches Ticks whose snapshot differed from the recording
+     * @param firstMismatchFrame First frame with a different snapshot, -1 if none
+     * @param missingAnswers Line-of-sight tests that had no recorded answer
+     * @param tickNanos Replay cost per tick
+     */
+    public record Report(long frames, long scans, long scanMismatches, long outputMismatches,
+                         long firstMismatchFrame, long missingAnswers, LatencyHistogram tickNanos) {
+
+        public boolean matches() {
+            return outputMismatches == 0;
+        }
+    }
+
+    private TraceReplay() {
+    }
+
+    /**
+     * Replay a trace from start to end
+     *
+     * @param file The trace to replay
+     * @return What the replay measured and found
+     * @throws IOException If the trace cannot be read
+     */
+    public static Report run(Path file) throws IOException {
+        try (TraceReader reader = TraceReader.open(file)) {
+            TraceSettings settings = reader.getSettings();
+            TrackerCore core = new TrackerCore(
+                new VisibilityScheduler(settings.raycastBudget(), settings.visibilityTtlTicks(),
+                    settings.visibilityMoveThreshold()),
+                new ScanScheduler(settings.adaptiveScan(), settings.scanIdleIntervalTicks(),
+                    settings.scanMaxStaleTicks()));
+            IntPredicate visibleById = core::isVisible;
+            FrustumPlanes frustum = new FrustumPlanes();
+            TraceFrame frame = new TraceFrame();
+            LatencyHistogram tickNanos = new LatencyHistogram();
+
+            long[] missingAnswers = new long[1];
+            OcclusionOracle recordedAnswers = (fromX, fromY, fromZ, toX, toY, toZ) -> {
+                int answer = frame.findAnswer(toX, toY, toZ);
+                if (answer < 0) {
+                    missingAnswers[0]++;
+                    return true;
+                }
+                return answer == 1;
+            };
+
+            // Ids of the previous frame, to drop turtles that unloaded in between
+            int[] previousIds = new int[0];
+            int previousCount = 0;
+
+            long frames = 0;
+            long scans = 0;
+            long scanMismatches = 0;
+            long outputMismatches = 0;
+            long firstMismatchFrame = -1;
+
+            while (reader.next(frame)) {
+                if (frame.hasFrustum()) {
+                    frustum.set(frame.getFrustumMatrix(), frame.getCameraX(), frame.getCameraY(), frame.getCameraZ());
+                } else {
+                    frustum.reset();
+                }
+                ViewFilter filter = settings.frustumCulling() ? frustum : ViewFilter.ALL;
+
+                long start = System.nanoTime();
+                if (frame.isGridCleared()) {
+                    core.onEntitiesCleared();
+                } else {
+                    for (int i = 0; i < previousCount; i++) {
+                        if (frame.indexOf(previousIds[i]) < 0) {
+                            core.onEntityRemoved(previousIds[i]);
+                        }
+                    }
+                }
+                if (frame.isReset()) {
+                    core.reset();
+                }
+
+                double maxMoveSqr = core.updateGrid(frame, frame.getPlayerX(), frame.getPlayerY(), frame.getPlayerZ(),
+                    settings.searchRadius(), settings.cylinderSearch(), settings.searchHalfHeight());
+                boolean scanned = core.shouldScan(frame.getPlayerX(), frame.getPlayerY(), frame.getPlayerZ(),
+                    frame.getYaw(), frame.getPitch(), maxMoveSqr, frame.getChurn());
+                if (scanned) {
+                    core.query(frame, frame.getPlayerX(), frame.getPlayerY(), frame.getPlayerZ(),
+                        settings.searchRadius(), settings.cylinderSearch(), settings.searchHalfHeight());
+                    core.filter(frame, filter);
+                    core.updateVisibility(frame, frame.getPlayerX(), frame.getEyeY(), frame.getPlayerZ(),
+                        recordedAnswers);
+                    core.publishSnapshot(frame, visibleById);
+                    scans++;
+                }
+                tickNanos.record(System.nanoTime() - start);
+
+                if (scanned != frame.isScanned()) {
+                    scanMismatches++;
+                }
+                if (core.getSnapshot().contentHash() != frame.getSnapshotHash()) {
+                    if (outputMismatches == 0) {
+                        firstMismatchFrame = frames;
+                    }
+                    outputMismatches++;
+                }
+
+                if (previousIds.length < frame.size()) {
+                    previousIds = Arrays.copyOf(previousIds, Math.max(frame.size(), previousIds.length * 2));
+                }
+                for (int i = 0; i < frame.size(); i++) {
+                    previousIds[i] = frame.id(i);
+                }
+                previousCount = frame.size();
+                frames++;
+            }
+
+            return new Report(frames, scans, scanMismatches, outputMismatches, firstMismatchFrame,
+                missingAnswers[0], tickNanos);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: TraceReplay <trace> [<trace> ...]");
+            System.exit(2);
+        }
+
+        boolean allMatch = true;
+        for (String arg : args) {
+            Report report = run(Path.of(arg));
+            LatencyHistogram ticks = report.tickNanos();
+            System.out.println(arg);
+            System.out.printf(Locale.ROOT, "  %d ticks, %d scans (%d scan decisions differ)%n",
+                report.frames(), report.scans(), report.scanMismatches());
+            System.out.printf(Locale.ROOT, "  tick cost (us): mean %.1f, p50 %.1f, p99 %.1f, max %.1f%n",
+                ticks.getMean() / 1000.0, ticks.getPercentile(50.0) / 1000.0,
+                ticks.getPercentile(99.0) / 1000.0, ticks.getMax() / 1000.0);
+            if (report.missingAnswers() > 0) {
+                System.out.printf(Locale.ROOT, "  %d line-of-sight tests were not in the recording (treated as clear)%n",
+                    report.missingAnswers());
+            }
+            if (report.matches()) {
+                System.out.println("  output matches the recording");
+            } else {
+                System.out.printf(Locale.ROOT, "  OUTPUT DIFFERS on %d ticks, first at tick %d%n",
+                    report.outputMismatches(), report.firstMismatchFrame());
+                allMatch = false;
+            }
+        }
+        System.exit(allMatch ? 0 : 1);
+    }
+}
@@ -0,0 +1,34 @@
+package com.turtletracker.core.trace;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Tracker settings a trace was recorded with; the replay builds its core from these
+ */
+public record TraceSettings(double searchRadius, boolean cylinderSearch, double searchHalfHeight,
+                            int raycastBudget, int visibilityTtlTicks, double visibilityMoveThreshold,
+                            boolean adaptiveScan, int scanIdleIntervalTicks, int scanMaxStaleTicks,
+                            boolean frustumCulling) {
+
+    void write(DataOutput out) throws IOException {
+        out.writeDouble(searchRadius);
+        out.writeBoolean(cylinderSearch);
+        out.writeDouble(searchHalfHeight);
+        out.writeInt(raycastBudget);
+        out.writeInt(visibilityTtlTicks);
+        out.writeDouble(visibilityMoveThreshold);
+        out.writeBoolean(adaptiveScan);
+        out.writeInt(scanIdleIntervalTicks);
+        out.writeInt(scanMaxStaleTicks);
+        out.writeBoolean(frustumCulling);
+    }
+
+    static TraceSettings read(DataInput in) throws IOException {
+        return new TraceSettings(in.readDouble(), in.readBoolean(), in.readDouble(),
+            in.readInt(), in.readInt(), in.readDouble(),
+            in.readBoolean(), in.readInt(), in.readInt(),
+            in.readBoolean());
+    }
+}
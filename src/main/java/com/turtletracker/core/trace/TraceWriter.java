@@ -0,0 +1,206 @@
+package com.turtletracker.core.trace;
+
+import com.turtletracker.core.EntityPositions;
+import com.turtletracker.core.FrustumPlanes;
+import com.turtletracker.core.OcclusionOracle;
+import com.turtletracker.core.TrackerSnapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Records one tracker frame per client tick into a gzip-compressed binary trace
+ *
+ * Layout: magic, format version, {@link TraceSettings}, then one marker byte plus
+ * frame body per tick (see {@link TraceFrame}) and a final end marker. Frames are
+ * written straight to the stream, so memory use does not grow with the recording.
+ *
+ * Line-of-sight answers are captured by the oracle returned from {@link #wrap}; they
+ * are collected during the tick and written with the tick's frame.
+ */
+public final class TraceWriter implements Closeable {
+
+    static final int MAGIC = 0x54545243; // "TTRC"
+    static final int FORMAT_VERSION = 1;
+    static final int MARKER_END = 0;
+    static final int MARKER_FRAME = 1;
+
+    private final DataOutputStream out;
+
+    // Answers collected since the last frame
+    private int answerCount = 0;
+    private double[] answerX = new double[32];
+    private double[] answerY = new double[32];
+    private double[] answerZ = new double[32];
+    private boolean[] answerClear = new boolean[32];
+
+    // Flags raised by events between two frames
+    private boolean pendingReset = false;
+    private boolean pendingGridCleared = false;
+
+    private long frames = 0;
+
+    private TraceWriter(DataOutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Create (or overwrite) a trace file and write its header
+     *
+     * @param file Where to write
+     * @param settings The tracker settings in effect
+     * @return The open writer
+     * @throws IOException If the file cannot be created
+     */
+    public static TraceWriter open(Path file, TraceSettings settings) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+            new GZIPOutputStream(Files.newOutputStream(file), 64 * 1024)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            settings.write(out);
+        } catch (IOException e) {
+            out.close();
+            throw e;
+        }
+        return new TraceWriter(out);
+    }
+
+    /**
+     * @param oracle The oracle the tracker would use
+     * @return An oracle with the same answers that also records them into the next frame
+     */
+    public OcclusionOracle wrap(OcclusionOracle oracle) {
+        return (fromX, fromY, fromZ, toX, toY, toZ) -> {
+            boolean clear = oracle.isLineClear(fromX, fromY, fromZ, toX, toY, toZ);
+            recordAnswer(toX, toY, toZ, clear);
+            return clear;
+        };
+    }
+
+    private void recordAnswer(double toX, double toY, double toZ, boolean clear) {
+        if (answerCount == answerX.length) {
+            int newSize = answerCount * 2;
+            answerX = Arrays.copyOf(answerX, newSize);
+            answerY = Arrays.copyOf(answerY, newSize);
+            answerZ = Arrays.copyOf(answerZ, newSize);
+            answerClear = Arrays.copyOf(answerClear, newSize);
+        }
+        answerX[answerCount] = toX;
+        answerY[answerCount] = toY;
+        answerZ[answerCount] = toZ;
+        answerClear[answerCount] = clear;
+        answerCount++;
+    }
+
+    /**
+     * The tracker reset its visibility cache and scan history (level change)
+     */
+    public void markReset() {
+        pendingReset = true;
+    }
+
+    /**
+     * The entity source dropped every entity, so the spatial grid was cleared
+     */
+    public void markGridCleared() {
+        pendingGridCleared = true;
+    }
+
+    /**
+     * Write the frame for the tick that just ran
+     *
+     * @param playerX Player X
+     * @param playerY Player Y
+     * @param playerZ Player Z
+     * @param eyeY Player eye Y
+     * @param yaw Camera yaw in degrees
+     * @param pitch Camera pitch in degrees
+     * @param churn The churn counter passed to the scan scheduler
+     * @param frustum The view filter's frustum, or null when culling is off
+     * @param entities Every entity passed to the grid update
+     * @param scanned Whether the full scan ran
+     * @param snapshot The snapshot published at the end of the tick
+     * @throws IOException If writing fails
+     */
+    public void writeFrame(double playerX, double playerY, double playerZ, double eyeY, float yaw, float pitch,
+                           long churn, FrustumPlanes frustum, EntityPositions entities, boolean scanned,
+                           TrackerSnapshot snapshot) throws IOException {
+        boolean hasFrustum = frustum != null && frustum.isSet();
+        int flags = (pendingReset ? TraceFrame.FLAG_RESET : 0)
+            | (pendingGridCleared ? TraceFrame.FLAG_GRID_CLEARED : 0)
+            | (scanned ? TraceFrame.FLAG_SCANNED : 0)
+            | (hasFrustum ? TraceFrame.FLAG_FRUSTUM : 0);
+
+        out.writeByte(MARKER_FRAME);
+        out.writeByte(flags);
+        out.writeDouble(playerX);
+        out.writeDouble(playerY);
+        out.writeDouble(playerZ);
+        out.writeDouble(eyeY);
+        out.writeFloat(yaw);
+        out.writeFloat(pitch);
+        out.writeLong(churn);
+
+        if (hasFrustum) {
+            float[] matrix = frustum.getMatrix();
+            for (int i = 0; i < 16; i++) {
+                out.writeFloat(matrix[i]);
+            }
+            out.writeDouble(frustum.getCameraX());
+            out.writeDouble(frustum.getCameraY());
+            out.writeDouble(frustum.getCameraZ());
+        }
+
+        out.writeInt(entities.size());
+        for (int i = 0; i < entities.size(); i++) {
+            out.writeInt(entities.id(i));
+            out.writeDouble(entities.x(i));
+            out.writeDouble(entities.y(i));
+            out.writeDouble(entities.z(i));
+            out.writeFloat(entities.width(i));
+            out.writeFloat(entities.height(i));
+            out.writeFloat(entities.eyeHeight(i));
+        }
+
+        out.writeInt(answerCount);
+        for (int i = 0; i < answerCount; i++) {
+            out.writeDouble(answerX[i]);
+            out.writeDouble(answerY[i]);
+            out.writeDouble(answerZ[i]);
+            out.writeBoolean(answerClear[i]);
+        }
+
+        out.writeLong(snapshot.contentHash());
+
+        answerCount = 0;
+        pendingReset = false;
+        pendingGridCleared = false;
+        frames++;
+    }
+
+    /**
+     * @return Number of frames written so far
+     */
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     * Write the end marker and close the file
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            out.writeByte(MARKER_END);
+        } finally {
+            out.close();
+        }
+    }
+}
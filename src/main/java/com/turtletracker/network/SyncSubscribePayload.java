@@ -0,0 +1,30 @@
+package com.turtletracker.network;
+
+import com.turtletracker.TurtleTrackerMod;
+import io.netty.buffer.ByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+
+/**
+ * Client to server: start (or restart from scratch) the turtle position sync for this player
+ *
+ * @param protocol The frame format the client understands; the server ignores other versions
+ */
+public record SyncSubscribePayload(int protocol) implements CustomPacketPayload {
+
+    // Bump whenever the frame layout changes
+    public static final int PROTOCOL = 1;
+
+    public static final Type<SyncSubscribePayload> TYPE =
+        new Type<>(ResourceLocation.fromNamespaceAndPath(TurtleTrackerMod.MOD_ID, "sync_subscribe"));
+
+    public static final StreamCodec<ByteBuf, SyncSubscribePayload> CODEC =
+        ByteBufCodecs.VAR_INT.map(SyncSubscribePayload::new, SyncSubscribePayload::protocol);
+
+    @Override
+    public Type<SyncSubscribePayload> type() {
+        return TYPE;
+    }
+}
@@ -0,0 +1,26 @@
+package com.turtletracker.network;
+
+import com.turtletracker.TurtleTrackerMod;
+import io.netty.buffer.ByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+
+/**
+ * Server to client: one delta frame from the sync companion
+ * The frame is encoded by {@link com.turtletracker.core.sync.SyncEncoder} and kept opaque here.
+ */
+public record TurtleSyncPayload(byte[] data) implements CustomPacketPayload {
+
+    public static final Type<TurtleSyncPayload> TYPE =
+        new Type<>(ResourceLocation.fromNamespaceAndPath(TurtleTrackerMod.MOD_ID, "turtle_sync"));
+
+    public static final StreamCodec<ByteBuf, TurtleSyncPayload> CODEC =
+        ByteBufCodecs.BYTE_ARRAY.map(TurtleSyncPayload::new, TurtleSyncPayload::data);
+
+    @Override
+    public Type<TurtleSyncPayload> type() {
+        return TYPE;
+    }
+}
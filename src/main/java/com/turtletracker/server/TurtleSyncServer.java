@@ -0,0 +1,215 @@
+package com.turtletracker.server;
+
+import com.turtletracker.TurtleTrackerMod;
+import com.turtletracker.config.TurtleTrackerConfig;
+import com.turtletracker.core.sync.SyncEncoder;
+import com.turtletracker.core.sync.SyncRegistry;
+import com.turtletracker.network.SyncSubscribePayload;
+import com.turtletracker.network.TurtleSyncPayload;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.animal.Turtle;
+import net.minecraft.world.level.Level;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Optional server companion: keeps an authoritative turtle table per dimension and streams
+ * it to subscribed clients as delta frames
+ *
+ * Turtles are collected from entity load and unload events, so the server never sweeps its
+ * entity lists. Every {@code syncIntervalTicks} the tables are refreshed from the live
+ * turtles and each subscriber's {@link SyncEncoder} sends only what changed since that
+ * subscriber's last frame, within its bandwidth cap. Clients opt in with a
+ * {@link SyncSubscribePayload}; without this mod on the server they simply never get a frame.
+ *
+ * Everything runs on the server thread.
+ */
+public class TurtleSyncServer {
+
+    // Table handed to subscribers in a dimension without turtles
+    private static final SyncRegistry EMPTY = new SyncRegistry();
+
+    private final Map<ResourceKey<Level>, LevelTurtles> levels = new HashMap<>();
+    private final Map<UUID, Subscriber> subscribers = new HashMap<>();
+
+    private final int intervalTicks = TurtleTrackerConfig.getSyncIntervalTicks();
+    private final int bytesPerSecond = TurtleTrackerConfig.getSyncBytesPerSecond();
+
+    // Statistics
+    private long framesSent = 0;
+    private long bytesSent = 0;
+
+    /**
+     * Hook the companion into the server events and start accepting subscriptions
+     */
+    public void register() {
+        registerEntityEvents();
+        ServerTickEvents.END_SERVER_TICK.register(this::onServerTick);
+        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) ->
+            subscribers.remove(handler.getPlayer().getUUID()));
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> clear());
+        ServerPlayNetworking.registerGlobalReceiver(SyncSubscribePayload.TYPE, (payload, context) ->
+            subscribe(context.player(), payload.protocol()));
+    }
+
+    /**
+     * Collect turtles from entity load and unload events only (the game tests check the tables without subscribers)
+     */
+    public void registerEntityEvents() {
+        ServerEntityEvents.ENTITY_LOAD.register(this::onEntityLoad);
+        ServerEntityEvents.ENTITY_UNLOAD.register(this::onEntityUnload);
+    }
+
+    private void onEntityLoad(Entity entity, ServerLevel world) {
+        if (entity instanceof Turtle turtle) {
+            levels.computeIfAbsent(world.dimension(), key -> new LevelTurtles()).turtles.put(turtle.getId(), turtle);
+        }
+    }
+
+    private void onEntityUnload(Entity entity, ServerLevel world) {
+        if (!(entity instanceof Turtle)) {
+            return;
+        }
+        LevelTurtles level = levels.get(world.dimension());
+        if (level != null) {
+            level.turtles.remove(entity.getId());
+            level.registry.remove(entity.getId());
+        }
+    }
+
+    /**
+     * Start a player's sync from scratch (a repeated subscription resends everything)
+     */
+    private void subscribe(ServerPlayer player, int protocol) {
+        if (protocol != SyncSubscribePayload.PROTOCOL) {
+            TurtleTrackerMod.LOGGER.info("Ignoring turtle sync subscription from {} with protocol {} (expected {})",
+                player.getScoreboardName(), protocol, SyncSubscribePayload.PROTOCOL);
+            return;
+        }
+        Subscriber subscriber = subscribers.get(player.getUUID());
+        if (subscriber == null) {
+            subscribers.put(player.getUUID(), new Subscriber(new SyncEncoder(bytesPerSecond, intervalTicks)));
+        } else {
+            subscriber.encoder.reset();
+            subscriber.dimension = null;
+        }
+    }
+
+    private void onServerTick(MinecraftServer server) {
+        if (subscribers.isEmpty() || server.getTickCount() % intervalTicks != 0) {
+            return;
+        }
+
+        // Bring every table up to date once, then diff it per subscriber
+        for (LevelTurtles level : levels.values()) {
+            for (Turtle turtle : level.turtles.values()) {
+                level.registry.update(turtle.getId(), turtle.getX(), turtle.getY(), turtle.getZ());
+            }
+        }
+
+        Iterator<Map.Entry<UUID, Subscriber>> iterator = subscribers.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<UUID, Subscriber> entry = iterator.next();
+            ServerPlayer player = server.getPlayerList().getPlayer(entry.getKey());
+            if (player == null) {
+                iterator.remove();
+                continue;
+            }
+            Subscriber subscriber = entry.getValue();
+
+            // Entity ids mean nothing across dimensions; start over with a reset frame
+            ResourceKey<Level> dimension = player.serverLevel().dimension();
+            if (dimension != subscriber.dimension) {
+                if (subscriber.dimension != null) {
+                    subscriber.encoder.reset();
+                }
+                subscriber.dimension = dimension;
+            }
+
+            LevelTurtles level = levels.get(dimension);
+            byte[] frame = subscriber.encoder.encode(level != null ? level.registry : EMPTY);
+            if (frame != null) {
+                ServerPlayNetworking.send(player, new TurtleSyncPayload(frame));
+                framesSent++;
+                bytesSent += frame.length;
+            }
+        }
+    }
+
+    /**
+     * Drop every table and subscription (server stopped; an integrated server can start again)
+     */
+    private void clear() {
+        levels.clear();
+        subscribers.clear();
+    }
+
+    /**
+     * @return Players currently receiving frames
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * @return Turtles known across all dimensions
+     */
+    public int getTrackedTurtles() {
+        int count = 0;
+        for (LevelTurtles level : levels.values()) {
+            count += level.turtles.size();
+        }
+        return count;
+    }
+
+    /**
+     * @param dimension The dimension to look in
+     * @param entityId The entity's id
+     * @return true if the entity is a loaded turtle in that dimension's table
+     */
+    public boolean isTracked(ResourceKey<Level> dimension, int entityId) {
+        LevelTurtles level = levels.get(dimension);
+        return level != null && level.turtles.containsKey(entityId);
+    }
+
+    public long getFramesSent() {
+        return framesSent;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * Loaded turtles of one dimension and the table they are synced from
+     */
+    private static final class LevelTurtles {
+        private final Int2ObjectOpenHashMap<Turtle> turtles = new Int2ObjectOpenHashMap<>();
+        private final SyncRegistry registry = new SyncRegistry();
+    }
+
+    /**
+     * One subscribed player's encoder and the dimension its last frame described
+     */
+    private static final class Subscriber {
+        private final SyncEncoder encoder;
+        private ResourceKey<Level> dimension;
+
+        private Subscriber(SyncEncoder encoder) {
+            this.encoder = encoder;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.turtletracker.core;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * The published buffer must always be one whole job: the count, the generation and every
+ * result from the same capture, never a mix of the previous job and one still being written
+ */
+class AsyncVisibilityPipelineTest {
+
+    private static final int MAX_ENTITIES = 500;
+    private static final int PUBLICATIONS = 1_000;
+
+    private final LineEntities entities = new LineEntities(MAX_ENTITIES);
+    private final TrackerCore core = new TrackerCore(new VisibilityScheduler(1, 1, 0.0), new ScanScheduler(false, 1, 1));
+    private AsyncVisibilityPipeline pipeline;
+
+    @AfterEach
+    void shutdown() {
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    void publishedBufferIsNeverHalfWritten() {
+        // Workers spin for a random while per ray, so jobs straddle ticks and slices finish out of order
+        pipeline = new AsyncVisibilityPipeline(4, (eyeX, eyeY, eyeZ, targetX, targetY, targetZ, count) ->
+            (fromX, fromY, fromZ, toX, toY, toZ) -> {
+                int spins = ThreadLocalRandom.current().nextInt(200);
+                for (int i = 0; i < spins; i++) {
+                    Thread.onSpinWait();
+                }
+                return expectedVisible((long) fromX, (int) toX);
+            });
+
+        // Tick each generation was captured on; the eye X carries the tick into the oracle
+        long[] tickOfGeneration = new long[1024];
+        int generations = 0;
+        long lastSeen = 0;
+        int publications = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+
+        // Tick as fast as possible, so most ticks read the front buffer while the workers write the back one
+        for (long tick = 1; publications < PUBLICATIONS; tick++) {
+            if (System.nanoTime() > deadline) {
+                fail("only " + publications + " jobs were published");
+            }
+            int skippedBefore = pipeline.getSkippedTicks();
+            filter(countAt(tick));
+            pipeline.tick(core, entities, tick, 64.0, 0.0);
+            if (pipeline.getSkippedTicks() == skippedBefore) {
+                if (++generations == tickOfGeneration.length) {
+                    tickOfGeneration = Arrays.copyOf(tickOfGeneration, generations * 2);
+                }
+                tickOfGeneration[generations] = tick;
+            }
+
+            AsyncVisibilityPipeline.VisibilityBuffer published = pipeline.getPublished();
+            long generation = published.getGeneration();
+            assertTrue(generation >= lastSeen, "published generation went backwards");
+            if (generation != lastSeen) {
+                publications++;
+                lastSeen = generation;
+            }
+            if (generation == 0) {
+                continue;
+            }
+            assertWholeJob(published, tickOfGeneration[(int) generation]);
+        }
+
+        assertEquals(0, pipeline.getFailedJobs());
+        assertTrue(pipeline.getSkippedTicks() > 0, "no tick ever overlapped a running job");
+    }
+
+    @Test
+    void clearDiscardsTheJobInFlight() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        pipeline = new AsyncVisibilityPipeline(2, (eyeX, eyeY, eyeZ, targetX, targetY, targetZ, count) ->
+            (fromX, fromY, fromZ, toX, toY, toZ) -> {
+                awaitQuietly(release);
+                return expectedVisible((long) fromX, (int) toX);
+            });
+
+        filter(countAt(1));
+        pipeline.tick(core, entities, 1, 64.0, 0.0);
+        pipeline.clear();
+        release.countDown();
+
+        // The cancelled job must never be published, however long it is given to finish
+        Thread.sleep(50);
+        filter(countAt(2));
+        pipeline.tick(core, entities, 2, 64.0, 0.0);
+        assertEquals(0, pipeline.getPublished().getGeneration());
+        assertEquals(0, pipeline.getPublished().getCount());
+
+        AsyncVisibilityPipeline.VisibilityBuffer published = tickUntilPublished(2, 3);
+        assertWholeJob(published, 2);
+    }
+
+    @Test
+    void failedJobKeepsThePreviousResults() {
+        pipeline = new AsyncVisibilityPipeline(2, (eyeX, eyeY, eyeZ, targetX, targetY, targetZ, count) ->
+            (fromX, fromY, fromZ, toX, toY, toZ) -> {
+                if ((long) fromX == 2) {
+                    throw new IllegalStateException("test failure");
+                }
+                return expectedVisible((long) fromX, (int) toX);
+            });
+
+        filter(countAt(1));
+        pipeline.tick(core, entities, 1, 64.0, 0.0);
+        AsyncVisibilityPipeline.VisibilityBuffer first = tickUntilPublished(1, 2);
+        assertWholeJob(first, 1);
+
+        // Job 2 was captured by the tick that published job 1; it throws and must be dropped
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (pipeline.getFailedJobs() == 0) {
+            if (System.nanoTime() > deadline) {
+                fail("the failing job was never collected");
+            }
+            filter(countAt(3));
+            pipeline.tick(core, entities, 3, 64.0, 0.0);
+            assertEquals(1, pipeline.getPublished().getGeneration());
+        }
+        assertWholeJob(pipeline.getPublished(), 1);
+    }
+
+    /**
+     * Check a published buffer against what the job captured on the given tick
+     */
+    private static void assertWholeJob(AsyncVisibilityPipeline.VisibilityBuffer buffer, long tick) {
+        int count = countAt(tick);
+        assertEquals(count, buffer.getCount(), "generation " + buffer.getGeneration() + " count");
+        for (int i = 0; i < MAX_ENTITIES; i++) {
+            boolean expected = i < count && expectedVisible(tick, i);
+            if (buffer.isVisible(LineEntities.idOf(i)) != expected) {
+                fail("generation " + buffer.getGeneration() + " (tick " + tick + ") has a wrong result for entity " + i);
+            }
+        }
+    }
+
+    /**
+     * Tick at a fixed eye X until the given generation is published
+     */
+    private AsyncVisibilityPipeline.VisibilityBuffer tickUntilPublished(long generation, long eyeX) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (pipeline.getPublished().getGeneration() < generation) {
+            if (System.nanoTime() > deadline) {
+                fail("generation " + generation + " was never published");
+            }
+            Thread.onSpinWait();
+            filter(countAt(eyeX));
+            pipeline.tick(core, entities, eyeX, 64.0, 0.0);
+        }
+        return pipeline.getPublished();
+    }
+
+    /**
+     * Run the core up to its filter with the first {@code count} entities in range
+     */
+    private void filter(int count) {
+        core.updateGrid(entities);
+        core.query(entities, 0.0, 64.0, 0.0, count, false, 0.0);
+        core.filter(entities, ViewFilter.ALL);
+        assertEquals(count, core.inViewCount());
+    }
+
+    private static int countAt(long tick) {
+        return 50 + (int) (tick * 37 % (MAX_ENTITIES - 50));
+    }
+
+    private static boolean expectedVisible(long tick, int index) {
+        return (tick * 31 + index) % 3 != 0;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Entities on a line along +X from the origin, entity i at x = i + 0.5,
+     * so a sphere of radius n around the origin holds exactly the first n
+     */
+    private static final class LineEntities implements EntityPositions {
+
+        private final int size;
+
+        LineEntities(int size) {
+            this.size = size;
+        }
+
+        static int idOf(int index) {
+            return index + 1000;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public int id(int index) {
+            return idOf(index);
+        }
+
+        @Override
+        public int indexOf(int entityId) {
+            int index = entityId - 1000;
+            return index >= 0 && index < size ? index : -1;
+        }
+
+        @Override
+        public double x(int index) {
+            return index + 0.5;
+        }
+
+        @Override
+        public double y(int index) {
+            return 64.0;
+        }
+
+        @Override
+        public double z(int index) {
+            return 0.0;
+        }
+
+        @Override
+        public float width(int index) {
+            return 0.5f;
+        }
+
+        @Override
+        public float height(int index) {
+            return 0.5f;
+        }
+
+        @Override
+        public float eyeHeight(int index) {
+            return 0.0f;
+        }
+    }
+}
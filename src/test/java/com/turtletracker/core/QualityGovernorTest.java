@@ -0,0 +1,84 @@
+package com.turtletracker.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.function.IntToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The governor must give quality back at a frame cap and must not trade it away when
+ * lowering it does not make anything faster
+ */
+class QualityGovernorTest {
+
+    private static final long MILLIS = 1_000_000L;
+    private static final int FRAMES_PER_TICK = 3;
+    private static final long TICK_NANOS = MILLIS;
+
+    @Test
+    void framesAtTheCapCountAsHeadroom() {
+        QualityGovernor governor = new QualityGovernor(true, 60, 10.0);
+        governor.setTargetFps(60, 60);
+
+        // A short spike costs one level
+        run(governor, 25, level -> 25 * MILLIS);
+        assertEquals(1, governor.getLevel());
+
+        // Back at the cap, give or take the usual jitter around 16.7 ms: quality must come back
+        long[] jitter = {16_000_000L, 17_300_000L, 16_700_000L};
+        int[] frame = {0};
+        run(governor, 400, level -> jitter[frame[0]++ % jitter.length]);
+        assertEquals(QualityGovernor.LEVEL_FULL, governor.getLevel());
+        assertEquals(1, governor.getStepsDown());
+    }
+
+    @Test
+    void gpuBoundGovernorHoldsAtFullQuality() {
+        // Frames are slow whatever the tracker does
+        QualityGovernor governor = new QualityGovernor(true, 60, 10.0);
+        run(governor, 2000, level -> 25 * MILLIS);
+
+        assertEquals(QualityGovernor.LEVEL_FULL, governor.getLevel());
+        assertEquals(1, governor.getStepsDown());
+        assertTrue(governor.isHolding());
+    }
+
+    @Test
+    void heavierLoadEndsTheHold() {
+        QualityGovernor governor = new QualityGovernor(true, 60, 10.0);
+        run(governor, 400, level -> 25 * MILLIS);
+        assertTrue(governor.isHolding());
+
+        // The scene gets much heavier: trying one more step is worth it, undoing it again when it does not help
+        run(governor, 400, level -> 35 * MILLIS);
+        assertEquals(QualityGovernor.LEVEL_FULL, governor.getLevel());
+        assertEquals(2, governor.getStepsDown());
+    }
+
+    @Test
+    void trackerBoundGovernorKeepsSteppingDown() {
+        // Each level takes 1.5 ms off a 20 ms frame; at level 3 frames fit the 16.7 ms budget
+        QualityGovernor governor = new QualityGovernor(true, 60, 10.0);
+        run(governor, 1000, level -> 20 * MILLIS - level * 1_500_000L);
+
+        assertEquals(QualityGovernor.LEVEL_LOD, governor.getLevel());
+        assertEquals(3, governor.getStepsDown());
+        assertFalse(governor.isHolding());
+    }
+
+    /**
+     * Feed frames whose time depends on the current level, then evaluate, once per tick
+     */
+    private static void run(QualityGovernor governor, int ticks, IntToLongFunction frameNanos) {
+        for (int tick = 0; tick < ticks; tick++) {
+            for (int frame = 0; frame < FRAMES_PER_TICK; frame++) {
+                governor.recordFrame(frameNanos.applyAsLong(governor.getLevel()));
+            }
+            governor.recordTick(TICK_NANOS);
+            governor.evaluate();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.turtletracker.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Standing still near a turtle beach must reach the idle scan rate, however much goes
+ * on outside the search volume
+ */
+class ScanActivityTest {
+
+    private static final double RADIUS = 64.0;
+    private static final int IDLE_INTERVAL = 10;
+
+    @Test
+    void farAwayActivityDoesNotKeepTheScanAwake() {
+        TwoTurtles turtles = new TwoTurtles();
+        TrackerCore core = new TrackerCore(new VisibilityScheduler(32, 10, 0.5),
+            new ScanScheduler(true, IDLE_INTERVAL, 20));
+        SectionChangeCounter blockChanges = new SectionChangeCounter();
+
+        for (int tick = 0; tick < 200; tick++) {
+            // A turtle 200 blocks away keeps wandering and blocks keep changing 100 blocks away
+            turtles.farX = 200.0 + (tick % 2) * 0.5;
+            blockChanges.setVolume(0.0, 64.0, 0.0, RADIUS, false, 0.0);
+            blockChanges.onBlockChanged(100, 64, 100);
+            double maxMoveSqr = core.updateGrid(turtles, 0.0, 64.0, 0.0, RADIUS, false, 0.0);
+            assertEquals(0.0, maxMoveSqr);
+            core.shouldScan(0.0, 64.0, 0.0, 0.0f, 0.0f, maxMoveSqr, blockChanges.getCount());
+        }
+        assertEquals(0, blockChanges.getCount());
+        assertEquals(IDLE_INTERVAL, core.getScanScheduler().getInterval());
+    }
+
+    @Test
+    void activityInsideTheVolumeStillCounts() {
+        TwoTurtles turtles = new TwoTurtles();
+        TrackerCore core = new TrackerCore(new VisibilityScheduler(32, 10, 0.5), new ScanScheduler(true, 1, 1));
+        SectionChangeCounter blockChanges = new SectionChangeCounter();
+        blockChanges.setVolume(0.0, 64.0, 0.0, RADIUS, false, 0.0);
+
+        core.updateGrid(turtles, 0.0, 64.0, 0.0, RADIUS, false, 0.0);
+        turtles.nearX += 0.5;
+        assertEquals(0.25, core.updateGrid(turtles, 0.0, 64.0, 0.0, RADIUS, false, 0.0), 1e-9);
+
+        // The section at x 64..79 still overlaps a volume reaching x = 64; the next one does not
+        blockChanges.onBlockChanged(79, 64, 0);
+        blockChanges.onBlockChanged(80, 64, 0);
+        assertEquals(1, blockChanges.getCount());
+
+        // A cylinder only reaches halfHeight up and down
+        blockChanges.setVolume(0.0, 64.0, 0.0, RADIUS, true, 8.0);
+        blockChanges.onBlockChanged(0, 100, 0);
+        blockChanges.onBlockChanged(0, 70, 0);
+        assertEquals(2, blockChanges.getCount());
+    }
+
+    /**
+     * One turtle inside the search volume and one far outside it
+     */
+    private static final class TwoTurtles implements EntityPositions {
+
+        double nearX = 5.0;
+        double farX = 200.0;
+
+        @Override
+        public int size() {
+            return 2;
+        }
+
+        @Override
+        public int id(int index) {
+            return index + 1;
+        }
+
+        @Override
+        public int indexOf(int entityId) {
+            return entityId >= 1 && entityId <= 2 ? entityId - 1 : -1;
+        }
+
+        @Override
+        public double x(int index) {
+            return index == 0 ? nearX : farX;
+        }
+
+        @Override
+        public double y(int index) {
+            return 64.0;
+        }
+
+        @Override
+        public double z(int index) {
+            return 0.0;
+        }
+
+        @Override
+        public float width(int index) {
+            return 1.2f;
+        }
+
+        @Override
+        public float height(int index) {
+            return 0.4f;
+        }
+
+        @Override
+        public float eyeHeight(int index) {
+            return 0.2f;
+        }
+    }
+}
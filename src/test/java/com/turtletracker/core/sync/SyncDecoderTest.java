@@ -0,0 +1,80 @@
+package com.turtletracker.core.sync;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Malformed frames must be rejected with {@link IllegalArgumentException}, never an index
+ * error or a silently wrong table, and a cleared decoder must accept the next reset frame
+ */
+class SyncDecoderTest {
+
+    private final SyncDecoder decoder = new SyncDecoder();
+
+    @Test
+    void emptyFrameIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> decoder.apply(new byte[0]));
+    }
+
+    @Test
+    void truncatedFrameIsRejected() {
+        byte[] frame = validFrame();
+        for (int length = 1; length < frame.length; length++) {
+            byte[] truncated = Arrays.copyOf(frame, length);
+            decoder.clear();
+            assertThrows(IllegalArgumentException.class, () -> decoder.apply(truncated),
+                "frame cut to " + length + " of " + frame.length + " bytes");
+        }
+    }
+
+    @Test
+    void trailingDataIsRejected() {
+        byte[] frame = Arrays.copyOf(validFrame(), validFrame().length + 1);
+        assertThrows(IllegalArgumentException.class, () -> decoder.apply(frame));
+    }
+
+    @Test
+    void moveOfUnknownEntityIsRejected() {
+        SyncWriter writer = new SyncWriter();
+        writer.writeByte(0);
+        writer.writeVarInt(0);
+        writer.writeVarInt(1);
+        writer.writeVarLong(42L << 1);
+        writer.writeSignedVarInt(1);
+        writer.writeSignedVarInt(0);
+        writer.writeSignedVarInt(-1);
+        assertThrows(IllegalArgumentException.class, () -> decoder.apply(writer.toByteArray()));
+    }
+
+    @Test
+    void overlongValueIsRejected() {
+        byte[] frame = new byte[12];
+        Arrays.fill(frame, 1, frame.length, (byte) 0xFF);
+        assertThrows(IllegalArgumentException.class, () -> decoder.apply(frame));
+    }
+
+    @Test
+    void clearedDecoderAcceptsTheNextResetFrame() {
+        assertThrows(IllegalArgumentException.class, () -> decoder.apply(new byte[]{0, 1}));
+        decoder.clear();
+
+        decoder.apply(validFrame());
+        assertEquals(2, decoder.size());
+        assertEquals(-2.5, decoder.x(decoder.indexOf(5)));
+        assertEquals(70.0, decoder.y(decoder.indexOf(6)));
+    }
+
+    /**
+     * A reset frame introducing entities 5 and 6
+     */
+    private static byte[] validFrame() {
+        SyncRegistry registry = new SyncRegistry();
+        registry.update(5, -2.5, 64.0, 1000.0);
+        registry.update(6, 3.0, 70.0, -1000.0);
+        return new SyncEncoder(100_000, 5).encode(registry);
+    }
+}
@@ -0,0 +1,183 @@
+package com.turtletracker.core.sync;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Frames from {@link SyncEncoder} must leave a {@link SyncDecoder} holding exactly the
+ * registry, to within one sync unit, whatever the bandwidth cap lets through per frame
+ */
+class SyncEncoderTest {
+
+    private static final double UNIT = 1.0 / SyncRegistry.UNITS_PER_BLOCK;
+
+    private final SyncRegistry registry = new SyncRegistry();
+    private final SyncDecoder decoder = new SyncDecoder();
+    private final RecordingListener listener = new RecordingListener();
+
+    SyncEncoderTest() {
+        decoder.setListener(listener);
+    }
+
+    @Test
+    void newMovedAndRemovedEntriesRoundTrip() {
+        SyncEncoder encoder = new SyncEncoder(100_000, 5);
+        registry.update(1, 10.0, 64.0, -20.0);
+        registry.update(2, -3000.5, 70.25, 4000.125);
+        registry.update(3, 0.0, -60.0, 0.0);
+        decoder.apply(encoder.encode(registry));
+        assertMatchesRegistry();
+
+        registry.update(2, -3001.0, 70.25, 4002.5);
+        registry.remove(3);
+        registry.update(4, 512.0, 80.0, 512.0);
+        decoder.apply(encoder.encode(registry));
+        assertMatchesRegistry();
+        assertEquals(List.of(3), listener.removed);
+        assertEquals(3, encoder.getSentCount());
+
+        // Jitter below one unit is not movement, so there is nothing to send
+        registry.update(1, 10.0 + UNIT * 0.4, 64.0, -20.0);
+        assertNull(encoder.encode(registry));
+    }
+
+    @Test
+    void firstFrameAndResetFramesStartTheReceiverOver() {
+        SyncEncoder encoder = new SyncEncoder(100_000, 5);
+
+        // Even with nothing to report the first frame goes out, so the receiver drops what it had
+        byte[] first = encoder.encode(registry);
+        assertNotNull(first);
+        assertEquals(SyncEncoder.FLAG_RESET, first[0]);
+        assertNull(encoder.encode(registry));
+
+        registry.update(1, 1.0, 2.0, 3.0);
+        registry.update(2, 4.0, 5.0, 6.0);
+        decoder.apply(encoder.encode(registry));
+
+        // An entry from the previous dimension that the new one does not have
+        registry.remove(2);
+        registry.update(7, 7.0, 7.0, 7.0);
+        encoder.reset();
+        listener.cleared = 0;
+
+        byte[] reset = encoder.encode(registry);
+        assertEquals(SyncEncoder.FLAG_RESET, reset[0]);
+        decoder.apply(reset);
+        assertEquals(1, listener.cleared);
+        assertMatchesRegistry();
+        assertEquals(2, encoder.getSentCount());
+        assertNull(encoder.encode(registry));
+    }
+
+    @Test
+    void bandwidthCapHoldsAndPendingEntriesCatchUp() {
+        int bytesPerSecond = 400;
+        int intervalTicks = 10;
+        double refillPerFrame = bytesPerSecond * intervalTicks / 20.0;
+        SyncEncoder encoder = new SyncEncoder(bytesPerSecond, intervalTicks);
+
+        for (int id = 0; id < 500; id++) {
+            registry.update(id, id * 37.0 - 9000.0, 64.0 + id % 50, 9000.0 - id * 11.0);
+        }
+
+        long bytes = 0;
+        int frames = 0;
+        boolean sawPending = false;
+        while (encoder.getSentCount() < registry.size() || encoder.getLastFramePending() > 0) {
+            byte[] frame = encoder.encode(registry);
+            frames++;
+            assertTrue(frames < 1_000, "pending entries never caught up");
+            if (frame != null) {
+                bytes += frame.length;
+                decoder.apply(frame);
+            }
+            sawPending |= encoder.getLastFramePending() > 0;
+
+            // The bucket starts full at one second's worth; past that only the refill may be spent,
+            // give or take the one entry that is allowed to overshoot the budget
+            double allowed = Math.max(refillPerFrame, bytesPerSecond) + frames * refillPerFrame + 32;
+            assertTrue(bytes <= allowed, "sent " + bytes + " bytes in " + frames + " frames, cap allows " + allowed);
+        }
+        assertTrue(sawPending, "the cap never held anything back");
+        assertTrue(frames > 5, "500 new entries fit in " + frames + " frames");
+        assertMatchesRegistry();
+        assertEquals(bytes, encoder.getBytesSent());
+    }
+
+    @Test
+    void roundRobinServesEveryMovingEntry() {
+        // Every entry moves every frame, but the cap only lets a fraction through each time
+        SyncEncoder encoder = new SyncEncoder(600, 5);
+        int count = 200;
+        for (int id = 0; id < count; id++) {
+            registry.update(id, id, 64.0, 0.0);
+        }
+
+        int frames = 60;
+        int minEntries = Integer.MAX_VALUE;
+        int[] lastUpdated = new int[count];
+        double[] lastX = new double[count];
+        for (int frame = 1; frame <= frames; frame++) {
+            for (int id = 0; id < count; id++) {
+                registry.update(id, id + frame * 2.0, 64.0, 0.0);
+            }
+            decoder.apply(encoder.encode(registry));
+            if (frame > 1) {
+                minEntries = Math.min(minEntries, encoder.getLastFrameEntries());
+            }
+            for (int id = 0; id < count; id++) {
+                int index = decoder.indexOf(id);
+                if (index >= 0 && decoder.x(index) != lastX[id]) {
+                    lastX[id] = decoder.x(index);
+                    lastUpdated[id] = frame;
+                }
+            }
+        }
+        assertTrue(minEntries < count, "the cap never held anything back");
+
+        // A full lap of the registry takes count / minEntries frames, plus one for the wrap
+        int lap = (count + minEntries - 1) / minEntries + 1;
+        for (int id = 0; id < count; id++) {
+            assertTrue(frames - lastUpdated[id] <= lap,
+                "entry " + id + " last updated in frame " + lastUpdated[id] + " of " + frames + ", lap is " + lap);
+        }
+    }
+
+    /**
+     * Decoder entries must be the registry's, at its quantized positions
+     */
+    private void assertMatchesRegistry() {
+        assertEquals(registry.size(), decoder.size());
+        for (int slot = 0; slot < registry.size(); slot++) {
+            int index = decoder.indexOf(registry.id(slot));
+            assertTrue(index >= 0, "entry " + registry.id(slot) + " missing");
+            assertEquals(SyncRegistry.dequantize(registry.qx(slot)), decoder.x(index));
+            assertEquals(SyncRegistry.dequantize(registry.qy(slot)), decoder.y(index));
+            assertEquals(SyncRegistry.dequantize(registry.qz(slot)), decoder.z(index));
+        }
+    }
+
+    private static final class RecordingListener implements SyncDecoder.Listener {
+
+        final List<Integer> removed = new ArrayList<>();
+        int cleared = 0;
+
+        @Override
+        public void onEntryRemoved(int entityId) {
+            removed.add(entityId);
+        }
+
+        @Override
+        public void onCleared() {
+            cleared++;
+        }
+    }
+}